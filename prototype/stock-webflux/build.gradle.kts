@@ -2,6 +2,7 @@ plugins {
 	java
 	id("org.springframework.boot") version "3.5.4"
 	id("io.spring.dependency-management") version "1.1.7"
+	id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.project"
@@ -36,6 +37,7 @@ dependencies {
 	annotationProcessor("org.projectlombok:lombok")
 	testImplementation("org.springframework.boot:spring-boot-starter-test")
 	testImplementation("io.projectreactor:reactor-test")
+	testImplementation("io.projectreactor.tools:blockhound:1.0.17.RELEASE")
 	testImplementation("org.springframework.security:spring-security-test")
 	testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 
@@ -62,3 +64,31 @@ dependencyManagement {
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
+
+// 이벤트 루프 블로킹 검사(BlockHound 에이전트를 설치하는 @Tag("blockhound") 테스트만). 일반 test 에서는 제외:
+// 한 번 설치하면 JVM 전체에 걸리므로 별도 JVM 으로 돌린다. gradle blockHoundTest (check 에 포함)
+val blockHoundTest by tasks.registering(Test::class) {
+	description = "Runs tests that fail when blocking or long CPU work hits Netty/Reactor non-blocking threads."
+	group = "verification"
+	testClassesDirs = sourceSets.test.get().output.classesDirs
+	classpath = sourceSets.test.get().runtimeClasspath
+	useJUnitPlatform { includeTags("blockhound") }
+	jvmArgs("-XX:+AllowRedefinitionToAddDeleteMethods")   // JDK 13+ 에서 BlockHound 계측에 필요
+	shouldRunAfter(tasks.test)
+}
+
+tasks.test {
+	useJUnitPlatform { excludeTags("blockhound") }
+}
+
+tasks.check {
+	dependsOn(blockHoundTest)
+}
+
+// 파싱/분기화 핫패스 벤치마크 (src/jmh). gradle jmh -Pjmh.includes=PriceParsing 처럼 일부만 실행
+jmh {
+	jmhVersion.set("1.37")
+	profilers.add("gc")   // 할당률(gc.alloc.rate.norm = op 당 바이트)
+	resultFormat.set("JSON")
+	(findProperty("jmh.includes") as String?)?.let { includes.add(it) }
+}
@@ -0,0 +1,165 @@
+package com.project.stock.temp;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * 벤치마크 입력. 응답 형태(필드 구성, 재제출 중복, YTD 누적, null 종가)를 실제 응답과 같게 맞추고
+ * 시가총액 규모별 크기만 바꾼 결정적 생성본이다(시드 고정 → 실행마다 같은 바이트)
+ * - SMALL : 상장 5년, 재제출 적음, 가격 3년
+ * - MID   : 12년, 가격 12년
+ * - MEGA  : 17년, 값마다 10-Q/10-K 비교기간으로 3번씩 재보고 + 정정공시, 가격 1984년~
+ */
+public enum BenchFixtures {
+    SMALL(5, 1, 3),
+    MID(12, 2, 12),
+    MEGA(17, 3, 41);
+
+    /** 재무 이력 연수 */
+    final int fiscalYears;
+    /** 같은 값이 다른 공시에 비교기간으로 다시 실리는 횟수 */
+    final int reports;
+    /** 일봉 가격 이력 연수 */
+    final int priceYears;
+
+    BenchFixtures(int fiscalYears, int reports, int priceYears) {
+        this.fiscalYears = fiscalYears;
+        this.reports = reports;
+        this.priceYears = priceYears;
+    }
+
+    private static final int LAST_FY = 2024;
+
+    /**
+     * companyconcept duration 계정(매출 등): 분기(3개월) + Q2/Q3 YTD + FY
+     * 10-Q 는 분기·YTD, 10-K 는 FY 를 싣고, 이후 공시들이 같은 값을 비교기간으로 다시 싣는다
+     */
+    byte[] conceptDurationJson() {
+        Random rnd = new Random(31L * ordinal() + 1);
+        StringBuilder sb = new StringBuilder(1 << 16);
+        sb.append("{\"cik\":320193,\"taxonomy\":\"us-gaap\",\"tag\":\"Revenues\",\"label\":\"Revenues\",")
+                .append("\"description\":\"Amount of revenue recognized from goods sold, services rendered, insurance premiums, ")
+                .append("or other activities that constitute an earning process.\",\"entityName\":\"Bench Corp\",")
+                .append("\"units\":{\"USD\":[");
+        boolean first = true;
+        double base = 1e8 * (1 + ordinal() * 40);
+        for (int fy = LAST_FY - fiscalYears + 1; fy <= LAST_FY; fy++) {
+            double[] q = new double[4];
+            for (int i = 0; i < 4; i++) q[i] = Math.round(base * (1 + 0.02 * i + rnd.nextGaussian() * 0.03));
+            base *= 1.06;
+            LocalDate yearStart = LocalDate.of(fy - 1, 10, 1);   // 9월 결산
+            double ytd = 0;
+            for (int i = 0; i < 4; i++) {
+                LocalDate qs = yearStart.plusMonths(3L * i);
+                LocalDate qe = qs.plusMonths(3).minusDays(1);
+                ytd += q[i];
+                for (int r = 0; r < reports; r++) {
+                    int filedFy = fy + r;
+                    String fp = i == 3 ? "FY" : "Q" + (i + 1);
+                    String form = i == 3 ? "10-K" : "10-Q";
+                    if (i < 3) first = fact(sb, first, qs, qe, q[i], filedFy, fp, form, r == 0 ? "CY" + fy + "Q" + (i + 1) : null);
+                    if (i > 0) first = fact(sb, first, yearStart, qe, ytd, filedFy, fp, form, i == 3 && r == 0 ? "CY" + fy : null);
+                }
+                if (reports > 1 && i == 3 && rnd.nextInt(4) == 0) {   // 정정공시
+                    first = fact(sb, first, yearStart, qe, ytd, fy, "FY", "10-K/A", null);
+                }
+            }
+        }
+        sb.append("]}}");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** companyconcept instant 계정(자본총계 등): 분기말 시점 값 */
+    byte[] conceptInstantJson() {
+        Random rnd = new Random(31L * ordinal() + 2);
+        StringBuilder sb = new StringBuilder(1 << 15);
+        sb.append("{\"cik\":320193,\"taxonomy\":\"us-gaap\",\"tag\":\"StockholdersEquity\",\"label\":\"Stockholders' Equity\",")
+                .append("\"description\":\"Total equity.\",\"entityName\":\"Bench Corp\",\"units\":{\"USD\":[");
+        boolean first = true;
+        double equity = 5e8 * (1 + ordinal() * 40);
+        for (int fy = LAST_FY - fiscalYears + 1; fy <= LAST_FY; fy++) {
+            for (int i = 0; i < 4; i++) {
+                LocalDate qe = LocalDate.of(fy - 1, 10, 1).plusMonths(3L * i + 3).minusDays(1);
+                equity *= 1 + rnd.nextGaussian() * 0.02;
+                for (int r = 0; r < reports; r++) {
+                    first = fact(sb, first, null, qe, Math.round(equity), fy + r, i == 3 ? "FY" : "Q" + (i + 1),
+                            i == 3 ? "10-K" : "10-Q", r == 0 ? "CY" + fy + "Q" + (i + 1) + "I" : null);
+                }
+            }
+        }
+        sb.append("]}}");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static boolean fact(StringBuilder sb, boolean first, LocalDate start, LocalDate end, double val,
+                                int fy, String fp, String form, String frame) {
+        if (!first) sb.append(',');
+        sb.append('{');
+        if (start != null) sb.append("\"start\":\"").append(start).append("\",");
+        sb.append("\"end\":\"").append(end).append("\",\"val\":").append((long) val)
+                .append(",\"accn\":\"0000320193-").append(fy % 100).append('-').append(String.format("%06d", (end.toEpochDay() * 7) % 999_983))
+                .append("\",\"fy\":").append(fy).append(",\"fp\":\"").append(fp).append("\",\"form\":\"").append(form)
+                .append("\",\"filed\":\"").append(end.plusDays(35)).append('"');
+        if (frame != null) sb.append(",\"frame\":\"").append(frame).append('"');
+        sb.append('}');
+        return false;
+    }
+
+    /** Stooq 일봉 CSV: Date,Open,High,Low,Close,Volume (거래일만) */
+    String stooqCsv() {
+        Random rnd = new Random(31L * ordinal() + 3);
+        StringBuilder sb = new StringBuilder(priceYears * 252 * 60);
+        sb.append("Date,Open,High,Low,Close,Volume\n");
+        double px = 10 + ordinal() * 40;
+        for (LocalDate d = LocalDate.of(LAST_FY - priceYears + 1, 1, 2); d.getYear() <= LAST_FY; d = d.plusDays(1)) {
+            if (d.getDayOfWeek().getValue() >= 6) continue;
+            double open = px;
+            px = Math.max(0.5, px * (1 + rnd.nextGaussian() * 0.015));
+            double hi = Math.max(open, px) * (1 + rnd.nextDouble() * 0.01);
+            double lo = Math.min(open, px) * (1 - rnd.nextDouble() * 0.01);
+            sb.append(d).append(',').append(price(open)).append(',').append(price(hi)).append(',')
+                    .append(price(lo)).append(',').append(price(px)).append(',')
+                    .append(1_000_000 + rnd.nextInt(90_000_000)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /** Yahoo v8 chart JSON: 장 시작 시각 timestamp + quote 열 배열, 가끔 null 종가 */
+    String yahooChartJson() {
+        Random rnd = new Random(31L * ordinal() + 4);
+        int years = Math.min(priceYears, 10);   // 조회 구간이 10년
+        StringBuilder ts = new StringBuilder(), open = new StringBuilder(), close = new StringBuilder(),
+                high = new StringBuilder(), low = new StringBuilder(), vol = new StringBuilder();
+        double px = 10 + ordinal() * 40;
+        boolean first = true;
+        for (LocalDate d = LocalDate.of(LAST_FY - years + 1, 1, 2); d.getYear() <= LAST_FY; d = d.plusDays(1)) {
+            if (d.getDayOfWeek().getValue() >= 6) continue;
+            if (!first) { ts.append(','); open.append(','); close.append(','); high.append(','); low.append(','); vol.append(','); }
+            first = false;
+            ts.append(d.atTime(14, 30).toEpochSecond(ZoneOffset.UTC));
+            double o = px;
+            px = Math.max(0.5, px * (1 + rnd.nextGaussian() * 0.015));
+            if (rnd.nextInt(500) == 0) {
+                open.append("null"); close.append("null"); high.append("null"); low.append("null"); vol.append("null");
+                continue;
+            }
+            open.append(o);
+            close.append(px);   // Yahoo 는 반올림 없는 double 그대로
+            high.append(Math.max(o, px) * 1.004);
+            low.append(Math.min(o, px) * 0.996);
+            vol.append(1_000_000 + rnd.nextInt(90_000_000));
+        }
+        return "{\"chart\":{\"result\":[{\"meta\":{\"currency\":\"USD\",\"symbol\":\"BNCH\",\"exchangeName\":\"NMS\","
+                + "\"instrumentType\":\"EQUITY\",\"timezone\":\"EST\",\"exchangeTimezoneName\":\"America/New_York\","
+                + "\"dataGranularity\":\"1d\",\"range\":\"\"},\"timestamp\":[" + ts + "],\"indicators\":{\"quote\":[{"
+                + "\"open\":[" + open + "],\"close\":[" + close + "],\"high\":[" + high + "],\"low\":[" + low
+                + "],\"volume\":[" + vol + "]}],\"adjclose\":[{\"adjclose\":[" + close + "]}]}}],\"error\":null}}";
+    }
+
+    private static String price(double v) {
+        return String.format(Locale.ROOT, "%.4f", v);
+    }
+}
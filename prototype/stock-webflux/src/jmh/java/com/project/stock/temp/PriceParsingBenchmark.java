@@ -0,0 +1,61 @@
+package com.project.stock.temp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 가격 경로: Stooq CSV / Yahoo chart JSON 바이트 디코딩(응답 본문 그대로) → 분기말 as-of 조인
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceParsingBenchmark {
+
+    @Param({"SMALL", "MID", "MEGA"})
+    public BenchFixtures cap;
+
+    private byte[] stooqCsv;
+    private byte[] yahooJson;
+    private PriceSeries series;
+    private int[] quarterEnds;
+
+    @Setup
+    public void setup() {
+        stooqCsv = cap.stooqCsv().getBytes(StandardCharsets.UTF_8);
+        yahooJson = cap.yahooChartJson().getBytes(StandardCharsets.UTF_8);
+        series = PriceDecoders.stooqCsv(stooqCsv);
+        int first = series.day(0), last = series.day(series.size() - 1);
+        quarterEnds = new int[(last - first) / 91];
+        for (int i = 0; i < quarterEnds.length; i++) quarterEnds[i] = first + 91 * (i + 1);
+    }
+
+    @Benchmark
+    public PriceSeries parseStooqCsv() {
+        return PriceDecoders.stooqCsv(stooqCsv);
+    }
+
+    @Benchmark
+    public PriceSeries parseYahooChart() {
+        return PriceDecoders.yahooChart(yahooJson);
+    }
+
+    @Benchmark
+    public double[][] asOfQuarterEnds() {
+        return AsOfJoin.join(quarterEnds, AsOfJoin.floor(series, StockMetricsFetcher.PRICE_LOOKBACK_DAYS));
+    }
+}
@@ -0,0 +1,88 @@
+package com.project.stock.temp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SEC 팩트 경로: companyconcept 스트리밍 파싱 → 분기화(YTD 차분) / 시점 시리즈 → 분기말 근사 조회
+ * 실행: gradle jmh (기본으로 -prof gc 포함, 결과는 build/results/jmh/results.json)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecFactsBenchmark {
+
+    /** 네트워크 DataBuffer 와 비슷한 조각 크기 */
+    private static final int CHUNK = 8 * 1024;
+
+    @Param({"SMALL", "MID", "MEGA"})
+    public BenchFixtures cap;
+
+    private byte[] durationJson;
+    private ConceptFacts durationFacts;
+    private ConceptFacts instantFacts;
+    private DaySeries quarters;
+    private int[] lookupDays;
+
+    @Setup
+    public void setup() throws IOException {
+        durationJson = cap.conceptDurationJson();
+        durationFacts = parse(durationJson);
+        instantFacts = parse(cap.conceptInstantJson());
+        quarters = Quarterizer.quarterize(durationFacts);
+        // 가격 표의 분기말처럼 시리즈 날짜에서 며칠씩 어긋난 조회 날짜
+        lookupDays = new int[quarters.size() * 4];
+        for (int i = 0; i < lookupDays.length; i++) lookupDays[i] = quarters.day(i / 4) + (i % 4) * 3 - 4;
+    }
+
+    private static ConceptFacts parse(byte[] json) throws IOException {
+        ConceptFactsParser parser = new ConceptFactsParser("us-gaap");
+        for (int off = 0; off < json.length; off += CHUNK) {
+            parser.feed(ByteBuffer.wrap(json, off, Math.min(CHUNK, json.length - off)));
+        }
+        return parser.finish();
+    }
+
+    @Benchmark
+    public ConceptFacts parseConceptJson() throws IOException {
+        return parse(durationJson);
+    }
+
+    @Benchmark
+    public DaySeries quarterizeDurationFacts() {
+        return Quarterizer.quarterize(durationFacts);
+    }
+
+    @Benchmark
+    public int isYTDLike() {
+        int ytd = 0;
+        for (int i = 0; i < durationFacts.size; i++) if (Quarterizer.isYTDLike(durationFacts, i)) ytd++;
+        return ytd;
+    }
+
+    @Benchmark
+    public DaySeries instantSeries() {
+        return Quarterizer.instantSeries(instantFacts);
+    }
+
+    @Benchmark
+    public double[][] nearLookup() {
+        return AsOfJoin.join(lookupDays, AsOfJoin.nearest(quarters, StockMetricsFetcher.END_MATCH_DAYS));
+    }
+}
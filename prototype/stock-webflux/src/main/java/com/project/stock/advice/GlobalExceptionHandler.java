@@ -22,4 +22,19 @@ class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                 .body(new ApiError(msg));
     }
+
+    @ExceptionHandler(TickerNotFoundException.class)
+    public ResponseEntity<ApiError> tickerNotFound(TickerNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiError(ex.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidScreenException.class)
+    public ResponseEntity<ApiError> invalidScreen(InvalidScreenException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiError(ex.getMessage()));
+    }
+
+    @ExceptionHandler(UpstreamFetchException.class)
+    public ResponseEntity<ApiError> upstreamFetch(UpstreamFetchException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(new ApiError(ex.getMessage()));
+    }
 }
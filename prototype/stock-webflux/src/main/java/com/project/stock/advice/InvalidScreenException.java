@@ -0,0 +1,12 @@
+package com.project.stock.advice;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidScreenException extends RuntimeException {
+
+    public InvalidScreenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
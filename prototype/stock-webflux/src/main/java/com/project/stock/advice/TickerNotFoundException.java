@@ -0,0 +1,12 @@
+package com.project.stock.advice;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class TickerNotFoundException extends RuntimeException {
+
+    public TickerNotFoundException(String ticker) {
+        super("unknown ticker: " + ticker);
+    }
+}
@@ -0,0 +1,13 @@
+package com.project.stock.advice;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// SEC/가격 소스 조회 실패로 결과를 만들 수 없음(잠시 후 재시도)
+@ResponseStatus(HttpStatus.BAD_GATEWAY)
+public class UpstreamFetchException extends RuntimeException {
+
+    public UpstreamFetchException(String message) {
+        super(message);
+    }
+}
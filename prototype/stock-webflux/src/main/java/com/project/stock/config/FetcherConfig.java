@@ -0,0 +1,32 @@
+package com.project.stock.config;
+
+import com.project.stock.repository.QuarterMetricsRepository;
+import com.project.stock.temp.FetcherEndpoint;
+import com.project.stock.temp.HttpDiskCache;
+import com.project.stock.temp.QuarterMetricsStore;
+import com.project.stock.temp.StockMetricsFetcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+public class FetcherConfig {
+
+    // 지표는 actuator 레지스트리로 → /actuator/metrics/fetcher.*
+    @Bean
+    public StockMetricsFetcher stockMetricsFetcher(MeterRegistry registry) {
+        return new StockMetricsFetcher(HttpDiskCache.defaultCache(), null, registry);
+    }
+
+    // 진행률/처리량 요약: /actuator/fetcher (ADMIN)
+    @Bean
+    public FetcherEndpoint fetcherEndpoint(StockMetricsFetcher fetcher) {
+        return new FetcherEndpoint(fetcher);
+    }
+
+    // 계산 결과 write-behind 저장(종료 시 남은 배치 flush)
+    @Bean(destroyMethod = "close")
+    public QuarterMetricsStore quarterMetricsStore(QuarterMetricsRepository repository) {
+        return new QuarterMetricsStore(repository);
+    }
+}
@@ -0,0 +1,42 @@
+package com.project.stock.controller;
+
+import com.project.stock.domain.dto.ScreenRequest;
+import com.project.stock.service.ScreeningService;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+public class ScreenController {
+
+    private final ScreeningService screeningService;
+
+    public ScreenController(ScreeningService screeningService) {
+        this.screeningService = screeningService;
+    }
+
+    // 최근 12분기 지표: 첫 조회 뒤에는 캐시에서 바로
+    @GetMapping(value = "/metrics/{ticker}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<String> metrics(@PathVariable String ticker) {
+        return screeningService.metricsJson(ticker);
+    }
+
+    // 티커 자동완성: 접두어로 시작하는 티커와 CIK
+    @GetMapping(value = "/tickers", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<List<Map<String, String>>> tickers(@RequestParam(defaultValue = "") String prefix,
+                                                   @RequestParam(defaultValue = "20") int limit) {
+        return screeningService.suggest(prefix, limit);
+    }
+
+    // 스크린 통과 종목을 찾는 대로 SSE 로 (event: match ... event: done)
+    @PostMapping(value = "/screens", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> screen(@RequestBody ScreenRequest request) {
+        return screeningService.screen(request);
+    }
+}
@@ -0,0 +1,10 @@
+package com.project.stock.domain;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// quarter_metrics 한 행. 지표 값이 없으면 null
+public record QuarterMetricsRow(String ticker, LocalDate periodEnd, String cik,
+                                Double revenue, Double operatingIncome, Double eps, Double equity,
+                                Double shares, Double price, Double per, Double pbr,
+                                LocalDateTime updatedAt) {}
@@ -0,0 +1,6 @@
+package com.project.stock.domain.dto;
+
+import java.util.List;
+
+// tickers 는 필수(1~500개, 전 종목 스크린은 배치로), rule 이 비면 기본 스크린(매출·영업이익 3분기 연속 증가 + PER×PBR ≤ 22.5)
+public record ScreenRequest(List<String> tickers, String rule) {}
@@ -0,0 +1,104 @@
+package com.project.stock.repository;
+
+import com.project.stock.domain.QuarterMetricsRow;
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 복합 키(ticker, period_end)라 ReactiveCrudRepository 대신 DatabaseClient 로 직접
+@Repository
+public class QuarterMetricsRepository {
+
+    private static final String COLUMNS =
+            "ticker, period_end, cik, revenue, operating_income, eps, equity, shares, price, per, pbr, updated_at";
+
+    private final DatabaseClient db;
+
+    public QuarterMetricsRepository(DatabaseClient db) {
+        this.db = db;
+    }
+
+    /**
+     * 여러 행을 한 문장(H2 MERGE INTO ... KEY (ticker, period_end) + multi-row VALUES)으로 upsert → 왕복 1회.
+     * MySQL 호환 모드(MODE=MYSQL)가 아닌 URL(CLI --db)에서도 같은 문장이 돈다.
+     * 같은 (ticker, period_end)가 여러 번 오면 마지막 값만 쓴다. 결과는 영향받은 행 수
+     */
+    public Mono<Long> upsertAll(Collection<QuarterMetricsRow> rows) {
+        Map<String, QuarterMetricsRow> unique = new LinkedHashMap<>();
+        for (QuarterMetricsRow r : rows) unique.put(r.ticker() + '|' + r.periodEnd(), r);
+        if (unique.isEmpty()) return Mono.just(0L);
+
+        List<QuarterMetricsRow> batch = List.copyOf(unique.values());
+        StringBuilder sql = new StringBuilder(128 + batch.size() * 96)
+                .append("MERGE INTO quarter_metrics (").append(COLUMNS).append(") KEY (ticker, period_end) VALUES ");
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append("(:t").append(i).append(", :e").append(i).append(", :c").append(i);
+            for (int f = 0; f < 8; f++) sql.append(", :v").append(i).append('_').append(f);
+            sql.append(", :u").append(i).append(')');
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = db.sql(sql.toString());
+        for (int i = 0; i < batch.size(); i++) {
+            QuarterMetricsRow r = batch.get(i);
+            spec = spec.bind("t" + i, r.ticker()).bind("e" + i, r.periodEnd()).bind("c" + i, r.cik())
+                    .bind("u" + i, r.updatedAt());
+            Double[] values = {r.revenue(), r.operatingIncome(), r.eps(), r.equity(), r.shares(), r.price(), r.per(), r.pbr()};
+            for (int f = 0; f < values.length; f++) {
+                String name = "v" + i + "_" + f;
+                spec = values[f] == null ? spec.bindNull(name, Double.class) : spec.bind(name, values[f]);
+            }
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    // 한 종목의 최근 n 분기(오래된 순)
+    public Flux<QuarterMetricsRow> findLatest(String ticker, int n) {
+        return db.sql("SELECT * FROM (SELECT " + COLUMNS + " FROM quarter_metrics WHERE ticker = :ticker"
+                        + " ORDER BY period_end DESC LIMIT :n) t ORDER BY period_end")
+                .bind("ticker", ticker)
+                .bind("n", n)
+                .map(QuarterMetricsRepository::row)
+                .all();
+    }
+
+    // 전 종목의 최근 n 분기씩 (ticker, period_end 순)
+    public Flux<QuarterMetricsRow> findLatestPerTicker(int n) {
+        return db.sql("SELECT " + COLUMNS + " FROM (SELECT q.*, ROW_NUMBER() OVER (PARTITION BY ticker ORDER BY period_end DESC) AS rn"
+                        + " FROM quarter_metrics q) t WHERE rn <= :n ORDER BY ticker, period_end")
+                .bind("n", n)
+                .map(QuarterMetricsRepository::row)
+                .all();
+    }
+
+    /**
+     * 달력 분기 하나(예: 2024 Q4 = 10/1~12/31)에 끝나는 전 종목 분기 (ticker 순).
+     * 회계연도 분기말이 달력과 며칠 어긋나는 회사(52/53주)도 같은 분기로 묶인다. period_end 인덱스 범위 조회
+     */
+    public Flux<QuarterMetricsRow> findByQuarter(int year, int quarter) {
+        if (quarter < 1 || quarter > 4) return Flux.error(new IllegalArgumentException("quarter must be 1..4: " + quarter));
+        LocalDate from = LocalDate.of(year, quarter * 3 - 2, 1);
+        return db.sql("SELECT " + COLUMNS + " FROM quarter_metrics WHERE period_end >= :from AND period_end < :to ORDER BY ticker")
+                .bind("from", from)
+                .bind("to", from.plusMonths(3))
+                .map(QuarterMetricsRepository::row)
+                .all();
+    }
+
+    private static QuarterMetricsRow row(Readable r) {
+        return new QuarterMetricsRow(
+                r.get("ticker", String.class), r.get("period_end", LocalDate.class), r.get("cik", String.class),
+                r.get("revenue", Double.class), r.get("operating_income", Double.class), r.get("eps", Double.class),
+                r.get("equity", Double.class), r.get("shares", Double.class), r.get("price", Double.class),
+                r.get("per", Double.class), r.get("pbr", Double.class), r.get("updated_at", LocalDateTime.class));
+    }
+}
@@ -0,0 +1,190 @@
+package com.project.stock.service;
+
+import com.project.stock.advice.InvalidScreenException;
+import com.project.stock.advice.TickerNotFoundException;
+import com.project.stock.advice.UpstreamFetchException;
+import com.project.stock.domain.dto.ScreenRequest;
+import com.project.stock.temp.QuarterMetricsStore;
+import com.project.stock.temp.Screen;
+import com.project.stock.temp.ScreenMatch;
+import com.project.stock.temp.ScreenRules;
+import com.project.stock.temp.SingleFlightCache;
+import com.project.stock.temp.SseScreenSink;
+import com.project.stock.temp.StockMetricsFetcher;
+import com.project.stock.temp.StockMetricsFetcher.QuarterMetrics;
+import com.project.stock.temp.TickerIndex;
+import com.project.stock.temp.TickerOutcome;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * StockMetricsFetcher 를 API 로 노출하는 서비스
+ * - 종목 조회: 종목별 single-flight + TTL 캐시(SingleFlightCache). 같은 종목 동시 요청은 계산 하나를 공유하고,
+ *   결과는 다음 분기 실적이 나올 때까지(filingTtl) 재사용 → 첫 조회 뒤에는 SEC 크롤링 없이 바로 응답
+ * - 스크린: 매치를 SSE(SseScreenSink)로 흘려 보낸다. 클라이언트가 끊으면 남은 종목 계산도 취소
+ *   (룰 스크린의 종목 조회는 캐시 계산을 붙잡지 않는다 — 같은 종목을 단건 조회가 기다리는 경우만 끝까지 계산).
+ *   요청마다 종목 목록(최대 MAX_SCREEN_TICKERS)이 필요하다 — 전 종목 크롤링은 배치(main)에서만
+ * - 계산 결과는 quarter_metrics 에 저장(QuarterMetricsStore). 캐시에 없으면 DB 를 먼저 보고,
+ *   저장 시점 기준으로 아직 filingTtl 안이면 재계산 없이 사용(재시작 후에도 SEC 크롤링 생략)
+ */
+@Service
+public class ScreeningService {
+
+    /** 실적이 곧 나올 수 있는 구간(다음 분기말 이후)의 TTL */
+    static final Duration FILING_DUE_TTL = Duration.ofHours(6);
+    /** 정정 공시/늦은 반영 대비 상한 */
+    static final Duration MAX_TTL = Duration.ofDays(7);
+    static final int MAX_CACHED_TICKERS = 20_000;
+    static final Duration TICKER_LIST_TTL = Duration.ofDays(1);
+    static final int QUARTERS = 12;
+
+    private final StockMetricsFetcher fetcher;
+    private final QuarterMetricsStore store;
+    private final SingleFlightCache<String, TickerOutcome> lookups =
+            new SingleFlightCache<>(o -> filingTtl(o, LocalDate.now(ZoneOffset.UTC)), MAX_CACHED_TICKERS);
+    static final int MAX_SUGGESTIONS = 50;
+    /** 스크린 요청 하나가 계산할 수 있는 종목 수 상한(요청마다 따로 크롤링하므로) */
+    public static final int MAX_SCREEN_TICKERS = 500;
+
+    /** 티커 → CIK (TickerIndex 스냅숏, 하루 재사용) */
+    private final Mono<TickerIndex> tickerIndex;
+
+    public ScreeningService(StockMetricsFetcher fetcher, QuarterMetricsStore store) {
+        this.fetcher = fetcher;
+        this.store = store;
+        this.tickerIndex = fetcher.tickerIndex()
+                .cache(index -> index.isEmpty() ? Duration.ZERO : TICKER_LIST_TTL, e -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    /**
+     * 다음 실적까지 캐시: 마지막 분기말 + 3개월(다음 분기말)까지는 새 10-Q/10-K 가 나올 수 없으므로 그때까지,
+     * 그 뒤(제출 대기 구간)에는 짧게. 실패(FAIL)는 저장하지 않는다
+     */
+    static Duration filingTtl(TickerOutcome outcome, LocalDate today) {
+        if (outcome.status() == TickerOutcome.Status.FAIL) return Duration.ZERO;
+        List<QuarterMetrics> quarters = outcome.quarters();
+        if (quarters.isEmpty()) return FILING_DUE_TTL;
+        LocalDate nextQuarterEnd = quarters.get(0).end.plusMonths(3);   // 최신 분기부터
+        if (!today.isBefore(nextQuarterEnd)) return FILING_DUE_TTL;
+        Duration untilNext = Duration.ofDays(ChronoUnit.DAYS.between(today, nextQuarterEnd));
+        if (untilNext.compareTo(FILING_DUE_TTL) < 0) return FILING_DUE_TTL;
+        return untilNext.compareTo(MAX_TTL) > 0 ? MAX_TTL : untilNext;
+    }
+
+    /** GET /api/metrics/{ticker}: {"ticker","cik","quarters":[...]} (NaN → null) */
+    public Mono<String> metricsJson(String ticker) {
+        String symbol = ticker.toUpperCase(Locale.ROOT);
+        return tickerIndex
+                .flatMap(index -> {
+                    String cik = index.cikString(symbol);
+                    if (cik == null) return Mono.error(new TickerNotFoundException(symbol));
+                    return lookup(symbol, cik, true);
+                })
+                .flatMap(o -> o.status() == TickerOutcome.Status.FAIL
+                        ? Mono.error(new UpstreamFetchException(symbol + ": " + o.reason()))
+                        : Mono.just(new ScreenMatch(o.ticker(), o.cik(), o.quarters()).toJson()));
+    }
+
+    /** GET /api/tickers?prefix=: 접두어로 시작하는 티커와 CIK(사전순, 최대 limit 개) */
+    public Mono<List<Map<String, String>>> suggest(String prefix, int limit) {
+        String p = prefix == null ? "" : prefix.trim().toUpperCase(Locale.ROOT);
+        int n = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        return tickerIndex.map(index -> {
+            List<Map<String, String>> out = new ArrayList<>();
+            for (String t : index.withPrefix(p, n)) out.add(Map.of("ticker", t, "cik", index.cikString(t)));
+            return out;
+        });
+    }
+
+    /** POST /api/screens: 매치마다 event: match, 끝나면 event: done */
+    public Flux<ServerSentEvent<String>> screen(ScreenRequest request) {
+        ScreenRules rule = compile(request.rule());   // 룰/종목 오류는 스트림 시작 전에 400 으로
+        List<String> requested = checkTickers(request.tickers());
+        return Flux.defer(() -> new SseScreenSink().stream(tickerIndex
+                .map(index -> known(index, requested))
+                .flatMapMany(tickers -> matches(tickers, rule))));
+    }
+
+    /** detach: 단건 조회는 끊겨도 계산을 끝까지(다음 조회용), 스크린은 연결과 함께 취소 */
+    private Mono<TickerOutcome> lookup(String ticker, String cik, boolean detach) {
+        return lookups.get(ticker, () -> stored(ticker, cik).switchIfEmpty(Mono.defer(() -> compute(ticker, cik))), detach);
+    }
+
+    /** DB 에 저장된 시리즈가 저장 시점 기준 TTL 안이면 사용. DB 오류는 재계산으로 */
+    private Mono<TickerOutcome> stored(String ticker, String cik) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        return store.latest(ticker, QUARTERS)
+                .filter(s -> {
+                    TickerOutcome o = TickerOutcome.match(ticker, cik, s.quarters());
+                    return s.updatedAt().plus(filingTtl(o, s.updatedAt().toLocalDate())).isAfter(now);
+                })
+                .map(s -> TickerOutcome.match(ticker, cik, s.quarters()))
+                .onErrorResume(e -> {
+                    System.err.println("quarter_metrics read error(" + ticker + "): " + e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /** 실제 크롤링만 fetcher 의 적응형 동시성 슬롯을 쓴다(캐시/DB 적중은 슬롯 없이) */
+    private Mono<TickerOutcome> compute(String ticker, String cik) {
+        return fetcher.limitedLookup(ticker, cik)
+                .doOnNext(o -> {
+                    if (o.status() == TickerOutcome.Status.MATCH) store.offer(ticker, cik, o.quarters());
+                });
+    }
+
+    /**
+     * 룰이 없으면 기존 단계형 스크린(탈락 시 남은 요청 생략).
+     * 룰이 있으면 종목별 전체 시리즈(캐시 공유)를 받아 한 행짜리 테이블에 룰을 평가
+     */
+    private Flux<ScreenMatch> matches(List<Map.Entry<String, String>> tickers, ScreenRules rule) {
+        if (rule == null) return fetcher.screenStream(tickers, Screen.RISING_GROWTH_VALUE).doOnNext(store::offer);
+        return Flux.fromIterable(tickers)
+                .flatMap(e -> lookup(e.getKey(), e.getValue(), false), StockMetricsFetcher.MAX_CONCURRENT_TICKERS)
+                .filter(o -> o.status() == TickerOutcome.Status.MATCH && !o.quarters().isEmpty())
+                .map(TickerOutcome::toMatch)
+                .filter(rule::accepts);
+    }
+
+    private static ScreenRules compile(String rule) {
+        if (rule == null || rule.isBlank()) return null;
+        try {
+            return ScreenRules.parse("request: " + rule.replace('\n', ' '));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidScreenException("invalid rule: " + e.getMessage(), e);
+        }
+    }
+
+    private static List<String> checkTickers(List<String> tickers) {
+        if (tickers == null || tickers.isEmpty()) {
+            throw new InvalidScreenException("tickers required (1.." + MAX_SCREEN_TICKERS + ")", null);
+        }
+        if (tickers.size() > MAX_SCREEN_TICKERS) {
+            throw new InvalidScreenException("too many tickers: " + tickers.size() + " > " + MAX_SCREEN_TICKERS, null);
+        }
+        return tickers;
+    }
+
+    /** 요청 종목 중 아는 티커만 */
+    private static List<Map.Entry<String, String>> known(TickerIndex index, List<String> tickers) {
+        List<Map.Entry<String, String>> out = new ArrayList<>();
+        for (String t : tickers) {
+            String symbol = t.toUpperCase(Locale.ROOT);
+            String cik = index.cikString(symbol);
+            if (cik != null) out.add(Map.entry(symbol, cik));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,162 @@
+package com.project.stock.temp;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * 종목 동시 처리 수를 upstream 상태에 맞춰 조절하는 적응형 동시성 제한(gradient + AIMD)
+ * - 끝난 작업마다 지연을 표본으로: 단기 평균(최근 SHORT_WINDOW)과 장기 평균(LONG_WINDOW)을 비교해
+ *   단기가 장기의 TOLERANCE 배 안이면 limit 을 √limit 만큼씩 늘리고(가법 증가), 넘으면 비율만큼 줄인다
+ *   (SEC 속도 제한에서 대기가 길어지는 것도 지연에 잡히므로 rate 상한에 맞춰 저절로 수렴)
+ * - 429/5xx(onOverload): limit × BACKOFF (곱셈 감소). 연달아 와도 BACKOFF_INTERVAL 에 한 번만
+ * - 슬롯의 절반도 못 쓰는 동안(입력이 느림)은 늘리지 않는다
+ * flatMap 은 MAX_LIMIT 로 열어 두고 각 작업이 run() 에서 슬롯을 기다린다(대기는 FIFO, 스레드 점유 없음)
+ */
+final class AdaptiveLimiter {
+
+    static final int INITIAL_LIMIT = 6;
+    static final int MIN_LIMIT = 2;
+    static final int MAX_LIMIT = 48;
+    static final double TOLERANCE = 1.5;
+    static final double SMOOTHING = 0.2;
+    static final double BACKOFF = 0.8;
+    static final Duration BACKOFF_INTERVAL = Duration.ofSeconds(1);
+    static final int SHORT_WINDOW = 10;
+    static final int LONG_WINDOW = 200;
+
+    private final LongSupplier clockNanos;
+
+    // 모두 this 로 보호
+    private double limit = INITIAL_LIMIT;
+    private int inFlight;
+    private final ArrayDeque<Permit> waiters = new ArrayDeque<>();
+    private long samples;
+    private double shortRtt, longRtt;
+    private long lastBackoffNanos;
+
+    AdaptiveLimiter() {
+        this(System::nanoTime);
+    }
+
+    AdaptiveLimiter(LongSupplier clockNanos) {
+        this.clockNanos = clockNanos;
+        this.lastBackoffNanos = clockNanos.getAsLong() - BACKOFF_INTERVAL.toNanos();
+    }
+
+    private static final class Permit {
+        MonoSink<Void> sink;
+        boolean granted;
+        long startNanos = Long.MIN_VALUE;   // 작업을 구독하기 전에 취소되면 그대로
+    }
+
+    /** 슬롯을 얻은 뒤 work 를 구독하고, 끝나면(취소 포함) 슬롯 반납 + 지연 표본 */
+    <T> Mono<T> run(Mono<T> work) {
+        return Mono.defer(() -> {
+            Permit permit = new Permit();
+            return acquire(permit)
+                    .then(Mono.defer(() -> {
+                        permit.startNanos = clockNanos.getAsLong();
+                        return work;
+                    }))
+                    .doFinally(signal -> release(permit, signal));
+        });
+    }
+
+    private Mono<Void> acquire(Permit permit) {
+        return Mono.create(sink -> {
+            boolean go;
+            synchronized (this) {
+                permit.sink = sink;
+                go = inFlight < limit() && waiters.isEmpty();
+                if (go) {
+                    inFlight++;
+                    permit.granted = true;
+                } else {
+                    waiters.add(permit);
+                }
+            }
+            if (go) sink.success();
+        });
+    }
+
+    private void release(Permit permit, SignalType signal) {
+        long now = clockNanos.getAsLong();
+        synchronized (this) {
+            if (!permit.granted) {
+                waiters.remove(permit);   // 기다리다 취소
+                return;
+            }
+            inFlight--;
+            if (signal != SignalType.CANCEL && permit.startNanos != Long.MIN_VALUE) sample(now - permit.startNanos);
+        }
+        grantWaiters();
+    }
+
+    /** 끝난 작업 하나의 지연(테스트에서 직접 호출) */
+    void onSample(long rttNanos) {
+        synchronized (this) {
+            sample(rttNanos);
+        }
+        grantWaiters();
+    }
+
+    /** 429/5xx: 곱셈 감소 */
+    void onOverload() {
+        long now = clockNanos.getAsLong();
+        synchronized (this) {
+            if (now - lastBackoffNanos < BACKOFF_INTERVAL.toNanos()) return;
+            lastBackoffNanos = now;
+            limit = Math.max(MIN_LIMIT, limit * BACKOFF);
+        }
+    }
+
+    private void sample(long rttNanos) {
+        double rtt = Math.max(1, rttNanos);
+        samples++;
+        shortRtt = samples == 1 ? rtt : shortRtt + (rtt - shortRtt) / SHORT_WINDOW;
+        longRtt = samples == 1 ? rtt : longRtt + (rtt - longRtt) / Math.min(samples, LONG_WINDOW);
+        if (samples < SHORT_WINDOW) return;
+        // 지연이 나빠진 상태가 오래가면 장기 평균도 따라 올라가 감소가 멈춘다 → 회복 시에는 장기 평균을 빨리 내림
+        if (longRtt > 2 * shortRtt) longRtt *= 0.95;
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double target;
+        if (gradient < 1.0) target = limit * gradient;
+        else if (inFlight < limit / 2) target = limit;   // 슬롯이 남아도는 동안은 늘리지 않음
+        else target = limit + Math.sqrt(limit);
+        limit = Math.max(MIN_LIMIT, Math.min(MAX_LIMIT, limit * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+
+    /** 줄어든 limit 은 기존 작업이 끝나며 자연히 반영, 늘어난 만큼은 대기 중인 작업을 깨운다 */
+    private void grantWaiters() {
+        List<MonoSink<Void>> go = new ArrayList<>();
+        synchronized (this) {
+            while (inFlight < limit() && !waiters.isEmpty()) {
+                Permit next = waiters.poll();
+                inFlight++;
+                next.granted = true;
+                go.add(next.sink);
+            }
+        }
+        for (MonoSink<Void> sink : go) sink.success();
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    synchronized int queued() {
+        return waiters.size();
+    }
+}
@@ -0,0 +1,98 @@
+package com.project.stock.temp;
+
+import java.util.Arrays;
+
+/**
+ * 정렬된 primitive 시계열 N개를 기준 날짜(key)열에 맞춰 한 번의 선형 병합으로 정렬(as-of / nearest join)
+ * - key 와 각 시리즈가 모두 오름차순이므로 시리즈마다 커서 하나만 앞으로 민다 → O(key 수 + 전체 포인트 수)
+ * - FLOOR   : key 이하 중 가장 가까운 점, key − day ≤ tolerance 일 때만
+ * - NEAREST : key 앞뒤 중 더 가까운 점(|차이| ≤ tolerance, 동률이면 이전 날짜)
+ * 매칭되지 않은 칸은 NaN
+ */
+final class AsOfJoin {
+
+    enum Mode { FLOOR, NEAREST }
+
+    /** 허용 오차 없음(floorEntry 와 같음) */
+    static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    /** 조인할 열 하나: 시리즈 + 정렬 방식 + 허용 일수 */
+    record Column(DayValues series, Mode mode, int tolerance) {}
+
+    static Column floor(DayValues series) {
+        return new Column(series, Mode.FLOOR, UNBOUNDED);
+    }
+
+    static Column floor(DayValues series, int maxLookbackDays) {
+        return new Column(series, Mode.FLOOR, maxLookbackDays);
+    }
+
+    static Column nearest(DayValues series, int windowDays) {
+        return new Column(series, Mode.NEAREST, windowDays);
+    }
+
+    private AsOfJoin() {}
+
+    /**
+     * @param keys 엄격 오름차순 기준 날짜
+     * @return out[열][행] (행 = keys 인덱스)
+     */
+    static double[][] join(int[] keys, Column... columns) {
+        double[][] out = new double[columns.length][];
+        for (int c = 0; c < columns.length; c++) out[c] = joinColumn(keys, columns[c]);
+        return out;
+    }
+
+    private static double[] joinColumn(int[] keys, Column col) {
+        DayValues s = col.series();
+        int n = s.size();
+        long tol = col.tolerance();
+        double[] out = new double[keys.length];
+        int j = -1;   // key 이하 마지막 점
+        for (int r = 0; r < keys.length; r++) {
+            int key = keys[r];
+            while (j + 1 < n && s.day(j + 1) <= key) j++;
+
+            double v = Double.NaN;
+            long floorDiff = j >= 0 ? (long) key - s.day(j) : Long.MAX_VALUE;
+            if (floorDiff <= tol) v = s.value(j);
+            if (col.mode() == Mode.NEAREST && j + 1 < n) {
+                long ceilDiff = (long) s.day(j + 1) - key;
+                if (ceilDiff <= tol && ceilDiff < floorDiff) v = s.value(j + 1);
+            }
+            out[r] = v;
+        }
+        return out;
+    }
+
+    /** 여러 시리즈 날짜의 합집합(from 이상, 오름차순, 중복 제거)을 k-way 병합으로 */
+    static int[] unionDays(int from, DayValues... series) {
+        int total = 0;
+        int[] pos = new int[series.length];
+        for (int k = 0; k < series.length; k++) {
+            DayValues s = series[k];
+            total += s.size();
+            int lo = 0, hi = s.size();   // from 이상 첫 위치
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (s.day(mid) < from) lo = mid + 1; else hi = mid;
+            }
+            pos[k] = lo;
+        }
+        int[] out = new int[total];
+        int m = 0;
+        while (true) {
+            int min = Integer.MAX_VALUE;
+            boolean any = false;
+            for (int k = 0; k < series.length; k++) {
+                if (pos[k] < series[k].size()) { min = Math.min(min, series[k].day(pos[k])); any = true; }
+            }
+            if (!any) break;
+            out[m++] = min;
+            for (int k = 0; k < series.length; k++) {
+                if (pos[k] < series[k].size() && series[k].day(pos[k]) == min) pos[k]++;
+            }
+        }
+        return Arrays.copyOf(out, m);
+    }
+}
@@ -0,0 +1,176 @@
+package com.project.stock.temp;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * 업스트림 소스(SEC/Stooq/Yahoo) 하나에 대한 서킷 브레이커
+ * - CLOSED: 최근 WINDOW 건의 결과를 링 버퍼로 유지, MIN_CALLS 이상에서 실패율이 FAILURE_RATE 이상이면 OPEN
+ * - OPEN: openFor 동안 호출 없이 즉시 OpenException(네트워크/타임아웃/재시도 비용 없음)
+ * - HALF_OPEN: openFor 가 지나면 탐침 한 건만 통과. 성공 → CLOSED(창 초기화), 실패 → 다시 OPEN
+ * 취소(헤지에서 진 요청 등)와 소스 건강과 무관한 오류(isFailure=false)는 결과로 세지 않는다
+ */
+final class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    static final int WINDOW = 20;
+    static final int MIN_CALLS = 5;
+    static final double FAILURE_RATE = 0.5;
+    static final Duration OPEN_FOR = Duration.ofSeconds(30);
+
+    /** 열린 브레이커가 거절한 호출. 스택 트레이스 없음(빈번하고 원인이 명확) */
+    static final class OpenException extends RuntimeException {
+        OpenException(String source) {
+            super("circuit open: " + source, null, false, false);
+        }
+    }
+
+    private final String name;
+    private final long openForNanos;
+    private final LongSupplier clock;
+
+    private final boolean[] window = new boolean[WINDOW];   // true = 실패
+    private int recorded;
+    private int cursor;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probing;
+
+    CircuitBreaker(String name) {
+        this(name, OPEN_FOR, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, Duration openFor, LongSupplier clock) {
+        this.name = name;
+        this.openForNanos = openFor.toNanos();
+        this.clock = clock;
+    }
+
+    String name() {
+        return name;
+    }
+
+    /**
+     * call 을 브레이커 아래에서 실행. 허용되지 않으면 구독하지 않고 OpenException.
+     * isFailure 가 false 인 오류는 성공/실패 어느 쪽으로도 세지 않는다
+     */
+    <T> Mono<T> guard(Mono<T> call, Predicate<Throwable> isFailure) {
+        return Mono.defer(() -> {
+            if (!tryAcquire()) return Mono.error(new OpenException(name));
+            return call
+                    .doOnSuccess(v -> onSuccess())
+                    .doOnError(e -> {
+                        if (isFailure.test(e)) onFailure();
+                        else onIgnored();
+                    })
+                    .doOnCancel(this::onIgnored);
+        });
+    }
+
+    /** 호출 허용 여부. OPEN 기간이 지났으면 HALF_OPEN 으로 바꾸고 탐침 한 건만 허용 */
+    synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.getAsLong() - openedAt < openForNanos) return false;
+                transition(State.HALF_OPEN);
+                probing = true;
+                return true;
+            default:
+                if (probing) return false;
+                probing = true;
+                return true;
+        }
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            probing = false;
+            resetWindow();
+            transition(State.CLOSED);
+            return;
+        }
+        if (state == State.CLOSED) record(false);
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            probing = false;
+            open();
+            return;
+        }
+        if (state != State.CLOSED) return;
+        record(true);
+        if (recorded >= MIN_CALLS && failures >= FAILURE_RATE * recorded) open();
+    }
+
+    /** 결과 없이 끝난 호출(취소, 무관한 오류): 탐침이었으면 다음 호출이 다시 탐침할 수 있게 */
+    synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) probing = false;
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    /** 최근 실패율(창이 비었으면 0) */
+    synchronized double failureRate() {
+        return recorded == 0 ? 0 : (double) failures / recorded;
+    }
+
+    /**
+     * 건강 점수 0..1. OPEN 이면 0(탐침 시각이 되어도 탐침은 한 건뿐이므로 마찬가지),
+     * 그 외엔 1 - 실패율을 0.1 단위로 내림(작은 흔들림으로 순서가 바뀌지 않도록)
+     */
+    synchronized double health() {
+        if (state != State.CLOSED) return 0;
+        return Math.floor((1 - failureRate()) * 10) / 10;
+    }
+
+    /** 건강 점수 내림차순으로 안정 정렬(같은 점수면 원래 우선순위 유지) */
+    static <T> List<T> byHealth(List<T> items, Function<T, CircuitBreaker> breakerOf) {
+        List<T> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparingDouble((T item) -> breakerOf.apply(item).health()).reversed());
+        return sorted;
+    }
+
+    private void record(boolean failed) {
+        if (recorded == WINDOW) {
+            if (window[cursor]) failures--;
+        } else {
+            recorded++;
+        }
+        window[cursor] = failed;
+        if (failed) failures++;
+        cursor = (cursor + 1) % WINDOW;
+    }
+
+    private void resetWindow() {
+        recorded = 0;
+        cursor = 0;
+        failures = 0;
+    }
+
+    private void open() {
+        openedAt = clock.getAsLong();
+        resetWindow();
+        transition(State.OPEN);
+    }
+
+    private void transition(State to) {
+        if (state == to) return;
+        System.err.println("circuit " + name + ": " + state + " -> " + to);
+        state = to;
+    }
+}
@@ -0,0 +1,41 @@
+package com.project.stock.temp;
+
+import java.util.Collections;
+import java.util.Map;
+
+/** companyfacts 문서에서 요청한 namespace/tag 의 팩트만 남긴 결과 */
+final class CompanyFacts {
+
+    static final CompanyFacts EMPTY = new CompanyFacts(Collections.emptyMap());
+
+    private final Map<String, Map<String, ConceptFacts>> byNamespace;
+    private final String failure;
+
+    CompanyFacts(Map<String, Map<String, ConceptFacts>> byNamespace) {
+        this(byNamespace, null);
+    }
+
+    private CompanyFacts(Map<String, Map<String, ConceptFacts>> byNamespace, String failure) {
+        this.byNamespace = byNamespace;
+        this.failure = failure;
+    }
+
+    /** 조회/파싱 실패로 비어 있는 문서(캐시된 Mono 를 공유하는 종목들이 각자 실패로 기록하도록 사유 보존) */
+    static CompanyFacts failed(String reason) {
+        return new CompanyFacts(Collections.emptyMap(), reason);
+    }
+
+    /** 실패 사유(정상 문서면 null) */
+    String failure() {
+        return failure;
+    }
+
+    ConceptFacts facts(String namespace, String tag) {
+        return byNamespace.getOrDefault(namespace, Collections.emptyMap())
+                .getOrDefault(tag, ConceptFacts.EMPTY);
+    }
+
+    boolean isEmpty() {
+        return byNamespace.values().stream().allMatch(Map::isEmpty);
+    }
+}
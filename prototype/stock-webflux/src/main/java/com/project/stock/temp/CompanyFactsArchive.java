@@ -0,0 +1,243 @@
+package com.project.stock.temp;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * SEC 벌크 companyfacts.zip(CIK##########.json 묶음) 오프라인 리더
+ * - 열 때 central directory 만 읽어 CIK → 엔트리 위치 색인을 만든다
+ * - 엔트리는 필요할 때 그 구간만 memory-map 해서 Inflater 로 64KB씩 풀며 CompanyFactsParser 에 바로 먹인다
+ *   (압축 해제된 JSON 전체를 메모리에 올리지 않음)
+ * - readAll 은 엔트리를 코어 수만큼 병렬로 푼다(Schedulers.parallel)
+ * zip64 형식은 지원하지 않는다(현재 SEC 아카이브는 4GB/65535 엔트리 미만)
+ */
+public final class CompanyFactsArchive implements Closeable {
+
+    private static final int EOCD_SIG = 0x06054b50;
+    private static final int CEN_SIG = 0x02014b50;
+    private static final int LOC_SIG = 0x04034b50;
+    private static final int EOCD_MIN = 22;
+    private static final int CEN_HEADER = 46;
+    private static final int LOC_HEADER = 30;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    private static final int CHUNK = 64 * 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Map<String, EntryRef> byCik;
+
+    /** central directory 한 줄에서 필요한 값 */
+    record EntryRef(String name, long localOffset, long compressedSize, long size, int method, int crc) {}
+
+    private CompanyFactsArchive(Path path, FileChannel channel, Map<String, EntryRef> byCik) {
+        this.path = path;
+        this.channel = channel;
+        this.byCik = byCik;
+    }
+
+    public static CompanyFactsArchive open(Path zip) throws IOException {
+        FileChannel ch = FileChannel.open(zip, StandardOpenOption.READ);
+        try {
+            return new CompanyFactsArchive(zip, ch, readCentralDirectory(ch));
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /** 아카이브에 있는 CIK(10자리 0 채움) 목록 */
+    public Set<String> ciks() {
+        return byCik.keySet();
+    }
+
+    public boolean contains(String cik) {
+        return byCik.containsKey(cik);
+    }
+
+    /** 한 CIK 의 companyfacts 를 풀어 wanted 태그만 남긴다. 아카이브에 없으면 EMPTY */
+    Mono<CompanyFacts> read(String cik, Map<String, Set<String>> wanted) {
+        return Mono.fromCallable(() -> decode(cik, wanted))
+                .subscribeOn(Schedulers.parallel());
+    }
+
+    /** 여러 CIK 를 코어 수만큼 병렬로 풀기. 순서는 보장하지 않으며 아카이브에 없는 CIK 는 건너뛴다 */
+    Flux<Map.Entry<String, CompanyFacts>> readAll(Collection<String> ciks, Map<String, Set<String>> wanted) {
+        return Flux.fromIterable(ciks)
+                .filter(byCik::containsKey)
+                .parallel()
+                .runOn(Schedulers.parallel())
+                .map(cik -> (Map.Entry<String, CompanyFacts>) new AbstractMap.SimpleImmutableEntry<>(cik, decodeUnchecked(cik, wanted)))
+                .sequential();
+    }
+
+    private CompanyFacts decodeUnchecked(String cik, Map<String, Set<String>> wanted) {
+        try {
+            return decode(cik, wanted);
+        } catch (IOException e) {
+            System.err.println("companyfacts.zip entry error: " + cik + " " + e.getMessage());
+            return CompanyFacts.EMPTY;
+        }
+    }
+
+    CompanyFacts decode(String cik, Map<String, Set<String>> wanted) throws IOException {
+        EntryRef ref = byCik.get(cik);
+        if (ref == null) return CompanyFacts.EMPTY;
+        CompanyFactsParser parser = new CompanyFactsParser(wanted);
+        inflateTo(ref, parser);
+        return parser.finish();
+    }
+
+    private void inflateTo(EntryRef ref, StreamingBodyParser<?> parser) throws IOException {
+        ByteBuffer data = mapData(ref);
+        CRC32 crc = new CRC32();
+        ByteBuffer out = ByteBuffer.allocate(CHUNK);
+        long total = 0;
+
+        if (ref.method() == METHOD_STORED) {
+            while (data.hasRemaining()) {
+                ByteBuffer slice = data.slice();
+                slice.limit(Math.min(CHUNK, slice.remaining()));
+                data.position(data.position() + slice.remaining());
+                total += slice.remaining();
+                crc.update(slice.duplicate());
+                parser.feed(slice);
+            }
+        } else if (ref.method() == METHOD_DEFLATED) {
+            Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(data);
+                while (!inflater.finished()) {
+                    int n = inflater.inflate(out);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new IOException("truncated entry " + ref.name());
+                    }
+                    out.flip();
+                    total += out.remaining();
+                    crc.update(out.duplicate());
+                    parser.feed(out);
+                    out.clear();
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("corrupt entry " + ref.name(), e);
+            } finally {
+                inflater.end();
+            }
+        } else {
+            throw new IOException("unsupported compression method " + ref.method() + " for " + ref.name());
+        }
+
+        if (total != ref.size() || (int) crc.getValue() != ref.crc()) {
+            throw new IOException("size/crc mismatch for " + ref.name());
+        }
+    }
+
+    /** local header 를 건너뛴 압축 데이터 구간만 map */
+    private ByteBuffer mapData(EntryRef ref) throws IOException {
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, ref.localOffset(), LOC_HEADER);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(0) != LOC_SIG) throw new IOException("bad local header for " + ref.name());
+        long dataStart = ref.localOffset() + LOC_HEADER + u16(header, 26) + u16(header, 28);
+        if (dataStart + ref.compressedSize() > channel.size()) throw new IOException("entry past end of file: " + ref.name());
+        return channel.map(FileChannel.MapMode.READ_ONLY, dataStart, ref.compressedSize());
+    }
+
+    // ---------- central directory ----------
+
+    private static Map<String, EntryRef> readCentralDirectory(FileChannel ch) throws IOException {
+        long fileSize = ch.size();
+        if (fileSize < EOCD_MIN) throw new IOException("not a zip archive");
+
+        // EOCD 는 끝에서 (22 + 최대 주석 길이) 안에 있다
+        int tailLen = (int) Math.min(fileSize, EOCD_MIN + 0xFFFF);
+        MappedByteBuffer tail = ch.map(FileChannel.MapMode.READ_ONLY, fileSize - tailLen, tailLen);
+        tail.order(ByteOrder.LITTLE_ENDIAN);
+        int eocd = -1;
+        for (int i = tailLen - EOCD_MIN; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIG) { eocd = i; break; }
+        }
+        if (eocd < 0) throw new IOException("end of central directory not found");
+
+        int entries = u16(tail, eocd + 10);
+        long cdSize = u32(tail, eocd + 12);
+        long cdOffset = u32(tail, eocd + 16);
+        if (entries == 0xFFFF || cdSize == 0xFFFFFFFFL || cdOffset == 0xFFFFFFFFL) {
+            throw new IOException("zip64 archives are not supported");
+        }
+        if (cdOffset + cdSize > fileSize) throw new IOException("central directory past end of file");
+
+        MappedByteBuffer cd = ch.map(FileChannel.MapMode.READ_ONLY, cdOffset, cdSize);
+        cd.order(ByteOrder.LITTLE_ENDIAN);
+        Map<String, EntryRef> byCik = new HashMap<>(entries * 2);
+        int p = 0;
+        for (int i = 0; i < entries; i++) {
+            if (p + CEN_HEADER > cdSize || cd.getInt(p) != CEN_SIG) throw new IOException("bad central directory entry " + i);
+            int method = u16(cd, p + 10);
+            int crc = cd.getInt(p + 16);
+            long compressed = u32(cd, p + 20);
+            long size = u32(cd, p + 24);
+            int nameLen = u16(cd, p + 28);
+            int extraLen = u16(cd, p + 30);
+            int commentLen = u16(cd, p + 32);
+            long localOffset = u32(cd, p + 42);
+
+            byte[] nameBytes = new byte[nameLen];
+            cd.get(p + CEN_HEADER, nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+            String cik = cikOf(name);
+            if (cik != null) byCik.put(cik, new EntryRef(name, localOffset, compressed, size, method, crc));
+
+            p += CEN_HEADER + nameLen + extraLen + commentLen;
+        }
+        return byCik;
+    }
+
+    /** "CIK0000320193.json"(디렉터리 접두 허용) → "0000320193", 그 외 null */
+    static String cikOf(String entryName) {
+        int slash = entryName.lastIndexOf('/');
+        String base = entryName.substring(slash + 1);
+        if (base.length() != 18 || !base.startsWith("CIK") || !base.endsWith(".json")) return null;
+        for (int i = 3; i < 13; i++) {
+            char c = base.charAt(i);
+            if (c < '0' || c > '9') return null;
+        }
+        return base.substring(3, 13);
+    }
+
+    private static int u16(ByteBuffer b, int at) {
+        return b.getShort(at) & 0xFFFF;
+    }
+
+    private static long u32(ByteBuffer b, int at) {
+        return b.getInt(at) & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "CompanyFactsArchive[" + path + ", " + byCik.size() + " companies]";
+    }
+}
@@ -0,0 +1,57 @@
+package com.project.stock.temp;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * companyfacts/CIK*.json 스트리밍 파서
+ * - 구조: { "facts": { ns: { tag: { "units": { unit: [ {fact}, ... ] } } } } }
+ * - 요청하지 않은 namespace/tag/unit 하위 트리는 건너뛰고, 매칭된 태그의 팩트만 열 단위로 남긴다
+ * 문서 전체 문자열/트리를 들지 않으므로 종목당 메모리는 선택된 팩트 크기 수준
+ */
+final class CompanyFactsParser extends FactStreamParser<CompanyFacts> {
+
+    private final Map<String, Set<String>> wanted;
+    private final Map<String, Map<String, ConceptFacts.Builder>> builders = new HashMap<>();
+    private String namespace;
+
+    /** @param wanted namespace → 필요한 tag 집합 */
+    CompanyFactsParser(Map<String, Set<String>> wanted) {
+        this.wanted = wanted;
+    }
+
+    @Override
+    int factDepth() { return 7; }
+
+    @Override
+    boolean accept(int depth, String name) {
+        switch (depth) {
+            case 1: return "facts".equals(name);
+            case 2:
+                if (!wanted.containsKey(name)) return false;
+                namespace = name;
+                return true;
+            case 3:
+                if (!wanted.get(namespace).contains(name)) return false;
+                target = builders.computeIfAbsent(namespace, k -> new HashMap<>())
+                        .computeIfAbsent(name, k -> new ConceptFacts.Builder());
+                return true;
+            case 4: return "units".equals(name);   // label/description 등은 버림
+            case 5: return unitWanted(namespace, name);   // us-gaap 의 EUR, pure 등은 버림
+            default: return false;
+        }
+    }
+
+    @Override
+    CompanyFacts result() {
+        if (builders.isEmpty()) return CompanyFacts.EMPTY;
+        Map<String, Map<String, ConceptFacts>> out = new HashMap<>();
+        builders.forEach((ns, tags) -> {
+            Map<String, ConceptFacts> m = new HashMap<>();
+            tags.forEach((tag, b) -> m.put(tag, b.build()));
+            out.put(ns, m);
+        });
+        return new CompanyFacts(out);
+    }
+}
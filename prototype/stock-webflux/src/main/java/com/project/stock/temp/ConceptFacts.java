@@ -0,0 +1,161 @@
+package com.project.stock.temp;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 한 개념(태그)의 XBRL 팩트를 열(column) 단위 primitive 배열로 보관
+ * - start/end : epoch day (없으면 EpochDays.NONE)
+ * - val       : double (없으면 NaN)
+ * - fy        : short (없으면 0)
+ * - fp        : Q1..Q4=1..4, FY=5, 그 외 0
+ * - form      : 허용 양식 1..n, 빈 값 0, 그 외 -1
+ * - flags     : frame 에 YTD 표기가 있는지 등
+ * 팩트마다 JsonNode/LocalDate/문자열을 만들지 않아 대량 종목 처리 시 GC 부담이 작다
+ */
+final class ConceptFacts {
+
+    static final byte FP_NONE = 0;
+    static final byte FP_FY = 5;
+
+    static final byte FORM_BLANK = 0;
+    static final byte FORM_OTHER = -1;
+    /** 분기화/시점 계정에 쓰는 양식(순서 = 코드 1..n) */
+    static final String[] ALLOWED_FORMS = {
+            "10-Q", "10-Q/A", "10-K", "10-K/A",
+            "20-F", "20-F/A", "40-F", "40-F/A",
+            "6-K", "6-K/A"
+    };
+
+    static final byte FLAG_FRAME_YTD = 1;
+
+    static final ConceptFacts EMPTY = new Builder().build();
+
+    final int size;
+    final int[] start;
+    final int[] end;
+    final double[] val;
+    final short[] fy;
+    final byte[] fp;
+    final byte[] form;
+    final byte[] flags;
+
+    private ConceptFacts(int size, int[] start, int[] end, double[] val, short[] fy, byte[] fp, byte[] form, byte[] flags) {
+        this.size = size; this.start = start; this.end = end; this.val = val;
+        this.fy = fy; this.fp = fp; this.form = form; this.flags = flags;
+    }
+
+    boolean isEmpty() { return size == 0; }
+
+    static boolean isAllowedForm(byte formCode) { return formCode != FORM_OTHER; }
+
+    /** 여러 태그 결과를 순서대로 이어 붙임(합집합 로더용) */
+    static ConceptFacts concat(List<ConceptFacts> parts) {
+        Builder b = new Builder();
+        for (ConceptFacts p : parts) {
+            if (p == null) continue;
+            for (int i = 0; i < p.size; i++) b.add(p.start[i], p.end[i], p.val[i], p.fy[i], p.fp[i], p.form[i], p.flags[i]);
+        }
+        return b.build();
+    }
+
+    // ---------- 문자열 코드화 ----------
+
+    static byte fpCode(char[] s, int off, int len) {
+        if (len != 2) return FP_NONE;
+        char a = s[off], b = s[off + 1];
+        if (a == 'Q' && b >= '1' && b <= '4') return (byte) (b - '0');
+        if (a == 'F' && b == 'Y') return FP_FY;
+        return FP_NONE;
+    }
+
+    static byte formCode(char[] s, int off, int len) {
+        if (len == 0) return FORM_BLANK;
+        outer:
+        for (int k = 0; k < ALLOWED_FORMS.length; k++) {
+            String f = ALLOWED_FORMS[k];
+            if (f.length() != len) continue;
+            for (int i = 0; i < len; i++) if (f.charAt(i) != s[off + i]) continue outer;
+            return (byte) (k + 1);
+        }
+        // 공백만 있는 값은 누락과 같게 취급
+        for (int i = 0; i < len; i++) if (!Character.isWhitespace(s[off + i])) return FORM_OTHER;
+        return FORM_BLANK;
+    }
+
+    static boolean containsYtd(char[] s, int off, int len) {
+        for (int i = 0; i + 2 < len; i++) {
+            if ((s[off + i] | 0x20) == 'y' && (s[off + i + 1] | 0x20) == 't' && (s[off + i + 2] | 0x20) == 'd') return true;
+        }
+        return false;
+    }
+
+    /** 배열을 늘려 가며 한 행씩 쌓는다. 파서는 beginFact → value* → endFact 순으로 호출 */
+    static final class Builder implements FactSink {
+        private int size;
+        private int[] start = new int[16];
+        private int[] end = new int[16];
+        private double[] val = new double[16];
+        private short[] fy = new short[16];
+        private byte[] fp = new byte[16];
+        private byte[] form = new byte[16];
+        private byte[] flags = new byte[16];
+
+        // 현재 읽는 팩트
+        private int curStart, curEnd, curFy;
+        private double curVal;
+        private byte curFp, curForm, curFlags;
+
+        void add(int s, int e, double v, short y, byte p, byte f, byte fl) {
+            if (size == end.length) grow();
+            start[size] = s; end[size] = e; val[size] = v; fy[size] = y; fp[size] = p; form[size] = f; flags[size] = fl;
+            size++;
+        }
+
+        @Override
+        public void beginFact() {
+            curStart = EpochDays.NONE; curEnd = EpochDays.NONE; curFy = 0;
+            curVal = Double.NaN; curFp = FP_NONE; curForm = FORM_BLANK; curFlags = 0;
+        }
+
+        /** 관심 없는 필드(accn, filed 등)는 무시 */
+        @Override
+        public void value(String field, JsonParser p, JsonToken t) throws IOException {
+            switch (field) {
+                case "val" -> { if (t.isNumeric()) curVal = p.getDoubleValue(); }
+                case "fy" -> { if (t == JsonToken.VALUE_NUMBER_INT) curFy = p.getIntValue(); }
+                case "start" -> { if (t == JsonToken.VALUE_STRING) curStart = EpochDays.parse(p.getTextCharacters(), p.getTextOffset(), p.getTextLength()); }
+                case "end" -> { if (t == JsonToken.VALUE_STRING) curEnd = EpochDays.parse(p.getTextCharacters(), p.getTextOffset(), p.getTextLength()); }
+                case "fp" -> { if (t == JsonToken.VALUE_STRING) curFp = fpCode(p.getTextCharacters(), p.getTextOffset(), p.getTextLength()); }
+                case "form" -> { if (t == JsonToken.VALUE_STRING) curForm = formCode(p.getTextCharacters(), p.getTextOffset(), p.getTextLength()); }
+                case "frame" -> {
+                    if (t == JsonToken.VALUE_STRING && containsYtd(p.getTextCharacters(), p.getTextOffset(), p.getTextLength())) {
+                        curFlags |= FLAG_FRAME_YTD;
+                    }
+                }
+                default -> { }
+            }
+        }
+
+        @Override
+        public void endFact() {
+            add(curStart, curEnd, curVal, (short) curFy, curFp, curForm, curFlags);
+        }
+
+        ConceptFacts build() {
+            return new ConceptFacts(size,
+                    Arrays.copyOf(start, size), Arrays.copyOf(end, size), Arrays.copyOf(val, size),
+                    Arrays.copyOf(fy, size), Arrays.copyOf(fp, size), Arrays.copyOf(form, size), Arrays.copyOf(flags, size));
+        }
+
+        private void grow() {
+            int n = end.length * 2;
+            start = Arrays.copyOf(start, n); end = Arrays.copyOf(end, n); val = Arrays.copyOf(val, n);
+            fy = Arrays.copyOf(fy, n); fp = Arrays.copyOf(fp, n); form = Arrays.copyOf(form, n); flags = Arrays.copyOf(flags, n);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.project.stock.temp;
+
+/**
+ * companyconcept/CIK{cik}/{taxonomy}/{tag}.json 스트리밍 파서
+ * - 구조: { "cik": .., "tag": .., "units": { unit: [ {fact}, ... ] } }
+ */
+final class ConceptFactsParser extends FactStreamParser<ConceptFacts> {
+
+    private final ConceptFacts.Builder builder = new ConceptFacts.Builder();
+    private final String taxonomy;
+
+    ConceptFactsParser(String taxonomy) {
+        this.taxonomy = taxonomy;
+        this.target = builder;
+    }
+
+    @Override
+    int factDepth() { return 4; }
+
+    @Override
+    boolean accept(int depth, String name) {
+        if (depth == 1) return "units".equals(name);
+        return depth == 2 && unitWanted(taxonomy, name);
+    }
+
+    @Override
+    ConceptFacts result() {
+        return builder.build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.project.stock.temp;
+
+import java.util.Arrays;
+
+/**
+ * epoch day 오름차순으로 정렬된 (날짜, 값) primitive 시계열. 불변
+ * 분기화 결과/시점 계정 시리즈에 사용하며 분기말 정렬은 AsOfJoin 병합으로
+ */
+final class DaySeries implements DayValues {
+
+    static final DaySeries EMPTY = new DaySeries(new int[0], new double[0]);
+
+    private final int[] days;
+    private final double[] values;
+
+    /** days 는 엄격 오름차순이어야 한다(호출자가 보장) */
+    DaySeries(int[] days, double[] values) {
+        this.days = days;
+        this.values = values;
+    }
+
+    @Override public int size() { return days.length; }
+    boolean isEmpty() { return days.length == 0; }
+    @Override public int day(int i) { return days[i]; }
+    @Override public double value(int i) { return values[i]; }
+
+    /**
+     * (날짜, 순번)을 long 하나로 묶어 정렬한 키에서 시리즈를 만든다.
+     * 같은 날짜가 여러 개면 순번이 가장 큰(나중) 값을 남긴다 — TreeMap.put 덮어쓰기와 같은 의미
+     */
+    static DaySeries fromPackedKeys(long[] keys, int n, double[] valueByOrdinal) {
+        if (n == 0) return EMPTY;
+        Arrays.sort(keys, 0, n);
+        int[] d = new int[n];
+        double[] v = new double[n];
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            int day = (int) (keys[i] >> 32);
+            double val = valueByOrdinal[(int) keys[i]];
+            if (m > 0 && d[m - 1] == day) { v[m - 1] = val; continue; }
+            d[m] = day; v[m] = val; m++;
+        }
+        return new DaySeries(Arrays.copyOf(d, m), Arrays.copyOf(v, m));
+    }
+
+    static long packKey(int day, int ordinal) {
+        return ((long) day << 32) | ordinal;
+    }
+}
@@ -0,0 +1,11 @@
+package com.project.stock.temp;
+
+/** epoch day 엄격 오름차순 (날짜, 값) 시계열의 공통 읽기 면. AsOfJoin 입력 */
+interface DayValues {
+
+    int size();
+
+    int day(int i);
+
+    double value(int i);
+}
@@ -0,0 +1,71 @@
+package com.project.stock.temp;
+
+/**
+ * "yyyy-MM-dd" ↔ epoch day 변환 (LocalDate 객체/예외 없이)
+ * days_from_civil 알고리즘(proleptic Gregorian) 사용 — LocalDate.toEpochDay() 와 같은 값
+ */
+final class EpochDays {
+
+    /** 날짜 없음/형식 오류 표시 */
+    static final int NONE = Integer.MIN_VALUE;
+
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private EpochDays() {}
+
+    static int of(int y, int m, int d) {
+        if (m < 1 || m > 12 || d < 1) return NONE;
+        int dim = (m == 2 && isLeap(y)) ? 29 : DAYS_IN_MONTH[m - 1];
+        if (d > dim) return NONE;
+        y -= (m <= 2) ? 1 : 0;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yoe = y - era * 400;
+        int doy = (153 * (m + (m > 2 ? -3 : 9)) + 2) / 5 + d - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    static boolean isLeap(int y) {
+        return (y & 3) == 0 && (y % 100 != 0 || y % 400 == 0);
+    }
+
+    /** 정확히 10자 "yyyy-MM-dd" 만 허용 */
+    static int parse(char[] s, int off, int len) {
+        if (len != 10 || s[off + 4] != '-' || s[off + 7] != '-') return NONE;
+        int y = digits(s, off, 4);
+        int m = digits(s, off + 5, 2);
+        int d = digits(s, off + 8, 2);
+        if (y < 0 || m < 0 || d < 0) return NONE;
+        return of(y, m, d);
+    }
+
+    /** 바이트 버퍼 버전(응답 본문을 문자열로 바꾸지 않고 바로) */
+    static int parse(byte[] s, int off, int len) {
+        if (len != 10 || s[off + 4] != '-' || s[off + 7] != '-') return NONE;
+        int y = digits(s, off, 4);
+        int m = digits(s, off + 5, 2);
+        int d = digits(s, off + 8, 2);
+        if (y < 0 || m < 0 || d < 0) return NONE;
+        return of(y, m, d);
+    }
+
+    private static int digits(char[] s, int off, int n) {
+        int v = 0;
+        for (int i = 0; i < n; i++) {
+            int c = s[off + i] - '0';
+            if (c < 0 || c > 9) return -1;
+            v = v * 10 + c;
+        }
+        return v;
+    }
+
+    private static int digits(byte[] s, int off, int n) {
+        int v = 0;
+        for (int i = 0; i < n; i++) {
+            int c = s[off + i] - '0';
+            if (c < 0 || c > 9) return -1;
+            v = v * 10 + c;
+        }
+        return v;
+    }
+}
@@ -0,0 +1,17 @@
+package com.project.stock.temp;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/** FactStreamParser 가 팩트 한 건을 흘려 보내는 대상. beginFact → value* → endFact 순으로 호출 */
+interface FactSink {
+
+    void beginFact();
+
+    /** 팩트 객체의 스칼라 필드 하나. 관심 없는 필드는 무시 */
+    void value(String field, JsonParser p, JsonToken t) throws IOException;
+
+    void endFact();
+}
@@ -0,0 +1,127 @@
+package com.project.stock.temp;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * XBRL JSON(companyfacts/companyconcept) 공통 논블로킹 스트리밍 파서 (Jackson async parser)
+ * - 하위 클래스는 깊이별로 어떤 필드를 따라 내려갈지(accept)만 정한다
+ * - 따라가지 않는 하위 트리는 토큰 수만 세며 건너뛴다(노드/문자열 생성 없음)
+ * - factDepth 의 객체 하나가 팩트 한 건이며 target 빌더에 열 단위로 바로 쌓인다
+ */
+abstract class FactStreamParser<R> implements StreamingBodyParser<R> {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    /**
+     * namespace → 받는 unit. 다른 통화·단위 배열이 한 열에 섞이면 값이 틀어지므로 건너뛴다
+     * - 목록에 없는 namespace(ifrs-full)는 보고 통화가 회사마다 달라 모든 unit 수용
+     */
+    static final Map<String, Set<String>> UNITS = Map.of(
+            "us-gaap", Set.of("USD", "USD/shares", "shares"),
+            "dei", Set.of("shares"));
+
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+
+    private int depth;              // 현재 컨테이너 깊이(루트 객체 = 1)
+    private int skipDepth;          // > 0 이면 건너뛰는 하위 트리 안
+    private boolean skipNextValue;  // 직전 FIELD_NAME 의 값을 건너뛸지
+    private boolean inFact;
+    private String factField;
+
+    /** 팩트를 쌓을 대상. accept 에서 바꿀 수 있고 null 이면 팩트를 버린다 */
+    protected FactSink target;
+
+    FactStreamParser() {
+        try {
+            this.parser = FACTORY.createNonBlockingByteBufferParser();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /** 팩트 객체가 놓이는 깊이 */
+    abstract int factDepth();
+
+    /** depth 깊이 객체의 name 필드를 따라 내려갈지. false 면 그 값 전체를 건너뛴다 */
+    abstract boolean accept(int depth, String name);
+
+    abstract R result();
+
+    static boolean unitWanted(String namespace, String unit) {
+        Set<String> units = UNITS.get(namespace);
+        return units == null || units.contains(unit);
+    }
+
+    @Override
+    public void feed(ByteBuffer chunk) throws IOException {
+        if (!chunk.hasRemaining()) return;
+        feeder.feedInput(chunk);
+        drain();
+    }
+
+    @Override
+    public R finish() throws IOException {
+        feeder.endOfInput();
+        drain();
+        parser.close();
+        return result();
+    }
+
+    private void drain() throws IOException {
+        JsonToken t;
+        while ((t = parser.nextToken()) != null && t != JsonToken.NOT_AVAILABLE) {
+            handle(t);
+        }
+    }
+
+    private void handle(JsonToken t) throws IOException {
+        if (skipDepth > 0) {
+            if (t.isStructStart()) skipDepth++;
+            else if (t.isStructEnd()) skipDepth--;
+            return;
+        }
+        if (t == JsonToken.FIELD_NAME) {
+            if (inFact && depth == factDepth()) factField = parser.currentName();
+            else skipNextValue = !accept(depth, parser.currentName());
+            return;
+        }
+        if (t.isStructStart()) {
+            if (skipNextValue || (inFact && depth == factDepth())) { // 팩트 안의 중첩 값도 버림
+                skipNextValue = false;
+                factField = null;
+                skipDepth = 1;
+                return;
+            }
+            depth++;
+            if (depth == factDepth() && t == JsonToken.START_OBJECT && target != null) {
+                target.beginFact();
+                inFact = true;
+            }
+            return;
+        }
+        if (t.isStructEnd()) {
+            if (inFact && depth == factDepth()) {
+                target.endFact();
+                inFact = false;
+            }
+            depth--;
+            return;
+        }
+        // 스칼라 값
+        if (skipNextValue) { skipNextValue = false; return; }
+        if (inFact && factField != null) {
+            target.value(factField, parser, t);
+            factField = null;
+        }
+    }
+}
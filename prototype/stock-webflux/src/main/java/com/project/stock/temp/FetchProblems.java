@@ -0,0 +1,35 @@
+package com.project.stock.temp;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 한 종목 계산 중 로더가 삼킨(빈 값으로 대체한) 조회 오류 기록. Reactor Context 로 전달된다
+ * 결과가 "데이터 없음"인지 "받다가 실패"인지 구분해 실패 종목만 나중에 재시도하기 위함
+ */
+final class FetchProblems {
+
+    static final String CONTEXT_KEY = FetchProblems.class.getName();
+
+    private volatile String first;
+
+    void record(String what, Throwable e) {
+        if (first == null) first = what + ": " + e.getMessage();
+    }
+
+    boolean any() {
+        return first != null;
+    }
+
+    /** 처음 기록된 오류(없으면 null) */
+    String first() {
+        return first;
+    }
+
+    /** 구독 컨텍스트에 FetchProblems 가 있으면 기록하고 fallback 으로 대체 */
+    static <T> Mono<T> report(String what, Throwable e, T fallback) {
+        return Mono.deferContextual(ctx -> {
+            ctx.<FetchProblems>getOrEmpty(CONTEXT_KEY).ifPresent(p -> p.record(what, e));
+            return Mono.just(fallback);
+        });
+    }
+}
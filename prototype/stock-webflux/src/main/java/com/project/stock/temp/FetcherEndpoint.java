@@ -0,0 +1,44 @@
+package com.project.stock.temp;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/fetcher — 진행 중인 실행의 진행률/처리량과 upstream 상태를 한눈에
+ * 개별 미터(fetcher.*)는 /actuator/metrics 에서 태그별로 더 자세히 볼 수 있다
+ */
+@Endpoint(id = "fetcher")
+public class FetcherEndpoint {
+
+    private final StockMetricsFetcher fetcher;
+
+    public FetcherEndpoint(StockMetricsFetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    @ReadOperation
+    public Map<String, Object> summary() {
+        Map<String, Object> out = fetcher.metrics().summary();
+
+        Map<String, Object> circuits = new LinkedHashMap<>();
+        for (CircuitBreaker b : fetcher.circuitBreakers().values()) {
+            circuits.put(b.name(), Map.of("state", b.state().name(), "failureRate", b.failureRate()));
+        }
+        out.put("circuits", circuits);
+
+        Map<String, Object> priceP95 = new LinkedHashMap<>();
+        fetcher.priceSourceLatencies().forEach((source, h) -> priceP95.put(source, h.percentileMillis(0.95)));
+        out.put("priceSourceP95Millis", priceP95);
+
+        SecRateLimiter sec = fetcher.secRateLimiter();
+        out.put("secLimiter", Map.of("rate", sec.currentRate(), "queued", sec.queueDepth()));
+
+        AdaptiveLimiter concurrency = fetcher.concurrencyLimiter();
+        out.put("concurrency", Map.of("limit", concurrency.limit(), "inFlight", concurrency.inFlight(),
+                "queued", concurrency.queued()));
+        return out;
+    }
+}
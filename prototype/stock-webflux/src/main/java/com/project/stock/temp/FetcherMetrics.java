@@ -0,0 +1,291 @@
+package com.project.stock.temp;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * StockMetricsFetcher 계측(Micrometer). 미터 이름은 모두 fetcher.* — /actuator/metrics 에서 조회
+ * - fetcher.requests       Timer: HTTP 교환 1회(재시도 각각) 지연, upstream/endpoint/outcome 태그
+ * - fetcher.responses      Counter: 응답 상태별(404, 429 등), upstream/status
+ * - fetcher.retries        Counter: 재시도 횟수, upstream/endpoint
+ * - fetcher.download       DistributionSummary(bytes): 네트워크로 받은 본문 크기, upstream/endpoint
+ * - fetcher.parse          Timer: 본문 파싱 시간, format
+ * - fetcher.cache          Counter: fresh(TTL 내) / revalidated(304) / stale(오류 시 오래된 본문) / miss, upstream
+ * - fetcher.tag.affinity   Counter: 개념 로딩 시 기억한 태그 hit / stale(다시 탐색) / miss(기억 없음)
+ * - fetcher.tickers        Counter: 끝난 종목, outcome=match|reject|fail
+ * - fetcher.inflight       Gauge: 진행 중 HTTP 교환, upstream
+ * - fetcher.tickers.inflight / fetcher.tickers.remaining  Gauge
+ * 진행률/최근 처리량은 summary() 로 묶어서 fetcher 액추에이터 엔드포인트가 보여 준다
+ */
+final class FetcherMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<String, AtomicInteger> inFlight = new LinkedHashMap<>();
+    private final AtomicInteger tickersInFlight = new AtomicInteger();
+
+    // 진행률: 겹쳐 도는 실행은 합산, 모든 실행이 끝난 뒤 새 실행이 시작되면 초기화
+    private final AtomicInteger activeRuns = new AtomicInteger();
+    private final AtomicLong planned = new AtomicLong();
+    private final AtomicLong finished = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long runStartedNanos = System.nanoTime();
+    private volatile long runEndedNanos = System.nanoTime();
+
+    private final RateWindow tickerRate = new RateWindow();
+    private final RateWindow requestRate = new RateWindow();
+    private final RateWindow byteRate = new RateWindow();
+
+    FetcherMetrics(MeterRegistry registry, List<String> upstreams) {
+        this.registry = registry;
+        for (String upstream : upstreams) {
+            AtomicInteger n = new AtomicInteger();
+            inFlight.put(upstream, n);
+            Gauge.builder("fetcher.inflight", n, AtomicInteger::get).tag("upstream", upstream)
+                    .description("in-flight HTTP exchanges").register(registry);
+        }
+        Gauge.builder("fetcher.tickers.inflight", tickersInFlight, AtomicInteger::get).register(registry);
+        Gauge.builder("fetcher.tickers.remaining", this, m -> Math.max(0, m.planned.get() - m.finished.get()))
+                .register(registry);
+    }
+
+    MeterRegistry registry() {
+        return registry;
+    }
+
+    // ========================= HTTP =========================
+
+    /**
+     * HTTP 교환 한 번(구독~종료)을 계측. 응답 전에 취소된 교환은 outcome=cancelled.
+     * 값을 받은 직후의 취소(next()/takeUntil 이 완료 신호 전에 끊음)는 응답을 받은 것이므로 success.
+     * 종료 신호를 아래로 넘기기 전에 기록한다(doFinally 는 구독자가 끝난 뒤에 돌아 inflight 게이지가 잠깐 남는다)
+     */
+    <T> Mono<T> exchange(String upstream, String endpoint, Mono<T> call) {
+        return Mono.defer(() -> {
+            AtomicInteger n = inFlight.get(upstream);
+            n.incrementAndGet();
+            long start = System.nanoTime();
+            AtomicBoolean done = new AtomicBoolean();
+            Consumer<String> finish = outcome -> {
+                if (!done.compareAndSet(false, true)) return;
+                n.decrementAndGet();
+                Timer.builder("fetcher.requests")
+                        .tags("upstream", upstream, "endpoint", endpoint, "outcome", outcome)
+                        .publishPercentiles(0.5, 0.95)
+                        .register(registry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                requestRate.add(1);
+            };
+            return call.doOnSuccess(v -> finish.accept("success"))
+                    .doOnError(e -> finish.accept("error"))
+                    .doOnCancel(() -> finish.accept("cancelled"));
+        });
+    }
+
+    void response(String upstream, int status) {
+        registry.counter("fetcher.responses", "upstream", upstream, "status", Integer.toString(status)).increment();
+    }
+
+    void retry(String upstream, String endpoint) {
+        registry.counter("fetcher.retries", "upstream", upstream, "endpoint", endpoint).increment();
+    }
+
+    void downloaded(String upstream, String endpoint, long bytes) {
+        DistributionSummary.builder("fetcher.download").baseUnit("bytes")
+                .tags("upstream", upstream, "endpoint", endpoint)
+                .register(registry)
+                .record(bytes);
+        byteRate.add(bytes);
+    }
+
+    void cache(String upstream, String result) {
+        registry.counter("fetcher.cache", "upstream", upstream, "result", result).increment();
+    }
+
+    void parsed(String format, long nanos) {
+        registry.timer("fetcher.parse", "format", format).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    <T> T parse(String format, Supplier<T> parser) {
+        long start = System.nanoTime();
+        try {
+            return parser.get();
+        } finally {
+            parsed(format, System.nanoTime() - start);
+        }
+    }
+
+    void tagAffinity(String result) {
+        registry.counter("fetcher.tag.affinity", "result", result).increment();
+    }
+
+    // ========================= 종목 진행률 =========================
+
+    /** 종목 n 개짜리 실행 하나를 감싼다 */
+    <T> Flux<T> run(int tickers, Flux<T> outcomes) {
+        return Flux.defer(() -> {
+            if (activeRuns.getAndIncrement() == 0) {
+                planned.set(0);
+                finished.set(0);
+                failed.set(0);
+                runStartedNanos = System.nanoTime();
+            }
+            planned.addAndGet(tickers);
+            return outcomes.doFinally(signal -> {
+                if (activeRuns.decrementAndGet() == 0) runEndedNanos = System.nanoTime();
+            });
+        });
+    }
+
+    /** 종목 하나의 계산을 감싸 진행 중 수를 유지 */
+    <T> Mono<T> ticker(Mono<T> evaluation) {
+        return evaluation
+                .doFirst(tickersInFlight::incrementAndGet)
+                .doFinally(signal -> tickersInFlight.decrementAndGet());
+    }
+
+    void tickerFinished(TickerOutcome.Status status) {
+        registry.counter("fetcher.tickers", "outcome", status.name().toLowerCase(Locale.ROOT)).increment();
+        finished.incrementAndGet();
+        if (status == TickerOutcome.Status.FAIL) failed.incrementAndGet();
+        tickerRate.add(1);
+    }
+
+    // ========================= 요약 =========================
+
+    /** 진행률, 최근 1분 처리량, upstream 별 요청/캐시 요약 */
+    Map<String, Object> summary() {
+        Map<String, Object> out = new LinkedHashMap<>();
+
+        long total = planned.get(), done = finished.get();
+        boolean running = activeRuns.get() > 0;
+        double elapsed = running || done > 0 ? ((running ? System.nanoTime() : runEndedNanos) - runStartedNanos) / 1e9 : 0;
+        double recentTickers = tickerRate.perSecond();
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("activeRuns", activeRuns.get());
+        progress.put("planned", total);
+        progress.put("finished", done);
+        progress.put("failed", failed.get());
+        progress.put("inFlight", tickersInFlight.get());
+        progress.put("percent", total == 0 ? 0 : round(100.0 * done / total));
+        progress.put("elapsedSeconds", round(elapsed));
+        progress.put("etaSeconds", recentTickers > 0 && total > done ? round((total - done) / recentTickers) : null);
+        out.put("progress", progress);
+
+        Map<String, Object> throughput = new LinkedHashMap<>();
+        throughput.put("tickersPerSecond", round(recentTickers));
+        throughput.put("requestsPerSecond", round(requestRate.perSecond()));
+        throughput.put("kilobytesPerSecond", round(byteRate.perSecond() / 1024));
+        throughput.put("overallTickersPerSecond", elapsed > 0 ? round(done / elapsed) : 0);
+        out.put("throughputLastMinute", throughput);
+
+        Map<String, Object> upstreams = new LinkedHashMap<>();
+        for (Map.Entry<String, AtomicInteger> e : inFlight.entrySet()) {
+            String upstream = e.getKey();
+            Map<String, Object> u = new LinkedHashMap<>();
+            u.put("inFlight", e.getValue().get());
+            u.put("requests", requestsByEndpoint(upstream));
+            u.put("downloadedKilobytes", round(registry.find("fetcher.download").tag("upstream", upstream)
+                    .summaries().stream().mapToDouble(DistributionSummary::totalAmount).sum() / 1024));
+            u.put("retries", sum("fetcher.retries", upstream, null));
+            u.put("404", sum("fetcher.responses", upstream, "404"));
+            u.put("429", sum("fetcher.responses", upstream, "429"));
+            u.put("cacheHitRate", cacheHitRate(upstream));
+            upstreams.put(upstream, u);
+        }
+        out.put("upstreams", upstreams);
+
+        Map<String, Object> parse = new LinkedHashMap<>();
+        for (Timer t : registry.find("fetcher.parse").timers()) {
+            parse.put(t.getId().getTag("format"), Map.of(
+                    "count", t.count(),
+                    "totalMillis", round(t.totalTime(TimeUnit.MILLISECONDS)),
+                    "meanMillis", round(t.mean(TimeUnit.MILLISECONDS))));
+        }
+        out.put("parse", parse);
+        return out;
+    }
+
+    private Map<String, Object> requestsByEndpoint(String upstream) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (Timer t : registry.find("fetcher.requests").tag("upstream", upstream).timers()) {
+            if (!"success".equals(t.getId().getTag("outcome"))) continue;
+            out.put(t.getId().getTag("endpoint"), Map.of(
+                    "count", t.count(),
+                    "meanMillis", round(t.mean(TimeUnit.MILLISECONDS)),
+                    "maxMillis", round(t.max(TimeUnit.MILLISECONDS))));
+        }
+        return out;
+    }
+
+    private double cacheHitRate(String upstream) {
+        double hits = 0, all = 0;
+        for (Counter c : registry.find("fetcher.cache").tag("upstream", upstream).counters()) {
+            all += c.count();
+            if (!"miss".equals(c.getId().getTag("result"))) hits += c.count();
+        }
+        return all == 0 ? 0 : round(hits / all);
+    }
+
+    private double sum(String name, String upstream, String status) {
+        var search = registry.find(name).tag("upstream", upstream);
+        if (status != null) search = search.tag("status", status);
+        return search.counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+
+    /** 최근 60초 합계(초 단위 버킷 링). 버킷마다 어느 초의 값인지 함께 저장해 오래된 버킷은 버린다 */
+    static final class RateWindow {
+        static final int SECONDS = 60;
+
+        private final AtomicLongArray sums = new AtomicLongArray(SECONDS);
+        private final AtomicLongArray stamps = new AtomicLongArray(SECONDS);
+        private final Supplier<Long> clockSeconds;
+
+        RateWindow() {
+            this(() -> System.nanoTime() / 1_000_000_000L);
+        }
+
+        RateWindow(Supplier<Long> clockSeconds) {
+            this.clockSeconds = clockSeconds;
+        }
+
+        void add(long amount) {
+            long now = clockSeconds.get();
+            int i = Math.floorMod(now, SECONDS);
+            long stamp = stamps.get(i);
+            if (stamp != now && stamps.compareAndSet(i, stamp, now)) sums.set(i, 0);
+            sums.addAndGet(i, amount);
+        }
+
+        /** 최근 60초(진행 중인 현재 초 제외) 평균 초당 값 */
+        double perSecond() {
+            long now = clockSeconds.get();
+            long total = 0;
+            for (int i = 0; i < SECONDS; i++) {
+                long age = now - stamps.get(i);
+                if (age >= 1 && age <= SECONDS) total += sums.get(i);
+            }
+            return (double) total / SECONDS;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.project.stock.temp;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * frames 응답 하나(한 개념 × 한 기간 × 전 filer)를 열 단위로 보관
+ * - cik   : 정수 CIK
+ * - start/end : epoch day (instant 이거나 없으면 EpochDays.NONE)
+ * - val   : double (없으면 NaN)
+ */
+final class FrameFacts {
+
+    static final FrameFacts EMPTY = new Builder().build();
+
+    final int size;
+    final int[] cik;
+    final int[] start;
+    final int[] end;
+    final double[] val;
+
+    private FrameFacts(int size, int[] cik, int[] start, int[] end, double[] val) {
+        this.size = size; this.cik = cik; this.start = start; this.end = end; this.val = val;
+    }
+
+    boolean isEmpty() { return size == 0; }
+
+    static final class Builder implements FactSink {
+        private int size;
+        private int[] cik = new int[256];
+        private int[] start = new int[256];
+        private int[] end = new int[256];
+        private double[] val = new double[256];
+
+        private int curCik, curStart, curEnd;
+        private double curVal;
+
+        @Override
+        public void beginFact() {
+            curCik = 0; curStart = EpochDays.NONE; curEnd = EpochDays.NONE; curVal = Double.NaN;
+        }
+
+        /** accn/entityName/loc 등은 무시 */
+        @Override
+        public void value(String field, JsonParser p, JsonToken t) throws IOException {
+            switch (field) {
+                case "cik" -> { if (t == JsonToken.VALUE_NUMBER_INT) curCik = p.getIntValue(); }
+                case "val" -> { if (t.isNumeric()) curVal = p.getDoubleValue(); }
+                case "start" -> { if (t == JsonToken.VALUE_STRING) curStart = EpochDays.parse(p.getTextCharacters(), p.getTextOffset(), p.getTextLength()); }
+                case "end" -> { if (t == JsonToken.VALUE_STRING) curEnd = EpochDays.parse(p.getTextCharacters(), p.getTextOffset(), p.getTextLength()); }
+                default -> { }
+            }
+        }
+
+        @Override
+        public void endFact() {
+            if (curCik <= 0 || curEnd == EpochDays.NONE || Double.isNaN(curVal)) return;
+            if (size == end.length) grow();
+            cik[size] = curCik; start[size] = curStart; end[size] = curEnd; val[size] = curVal;
+            size++;
+        }
+
+        FrameFacts build() {
+            return new FrameFacts(size, Arrays.copyOf(cik, size), Arrays.copyOf(start, size),
+                    Arrays.copyOf(end, size), Arrays.copyOf(val, size));
+        }
+
+        private void grow() {
+            int n = end.length * 2;
+            cik = Arrays.copyOf(cik, n); start = Arrays.copyOf(start, n); end = Arrays.copyOf(end, n); val = Arrays.copyOf(val, n);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.project.stock.temp;
+
+/**
+ * frames/{taxonomy}/{tag}/{unit}/{period}.json 스트리밍 파서
+ * - 구조: { "taxonomy": .., "tag": .., "ccp": .., "pts": n, "data": [ {accn, cik, entityName, loc, start?, end, val}, ... ] }
+ */
+final class FramesParser extends FactStreamParser<FrameFacts> {
+
+    private final FrameFacts.Builder builder = new FrameFacts.Builder();
+
+    FramesParser() {
+        this.target = builder;
+    }
+
+    @Override
+    int factDepth() { return 3; }
+
+    @Override
+    boolean accept(int depth, String name) {
+        return depth == 1 && "data".equals(name);
+    }
+
+    @Override
+    FrameFacts result() {
+        return builder.build();
+    }
+}
@@ -0,0 +1,128 @@
+package com.project.stock.temp;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SEC frames(개념 × 달력 기간 × 전 filer) 응답을 CIK별 분기 시리즈로 조립
+ * - 분기 frame(CY####Q#)은 이미 3개월 값이므로 YTD 차분이 필요 없다
+ * - Q4 분기 frame 이 없는 filer 는 연간 frame(CY####) − (Q1+Q2+Q3) 로 보정(셋 다 있을 때만)
+ * - 한 분기 슬롯에는 태그 우선순위가 가장 높은 값 하나만 남긴다(add 를 우선순위 순으로 호출)
+ */
+final class FramesUniverse {
+
+    private FramesUniverse() {}
+
+    /** frames 한 기간. quarter == 0 이면 연간(CY####) */
+    record Period(int year, int quarter) {
+
+        String ccp() {
+            return quarter == 0 ? "CY" + year : "CY" + year + "Q" + quarter;
+        }
+
+        boolean isAnnual() { return quarter == 0; }
+
+        /** today 기준 마감된 최근 n개 달력 분기(오래된 것부터) */
+        static List<Period> lastCompletedQuarters(LocalDate today, int n) {
+            int y = today.getYear();
+            int q = (today.getMonthValue() - 1) / 3;   // 진행 중 분기의 직전 분기(0 이면 작년 Q4)
+            if (q == 0) { y--; q = 4; }
+            Period[] out = new Period[n];
+            for (int i = n - 1; i >= 0; i--) {
+                out[i] = new Period(y, q);
+                if (--q == 0) { y--; q = 4; }
+            }
+            return List.of(out);
+        }
+
+        /** Q1~Q4 가 모두 범위 안에 있는 해의 연간 기간(Q4 보정용) */
+        static List<Period> annualsFor(List<Period> quarters) {
+            Map<Integer, Integer> count = new HashMap<>();
+            for (Period p : quarters) count.merge(p.year(), 1, Integer::sum);
+            List<Period> out = new ArrayList<>();
+            count.forEach((year, c) -> { if (c == 4) out.add(new Period(year, 0)); });
+            out.sort((a, b) -> Integer.compare(a.year(), b.year()));
+            return out;
+        }
+    }
+
+    /** frames 로 만든(또는 종목별 폴백으로 만든) 한 filer 의 분기 시리즈 */
+    static final class Series {
+        final DaySeries revenue, operatingIncome, eps;
+        /** false 면 frames 에 없어 종목별 호출로 채운 것 */
+        final boolean fromFrames;
+
+        Series(DaySeries revenue, DaySeries operatingIncome, DaySeries eps, boolean fromFrames) {
+            this.revenue = revenue; this.operatingIncome = operatingIncome; this.eps = eps; this.fromFrames = fromFrames;
+        }
+    }
+
+    /** 개념 하나(예: 매출)를 모든 filer 에 대해 분기 슬롯으로 누적 */
+    static final class ConceptBuilder {
+        private final int firstYear;
+        private final int slots;
+        private final Map<Integer, Slots> byCik = new HashMap<>();
+
+        ConceptBuilder(List<Period> quarters) {
+            this.firstYear = quarters.get(0).year();
+            this.slots = (quarters.get(quarters.size() - 1).year() - firstYear + 1) * 4;
+        }
+
+        /** 우선순위 높은 태그부터 호출. 이미 채워진 슬롯은 건드리지 않는다 */
+        void add(Period period, FrameFacts f) {
+            int slot = period.isAnnual() ? -1 : (period.year() - firstYear) * 4 + period.quarter() - 1;
+            int year = period.year() - firstYear;
+            for (int i = 0; i < f.size; i++) {
+                Slots s = byCik.computeIfAbsent(f.cik[i], k -> new Slots(slots));
+                if (slot >= 0) {
+                    if (s.qEnd[slot] == EpochDays.NONE) { s.qEnd[slot] = f.end[i]; s.qVal[slot] = f.val[i]; }
+                } else if (s.fyEnd[year] == EpochDays.NONE) {
+                    s.fyEnd[year] = f.end[i]; s.fyVal[year] = f.val[i];
+                }
+            }
+        }
+
+        /** CIK(정수) → end 날짜 기준 분기 시리즈 */
+        Map<Integer, DaySeries> build() {
+            Map<Integer, DaySeries> out = new HashMap<>(byCik.size() * 2);
+            byCik.forEach((cik, s) -> {
+                DaySeries series = s.toSeries();
+                if (!series.isEmpty()) out.put(cik, series);
+            });
+            return out;
+        }
+    }
+
+    private static final class Slots {
+        final int[] qEnd;
+        final double[] qVal;
+        final int[] fyEnd;
+        final double[] fyVal;
+
+        Slots(int slots) {
+            qEnd = new int[slots]; qVal = new double[slots];
+            fyEnd = new int[slots / 4]; fyVal = new double[slots / 4];
+            Arrays.fill(qEnd, EpochDays.NONE);
+            Arrays.fill(fyEnd, EpochDays.NONE);
+        }
+
+        DaySeries toSeries() {
+            // Q4 = FY − (Q1+Q2+Q3)
+            for (int y = 0; y < fyEnd.length; y++) {
+                int b = y * 4;
+                if (qEnd[b + 3] != EpochDays.NONE || fyEnd[y] == EpochDays.NONE) continue;
+                if (qEnd[b] == EpochDays.NONE || qEnd[b + 1] == EpochDays.NONE || qEnd[b + 2] == EpochDays.NONE) continue;
+                qEnd[b + 3] = fyEnd[y];
+                qVal[b + 3] = fyVal[y] - qVal[b] - qVal[b + 1] - qVal[b + 2];
+            }
+            long[] keys = new long[qEnd.length];
+            int n = 0;
+            for (int s = 0; s < qEnd.length; s++) if (qEnd[s] != EpochDays.NONE) keys[n++] = DaySeries.packKey(qEnd[s], s);
+            return DaySeries.fromPackedKeys(keys, n, qVal);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.project.stock.temp;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 우선순위 순서의 대체 소스들을 헤지해서 요청
+ * - 소스 i 를 시작하고, 그 소스가 자기 p95 지연을 넘기거나 쓸 만한 값 없이 끝나면 다음 소스를 시작(앞 소스는 계속 진행)
+ * - 먼저 도착한 "쓸 만한" 값을 채택하고 나머지 진행 중 요청은 취소
+ * - 소스별 지연은 LatencyHistogram 에 기록되어 다음 요청의 헤지 시점이 된다(취소된 요청은 기록하지 않음)
+ * 모든 소스가 값 없이 끝나면 empty, 단 마지막 소스가 오류로 끝났으면 그 오류
+ */
+final class HedgedRequest {
+
+    /** 표본이 모이기 전 헤지 대기 */
+    static final Duration DEFAULT_DELAY = Duration.ofMillis(800);
+    static final Duration MIN_DELAY = Duration.ofMillis(50);
+    static final Duration MAX_DELAY = Duration.ofSeconds(5);
+    static final int MIN_SAMPLES = 20;
+    static final double HEDGE_QUANTILE = 0.95;
+
+    /** 이름은 로그/지표용 */
+    record Source<T>(String name, LatencyHistogram latency, Supplier<Mono<T>> fetch) {}
+
+    private HedgedRequest() {}
+
+    static <T> Mono<T> first(List<Source<T>> sources, Predicate<T> usable) {
+        return Mono.defer(() -> new Race<>(sources, usable).run());
+    }
+
+    /** 이 소스가 p95 를 넘기면 다음 소스를 띄울 시점 */
+    static Duration hedgeDelay(LatencyHistogram latency) {
+        if (latency.count() < MIN_SAMPLES) return DEFAULT_DELAY;
+        Duration p = Duration.ofMillis(latency.percentileMillis(HEDGE_QUANTILE));
+        if (p.compareTo(MIN_DELAY) < 0) return MIN_DELAY;
+        return p.compareTo(MAX_DELAY) > 0 ? MAX_DELAY : p;
+    }
+
+    /** 구독 1회분 상태. 소스 시작은 launchAfter 로만(순서대로, 소스당 한 번) */
+    private static final class Race<T> {
+        private final List<Source<T>> sources;
+        private final Predicate<T> usable;
+        private final Sinks.Many<Integer> launch = Sinks.unsafe().many().unicast().onBackpressureBuffer();
+        private int next;
+        private volatile Throwable lastSourceError;
+
+        Race(List<Source<T>> sources, Predicate<T> usable) {
+            this.sources = sources;
+            this.usable = usable;
+        }
+
+        Mono<T> run() {
+            if (sources.isEmpty()) return Mono.empty();
+            return launch.asFlux()
+                    .flatMap(this::attempt, sources.size())
+                    .next()
+                    .switchIfEmpty(Mono.defer(() -> lastSourceError != null ? Mono.error(lastSourceError) : Mono.empty()))
+                    .doFirst(() -> launchAfter(-1));
+        }
+
+        private Mono<T> attempt(int i) {
+            Source<T> source = sources.get(i);
+            Disposable[] timer = new Disposable[1];
+            long[] started = new long[1];
+            return Mono.defer(source.fetch())
+                    .doOnSubscribe(s -> {
+                        started[0] = System.nanoTime();
+                        timer[0] = Mono.delay(hedgeDelay(source.latency())).subscribe(t -> launchAfter(i));
+                    })
+                    .doOnSuccess(v -> source.latency().record(Duration.ofNanos(System.nanoTime() - started[0])))
+                    .doOnError(e -> source.latency().record(Duration.ofNanos(System.nanoTime() - started[0])))
+                    .onErrorResume(e -> {
+                        if (i == sources.size() - 1) lastSourceError = e;
+                        return Mono.empty();
+                    })
+                    .filter(usable)
+                    .doFinally(signal -> {
+                        if (timer[0] != null) timer[0].dispose();
+                        if (signal != SignalType.CANCEL) launchAfter(i);   // 값 없이 끝남 → 다음 소스 즉시
+                    });
+        }
+
+        /** i 가 가장 최근에 시작한 소스일 때만 다음 소스를 시작 */
+        private synchronized void launchAfter(int i) {
+            if (next != i + 1 || next >= sources.size()) return;
+            launch.tryEmitNext(next++);
+            if (next == sources.size()) launch.tryEmitComplete();
+        }
+    }
+}
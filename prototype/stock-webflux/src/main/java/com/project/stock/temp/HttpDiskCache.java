@@ -0,0 +1,284 @@
+package com.project.stock.temp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 디스크 HTTP 캐시 (내용 주소 기반)
+ * - entries/{sha256(url)}.properties : url, blob, etag, lastModified, status, validatedAt
+ * - blobs/{sha256(body)}.gz          : gzip 본문. 같은 본문(404 빈 응답 등)은 한 번만 저장
+ * - 엔드포인트별 TTL 안이면 네트워크 없이 반환, 지나면 If-None-Match / If-Modified-Since 로 재검증
+ * 모든 메서드는 파일 I/O를 하므로 boundedElastic 등 블로킹 허용 스레드에서 호출할 것
+ */
+public class HttpDiskCache {
+
+    static final Duration SEC_TICKERS_TTL = Duration.ofHours(24);
+    static final Duration SEC_XBRL_TTL = Duration.ofHours(24);
+    static final Duration PRICE_TTL = Duration.ofHours(12);
+    static final Duration DEFAULT_TTL = Duration.ofHours(6);
+
+    private final Path dir;
+    private final Path entriesDir;
+    private final Path blobsDir;
+    private final LongSupplier clockMillis;
+    private final AtomicInteger openWriters = new AtomicInteger();
+
+    public HttpDiskCache(Path dir) {
+        this(dir, System::currentTimeMillis);
+    }
+
+    /** 테스트는 시계를 돌려 TTL 만료를 만든다(검증 시각 기록과 신선도 판단이 같은 시계) */
+    HttpDiskCache(Path dir, LongSupplier clockMillis) {
+        this.dir = dir;
+        this.clockMillis = clockMillis;
+        this.entriesDir = dir.resolve("entries");
+        this.blobsDir = dir.resolve("blobs");
+        try {
+            Files.createDirectories(entriesDir);
+            Files.createDirectories(blobsDir);
+        } catch (IOException e) {
+            throw new IllegalStateException("cache dir create failed: " + dir, e);
+        }
+    }
+
+    /** 캐시 루트(entries/blobs 의 부모). 캐시와 수명이 같은 부가 파일(tag-affinity 등)도 여기에 둔다 */
+    Path dir() {
+        return dir;
+    }
+
+    /** -Dstock.cache.dir 로 위치 지정, 기본값은 ~/.stock-cache/http */
+    public static HttpDiskCache defaultCache() {
+        String dir = System.getProperty("stock.cache.dir");
+        Path base = (dir != null && !dir.isBlank())
+                ? Path.of(dir)
+                : Path.of(System.getProperty("user.home"), ".stock-cache");
+        return new HttpDiskCache(base.resolve("http"));
+    }
+
+    /** 대부분 분기 단위로만 바뀌는 데이터라 SEC는 하루, 가격은 반나절 */
+    static Duration ttlFor(String url) {
+        if (url.contains("company_tickers")) return SEC_TICKERS_TTL;
+        if (url.contains("/api/xbrl/")) return SEC_XBRL_TTL;
+        if (url.contains("stooq.com") || url.contains("finance.yahoo.com")) return PRICE_TTL;
+        return DEFAULT_TTL;
+    }
+
+    static final class Entry {
+        final String url;
+        final String blob;
+        final String etag;
+        final String lastModified;
+        final int status;
+        final long validatedAt;
+
+        Entry(String url, String blob, String etag, String lastModified, int status, long validatedAt) {
+            this.url = url; this.blob = blob; this.etag = etag; this.lastModified = lastModified;
+            this.status = status; this.validatedAt = validatedAt;
+        }
+
+        boolean isFresh(long nowMillis) {
+            return nowMillis - validatedAt < ttlFor(url).toMillis();
+        }
+    }
+
+    /** TTL 안이면 네트워크 없이 그대로 쓴다 */
+    boolean isFresh(Entry e) {
+        return e.isFresh(clockMillis.getAsLong());
+    }
+
+    /** 캐시 항목 조회(없거나 깨졌으면 null) */
+    Entry lookup(String url) {
+        Path p = entriesDir.resolve(sha256(url.getBytes(StandardCharsets.UTF_8)) + ".properties");
+        if (!Files.exists(p)) return null;
+        Properties props = new Properties();
+        try (Reader r = Files.newBufferedReader(p, StandardCharsets.UTF_8)) {
+            props.load(r);
+            Entry e = new Entry(
+                    props.getProperty("url"),
+                    props.getProperty("blob"),
+                    props.getProperty("etag"),
+                    props.getProperty("lastModified"),
+                    Integer.parseInt(props.getProperty("status", "200")),
+                    Long.parseLong(props.getProperty("validatedAt", "0")));
+            if (!url.equals(e.url) || e.blob == null || !Files.exists(blobsDir.resolve(e.blob))) return null;
+            return e;
+        } catch (IOException | RuntimeException ex) {
+            System.err.println("cache entry read error: " + ex.getMessage());
+            return null;
+        }
+    }
+
+    byte[] read(Entry e) throws IOException {
+        try (InputStream in = openBody(e)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /** 본문을 통째로 올리지 않고 스트리밍으로 읽을 때 */
+    InputStream openBody(Entry e) throws IOException {
+        return new GZIPInputStream(Files.newInputStream(blobsDir.resolve(e.blob)), 64 * 1024);
+    }
+
+    BlobWriter newBlobWriter() throws IOException {
+        return new BlobWriter();
+    }
+
+    /** commit/close 되지 않은 BlobWriter 수. 취소된 요청의 임시 파일 정리는 비동기라 끝날 때까지 0이 아니다 */
+    int openWriters() {
+        return openWriters.get();
+    }
+
+    /** 200/404 응답 저장. 본문 해시가 같으면 기존 blob 재사용 */
+    Entry store(String url, int status, String etag, String lastModified, byte[] body) throws IOException {
+        String blob = sha256(body) + ".gz";
+        Path blobPath = blobsDir.resolve(blob);
+        if (!Files.exists(blobPath)) {
+            Path tmp = Files.createTempFile(blobsDir, "blob", ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp))) {
+                out.write(body);
+            }
+            Files.move(tmp, blobPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Entry e = new Entry(url, blob, etag, lastModified, status, clockMillis.getAsLong());
+        writeEntry(e);
+        return e;
+    }
+
+    /**
+     * 스트리밍 응답을 받으면서 그대로 압축 저장(tee). 해시는 누적 계산하고 commit 시 blob 이름을 확정한다.
+     * 쓰기 실패는 캐시만 포기하고 응답 처리는 계속되도록 삼킨다.
+     */
+    final class BlobWriter implements Closeable {
+        private final Path tmp;
+        private final MessageDigest digest;
+        private final GZIPOutputStream gz;
+        private final WritableByteChannel channel;
+        private boolean failed;
+        private boolean done;
+
+        private BlobWriter() throws IOException {
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            openWriters.incrementAndGet();   // 임시 파일이 생기기 전부터 센다
+            Path file = null;
+            try {
+                file = Files.createTempFile(blobsDir, "blob", ".tmp");
+                this.gz = new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024);
+            } catch (IOException e) {
+                if (file != null) Files.deleteIfExists(file);
+                openWriters.decrementAndGet();
+                throw e;
+            }
+            this.tmp = file;
+            this.channel = Channels.newChannel(gz);
+        }
+
+        /** chunk의 position은 바꾸지 않는다(같은 버퍼를 파서에도 먹이기 위해) */
+        void write(ByteBuffer chunk) {
+            if (failed) return;
+            try {
+                digest.update(chunk.duplicate());
+                ByteBuffer dup = chunk.duplicate();
+                while (dup.hasRemaining()) channel.write(dup);
+            } catch (IOException e) {
+                failed = true;
+                System.err.println("cache write error: " + e.getMessage());
+            }
+        }
+
+        Entry commit(String url, int status, String etag, String lastModified) throws IOException {
+            if (failed) return null;
+            gz.close();
+            done = true;
+            try {
+                return publish(url, status, etag, lastModified);
+            } finally {
+                openWriters.decrementAndGet();
+            }
+        }
+
+        private Entry publish(String url, int status, String etag, String lastModified) throws IOException {
+            String blob = HexFormat.of().formatHex(digest.digest()) + ".gz";
+            Path blobPath = blobsDir.resolve(blob);
+            if (Files.exists(blobPath)) Files.deleteIfExists(tmp);
+            else Files.move(tmp, blobPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Entry e = new Entry(url, blob, etag, lastModified, status, clockMillis.getAsLong());
+            writeEntry(e);
+            return e;
+        }
+
+        /** commit 되지 않았으면 임시 파일 폐기 */
+        @Override
+        public void close() {
+            if (done) return;
+            done = true;
+            try {
+                gz.close();
+            } catch (IOException ignore) {
+            }
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignore) {
+            }
+            openWriters.decrementAndGet();
+        }
+    }
+
+    /** 304 재검증 성공: 본문은 그대로, 검증 시각(및 새 validator)만 갱신 */
+    Entry touch(Entry old, String etag, String lastModified) throws IOException {
+        Entry e = new Entry(old.url, old.blob,
+                etag != null ? etag : old.etag,
+                lastModified != null ? lastModified : old.lastModified,
+                old.status, clockMillis.getAsLong());
+        writeEntry(e);
+        return e;
+    }
+
+    private void writeEntry(Entry e) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("url", e.url);
+        props.setProperty("blob", e.blob);
+        if (e.etag != null) props.setProperty("etag", e.etag);
+        if (e.lastModified != null) props.setProperty("lastModified", e.lastModified);
+        props.setProperty("status", String.valueOf(e.status));
+        props.setProperty("validatedAt", String.valueOf(e.validatedAt));
+
+        Path p = entriesDir.resolve(sha256(e.url.getBytes(StandardCharsets.UTF_8)) + ".properties");
+        Path tmp = Files.createTempFile(entriesDir, "entry", ".tmp");
+        try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            props.store(w, null);
+        }
+        Files.move(tmp, p, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.project.stock.temp;
+
+import java.time.Duration;
+
+/**
+ * 소스별 응답 지연 분포(로그 버킷, 약 10% 해상도, 1ms ~ 약 2분)
+ * - 최근 분포를 따르도록 총 건수가 AGING_THRESHOLD 에 이르면 모든 버킷을 절반으로(오래된 표본의 가중치 감소)
+ * - 분위수는 버킷 상한값으로 보수적으로(실제보다 약간 크게) 돌려준다
+ */
+final class LatencyHistogram {
+
+    static final int AGING_THRESHOLD = 4096;
+
+    private static final double GROWTH = 1.1;
+    private static final int BUCKETS = 124;   // 1.1^123 ms ≈ 124초
+    private static final double LOG_GROWTH = Math.log(GROWTH);
+
+    private final long[] counts = new long[BUCKETS];
+    private long total;
+
+    synchronized void record(Duration latency) {
+        counts[bucket(latency.toNanos() / 1_000_000.0)]++;
+        if (++total >= AGING_THRESHOLD) {
+            total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] >>= 1;
+                total += counts[i];
+            }
+        }
+    }
+
+    synchronized long count() {
+        return total;
+    }
+
+    /** q 분위 지연(ms). 표본이 없으면 -1 */
+    synchronized long percentileMillis(double q) {
+        if (total == 0) return -1;
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, rank)) return upperMillis(i);
+        }
+        return upperMillis(BUCKETS - 1);
+    }
+
+    private static int bucket(double millis) {
+        if (millis <= 1) return 0;
+        return Math.min(BUCKETS - 1, (int) Math.ceil(Math.log(millis) / LOG_GROWTH));
+    }
+
+    private static long upperMillis(int bucket) {
+        return (long) Math.ceil(Math.pow(GROWTH, bucket));
+    }
+}
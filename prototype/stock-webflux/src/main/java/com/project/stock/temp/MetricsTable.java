@@ -0,0 +1,119 @@
+package com.project.stock.temp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.stock.temp.StockMetricsFetcher.QuarterMetrics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 전 종목 분기 지표를 열 단위로 펼친 표(룰 엔진 입력)
+ * - 열 = (지표, lag). lag 0 이 최근 분기. 값 배열은 종목 인덱스 순
+ * - 분기가 모자란 종목의 칸은 NaN
+ * 한 번 받아 둔 데이터셋(NDJSON, ScreenMatch 한 줄 형식)에서 읽어 네트워크 없이 여러 스크린을 돌린다
+ */
+final class MetricsTable {
+
+    /** 룰에서 쓰는 지표 이름 = QuarterMetrics 필드명 = NDJSON 키 */
+    enum Field {
+        REVENUE("revenue"), OPERATING_INCOME("operatingIncome"), EPS("eps"), EQUITY("equity"),
+        SHARES("shares"), PRICE("price"), PER("per"), PBR("pbr");
+
+        final String key;
+
+        Field(String key) {
+            this.key = key;
+        }
+
+        static Field byKey(String key) {
+            for (Field f : values()) if (f.key.equals(key)) return f;
+            return null;
+        }
+
+        double of(QuarterMetrics q) {
+            return switch (this) {
+                case REVENUE -> q.revenue;
+                case OPERATING_INCOME -> q.operatingIncome;
+                case EPS -> q.eps;
+                case EQUITY -> q.equity;
+                case SHARES -> q.shares;
+                case PRICE -> q.price;
+                case PER -> q.per;
+                case PBR -> q.pbr;
+            };
+        }
+    }
+
+    private final List<ScreenMatch> rows;
+    private final int depth;
+    /** columns[field * depth + lag][종목] */
+    private final double[][] columns;
+
+    private MetricsTable(List<ScreenMatch> rows) {
+        this.rows = rows;
+        int d = 0;
+        for (ScreenMatch r : rows) d = Math.max(d, r.quarters().size());
+        this.depth = d;
+        int n = rows.size();
+        Field[] fields = Field.values();
+        this.columns = new double[fields.length * depth][];
+        for (Field f : fields) {
+            for (int lag = 0; lag < depth; lag++) {
+                double[] col = new double[n];
+                for (int t = 0; t < n; t++) {
+                    List<QuarterMetrics> q = rows.get(t).quarters();
+                    col[t] = lag < q.size() ? f.of(q.get(lag)) : Double.NaN;
+                }
+                columns[f.ordinal() * depth + lag] = col;
+            }
+        }
+    }
+
+    static MetricsTable of(List<ScreenMatch> rows) {
+        return new MetricsTable(List.copyOf(rows));
+    }
+
+    /** 데이터셋 NDJSON 로딩. 읽을 수 없는 줄(쓰다 끊긴 마지막 줄 등)은 건너뛴다 */
+    static MetricsTable load(Path ndjson) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<ScreenMatch> rows = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(ndjson, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) continue;
+                JsonNode n;
+                try {
+                    n = mapper.readTree(line);
+                } catch (IOException e) {
+                    continue;
+                }
+                rows.add(new ScreenMatch(n.path("ticker").asText(), n.path("cik").asText(),
+                        ScreenMatch.readQuarters(n.path("quarters"))));
+            }
+        }
+        return new MetricsTable(rows);
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    ScreenMatch row(int i) {
+        return rows.get(i);
+    }
+
+    /** 공유 배열이므로 수정 금지. 데이터보다 깊은 lag 는 전부 NaN */
+    double[] column(Field field, int lag) {
+        if (lag < depth) return columns[field.ordinal() * depth + lag];
+        double[] nan = new double[rows.size()];
+        Arrays.fill(nan, Double.NaN);
+        return nan;
+    }
+}
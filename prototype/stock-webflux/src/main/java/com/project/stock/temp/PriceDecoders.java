@@ -0,0 +1,370 @@
+package com.project.stock.temp;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * 가격 응답 본문(byte[])을 문자열/트리 없이 바로 PriceSeries 로 디코딩
+ * - Stooq CSV : 줄/쉼표를 바이트로 훑고 날짜·소수를 직접 파싱(정규식 split, 행별 String, LocalDate 없음)
+ * - Yahoo chart JSON : 필요한 경로(chart.result[0].timestamp / indicators.quote[0].close)만 따라가는
+ *   최소 스캐너, 나머지 값은 건너뜀(JsonNode 트리 없음)
+ * 행 단위 오류(깨진 날짜/숫자)는 그 행만 버린다
+ */
+final class PriceDecoders {
+
+    private PriceDecoders() {}
+
+    // ========================= Stooq CSV =========================
+
+    /** 본문이 CSV 대신 HTML(Stooq 차단/오류 페이지)인지 */
+    static boolean isHtml(byte[] body) {
+        int p = 0;
+        while (p < body.length && isSpace(body[p])) p++;
+        return p < body.length && body[p] == '<';
+    }
+
+    /** Date,Open,High,Low,Close,Volume — 첫 줄은 헤더. HTML(오류 페이지)이면 EMPTY */
+    static PriceSeries stooqCsv(byte[] body) {
+        int n = body.length;
+        int p = 0;
+        while (p < n && isSpace(body[p])) p++;
+        if (p == n || body[p] == '<') return PriceSeries.EMPTY;
+
+        PriceSeries.Builder series = new PriceSeries.Builder(n / 48 + 16);
+        p = nextLine(body, p);   // 헤더
+        while (p < n) {
+            int eol = lineEnd(body, p);
+            int dateEnd = indexOf(body, p, eol, (byte) ',');
+            // Close = 5번째 칸
+            int c = dateEnd;
+            for (int field = 1; field < 4 && c < eol; field++) c = indexOf(body, c + 1, eol, (byte) ',');
+            if (c < eol) {
+                int closeEnd = indexOf(body, c + 1, eol, (byte) ',');
+                int day = EpochDays.parse(body, p, dateEnd - p);
+                series.add(day, parseDecimal(body, c + 1, trimEnd(body, c + 1, closeEnd)));
+            }
+            p = nextLine(body, eol);
+        }
+        return series.build();
+    }
+
+    private static int lineEnd(byte[] b, int p) {
+        while (p < b.length && b[p] != '\n' && b[p] != '\r') p++;
+        return p;
+    }
+
+    private static int nextLine(byte[] b, int p) {
+        p = lineEnd(b, p);
+        while (p < b.length && (b[p] == '\n' || b[p] == '\r')) p++;
+        return p;
+    }
+
+    private static int indexOf(byte[] b, int from, int to, byte c) {
+        for (int i = from; i < to; i++) if (b[i] == c) return i;
+        return to;
+    }
+
+    private static int trimEnd(byte[] b, int from, int to) {
+        while (to > from && isSpace(b[to - 1])) to--;
+        return to;
+    }
+
+    // ========================= 숫자 =========================
+
+    private static final double[] POW10 = new double[23];
+    static {
+        double v = 1;
+        for (int i = 0; i < POW10.length; i++) { POW10[i] = v; v *= 10; }
+    }
+
+    /**
+     * [from, to) 의 10진 소수. 형식이 아니면 NaN
+     * 유효숫자 15자리 이하(Stooq 4자리 소수 등)는 정수 가수 / 10^k 한 번으로 Double.parseDouble 과 같은 값.
+     * 그보다 긴 값(Yahoo 의 17자리 double)은 17자리까지만 써서 1ulp 안팎 차이 — 가격 비교에는 의미 없음.
+     * 지수 표기는 드물어서 문자열 파싱으로 넘긴다
+     */
+    static double parseDecimal(byte[] b, int from, int to) {
+        int p = from;
+        if (p >= to) return Double.NaN;
+        boolean neg = false;
+        if (b[p] == '-' || b[p] == '+') { neg = b[p] == '-'; p++; }
+        long mantissa = 0;
+        int digits = 0, scale = 0, dropped = 0;
+        boolean any = false, dot = false;
+        for (; p < to; p++) {
+            int c = b[p];
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (digits < 17) {
+                    if (mantissa != 0 || c != '0') digits++;
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (dot) scale++;
+                } else if (!dot) {
+                    dropped++;   // 정수부 초과 자릿수
+                }
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else if (c == 'e' || c == 'E') {
+                return slowParse(b, from, to);
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (!any) return Double.NaN;
+        double v;
+        if (dropped > 0) v = mantissa * Math.pow(10, dropped);
+        else if (scale < POW10.length) v = mantissa / POW10[scale];
+        else v = mantissa / Math.pow(10, scale);
+        return neg ? -v : v;
+    }
+
+    private static double slowParse(byte[] b, int from, int to) {
+        try {
+            return Double.parseDouble(new String(b, from, to - from, StandardCharsets.ISO_8859_1));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static boolean isSpace(byte c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    // ========================= Yahoo chart JSON =========================
+
+    private static final byte[] CHART = ascii("chart");
+    private static final byte[] RESULT = ascii("result");
+    private static final byte[] TIMESTAMP = ascii("timestamp");
+    private static final byte[] INDICATORS = ascii("indicators");
+    private static final byte[] QUOTE = ascii("quote");
+    private static final byte[] CLOSE = ascii("close");
+
+    /** chart.result[0] 의 timestamp 와 indicators.quote[0].close 를 짝지어 뉴욕 날짜 기준 시리즈로 */
+    static PriceSeries yahooChart(byte[] body) {
+        YahooScanner s = new YahooScanner(body);
+        try {
+            s.chart();
+        } catch (IllegalStateException malformed) {
+            return PriceSeries.EMPTY;
+        }
+        if (s.tsCount == 0 || s.closeCount == 0) return PriceSeries.EMPTY;
+
+        int n = Math.min(s.tsCount, s.closeCount);
+        NewYorkDays days = new NewYorkDays();
+        PriceSeries.Builder series = new PriceSeries.Builder(n);
+        for (int i = 0; i < n; i++) {
+            if (s.timestamps[i] != Long.MIN_VALUE) series.add(days.of(s.timestamps[i]), s.closes[i]);
+        }
+        return series.build();
+    }
+
+    /** 필요한 경로만 내려가는 재귀 하강 스캐너. 구조가 깨졌으면 IllegalStateException */
+    private static final class YahooScanner {
+        private final byte[] b;
+        private int p;
+        long[] timestamps = new long[0];
+        int tsCount;
+        double[] closes = new double[0];
+        int closeCount;
+
+        YahooScanner(byte[] b) {
+            this.b = b;
+        }
+
+        void chart() {
+            object(0);
+        }
+
+        /** level: 0 루트, 1 chart, 2 result[0], 3 indicators, 4 quote[0] */
+        private void object(int level) {
+            expect('{');
+            if (peek() == '}') { p++; return; }
+            while (true) {
+                int keyStart = p + 1;
+                int keyEnd = string();
+                expect(':');
+                ws();
+                if (level == 0 && keyIs(keyStart, keyEnd, CHART) && peek() == '{') object(1);
+                else if (level == 1 && keyIs(keyStart, keyEnd, RESULT) && peek() == '[') firstElement(2);
+                else if (level == 2 && keyIs(keyStart, keyEnd, TIMESTAMP) && peek() == '[') longs();
+                else if (level == 2 && keyIs(keyStart, keyEnd, INDICATORS) && peek() == '{') object(3);
+                else if (level == 3 && keyIs(keyStart, keyEnd, QUOTE) && peek() == '[') firstElement(4);
+                else if (level == 4 && keyIs(keyStart, keyEnd, CLOSE) && peek() == '[') doubles();
+                else skipValue();
+                ws();
+                byte c = next();
+                if (c == '}') return;
+                if (c != ',') throw new IllegalStateException();
+                ws();
+            }
+        }
+
+        /** 배열의 첫 원소(객체)만 따라가고 나머지는 건너뜀 */
+        private void firstElement(int level) {
+            expect('[');
+            if (peek() == ']') { p++; return; }
+            if (peek() == '{') object(level); else skipValue();
+            while (true) {
+                ws();
+                byte c = next();
+                if (c == ']') return;
+                if (c != ',') throw new IllegalStateException();
+                ws();
+                skipValue();
+            }
+        }
+
+        private void longs() {
+            expect('[');
+            long[] out = new long[Math.max(16, timestamps.length)];
+            int n = 0;
+            if (peek() != ']') {
+                while (true) {
+                    ws();
+                    int start = p;
+                    while (p < b.length && b[p] != ',' && b[p] != ']' && !isSpace(b[p])) p++;
+                    if (n == out.length) out = java.util.Arrays.copyOf(out, n * 2);
+                    out[n++] = parseLong(start, p);
+                    ws();
+                    if (peek() == ']') break;
+                    expect(',');
+                }
+            }
+            p++;
+            timestamps = out;
+            tsCount = n;
+        }
+
+        private void doubles() {
+            expect('[');
+            double[] out = new double[Math.max(16, timestamps.length)];
+            int n = 0;
+            if (peek() != ']') {
+                while (true) {
+                    ws();
+                    int start = p;
+                    while (p < b.length && b[p] != ',' && b[p] != ']' && !isSpace(b[p])) p++;
+                    if (n == out.length) out = java.util.Arrays.copyOf(out, n * 2);
+                    out[n++] = parseDecimal(b, start, p);   // null → NaN (Builder 가 버림)
+                    ws();
+                    if (peek() == ']') break;
+                    expect(',');
+                }
+            }
+            p++;
+            closes = out;
+            closeCount = n;
+        }
+
+        /** 정수가 아니면 Long.MIN_VALUE(해당 행 버림) */
+        private long parseLong(int from, int to) {
+            if (from >= to) return Long.MIN_VALUE;
+            boolean neg = b[from] == '-';
+            int i = neg ? from + 1 : from;
+            if (i >= to || to - i > 18) return Long.MIN_VALUE;
+            long v = 0;
+            for (; i < to; i++) {
+                int c = b[i] - '0';
+                if (c < 0 || c > 9) return Long.MIN_VALUE;
+                v = v * 10 + c;
+            }
+            return neg ? -v : v;
+        }
+
+        private void skipValue() {
+            ws();
+            byte c = peek();
+            if (c == '"') { string(); return; }
+            if (c == '{' || c == '[') {   // 건너뛰는 배열(open/high/low/volume/adjclose)이 본문 대부분 → 단순 루프
+                byte[] b = this.b;
+                int i = p, n = b.length, depth = 0;
+                while (i < n) {
+                    byte x = b[i++];
+                    if (x == '"') {
+                        while (i < n) {
+                            byte y = b[i++];
+                            if (y == '\\') i++;
+                            else if (y == '"') break;
+                        }
+                    } else if (x == '{' || x == '[') {
+                        depth++;
+                    } else if ((x == '}' || x == ']') && --depth == 0) {
+                        p = i;
+                        return;
+                    }
+                }
+                throw new IllegalStateException();
+            }
+            // 숫자/true/false/null
+            while (p < b.length && b[p] != ',' && b[p] != '}' && b[p] != ']' && !isSpace(b[p])) p++;
+        }
+
+        /** 따옴표 문자열을 건너뛰고 닫는 따옴표 위치를 반환(이스케이프 포함 키는 어떤 경로와도 안 맞음) */
+        private int string() {
+            expect('"');
+            while (true) {
+                byte c = next();
+                if (c == '\\') { next(); continue; }
+                if (c == '"') return p - 1;
+            }
+        }
+
+        private boolean keyIs(int from, int to, byte[] key) {
+            if (to - from != key.length) return false;
+            for (int i = 0; i < key.length; i++) if (b[from + i] != key[i]) return false;
+            return true;
+        }
+
+        private void ws() {
+            while (p < b.length && isSpace(b[p])) p++;
+        }
+
+        private byte peek() {
+            ws();
+            if (p >= b.length) throw new IllegalStateException();
+            return b[p];
+        }
+
+        private byte next() {
+            if (p >= b.length) throw new IllegalStateException();
+            return b[p++];
+        }
+
+        private void expect(char c) {
+            ws();
+            if (next() != c) throw new IllegalStateException();
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // ========================= 뉴욕 날짜 =========================
+
+    private static final ZoneRules NEW_YORK = ZoneId.of("America/New_York").getRules();
+
+    /**
+     * 거래 시각(epoch sec) → 뉴욕 현지 날짜의 epoch day.
+     * 오프셋을 다음 DST 전환 전까지 캐시 → 오름차순 타임스탬프면 전환(연 2회)마다만 ZoneRules 조회
+     */
+    static final class NewYorkDays {
+        private long validFrom = Long.MAX_VALUE;
+        private long validTo = Long.MIN_VALUE;
+        private int offset;
+
+        int of(long epochSecond) {
+            if (epochSecond < validFrom || epochSecond >= validTo) {
+                Instant at = Instant.ofEpochSecond(epochSecond);
+                offset = NEW_YORK.getOffset(at).getTotalSeconds();
+                ZoneOffsetTransition next = NEW_YORK.nextTransition(at);
+                validFrom = epochSecond;
+                validTo = next != null ? next.toEpochSecond() : Long.MAX_VALUE;
+            }
+            return (int) Math.floorDiv(epochSecond + offset, 86_400L);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.project.stock.temp;
+
+import java.util.Arrays;
+
+/**
+ * 종가 시계열: epoch day 오름차순 int[] + double[] 종가. 불변
+ * - TreeMap<LocalDate, Double> 대비 엔트리당 박싱/노드 객체가 없어 종목당 메모리가 수 배 작다
+ * - 분기말 시점 조회는 AsOfJoin.floor(series, 최대 look-back 일수)
+ */
+final class PriceSeries implements DayValues {
+
+    static final PriceSeries EMPTY = new PriceSeries(new int[0], new double[0]);
+
+    private final int[] days;
+    private final double[] closes;
+
+    private PriceSeries(int[] days, double[] closes) {
+        this.days = days;
+        this.closes = closes;
+    }
+
+    @Override public int size() { return days.length; }
+    boolean isEmpty() { return days.length == 0; }
+    @Override public int day(int i) { return days[i]; }
+    @Override public double value(int i) { return closes[i]; }
+
+    /** 파서가 한 행씩 쌓는다. 입력이 이미 오름차순이면 정렬을 생략, 같은 날짜는 나중 값이 남는다 */
+    static final class Builder {
+        private int size;
+        private int[] days;
+        private double[] closes;
+        private boolean sorted = true;
+
+        Builder() {
+            this(256);
+        }
+
+        /** 행 수를 대략 알 때(본문 크기 등) 배열 재할당을 줄인다 */
+        Builder(int expected) {
+            int cap = Math.max(16, expected);
+            days = new int[cap];
+            closes = new double[cap];
+        }
+
+        Builder add(int day, double close) {
+            if (day == EpochDays.NONE || Double.isNaN(close)) return this;
+            if (size == days.length) {
+                days = Arrays.copyOf(days, size * 2);
+                closes = Arrays.copyOf(closes, size * 2);
+            }
+            if (size > 0 && day <= days[size - 1]) sorted = false;
+            days[size] = day;
+            closes[size] = close;
+            size++;
+            return this;
+        }
+
+        PriceSeries build() {
+            if (size == 0) return EMPTY;
+            if (sorted) return new PriceSeries(Arrays.copyOf(days, size), Arrays.copyOf(closes, size));
+
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) keys[i] = DaySeries.packKey(days[i], i);
+            Arrays.sort(keys);
+            int[] d = new int[size];
+            double[] c = new double[size];
+            int m = 0;
+            for (int k = 0; k < size; k++) {
+                int day = (int) (keys[k] >> 32);
+                double close = closes[(int) keys[k]];
+                if (m > 0 && d[m - 1] == day) { c[m - 1] = close; continue; }
+                d[m] = day; c[m] = close; m++;
+            }
+            return new PriceSeries(Arrays.copyOf(d, m), Arrays.copyOf(c, m));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.project.stock.temp;
+
+import com.project.stock.domain.QuarterMetricsRow;
+import com.project.stock.repository.QuarterMetricsRepository;
+import com.project.stock.temp.StockMetricsFetcher.QuarterMetrics;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 계산된 분기 지표를 quarter_metrics 에 저장(write-behind)하고 다시 읽는다
+ * - offer(): 호출 스레드를 막지 않고 큐에 넣기만 한다. 백그라운드 writer 가 BATCH_ROWS 행 또는
+ *   FLUSH_INTERVAL 마다 모아 한 문장으로 upsert(종목 하나씩 쓰지 않음)
+ * - 배치 하나가 실패해도 다음 배치는 계속 쓰되, 실패한 행 수를 모아 flush()/close() 가 오류로 알린다
+ *   (CLI 실행이 아무것도 저장하지 못하고 성공으로 끝나지 않게)
+ * - close(): 남은 행을 모두 쓴 뒤 반환
+ */
+public final class QuarterMetricsStore implements AutoCloseable {
+
+    static final int BATCH_ROWS = 240;   // 12분기 × 20종목
+    static final Duration FLUSH_INTERVAL = Duration.ofSeconds(2);
+
+    private final QuarterMetricsRepository repository;
+    private final Sinks.Many<List<QuarterMetricsRow>> pending = Sinks.many().unicast().onBackpressureBuffer();
+    private final Mono<Long> drained;
+    private final AtomicLong failedRows = new AtomicLong();
+    private final AtomicReference<Throwable> firstError = new AtomicReference<>();
+
+    public QuarterMetricsStore(QuarterMetricsRepository repository) {
+        this.repository = repository;
+        this.drained = pending.asFlux()
+                .flatMapIterable(rows -> rows)
+                .bufferTimeout(BATCH_ROWS, FLUSH_INTERVAL)
+                .concatMap(batch -> repository.upsertAll(batch)
+                        .onErrorResume(e -> {
+                            System.err.println("quarter_metrics upsert error (" + batch.size() + " rows): " + e.getMessage());
+                            failedRows.addAndGet(batch.size());
+                            firstError.compareAndSet(null, e);
+                            return Mono.just(0L);
+                        }))
+                .reduce(0L, Long::sum)
+                .cache();
+        drained.subscribe();
+    }
+
+    /** 저장 대기열에 추가(여러 스레드에서 동시에 불려도 됨) */
+    public void offer(String ticker, String cik, List<QuarterMetrics> quarters) {
+        if (quarters.isEmpty()) return;
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        List<QuarterMetricsRow> rows = new ArrayList<>(quarters.size());
+        for (QuarterMetrics q : quarters) {
+            rows.add(new QuarterMetricsRow(ticker, q.end, cik, value(q.revenue), value(q.operatingIncome), value(q.eps),
+                    value(q.equity), value(q.shares), value(q.price), value(q.per), value(q.pbr), now));
+        }
+        pending.emitNext(rows, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+    }
+
+    public void offer(ScreenMatch match) {
+        offer(match.ticker(), match.cik(), match.quarters());
+    }
+
+    /** 저장된 한 종목의 최근 n 분기(계산 결과와 같이 최신 분기부터)와 그중 가장 이른 저장 시각. 없으면 empty */
+    public Mono<Stored> latest(String ticker, int n) {
+        return repository.findLatest(ticker, n)
+                .collectList()
+                .filter(rows -> !rows.isEmpty())
+                .map(rows -> {
+                    List<QuarterMetrics> quarters = new ArrayList<>(rows.size());
+                    LocalDateTime updatedAt = rows.get(0).updatedAt();
+                    for (int i = rows.size() - 1; i >= 0; i--) {   // 저장소는 오래된 순
+                        QuarterMetricsRow r = rows.get(i);
+                        quarters.add(toMetrics(r));
+                        if (r.updatedAt().isBefore(updatedAt)) updatedAt = r.updatedAt();
+                    }
+                    return new Stored(rows.get(0).cik(), quarters, updatedAt);
+                });
+    }
+
+    public record Stored(String cik, List<QuarterMetrics> quarters, LocalDateTime updatedAt) {}
+
+    static QuarterMetrics toMetrics(QuarterMetricsRow r) {
+        return new QuarterMetrics(r.periodEnd(), number(r.revenue()), number(r.operatingIncome()), number(r.eps()),
+                number(r.equity()), number(r.shares()), number(r.price()), number(r.per()), number(r.pbr()));
+    }
+
+    /**
+     * 대기열을 닫고 남은 배치가 다 써질 때까지 기다린다. 결과는 이 저장소가 쓴 총 행 수.
+     * 실패한 배치가 하나라도 있었으면 IllegalStateException(원인은 첫 오류)
+     */
+    Mono<Long> flush() {
+        pending.tryEmitComplete();
+        return drained.flatMap(written -> failedRows.get() == 0 ? Mono.just(written)
+                : Mono.error(new IllegalStateException("quarter_metrics: " + failedRows.get() + " rows not saved ("
+                        + written + " saved)", firstError.get())));
+    }
+
+    @Override
+    public void close() {
+        flush().block(Duration.ofSeconds(30));
+    }
+
+    private static Double value(double v) {
+        return Double.isNaN(v) || Double.isInfinite(v) ? null : v;
+    }
+
+    private static double number(Double v) {
+        return v == null ? Double.NaN : v;
+    }
+}
@@ -0,0 +1,135 @@
+package com.project.stock.temp;
+
+import java.util.Arrays;
+
+import static com.project.stock.temp.EpochDays.NONE;
+
+/**
+ * Duration(YTD 포함) 팩트 → 분기 값, Instant 팩트 → 시점 시리즈
+ * - Q2=Q2YTD−Q1YTD, Q3=Q3YTD−Q2YTD, Q4=FY−Q3YTD (이전 YTD가 없으면 분기값 합으로 보정, 그것도 없으면 금지)
+ * - 중간 상태는 (fy − minFy)*4 + q 로 인덱싱한 primitive 배열에 둔다(맵/박싱 없음)
+ */
+final class Quarterizer {
+
+    /** 분기(≈90일)보다 충분히 길면 YTD로 본다 (여유 있게 115일+) */
+    static final int YTD_MIN_DAYS = 115;
+
+    private Quarterizer() {}
+
+    static boolean isYTDLike(ConceptFacts f, int i) {
+        if ((f.flags[i] & ConceptFacts.FLAG_FRAME_YTD) != 0) return true;
+        byte fp = f.fp[i];
+        if (fp >= 1 && fp <= 4 && f.start[i] != NONE && f.end[i] != NONE) {
+            return f.end[i] - f.start[i] > YTD_MIN_DAYS;
+        }
+        return false;
+    }
+
+    private static boolean usable(ConceptFacts f, int i) {
+        return f.fy[i] != 0 && f.end[i] != NONE && !Double.isNaN(f.val[i]) && ConceptFacts.isAllowedForm(f.form[i]);
+    }
+
+    /** Q1..Q3(가끔 Q4) → 0..3, FY → Q4(3), 그 외 -1 */
+    private static int quarterIndex(byte fp) {
+        if (fp >= 1 && fp <= 4) return fp - 1;
+        if (fp == ConceptFacts.FP_FY) return 3;
+        return -1;
+    }
+
+    /** duration 계정(YTD 포함)을 분기 값으로 변환해 end 날짜 기준 시리즈로 반환 */
+    static DaySeries quarterize(ConceptFacts f) {
+        int minFy = Integer.MAX_VALUE, maxFy = Integer.MIN_VALUE;
+        for (int i = 0; i < f.size; i++) {
+            if (!usable(f, i) || quarterIndex(f.fp[i]) < 0) continue;
+            minFy = Math.min(minFy, f.fy[i]);
+            maxFy = Math.max(maxFy, f.fy[i]);
+        }
+        if (minFy > maxFy) return DaySeries.EMPTY;
+
+        int years = maxFy - minFy + 1;
+        int slots = years * 4;
+        int[] qEnd = filled(slots);   double[] qVal = new double[slots];   // 분기(비 YTD) 값
+        int[] yEnd = filled(slots);   double[] yVal = new double[slots];   // YTD 누적 값
+        int[] fyEnd = filled(years);  double[] fyVal = new double[years];  // 연간 합계
+        boolean[] hasYear = new boolean[years];
+
+        for (int i = 0; i < f.size; i++) {
+            if (!usable(f, i)) continue;
+            int q = quarterIndex(f.fp[i]);
+            if (q < 0) continue;
+            int y = f.fy[i] - minFy;
+            int end = f.end[i];
+            double v = f.val[i];
+            boolean ytd = isYTDLike(f, i);
+
+            if (f.fp[i] == ConceptFacts.FP_FY && !ytd) {
+                if (fyEnd[y] == NONE || end > fyEnd[y]) { fyEnd[y] = end; fyVal[y] = v; }
+                continue;
+            }
+            int slot = y * 4 + q;
+            if (ytd) {
+                if (yEnd[slot] == NONE || end > yEnd[slot]) { yEnd[slot] = end; yVal[slot] = v; }
+            } else {
+                if (qEnd[slot] == NONE || end > qEnd[slot]) { qEnd[slot] = end; qVal[slot] = v; }
+            }
+            hasYear[y] = true;
+        }
+
+        int[] outEnd = filled(slots);
+        double[] outVal = new double[slots];
+        long[] keys = new long[slots];
+        int n = 0;
+        for (int y = 0; y < years; y++) {
+            if (!hasYear[y]) continue;
+            int b = y * 4;
+
+            // Q1: 분기값 우선, 없으면 Q1 YTD(=분기)
+            if (qEnd[b] != NONE) { outEnd[b] = qEnd[b]; outVal[b] = qVal[b]; }
+            else if (yEnd[b] != NONE) { outEnd[b] = yEnd[b]; outVal[b] = yVal[b]; }
+
+            diffWithQuarterFallback(b + 1, b, qEnd, qVal, yEnd, yVal, outEnd, outVal, b);
+            diffWithQuarterFallback(b + 2, b + 1, qEnd, qVal, yEnd, yVal, outEnd, outVal, b, b + 1);
+
+            if (qEnd[b + 3] != NONE) { outEnd[b + 3] = qEnd[b + 3]; outVal[b + 3] = qVal[b + 3]; }
+            else if (fyEnd[y] != NONE && yEnd[b + 2] != NONE) { outEnd[b + 3] = fyEnd[y]; outVal[b + 3] = fyVal[y] - yVal[b + 2]; }
+
+            for (int s = b; s < b + 4; s++) if (outEnd[s] != NONE) keys[n++] = DaySeries.packKey(outEnd[s], s);
+        }
+        // 같은 end 날짜면 나중 분기 슬롯 값을 남김
+        return DaySeries.fromPackedKeys(keys, n, outVal);
+    }
+
+    /**
+     * cur 슬롯 분기값: 분기 팩트 → (YTD − 직전 YTD) → (YTD − 이미 구한 이전 분기들의 합) 순으로 시도
+     */
+    private static void diffWithQuarterFallback(int cur, int prev, int[] qEnd, double[] qVal, int[] yEnd, double[] yVal,
+                                                int[] outEnd, double[] outVal, int... priorSlots) {
+        if (qEnd[cur] != NONE) { outEnd[cur] = qEnd[cur]; outVal[cur] = qVal[cur]; return; }
+        if (yEnd[cur] == NONE) return;
+        if (yEnd[prev] != NONE) { outEnd[cur] = yEnd[cur]; outVal[cur] = yVal[cur] - yVal[prev]; return; }
+        double sum = 0;
+        boolean has = false;
+        for (int s : priorSlots) {
+            if (outEnd[s] != NONE) { sum += outVal[s]; has = true; }
+        }
+        if (has) { outEnd[cur] = yEnd[cur]; outVal[cur] = yVal[cur] - sum; }
+    }
+
+    /** instant(시점) 계정 → end 날짜별 시리즈 (같은 날짜는 나중 팩트가 덮어씀) */
+    static DaySeries instantSeries(ConceptFacts f) {
+        long[] keys = new long[f.size];
+        int n = 0;
+        for (int i = 0; i < f.size; i++) {
+            if (f.end[i] == NONE || Double.isNaN(f.val[i])) continue;
+            if (!ConceptFacts.isAllowedForm(f.form[i])) continue;
+            keys[n++] = DaySeries.packKey(f.end[i], i);
+        }
+        return DaySeries.fromPackedKeys(keys, n, f.val);
+    }
+
+    private static int[] filled(int n) {
+        int[] a = new int[n];
+        Arrays.fill(a, NONE);
+        return a;
+    }
+}
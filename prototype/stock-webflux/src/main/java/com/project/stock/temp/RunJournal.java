@@ -0,0 +1,193 @@
+package com.project.stock.temp;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 전 종목 실행의 종목별 결과 저널(append-only NDJSON, 한 줄 = TickerOutcome)
+ * - 재시작 시 파일을 읽어 종목별 마지막 결과를 복원 → 끝난 종목(MATCH/REJECT)은 건너뛰고 MATCH 는 저널에서 다시 출력
+ * - fsync 는 SYNC_EVERY 건 또는 SYNC_INTERVAL 마다(매 줄 fsync 는 느림). 크래시 시 최대 그만큼만 다시 계산
+ * - 같은 종목의 예전 줄이 쌓이면(재시도 등) 열 때 종목별 마지막 줄만 남기도록 압축(임시 파일 + 원자적 교체)
+ * - 쓰다 끊긴 마지막 줄 등 읽을 수 없는 줄은 무시
+ * append 는 한 번에 한 스레드에서만 호출한다
+ */
+final class RunJournal implements Closeable {
+
+    static final int SYNC_EVERY = 64;
+    static final Duration SYNC_INTERVAL = Duration.ofSeconds(2);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path file;
+    private final Map<String, TickerOutcome> latest;
+    private FileChannel channel;
+    private int unsynced;
+    private long lastSyncNanos = System.nanoTime();
+
+    private RunJournal(Path file, Map<String, TickerOutcome> latest) {
+        this.file = file;
+        this.latest = latest;
+    }
+
+    static RunJournal open(Path file) throws IOException {
+        Map<String, TickerOutcome> latest = new LinkedHashMap<>();
+        int lines = 0;
+        if (Files.exists(file)) {
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    lines++;
+                    TickerOutcome o = parse(line);
+                    if (o != null) {
+                        latest.remove(o.ticker());   // 마지막 결과가 뒤에 오도록
+                        latest.put(o.ticker(), o);
+                    }
+                }
+            }
+        }
+        RunJournal journal = new RunJournal(file, latest);
+        if (lines > latest.size() || !endsWithNewline(file)) journal.compact();
+        journal.openForAppend();
+        return journal;
+    }
+
+    /** 마지막 결과가 MATCH/REJECT 인 종목 */
+    boolean isDone(String ticker) {
+        TickerOutcome o = latest.get(ticker);
+        return o != null && o.isDone();
+    }
+
+    boolean isFailed(String ticker) {
+        TickerOutcome o = latest.get(ticker);
+        return o != null && !o.isDone();
+    }
+
+    /** 저널에 기록된 통과 종목(재시작 시 다시 출력용) */
+    List<ScreenMatch> matches() {
+        List<ScreenMatch> out = new ArrayList<>();
+        for (TickerOutcome o : latest.values()) if (o.status() == TickerOutcome.Status.MATCH) out.add(o.toMatch());
+        return out;
+    }
+
+    Collection<TickerOutcome> outcomes() {
+        return latest.values();
+    }
+
+    void append(TickerOutcome outcome) {
+        try {
+            ByteBuffer line = ByteBuffer.wrap((format(outcome) + "\n").getBytes(StandardCharsets.UTF_8));
+            while (line.hasRemaining()) channel.write(line);
+            latest.remove(outcome.ticker());
+            latest.put(outcome.ticker(), outcome);
+            if (++unsynced >= SYNC_EVERY || System.nanoTime() - lastSyncNanos >= SYNC_INTERVAL.toNanos()) sync();
+        } catch (IOException e) {
+            throw new UncheckedIOException("journal append failed: " + file, e);
+        }
+    }
+
+    /** 종목별 마지막 줄만 남겨 다시 쓴다 */
+    void compact() throws IOException {
+        boolean wasOpen = channel != null;
+        if (wasOpen) close();
+        Path tmp = file.resolveSibling(file.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            for (TickerOutcome o : latest.values()) {
+                ByteBuffer line = ByteBuffer.wrap((format(o) + "\n").getBytes(StandardCharsets.UTF_8));
+                while (line.hasRemaining()) out.write(line);
+            }
+            out.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (wasOpen) openForAppend();
+    }
+
+    /** 쓰다 끊긴 꼬리가 있으면 다음 append 가 그 줄에 붙으므로 압축으로 정리 */
+    private static boolean endsWithNewline(Path file) throws IOException {
+        if (!Files.exists(file)) return true;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size == 0) return true;
+            ByteBuffer last = ByteBuffer.allocate(1);
+            ch.read(last, size - 1);
+            return last.get(0) == '\n';
+        }
+    }
+
+    private void openForAppend() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void sync() throws IOException {
+        channel.force(false);
+        unsynced = 0;
+        lastSyncNanos = System.nanoTime();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel == null) return;
+        try {
+            sync();
+        } finally {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    // ---------- 줄 형식 ----------
+
+    static String format(TickerOutcome o) {
+        StringWriter out = new StringWriter(128);
+        try (JsonGenerator g = MAPPER.getFactory().createGenerator(out)) {
+            g.writeStartObject();
+            g.writeStringField("ticker", o.ticker());
+            g.writeStringField("cik", o.cik());
+            g.writeStringField("status", o.status().name());
+            if (o.status() == TickerOutcome.Status.MATCH) ScreenMatch.writeQuarters(g, o.quarters());
+            if (o.reason() != null) g.writeStringField("reason", o.reason());
+            g.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /** 읽을 수 없는 줄이면 null */
+    static TickerOutcome parse(String line) {
+        try {
+            JsonNode n = MAPPER.readTree(line);
+            String ticker = n.path("ticker").asText(null);
+            String cik = n.path("cik").asText(null);
+            if (ticker == null || cik == null) return null;
+            return switch (TickerOutcome.Status.valueOf(n.path("status").asText())) {
+                case MATCH -> TickerOutcome.match(ticker, cik, ScreenMatch.readQuarters(n.path("quarters")));
+                case REJECT -> TickerOutcome.reject(ticker, cik);
+                case FAIL -> TickerOutcome.fail(ticker, cik, n.path("reason").asText(""));
+            };
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.project.stock.temp;
+
+import com.project.stock.temp.StockMetricsFetcher.QuarterMetrics;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * 종목 스크리닝 조건을 "싼 것부터" 단계로 나눈 것
+ * - revenue / operatingIncome : 해당 개념만 받아 분기화한 시리즈로 먼저 거른다(탈락 시 나머지 로딩 생략)
+ * - rows                      : 가격/재무상태 포함 최종 지표 행에 대한 조건
+ * 단계 조건은 최종 조건의 필요조건이어야 한다(단계에서 떨어진 종목은 최종 조건도 통과할 수 없음)
+ */
+public final class Screen {
+
+    /** 분기 시리즈 단계 조건. fromDay 는 지표 계산과 같은 최근 구간 시작일(epoch day) */
+    @FunctionalInterface
+    interface SeriesCheck {
+        boolean test(DaySeries quarters, int fromDay);
+
+        SeriesCheck ALWAYS = (quarters, fromDay) -> true;
+    }
+
+    final SeriesCheck revenue;
+    final SeriesCheck operatingIncome;
+    final Predicate<List<QuarterMetrics>> rows;
+
+    Screen(SeriesCheck revenue, SeriesCheck operatingIncome, Predicate<List<QuarterMetrics>> rows) {
+        this.revenue = revenue;
+        this.operatingIncome = operatingIncome;
+        this.rows = rows;
+    }
+
+    /** 기본 스크린: 매출·영업이익 최근 3분기 연속 증가 + PER×PBR ≤ 22.5 */
+    public static final Screen RISING_GROWTH_VALUE = new Screen(
+            risingQuarters(3),
+            risingQuarters(3),
+            q -> q != null && q.size() >= 3
+                    && q.get(0).revenue > q.get(1).revenue
+                    && q.get(1).revenue > q.get(2).revenue
+                    && q.get(0).operatingIncome > q.get(1).operatingIncome
+                    && q.get(1).operatingIncome > q.get(2).operatingIncome
+                    && q.get(0).pbr * q.get(0).per <= 22.5);
+
+    /** 거르지 않음(분기 지표가 있는 종목 전부) — 룰 스크린용 데이터셋 수집 */
+    static final Screen ALL = new Screen(SeriesCheck.ALWAYS, SeriesCheck.ALWAYS, q -> q != null && !q.isEmpty());
+
+    boolean accepts(List<QuarterMetrics> quarters) {
+        return rows.test(quarters);
+    }
+
+    /**
+     * fromDay 이후 마지막 n개 분기 값이 엄격히 증가.
+     * 최종 행은 시리즈 점들의 nearest 매칭이라 "최근 n행 증가"이면 "최근 n점 증가"도 성립한다(필요조건).
+     * 창 안의 행이 fromDay 직전 END_MATCH_DAYS 일 안의 점도 가져가므로 그 점까지 센다
+     */
+    static SeriesCheck risingQuarters(int n) {
+        return (s, fromDay) -> {
+            int last = s.size() - 1;
+            if (last - n + 1 < 0 || s.day(last - n + 1) < fromDay - StockMetricsFetcher.END_MATCH_DAYS) return false;
+            for (int i = last; i > last - n + 1; i--) {
+                if (!(s.value(i) > s.value(i - 1))) return false;
+            }
+            return true;
+        };
+    }
+}
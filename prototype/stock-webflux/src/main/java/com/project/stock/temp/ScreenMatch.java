@@ -0,0 +1,74 @@
+package com.project.stock.temp;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.project.stock.temp.StockMetricsFetcher.QuarterMetrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/** 스크린을 통과한 종목 한 건 (sink 로 내보낸 뒤에는 참조하지 않는다) */
+public record ScreenMatch(String ticker, String cik, List<QuarterMetrics> quarters) {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    /** 한 줄 JSON. NaN 은 null 로 */
+    public String toJson() {
+        StringWriter out = new StringWriter(256 + quarters.size() * 200);
+        try (JsonGenerator g = JSON.createGenerator(out)) {
+            g.writeStartObject();
+            g.writeStringField("ticker", ticker);
+            g.writeStringField("cik", cik);
+            writeQuarters(g, quarters);
+            g.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /** "quarters": [...] 필드 (저널과 공용) */
+    static void writeQuarters(JsonGenerator g, List<QuarterMetrics> quarters) throws IOException {
+        g.writeArrayFieldStart("quarters");
+        for (QuarterMetrics q : quarters) {
+            g.writeStartObject();
+            g.writeStringField("end", q.end.toString());
+            number(g, "revenue", q.revenue);
+            number(g, "operatingIncome", q.operatingIncome);
+            number(g, "eps", q.eps);
+            number(g, "equity", q.equity);
+            number(g, "shares", q.shares);
+            number(g, "price", q.price);
+            number(g, "per", q.per);
+            number(g, "pbr", q.pbr);
+            g.writeEndObject();
+        }
+        g.writeEndArray();
+    }
+
+    /** writeQuarters 의 역 (null → NaN) */
+    static List<QuarterMetrics> readQuarters(JsonNode array) {
+        List<QuarterMetrics> out = new ArrayList<>(array.size());
+        for (JsonNode q : array) {
+            out.add(new QuarterMetrics(LocalDate.parse(q.path("end").asText()),
+                    number(q, "revenue"), number(q, "operatingIncome"), number(q, "eps"), number(q, "equity"),
+                    number(q, "shares"), number(q, "price"), number(q, "per"), number(q, "pbr")));
+        }
+        return out;
+    }
+
+    private static double number(JsonNode q, String name) {
+        JsonNode v = q.get(name);
+        return v == null || !v.isNumber() ? Double.NaN : v.asDouble();
+    }
+
+    private static void number(JsonGenerator g, String name, double v) throws IOException {
+        if (Double.isNaN(v) || Double.isInfinite(v)) g.writeNullField(name);
+        else g.writeNumberField(name, v);
+    }
+}
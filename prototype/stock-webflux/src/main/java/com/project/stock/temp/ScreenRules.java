@@ -0,0 +1,463 @@
+package com.project.stock.temp;
+
+import com.project.stock.temp.MetricsTable.Field;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 스크린 룰 파일 파서/컴파일러 + 열 단위 평가기
+ *
+ * 파일 형식: 한 줄에 "이름: 식", '#' 이후는 주석
+ * <pre>
+ *   rising_growth_value: rising(revenue, 3) and rising(operatingIncome, 3) and per * pbr <= 22.5
+ *   cheap_eps_growth:    growth(eps, 4) > 0.2 and per[0] < 15
+ * </pre>
+ * 식 문법
+ * - 지표: revenue, operatingIncome, eps, equity, shares, price, per, pbr. field[k] 는 k분기 전(생략 시 0 = 최근)
+ * - 산술 + - * /, 비교 &lt; &lt;= &gt; &gt;= == !=, 논리 and or not, 괄호
+ * - 집계(lag 0..n-1): avg/sum/min/max(field, n), rising(field, n) = 최근 n분기 엄격 증가, growth(field, k) = field[0]/field[k] − 1, abs(식)
+ * - NaN(데이터 없음)이 낀 비교는 모두 거짓 → 분기가 모자란 종목은 자연히 탈락
+ *
+ * 평가는 행(종목)마다 트리를 타지 않고 노드마다 전 종목 double[] 벡터를 한 번에 계산한다.
+ * 같은 부분식(정규화한 키 기준)은 한 번의 평가 동안 모든 스크린이 공유한다(rising/growth 는 lag 비교로 풀어 공유 대상이 됨)
+ */
+public final class ScreenRules {
+
+    /** 컴파일된 스크린 하나 */
+    record Rule(String name, String source, Expr root) {}
+
+    private final List<Rule> rules;
+
+    private ScreenRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    List<Rule> rules() {
+        return rules;
+    }
+
+    static ScreenRules load(Path file) throws IOException {
+        return parse(Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    public static ScreenRules parse(String text) {
+        List<Rule> out = new ArrayList<>();
+        Map<String, Integer> seen = new HashMap<>();
+        String[] lines = text.split("\r?\n", -1);
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            int hash = line.indexOf('#');
+            if (hash >= 0) line = line.substring(0, hash);
+            if (line.isBlank()) continue;
+            int colon = line.indexOf(':');
+            String name = colon < 0 ? "" : line.substring(0, colon).trim();
+            if (!name.matches("[A-Za-z0-9_.-]+")) {
+                throw new IllegalArgumentException("line " + (i + 1) + ": expected 'name: expression'");
+            }
+            if (seen.putIfAbsent(name, i + 1) != null) {
+                throw new IllegalArgumentException("line " + (i + 1) + ": duplicate screen '" + name + "'");
+            }
+            String source = line.substring(colon + 1).trim();
+            try {
+                out.add(new Rule(name, source, compile(source)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("line " + (i + 1) + " (" + name + "): " + e.getMessage(), e);
+            }
+        }
+        return new ScreenRules(List.copyOf(out));
+    }
+
+    /** 식 하나를 컴파일(결과가 참/거짓이 아니면 오류) */
+    static Expr compile(String source) {
+        Expr e = new Parser(source).parseAll();
+        if (!e.bool()) throw new IllegalArgumentException("screen must be a condition, got number: " + e.key());
+        return e;
+    }
+
+    /** 모든 스크린을 한 번에 평가. 결과: 스크린 이름 → 통과 종목 인덱스 */
+    Map<String, BitSet> evaluate(MetricsTable table) {
+        Evaluator ev = new Evaluator(table);
+        Map<String, BitSet> out = new LinkedHashMap<>();
+        for (Rule r : rules) out.put(r.name(), toBits(ev.get(r.root())));
+        return out;
+    }
+
+    /** 종목 하나를 첫 스크린으로 평가(API 스크린: 요청 룰은 하나) */
+    public boolean accepts(ScreenMatch match) {
+        return evaluate(MetricsTable.of(List.of(match))).get(rules.get(0).name()).get(0);
+    }
+
+    private static BitSet toBits(double[] v) {
+        BitSet bits = new BitSet(v.length);
+        for (int i = 0; i < v.length; i++) if (v[i] != 0) bits.set(i);
+        return bits;
+    }
+
+    // ---------- 평가 ----------
+
+    /** 한 번의 평가 동안 부분식 결과를 키로 공유 */
+    static final class Evaluator {
+        final MetricsTable table;
+        private final Map<String, double[]> memo = new HashMap<>();
+
+        Evaluator(MetricsTable table) {
+            this.table = table;
+        }
+
+        double[] get(Expr e) {
+            double[] v = memo.get(e.key());
+            if (v == null) {
+                v = e.compute(this);
+                memo.put(e.key(), v);
+            }
+            return v;
+        }
+
+        /** 지금까지 계산된 서로 다른 부분식 수 */
+        int computed() {
+            return memo.size();
+        }
+
+        int size() {
+            return table.size();
+        }
+    }
+
+    /** 식 노드. bool 노드의 벡터 값은 1.0/0.0 */
+    sealed interface Expr permits Num, Col, Unary, Binary {
+        String key();
+        boolean bool();
+        double[] compute(Evaluator ev);
+    }
+
+    record Num(double value) implements Expr {
+        public String key() { return Double.toString(value); }
+        public boolean bool() { return false; }
+        public double[] compute(Evaluator ev) {
+            double[] v = new double[ev.size()];
+            Arrays.fill(v, value);
+            return v;
+        }
+    }
+
+    record Col(Field field, int lag) implements Expr {
+        public String key() { return field.key + "[" + lag + "]"; }
+        public boolean bool() { return false; }
+        public double[] compute(Evaluator ev) { return ev.table.column(field, lag); }
+    }
+
+    enum UnaryOp { NEG, ABS, NOT }
+
+    record Unary(UnaryOp op, Expr arg) implements Expr {
+        public String key() { return op.name().toLowerCase() + "(" + arg.key() + ")"; }
+        public boolean bool() { return op == UnaryOp.NOT; }
+        public double[] compute(Evaluator ev) {
+            double[] a = ev.get(arg);
+            double[] v = new double[a.length];
+            switch (op) {
+                case NEG -> { for (int i = 0; i < v.length; i++) v[i] = -a[i]; }
+                case ABS -> { for (int i = 0; i < v.length; i++) v[i] = Math.abs(a[i]); }
+                case NOT -> { for (int i = 0; i < v.length; i++) v[i] = a[i] == 0 ? 1 : 0; }
+            }
+            return v;
+        }
+    }
+
+    enum BinaryOp {
+        ADD("+"), SUB("-"), MUL("*"), DIV("/"), MIN("min"), MAX("max"),
+        LT("<"), LE("<="), GT(">"), GE(">="), EQ("=="), NE("!="),
+        AND("and"), OR("or");
+
+        final String symbol;
+
+        BinaryOp(String symbol) {
+            this.symbol = symbol;
+        }
+
+        boolean comparison() { return ordinal() >= LT.ordinal() && ordinal() <= NE.ordinal(); }
+        boolean logical() { return this == AND || this == OR; }
+    }
+
+    record Binary(BinaryOp op, Expr left, Expr right) implements Expr {
+        public String key() { return "(" + left.key() + " " + op.symbol + " " + right.key() + ")"; }
+        public boolean bool() { return op.comparison() || op.logical(); }
+
+        public double[] compute(Evaluator ev) {
+            double[] a = ev.get(left);
+            // and/or: 왼쪽만으로 전부 결정되면 오른쪽은 계산하지 않음
+            if (op.logical() && decided(a, op == BinaryOp.OR)) return a;
+            double[] b = ev.get(right);
+            double[] v = new double[a.length];
+            switch (op) {
+                case ADD -> { for (int i = 0; i < v.length; i++) v[i] = a[i] + b[i]; }
+                case SUB -> { for (int i = 0; i < v.length; i++) v[i] = a[i] - b[i]; }
+                case MUL -> { for (int i = 0; i < v.length; i++) v[i] = a[i] * b[i]; }
+                case DIV -> { for (int i = 0; i < v.length; i++) v[i] = a[i] / b[i]; }
+                case MIN -> { for (int i = 0; i < v.length; i++) v[i] = Math.min(a[i], b[i]); }
+                case MAX -> { for (int i = 0; i < v.length; i++) v[i] = Math.max(a[i], b[i]); }
+                case LT -> { for (int i = 0; i < v.length; i++) v[i] = a[i] < b[i] ? 1 : 0; }
+                case LE -> { for (int i = 0; i < v.length; i++) v[i] = a[i] <= b[i] ? 1 : 0; }
+                case GT -> { for (int i = 0; i < v.length; i++) v[i] = a[i] > b[i] ? 1 : 0; }
+                case GE -> { for (int i = 0; i < v.length; i++) v[i] = a[i] >= b[i] ? 1 : 0; }
+                case EQ -> { for (int i = 0; i < v.length; i++) v[i] = a[i] == b[i] ? 1 : 0; }
+                case NE -> { for (int i = 0; i < v.length; i++) v[i] = a[i] < b[i] || a[i] > b[i] ? 1 : 0; }
+                case AND -> { for (int i = 0; i < v.length; i++) v[i] = a[i] != 0 && b[i] != 0 ? 1 : 0; }
+                case OR -> { for (int i = 0; i < v.length; i++) v[i] = a[i] != 0 || b[i] != 0 ? 1 : 0; }
+            }
+            return v;
+        }
+
+        /** and 는 전부 거짓, or 는 전부 참이면 결정됨 */
+        private static boolean decided(double[] a, boolean allTrue) {
+            for (double x : a) if ((x != 0) != allTrue) return false;
+            return true;
+        }
+    }
+
+    // ---------- 파서 ----------
+
+    /**
+     * or  := and ('or' and)*        and := not ('and' not)*        not := 'not' not | cmp
+     * cmp := sum (op sum)?           sum := prod (('+'|'-') prod)*   prod := unary (('*'|'/') unary)*
+     * unary := '-' unary | atom      atom := number | field ('[' int ']')? | func '(' args ')' | '(' or ')'
+     */
+    private static final class Parser {
+        private final String src;
+        private int pos;
+
+        Parser(String src) {
+            this.src = src;
+        }
+
+        Expr parseAll() {
+            Expr e = or();
+            skipSpace();
+            if (pos < src.length()) throw error("unexpected '" + src.charAt(pos) + "'");
+            return e;
+        }
+
+        private Expr or() {
+            Expr e = and();
+            while (keyword("or") || symbol("||")) e = logical(BinaryOp.OR, e, and());
+            return e;
+        }
+
+        private Expr and() {
+            Expr e = not();
+            while (keyword("and") || symbol("&&")) e = logical(BinaryOp.AND, e, not());
+            return e;
+        }
+
+        private Expr not() {
+            if (keyword("not") || (peek('!') && !peekAt(1, '=') && symbol("!"))) {
+                Expr e = not();
+                if (!e.bool()) throw error("'not' needs a condition");
+                return new Unary(UnaryOp.NOT, e);
+            }
+            return comparison();
+        }
+
+        private Expr comparison() {
+            Expr left = sum();
+            BinaryOp op = symbol("<=") ? BinaryOp.LE : symbol(">=") ? BinaryOp.GE
+                    : symbol("==") ? BinaryOp.EQ : symbol("!=") ? BinaryOp.NE
+                    : symbol("<") ? BinaryOp.LT : symbol(">") ? BinaryOp.GT : null;
+            if (op == null) return left;
+            Expr right = sum();
+            if (left.bool() || right.bool()) throw error("'" + op.symbol + "' compares numbers, not conditions");
+            return new Binary(op, left, right);
+        }
+
+        private Expr sum() {
+            Expr e = product();
+            while (true) {
+                if (symbol("+")) e = arithmetic(BinaryOp.ADD, e, product());
+                else if (symbol("-")) e = arithmetic(BinaryOp.SUB, e, product());
+                else return e;
+            }
+        }
+
+        private Expr product() {
+            Expr e = unary();
+            while (true) {
+                if (symbol("*")) e = arithmetic(BinaryOp.MUL, e, unary());
+                else if (symbol("/")) e = arithmetic(BinaryOp.DIV, e, unary());
+                else return e;
+            }
+        }
+
+        private Expr unary() {
+            if (symbol("-")) {
+                Expr e = unary();
+                if (e instanceof Num n) return new Num(-n.value());
+                if (e.bool()) throw error("'-' needs a number");
+                return new Unary(UnaryOp.NEG, e);
+            }
+            return atom();
+        }
+
+        private Expr atom() {
+            skipSpace();
+            if (symbol("(")) {
+                Expr e = or();
+                expect(")");
+                return e;
+            }
+            if (pos < src.length() && (Character.isDigit(src.charAt(pos)) || src.charAt(pos) == '.')) return number();
+            String id = identifier();
+            if (id == null) throw error(pos < src.length() ? "unexpected '" + src.charAt(pos) + "'" : "unexpected end");
+            if (symbol("(")) return function(id);
+            Field f = Field.byKey(id);
+            if (f == null) throw error("unknown field '" + id + "'");
+            int lag = 0;
+            if (symbol("[")) {
+                lag = integer();
+                expect("]");
+            }
+            return new Col(f, lag);
+        }
+
+        private Expr function(String name) {
+            Expr e = switch (name) {
+                case "abs" -> {
+                    Expr arg = or();
+                    if (arg.bool()) throw error("abs needs a number");
+                    yield new Unary(UnaryOp.ABS, arg);
+                }
+                case "avg", "sum", "min", "max", "rising", "growth" -> {
+                    Field f = fieldArg();
+                    expect(",");
+                    int n = integer();
+                    yield aggregate(name, f, n);
+                }
+                default -> throw error("unknown function '" + name + "'");
+            };
+            expect(")");
+            return e;
+        }
+
+        /** 집계는 lag 열들의 연산으로 풀어 둔다(다른 스크린의 같은 lag 식과 공유) */
+        private Expr aggregate(String name, Field f, int n) {
+            if (name.equals("growth")) {
+                if (n < 1) throw error("growth needs a lag >= 1");
+                return new Binary(BinaryOp.SUB, new Binary(BinaryOp.DIV, new Col(f, 0), new Col(f, n)), new Num(1));
+            }
+            if (n < 1 || (name.equals("rising") && n < 2)) throw error(name + " needs a larger window");
+            if (name.equals("rising")) {
+                Expr e = new Binary(BinaryOp.GT, new Col(f, 0), new Col(f, 1));
+                for (int lag = 1; lag < n - 1; lag++) {
+                    e = new Binary(BinaryOp.AND, e, new Binary(BinaryOp.GT, new Col(f, lag), new Col(f, lag + 1)));
+                }
+                return e;
+            }
+            BinaryOp op = switch (name) {
+                case "min" -> BinaryOp.MIN;
+                case "max" -> BinaryOp.MAX;
+                default -> BinaryOp.ADD;
+            };
+            Expr e = new Col(f, 0);
+            for (int lag = 1; lag < n; lag++) e = new Binary(op, e, new Col(f, lag));
+            return name.equals("avg") ? new Binary(BinaryOp.DIV, e, new Num(n)) : e;
+        }
+
+        private Field fieldArg() {
+            skipSpace();
+            String id = identifier();
+            Field f = id == null ? null : Field.byKey(id);
+            if (f == null) throw error("expected a field name");
+            return f;
+        }
+
+        private Expr arithmetic(BinaryOp op, Expr l, Expr r) {
+            if (l.bool() || r.bool()) throw error("'" + op.symbol + "' needs numbers");
+            return new Binary(op, l, r);
+        }
+
+        private Expr logical(BinaryOp op, Expr l, Expr r) {
+            if (!l.bool() || !r.bool()) throw error("'" + op.symbol + "' needs conditions");
+            return new Binary(op, l, r);
+        }
+
+        // ---- 토큰 ----
+
+        private Num number() {
+            int start = pos;
+            while (pos < src.length() && (Character.isDigit(src.charAt(pos)) || src.charAt(pos) == '.')) pos++;
+            if (pos < src.length() && (src.charAt(pos) == 'e' || src.charAt(pos) == 'E')) {
+                pos++;
+                if (pos < src.length() && (src.charAt(pos) == '+' || src.charAt(pos) == '-')) pos++;
+                while (pos < src.length() && Character.isDigit(src.charAt(pos))) pos++;
+            }
+            try {
+                return new Num(Double.parseDouble(src.substring(start, pos)));
+            } catch (NumberFormatException e) {
+                pos = start;
+                throw error("bad number");
+            }
+        }
+
+        private int integer() {
+            skipSpace();
+            int start = pos;
+            while (pos < src.length() && Character.isDigit(src.charAt(pos))) pos++;
+            if (start == pos || pos - start > 3) throw error("expected a small integer");
+            return Integer.parseInt(src.substring(start, pos));
+        }
+
+        private String identifier() {
+            int start = pos;
+            while (pos < src.length() && (Character.isLetterOrDigit(src.charAt(pos)) || src.charAt(pos) == '_')) {
+                if (pos == start && Character.isDigit(src.charAt(pos))) break;
+                pos++;
+            }
+            return pos == start ? null : src.substring(start, pos);
+        }
+
+        private boolean keyword(String word) {
+            skipSpace();
+            int end = pos + word.length();
+            if (!src.startsWith(word, pos)) return false;
+            if (end < src.length() && (Character.isLetterOrDigit(src.charAt(end)) || src.charAt(end) == '_')) return false;
+            pos = end;
+            return true;
+        }
+
+        private boolean symbol(String s) {
+            skipSpace();
+            if (!src.startsWith(s, pos)) return false;
+            pos += s.length();
+            return true;
+        }
+
+        private boolean peek(char c) {
+            skipSpace();
+            return pos < src.length() && src.charAt(pos) == c;
+        }
+
+        private boolean peekAt(int offset, char c) {
+            return pos + offset < src.length() && src.charAt(pos + offset) == c;
+        }
+
+        private void expect(String s) {
+            if (!symbol(s)) throw error("expected '" + s + "'");
+        }
+
+        private void skipSpace() {
+            while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at column " + (pos + 1));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.project.stock.temp;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 스크린 매치를 받는 곳. 종목이 통과하는 즉시 한 건씩 호출된다(전체 목록을 모으지 않음)
+ * emit 은 한 번에 한 스레드에서만 호출된다(StockMetricsFetcher.runScreen 이 직렬화)
+ */
+interface ScreenSink extends Closeable {
+
+    void emit(ScreenMatch match) throws IOException;
+
+    @Override
+    default void close() throws IOException { }
+
+    /** 티커만 한 줄씩 출력 */
+    static ScreenSink stdout() {
+        return match -> System.out.println(match.ticker());
+    }
+
+    /** 매치마다 JSON 한 줄을 덧붙이고 바로 flush (실행 중에도 tail -f 로 볼 수 있게) */
+    static ScreenSink ndjson(Path file) throws IOException {
+        BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new ScreenSink() {
+            @Override
+            public void emit(ScreenMatch match) throws IOException {
+                out.write(match.toJson());
+                out.write('\n');
+                out.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.close();
+            }
+        };
+    }
+}
@@ -0,0 +1,146 @@
+package com.project.stock.temp;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.LongSupplier;
+
+/**
+ * SEC 전역 요청 스케줄러 (토큰 버킷, 락 없음)
+ * - SEC 공지 상한은 IP당 10 req/s. 모든 SEC 요청이 이 버킷에서 슬롯을 예약한 뒤 나간다
+ * - 다음 빈 슬롯 시각(nanoTime)을 CAS로 밀며 예약 → 남은 시간만큼만 Mono.delay (스레드 점유 없음)
+ * - 기다리다 취소된 요청(헤지에서 진 소스, 낮은 순위 태그)은 예약한 슬롯을 돌려준다(다음 슬롯 시각을 한 칸 당김)
+ * - 429/403 수신 시 전역 속도를 절반으로(AIMD의 MD) + 잠시 전체 정지, 성공마다 조금씩 회복(AI)
+ * flatMap 워커 수와 무관하게 프로세스 전체가 상한 바로 아래에서 일정하게 요청하도록 한다
+ */
+public final class SecRateLimiter {
+
+    static final double MAX_RATE = 9.5;   // req/s, 10 req/s 상한 바로 아래
+    static final double MIN_RATE = 0.5;
+    static final double RATE_INCREASE = 0.1;
+    static final Duration THROTTLE_PAUSE = Duration.ofSeconds(1);
+
+    private static final SecRateLimiter SHARED = new SecRateLimiter(MAX_RATE);
+
+    private final double maxRate;
+    private final LongSupplier clockNanos;
+    private final AtomicLong nextSlotNanos;
+    private final AtomicLong rateBits;
+    private final AtomicLong lastDecreaseNanos;
+    /** 429/403 정지가 끝나는 시각. 슬롯을 돌려줘도 이보다 당기지 않는다 */
+    private final AtomicLong pausedUntilNanos;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong granted = new AtomicLong();
+
+    SecRateLimiter(double maxRate) {
+        this(maxRate, System::nanoTime);
+    }
+
+    SecRateLimiter(double maxRate, LongSupplier clockNanos) {
+        this.maxRate = maxRate;
+        this.clockNanos = clockNanos;
+        long now = clockNanos.getAsLong();
+        this.nextSlotNanos = new AtomicLong(now);
+        this.rateBits = new AtomicLong(Double.doubleToLongBits(maxRate));
+        this.lastDecreaseNanos = new AtomicLong(now - TimeUnit.SECONDS.toNanos(10));
+        this.pausedUntilNanos = new AtomicLong(now);
+    }
+
+    /** 프로세스 전체 공용 버킷(SEC 제한은 IP 단위) */
+    public static SecRateLimiter shared() {
+        return SHARED;
+    }
+
+    /** 슬롯 하나를 예약하고, 그 시각이 될 때 완료되는 Mono. 기다리는 중에 취소되면 슬롯 반납 */
+    public Mono<Void> acquire() {
+        return Mono.defer(() -> {
+            long interval = interval();
+            long delay = reserve(interval);
+            if (delay <= 0) {
+                granted.incrementAndGet();
+                return Mono.empty();
+            }
+            waiting.incrementAndGet();
+            return Mono.delay(Duration.ofNanos(delay))
+                    .doOnNext(t -> granted.incrementAndGet())
+                    .doFinally(s -> {
+                        waiting.decrementAndGet();
+                        if (s == SignalType.CANCEL) giveBack(interval);
+                    })
+                    .then();
+        });
+    }
+
+    /** @return 슬롯까지 기다릴 nanos */
+    long reserve() {
+        return reserve(interval());
+    }
+
+    private long reserve(long interval) {
+        while (true) {
+            long now = clockNanos.getAsLong();
+            long next = nextSlotNanos.get();
+            long slot = Math.max(next, now);
+            if (nextSlotNanos.compareAndSet(next, slot + interval)) return slot - now;
+        }
+    }
+
+    /**
+     * 쓰지 않은 슬롯 반납: 다음 슬롯 시각을 한 칸 당긴다(뒤에 예약한 요청들의 시각은 그대로, 다음 예약이 빈자리를 씀).
+     * 현재 시각이나 429 정지 끝보다 앞으로는 당기지 않는다
+     */
+    void giveBack(long interval) {
+        long floor = Math.max(clockNanos.getAsLong(), pausedUntilNanos.get());
+        nextSlotNanos.accumulateAndGet(interval, (next, back) -> Math.max(Math.min(next, floor), next - back));
+    }
+
+    private long interval() {
+        return (long) (1_000_000_000L / currentRate());
+    }
+
+    /** 정상 응답: 속도를 상한까지 조금씩 회복 */
+    public void onSuccess() {
+        updateRate(r -> Math.min(maxRate, r + RATE_INCREASE));
+    }
+
+    /**
+     * 429/403(요청 과다): 속도 절반 + 전체 잠시 정지.
+     * 한 번의 폭주로 429가 여러 개 연달아 와도 초당 한 번만 감소시킨다
+     */
+    public void onThrottled() {
+        long now = clockNanos.getAsLong();
+        long last = lastDecreaseNanos.get();
+        if (now - last < TimeUnit.SECONDS.toNanos(1) || !lastDecreaseNanos.compareAndSet(last, now)) return;
+        double rate = updateRate(r -> Math.max(MIN_RATE, r * 0.5));
+        pausedUntilNanos.accumulateAndGet(now + THROTTLE_PAUSE.toNanos(), Math::max);
+        nextSlotNanos.accumulateAndGet(now + THROTTLE_PAUSE.toNanos(), Math::max);
+        System.err.printf("sec throttled → rate=%.2f req/s, queue=%d%n", rate, queueDepth());
+    }
+
+    public double currentRate() {
+        return Double.longBitsToDouble(rateBits.get());
+    }
+
+    /** 슬롯을 기다리는 요청 수 */
+    public int queueDepth() {
+        return waiting.get();
+    }
+
+    /** 슬롯을 받아 나간 요청 수(기다리다 취소된 것은 제외) */
+    public long granted() {
+        return granted.get();
+    }
+
+    private double updateRate(DoubleUnaryOperator f) {
+        while (true) {
+            long bits = rateBits.get();
+            double next = f.applyAsDouble(Double.longBitsToDouble(bits));
+            if (rateBits.compareAndSet(bits, Double.doubleToLongBits(next))) return next;
+        }
+    }
+}
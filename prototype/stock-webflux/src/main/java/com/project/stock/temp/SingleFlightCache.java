@@ -0,0 +1,145 @@
+package com.project.stock.temp;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 키별 single-flight + TTL 캐시
+ * - 같은 키로 동시에 들어온 요청은 진행 중인 계산 하나를 같이 구독(계산은 키당 한 번)
+ * - 값이 나오면 ttl(value) 동안 그 값을 그대로 돌려준다. ttl 이 0 이면 저장하지 않음(실패성 결과)
+ * - 오류/빈 결과는 저장하지 않는다(기다리던 구독자에게만 전달, 다음 요청은 새로 계산)
+ * - 계산 수명은 호출 쪽이 고른다: detach 로 들어온 구독자가 하나라도 있으면 모두 취소해도 끝까지 계산해 저장하고
+ *   (다음 조회가 이득), 아니면 기다리는 구독자가 모두 취소될 때 계산도 취소하고 항목을 버린다
+ * 크기가 maxEntries 를 넘으면 만료된 항목부터 치우고, 그래도 넘으면 새 값은 저장하지 않는다
+ */
+public final class SingleFlightCache<K, V> {
+
+    private final ConcurrentHashMap<K, Entry> entries = new ConcurrentHashMap<>();
+    private final Function<V, Duration> ttl;
+    private final int maxEntries;
+    private final LongSupplier clockMillis;
+
+    public SingleFlightCache(Function<V, Duration> ttl, int maxEntries) {
+        this(ttl, maxEntries, System::currentTimeMillis);
+    }
+
+    SingleFlightCache(Function<V, Duration> ttl, int maxEntries, LongSupplier clockMillis) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.clockMillis = clockMillis;
+    }
+
+    /** 진행 중이거나 저장된 계산 하나. 결과는 Sinks.One 으로 늦게 붙은 구독자에게도 전달 */
+    private final class Entry {
+        final K key;
+        final Sinks.One<V> result = Sinks.one();
+        /** 값이 나오기 전(계산 중)에는 Long.MAX_VALUE */
+        volatile long expiresAt = Long.MAX_VALUE;
+
+        // 모두 this 로 보호
+        private int waiting;
+        private boolean detached, finished, cancelled;
+        private Disposable running;
+
+        Entry(K key) {
+            this.key = key;
+        }
+
+        void start(Supplier<Mono<V>> loader) {
+            Disposable d = Mono.defer(loader)
+                    .doOnSuccess(this::succeed)
+                    .doOnError(this::fail)
+                    .subscribe(v -> {}, e -> {});
+            boolean cancel;
+            synchronized (this) {
+                running = d;
+                cancel = cancelled;
+            }
+            if (cancel) d.dispose();
+        }
+
+        /** 취소된 항목이면 false(맵에서 이미 빠졌으므로 새로 찾는다) */
+        synchronized boolean join(boolean detach) {
+            if (cancelled) return false;
+            waiting++;
+            if (detach) detached = true;
+            return true;
+        }
+
+        void leave() {
+            Disposable d;
+            synchronized (this) {
+                if (--waiting > 0 || detached || finished) return;
+                cancelled = true;
+                d = running;
+                entries.remove(key, this);   // 취소 표시와 함께 빼야 새 구독자가 이 항목을 다시 찾지 않는다
+            }
+            if (d != null) d.dispose();
+        }
+
+        private void succeed(V v) {
+            synchronized (this) {
+                finished = true;
+            }
+            Duration life = v == null ? Duration.ZERO : ttl.apply(v);
+            if (life.isZero() || life.isNegative() || entries.size() > maxEntries) entries.remove(key, this);
+            else expiresAt = clockMillis.getAsLong() + life.toMillis();
+            if (v == null) result.tryEmitEmpty();
+            else result.tryEmitValue(v);
+        }
+
+        private void fail(Throwable e) {
+            synchronized (this) {
+                finished = true;
+            }
+            entries.remove(key, this);
+            result.tryEmitError(e);
+        }
+    }
+
+    /** 구독자가 모두 취소해도 계산을 끝까지(단건 조회: 결과를 다음 조회에 쓴다) */
+    public Mono<V> get(K key, Supplier<Mono<V>> loader) {
+        return get(key, loader, true);
+    }
+
+    /**
+     * @param detach false 면 이 구독자는 계산을 붙잡지 않는다(스크린: 연결이 끊기면 남은 계산도 취소).
+     *               같은 키에 detach 구독자가 따로 있으면 그쪽을 위해 계산은 계속된다
+     */
+    public Mono<V> get(K key, Supplier<Mono<V>> loader, boolean detach) {
+        return Mono.defer(() -> {
+            while (true) {
+                Entry entry = entryFor(key, loader);
+                if (entry.join(detach)) return entry.result.asMono().doOnCancel(entry::leave);
+            }
+        });
+    }
+
+    private Entry entryFor(K key, Supplier<Mono<V>> loader) {
+        Entry current = entries.get(key);
+        if (current != null && current.expiresAt > clockMillis.getAsLong()) return current;
+        Entry created = new Entry(key);
+        Entry entry = entries.compute(key, (k, old) -> old != null && old.expiresAt > clockMillis.getAsLong() ? old : created);
+        if (entry == created) {
+            if (entries.size() > maxEntries) purgeExpired();
+            created.start(loader);
+        }
+        return entry;
+    }
+
+    private void purgeExpired() {
+        long now = clockMillis.getAsLong();
+        entries.values().removeIf(e -> e.expiresAt <= now);
+    }
+
+    int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,36 @@
+package com.project.stock.temp;
+
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * 매치를 SSE 이벤트(event: match, data: JSON 한 줄)로 중계. 스크린이 끝나면 event: done 후 완료
+ * 구독자가 늦게 붙어도 놓치지 않도록 구독 전 이벤트는 버퍼에 둔다(단일 구독자)
+ */
+public final class SseScreenSink implements ScreenSink {
+
+    private final Sinks.Many<ServerSentEvent<String>> events = Sinks.many().unicast().onBackpressureBuffer();
+
+    @Override
+    public void emit(ScreenMatch match) {
+        events.emitNext(ServerSentEvent.<String>builder(match.toJson()).event("match").id(match.ticker()).build(),
+                Sinks.EmitFailureHandler.FAIL_FAST);
+    }
+
+    @Override
+    public void close() {
+        events.emitNext(ServerSentEvent.<String>builder("").event("done").build(), Sinks.EmitFailureHandler.FAIL_FAST);
+        events.emitComplete(Sinks.EmitFailureHandler.FAIL_FAST);
+    }
+
+    Flux<ServerSentEvent<String>> events() {
+        return events.asFlux();
+    }
+
+    /** 매치를 이 sink 로 흘리면서 이벤트를 내보낸다. 구독을 취소하면 스크린도 취소 */
+    public Flux<ServerSentEvent<String>> stream(Flux<ScreenMatch> matches) {
+        return Flux.merge(events(), StockMetricsFetcher.runScreen(matches, this).then(Mono.empty()));
+    }
+}
@@ -1,43 +1,182 @@
 package com.project.stock.temp;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.project.stock.repository.QuarterMetricsRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpHeaders;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
-import java.time.temporal.ChronoUnit;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
-import java.time.Instant;
 import java.time.LocalDate;
-import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.*;
-
-import static java.time.temporal.ChronoUnit.DAYS;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * WebFlux 원시 구현(SEC + 가격 소스 다중 폴백)
- * - SEC company_tickers.json → Ticker/CIK
+ * - SEC company_tickers.json → Ticker/CIK (TickerIndex: 정렬 배열 + int CIK, 바이너리 스냅숏으로 하루 재사용)
  * - companyconcept 1차, companyfacts 2차로 개념 로딩 안정화
- * - Duration(YTD 포함) → 분기화(quarterize): Q2=Q2YTD−Q1YTD, Q3=Q3YTD−Q2YTD, Q4=FY−Q3YTD
+ *   · CIK·개념별로 팩트가 나온 태그를 기억(TagAffinity) → 다음부터 그 태그 하나만 요청, 비거나 오래됐을 때만 전체 탐색
+ *   · 전체 탐색은 후보 태그를 동시에 요청하고 우선순위 순으로 합침(낮은 순위는 취소). 종목당 동시 요청은 모든 개념 합쳐 TAG_FANOUT 개
+ *   · companyfacts 문서는 CIK별로 한 번만 받아서 모든 개념 로더가 공유(종목 계산 종료 시 해제)
+ *   · companyfacts 는 async 파서로 스트리밍하며 필요한 namespace/tag 팩트만 남긴다
+ * - 팩트는 열 단위 primitive 배열(ConceptFacts)로 보관
+ * - Duration(YTD 포함) → 분기화(Quarterizer): Q2=Q2YTD−Q1YTD, Q3=Q3YTD−Q2YTD, Q4=FY−Q3YTD
  *   · 이전 YTD가 없는 차분은 **금지**(잘못된 큰 수 방지)
+ * - 디코드/분기화 같은 CPU 작업은 COMPUTE 스케줄러에서(Netty 이벤트 루프를 붙잡지 않음),
+ *   블로킹 I/O(디스크 캐시/아카이브/저널)는 boundedElastic 에서. gradle blockHoundTest 로 검사
  * - EPS 결측 시 NetIncome / WeightedAvgDilutedShares 보정
  * - Equity/Outstanding(instant)은 분기말 **floorEntry** 사용
- * - 가격: Stooq 일봉→주봉→월봉 폴백 + 실패 시 Yahoo Chart JSON 폴백
+ * - 가격: Stooq 일봉→주봉→월봉→Yahoo Chart JSON 순서로 헤지 요청(앞 소스가 p95 지연을 넘기거나 비면 다음 소스 시작,
+ *   먼저 온 유효 시리즈 채택, 나머지 취소)
+ * - 모든 GET은 디스크 캐시(HttpDiskCache) 경유: TTL 내 재사용, 만료 시 ETag/Last-Modified 조건부 재검증
+ * - SEC 요청은 전역 토큰 버킷(SecRateLimiter)으로 10 req/s 바로 아래에 맞춤, 429 시 전역 감속
+ * - 업스트림(SEC/Stooq/Yahoo)별 서킷 브레이커: 실패율이 높으면 열려서 즉시 실패(캐시가 있으면 오래된 본문),
+ *   30초마다 탐침 한 건으로 회복 확인. 가격 소스는 최근 건강 순으로 재정렬해 헤지
+ * - Micrometer 계측(FetcherMetrics, fetcher.*): 요청 지연/바이트/파싱/재시도/상태/캐시/종목 진행률
+ * - 계산 결과 저장: quarter_metrics(QuarterMetricsStore, 배치 upsert). CLI 는 --db=r2dbc URL 일 때
+ * - API 노출은 service.ScreeningService(/api/metrics/{ticker}, POST /api/screens SSE): 종목별 single-flight + TTL 캐시
+ * - 벌크 모드: 로컬 companyfacts.zip(CompanyFactsArchive)에서 SEC 팩트를 읽어 SEC 쪽 네트워크 호출 없이 계산
+ * - 전 종목 횡단면: frames API(개념 × 분기 × 전 filer)로 매출/영업이익/EPS 분기 시리즈를 수십 번 요청으로 구성,
+ *   frames 에 없는 filer 만 종목별 호출로 폴백
+ * - 단계 평가(computeMetricsStaged): 스크린 조건 순서대로 매출 → 영업이익 → 나머지(가격/재무상태) 로딩, 탈락 즉시 중단
+ * - 스트리밍 스크린(screenStream/runScreen): 종목별로 끝나는 즉시 판정해 sink(stdout/NDJSON/SSE)로 내보내고 버림
+ * - 실행 저널(RunJournal): 종목별 결과를 기록해 재시작 시 끝난 종목은 건너뛰고, 실패 종목만 재시도 가능
+ * - 룰 스크린(ScreenRules): 파일의 여러 스크린을 한 번 받아 둔 데이터셋(MetricsTable) 위에서 열 단위로 한 번에 평가
  */
 public class StockMetricsFetcher {
 
+    static final String SEC_DATA_BASE = "https://data.sec.gov";
+    static final String SEC_TICKERS_URL = "https://www.sec.gov/files/company_tickers.json";
+
+    /**
+     * CPU 작업(가격/티커 디코드, frames 누적, 분기화·정렬) 전용 스케줄러. 응답은 Netty 이벤트 루프에서 도착하므로
+     * 그 자리에서 map 으로 돌리면 같은 루프의 다른 요청 I/O 가 파싱 동안 멈춘다 → publishOn(COMPUTE) 뒤에서 처리.
+     * 코어 수만큼 고정(블로킹 I/O 는 boundedElastic). 스레드는 NonBlocking 표식이 없는 일반 데몬 스레드라
+     * BlockHound 검사(gradle blockHoundTest)에서 긴 CPU 작업이 허용되는 유일한 비-I/O 스레드다
+     */
+    static final Scheduler COMPUTE = Schedulers.newParallel(Math.max(2, Runtime.getRuntime().availableProcessors()),
+            computeThreads());
+
+    private static ThreadFactory computeThreads() {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "fetcher-compute-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
     private final WebClient webClient;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpDiskCache diskCache;
+    private final SecRateLimiter secLimiter;
+    /** null 이 아니면 SEC 팩트를 네트워크 대신 이 아카이브에서 읽는다 */
+    private final CompanyFactsArchive archive;
+    /** data.sec.gov 기준 주소(테스트에서 로컬 대역 서버로 교체) */
+    private final String secDataBase;
+    /** company_tickers.json 주소(www.sec.gov, 테스트에서는 secDataBase 아래) */
+    private final String tickersUrl;
+
+    /** 가격 소스별 지연 분포(헤지 시점 결정). 키 순서 = 소스 우선순위 */
+    private final Map<String, LatencyHistogram> priceLatency = new LinkedHashMap<>();
+
+    /** 업스트림별 서킷 브레이커(UPSTREAMS 순서). 네트워크 요청에만 걸리고 디스크 캐시 적중은 무관 */
+    private final Map<String, CircuitBreaker> breakers = new LinkedHashMap<>();
+
+    private final FetcherMetrics metrics;
+
+    /** 종목 단위 크롤링(전 종목 평가, frames 폴백, 벌크 가격, API 룰 스크린)의 동시 종목 수(지연·429/5xx 로 조절) */
+    private final AdaptiveLimiter concurrency = new AdaptiveLimiter();
+
+    /** 종목 하나의 companyconcept 동시 요청 수(모든 개념 로더 합산, TagSlots) */
+    private volatile int tagFanout = TAG_FANOUT;
+
+    /** CIK·개념별로 팩트가 나온 태그(다음 실행에서 그 태그부터). 디스크 캐시 디렉터리에 저장 */
+    private final TagAffinity tagAffinity;
+
+    /** CIK → 진행 중인 companyfacts 문서(single-flight)와 companyconcept 슬롯. computeMetricsSeries 구독 동안만 유지 */
+    private final ConcurrentHashMap<String, SharedCompanyFacts> companyFactsByCik = new ConcurrentHashMap<>();
 
     public StockMetricsFetcher() {
+        this(HttpDiskCache.defaultCache());
+    }
+
+    public StockMetricsFetcher(HttpDiskCache diskCache) {
+        this(diskCache, null);
+    }
+
+    public StockMetricsFetcher(HttpDiskCache diskCache, CompanyFactsArchive archive) {
+        this(diskCache, archive, new SimpleMeterRegistry());
+    }
+
+    /** 애플리케이션에서는 actuator 의 레지스트리를 넘겨 /actuator/metrics 로 노출 */
+    public StockMetricsFetcher(HttpDiskCache diskCache, CompanyFactsArchive archive, MeterRegistry registry) {
+        this(diskCache, archive, SEC_DATA_BASE, registry);
+    }
+
+    StockMetricsFetcher(HttpDiskCache diskCache, CompanyFactsArchive archive, String secDataBase) {
+        this(diskCache, archive, secDataBase, new SimpleMeterRegistry());
+    }
+
+    StockMetricsFetcher(HttpDiskCache diskCache, CompanyFactsArchive archive, String secDataBase, MeterRegistry registry) {
+        this(diskCache, archive, secDataBase, registry, SecRateLimiter.shared());
+    }
+
+    /** 테스트는 대역 서버마다 따로 버킷을 둔다(공용 버킷의 9.5 req/s 를 테스트끼리 나눠 쓰지 않게) */
+    StockMetricsFetcher(HttpDiskCache diskCache, CompanyFactsArchive archive, String secDataBase, MeterRegistry registry,
+                        SecRateLimiter secLimiter) {
+        this.diskCache = diskCache;
+        this.secLimiter = secLimiter;
+        this.archive = archive;
+        this.secDataBase = secDataBase;
+        this.tickersUrl = SEC_DATA_BASE.equals(secDataBase) ? SEC_TICKERS_URL : secDataBase + "/files/company_tickers.json";
+        for (String source : PRICE_SOURCES) priceLatency.put(source, new LatencyHistogram());
+        for (String upstream : UPSTREAMS) breakers.put(upstream, new CircuitBreaker(upstream));
+        this.metrics = new FetcherMetrics(registry, UPSTREAMS);
+        this.tagAffinity = TagAffinity.open(diskCache.dir().resolve(TagAffinity.FILE_NAME));
+        for (CircuitBreaker b : breakers.values()) {
+            Gauge.builder("fetcher.circuit.state", b, cb -> cb.state().ordinal()).tag("upstream", b.name())
+                    .description("0=closed, 1=open, 2=half-open").register(registry);
+        }
+        Gauge.builder("fetcher.sec.rate", secLimiter, SecRateLimiter::currentRate).baseUnit("requests/s").register(registry);
+        Gauge.builder("fetcher.sec.queued", secLimiter, SecRateLimiter::queueDepth)
+                .description("requests waiting for an SEC rate-limit slot").register(registry);
+        Gauge.builder("fetcher.concurrency.limit", concurrency, AdaptiveLimiter::limit)
+                .description("adaptive limit on tickers evaluated at once").register(registry);
+        Gauge.builder("fetcher.concurrency.queued", concurrency, AdaptiveLimiter::queued).register(registry);
+        Gauge.builder("fetcher.companyfacts.shared", companyFactsByCik, Map::size)
+                .description("CIKs with a companyfacts document held for in-flight computations").register(registry);
         ExchangeStrategies strategies = ExchangeStrategies.builder()
-                .codecs(c -> c.defaultCodecs().maxInMemorySize(25 * 1024 * 1024)) // 25MB
+                // companyfacts 는 스트리밍으로 읽으므로 통째 버퍼링은 companyconcept/가격 응답 크기면 충분
+                .codecs(c -> c.defaultCodecs().maxInMemorySize(8 * 1024 * 1024)) // 8MB
                 .build();
 
         this.webClient = WebClient.builder()
@@ -48,129 +187,566 @@ public class StockMetricsFetcher {
                 .build();
     }
 
-    private NavigableMap<LocalDate, Double> byEndDate(Map<QKey, Map.Entry<LocalDate, Double>> m) {
-        NavigableMap<LocalDate, Double> r = new TreeMap<>();
-        for (var e : m.entrySet()) {
-            LocalDate d = e.getValue().getKey();
-            double v = e.getValue().getValue();
-            // 같은 end 날짜에 여러 태그가 들어오면 가장 최근(그대로)로 덮어씀
-            r.put(d, v);
-        }
-        return r;
+    // ========================= 기본 로딩 =========================
+
+    /** 티커 인덱스 스냅숏 파일명(디스크 캐시 디렉터리) */
+    static final String TICKER_SNAPSHOT = "company-tickers.idx";
+
+    /** SEC 순서의 (티커, 10자리 CIK). 인덱스를 그대로 쓸 수 있으면 tickerIndex() 를 쓸 것 */
+    public Mono<List<Map.Entry<String, String>>> fetchTickerList() {
+        return tickerIndex().map(TickerIndex::entries);
     }
 
-    /** end 날짜가 정확히 일치하지 않아도 ±10일 내에서 가장 가까운 값을 사용 */
-    private static double getNear(NavigableMap<LocalDate, Double> s, LocalDate date, int windowDays) {
-        if (s == null || s.isEmpty()) return Double.NaN;
-        Map.Entry<LocalDate, Double> f = s.floorEntry(date);
-        Map.Entry<LocalDate, Double> c = s.ceilingEntry(date);
+    /**
+     * 티커 → CIK 인덱스. 바이너리 스냅숏이 TTL(SEC_TICKERS_TTL) 안이면 JSON 없이 바로 적재하고,
+     * 지났으면 company_tickers.json 을 (디스크 캐시 경유로) 받아 다시 만들어 스냅숏을 교체.
+     * 받기/파싱이 실패하면 오래된 스냅숏이라도 사용(stale-if-error), 그것도 없으면 빈 인덱스
+     */
+    public Mono<TickerIndex> tickerIndex() {
+        Path snapshot = diskCache.dir().resolve(TICKER_SNAPSHOT);
+        return Mono.fromCallable(() -> Optional.ofNullable(readTickerSnapshot(snapshot)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(saved -> {
+                    TickerIndex old = saved.orElse(null);
+                    if (old != null && !old.isEmpty()
+                            && System.currentTimeMillis() - old.builtAtMillis() < HttpDiskCache.SEC_TICKERS_TTL.toMillis()) {
+                        return Mono.just(old);
+                    }
+                    return cachedGet(tickersUrl, null, secRetry())
+                            .publishOn(COMPUTE)
+                            .map(body -> metrics.parse("tickers", () -> parseTickers(body)))
+                            .filter(index -> !index.isEmpty())
+                            .switchIfEmpty(Mono.error(() -> new IOException("company_tickers: no tickers")))
+                            .flatMap(index -> Mono.fromCallable(() -> writeTickerSnapshot(index, snapshot))
+                                    .subscribeOn(Schedulers.boundedElastic()))
+                            .onErrorResume(e -> {
+                                System.err.println("ticker list error: " + e.getMessage());
+                                return Mono.just(old != null ? old : TickerIndex.EMPTY);
+                            });
+                });
+    }
 
-        double best = Double.NaN;
-        long bestDiff = Long.MAX_VALUE;
+    private static TickerIndex parseTickers(byte[] json) {
+        try {
+            return TickerIndex.parse(json, System.currentTimeMillis());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("ticker json parse error: " + e.getMessage());
+            return TickerIndex.EMPTY;
+        }
+    }
 
-        if (f != null) {
-            long diff = Math.abs(DAYS.between(f.getKey(), date));
-            if (diff <= windowDays && diff < bestDiff) { best = f.getValue(); bestDiff = diff; }
+    private static TickerIndex readTickerSnapshot(Path file) {
+        try {
+            return TickerIndex.read(file);
+        } catch (IOException e) {
+            return null;   // 읽을 수 없으면 다시 받음
         }
-        if (c != null) {
-            long diff = Math.abs(DAYS.between(c.getKey(), date));
-            if (diff <= windowDays && diff < bestDiff) { best = c.getValue(); bestDiff = diff; }
+    }
+
+    private static TickerIndex writeTickerSnapshot(TickerIndex index, Path file) {
+        try {
+            index.write(file);
+        } catch (IOException e) {
+            System.err.println("ticker snapshot write error: " + e.getMessage());
         }
-        return best;
+        return index;
     }
 
+    private static Retry secRetry() {
+        return Retry.backoff(2, Duration.ofMillis(600)).jitter(0.5)
+                .filter(e -> e instanceof WebClientResponseException w &&
+                        (w.getStatusCode().value()==429 || w.getStatusCode().value()==403 || w.getStatusCode().value()==503));
+    }
 
-    // ========================= 기본 로딩 =========================
+    // ========================= 디스크 캐시 경유 GET =========================
 
-    public Mono<List<Map.Entry<String, String>>> fetchTickerList() {
-        String url = "https://www.sec.gov/files/company_tickers.json";
-        return webClient.get().uri(url).retrieve().bodyToMono(String.class)
-                .map(json -> {
-                    try {
-                        Map<String, Map<String, Object>> map =
-                                mapper.readValue(json, new TypeReference<>() {
-                                });
-                        List<Map.Entry<String, String>> list = new ArrayList<>();
-                        for (Map<String, Object> record : map.values()) {
-                            String ticker = String.valueOf(record.get("ticker"));
-                            Number cikNum = (Number) record.get("cik_str");
-                            String cik = String.format("%010d", cikNum.intValue());
-                            list.add(new AbstractMap.SimpleEntry<>(ticker.toUpperCase(Locale.ROOT), cik));
-                        }
-                        return list;
-                    } catch (Exception e) {
-                        System.err.println("ticker json parse error: " + e.getMessage());
-                        return Collections.emptyList();
-                    }
+    /**
+     * 캐시가 TTL 안이면 디스크 본문을 그대로 반환(네트워크/지연 없음).
+     * 만료됐으면 저장된 validator로 조건부 요청 → 304면 캐시 본문 재사용, 200/404면 새로 저장.
+     * 재검증이 실패하면 오래된 본문이라도 반환(stale-if-error).
+     */
+    private Mono<byte[]> cachedGet(String url, String accept, Retry retry) {
+        return cachedGet(url, accept, retry, body -> false);
+    }
+
+    /**
+     * @param errorPage 200 이지만 실제로는 오류 페이지인 본문(예: Stooq 의 HTML 차단 페이지).
+     *                  저장하지 않고 실패로 처리해 재시도/브레이커에 반영한다
+     */
+    private Mono<byte[]> cachedGet(String url, String accept, Retry retry, Predicate<byte[]> errorPage) {
+        return Mono.fromCallable(() -> Optional.ofNullable(diskCache.lookup(url)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(cached -> {
+                    HttpDiskCache.Entry entry = cached.orElse(null);
+                    if (entry != null && diskCache.isFresh(entry)) return cacheHit(url, readCached(entry));
+
+                    Mono<byte[]> network = guarded(url,
+                            throttled(url, attempts(url, () -> conditionalGet(url, accept, entry, errorPage))).retryWhen(retry));
+                    return entry == null ? network : network.onErrorResume(e -> cacheStale(url, readCached(entry)));
                 });
     }
 
-    private Mono<String> getWithRetry(String url) {
-        return webClient.get().uri(url)
+    private Mono<byte[]> conditionalGet(String url, String accept, HttpDiskCache.Entry entry, Predicate<byte[]> errorPage) {
+        String upstream = upstreamOf(url), endpoint = endpointOf(url);
+        return metrics.exchange(upstream, endpoint, webClient.get().uri(url)
+                .headers(h -> {
+                    if (accept != null) h.set(HttpHeaders.ACCEPT, accept);
+                    if (entry != null && entry.etag != null) h.setIfNoneMatch(entry.etag);
+                    if (entry != null && entry.lastModified != null) h.set(HttpHeaders.IF_MODIFIED_SINCE, entry.lastModified);
+                })
                 .exchangeToMono(resp -> {
                     int s = resp.statusCode().value();
-                    if (s == 404) return Mono.just("");             // 404는 빈 응답으로 처리
-                    if (s >= 200 && s < 300) return resp.bodyToMono(String.class);
+                    observeStatus(url, s);
+                    String etag = resp.headers().asHttpHeaders().getETag();
+                    String lastModified = resp.headers().asHttpHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+                    if (s == 304 && entry != null) {
+                        metrics.cache(upstream, "revalidated");
+                        return resp.releaseBody().then(Mono.fromCallable(() -> {
+                            diskCache.touch(entry, etag, lastModified);
+                            return diskCache.read(entry);
+                        }).subscribeOn(Schedulers.boundedElastic()));
+                    }
+                    if (s == 404) { // 404는 빈 응답으로 처리(없는 태그 재요청 방지 위해 캐시)
+                        metrics.cache(upstream, "miss");
+                        return resp.releaseBody().then(store(url, 404, null, null, new byte[0]));
+                    }
+                    if (s >= 200 && s < 300) {
+                        return resp.bodyToMono(byte[].class)
+                                .defaultIfEmpty(new byte[0])
+                                .doOnNext(body -> metrics.downloaded(upstream, endpoint, body.length))
+                                .flatMap(body -> {
+                                    if (errorPage.test(body)) return Mono.error(new IllegalStateException("error page instead of data: " + url));
+                                    metrics.cache(upstream, "miss");
+                                    return store(url, s, etag, lastModified, body);
+                                });
+                    }
                     return resp.createException().flatMap(Mono::error);
-                })
-                .retryWhen(
-                        Retry.backoff(2, Duration.ofMillis(600)).jitter(0.5)
-                                .filter(e -> e instanceof WebClientResponseException w &&
-                                        (w.getStatusCode().value()==429 || w.getStatusCode().value()==403 || w.getStatusCode().value()==503))
-                )
-                .delayElement(Duration.ofMillis(150));
+                }));
+    }
+
+    /**
+     * SEC 요청은 전역 버킷에서 슬롯을 받은 뒤 나간다(재시도도 다시 슬롯을 받음).
+     * 그 외(가격 소스)는 기존처럼 응답 후 150ms 지연
+     */
+    private <T> Mono<T> throttled(String url, Mono<T> request) {
+        if (isSec(url)) return secLimiter.acquire().then(request);
+        return request.delayElement(Duration.ofMillis(150));
+    }
+
+    /** 설정된 SEC 주소(secDataBase, company_tickers) 아래 요청인지. 대역 서버 주소도 그대로 SEC 로 본다 */
+    private boolean isSec(String url) {
+        return url.startsWith(secDataBase) || url.equals(tickersUrl);
+    }
+
+    /** 응답 상태 집계 + SEC 응답 상태를 버킷 속도 조절(AIMD)에 반영 */
+    private void observeStatus(String url, int status) {
+        metrics.response(upstreamOf(url), status);
+        if (status == 429 || status >= 500 || status == 403 && isSec(url)) concurrency.onOverload();
+        if (!isSec(url)) return;
+        if (status == 429 || status == 403) secLimiter.onThrottled();
+        else if (status < 400) secLimiter.onSuccess();
+    }
+
+    static final List<String> UPSTREAMS = List.of("sec", "stooq", "yahoo");
+
+    private String upstreamOf(String url) {
+        if (url.contains("stooq.com")) return "stooq";
+        if (url.contains("yahoo.com")) return "yahoo";
+        return "sec";   // sec.gov 및 테스트용 secDataBase
+    }
+
+    /** 요청 종류(지표 태그) */
+    static String endpointOf(String url) {
+        if (url.contains("/companyfacts/")) return "companyfacts";
+        if (url.contains("/companyconcept/")) return "companyconcept";
+        if (url.contains("/frames/")) return "frames";
+        if (url.contains("company_tickers")) return "tickers";
+        if (url.contains("stooq.com")) return "csv";
+        if (url.contains("/chart/")) return "chart";
+        return "other";
+    }
+
+    /** 재시도마다 새로 구독되는 요청. 두 번째 구독부터 재시도로 센다 */
+    private <T> Mono<T> attempts(String url, Supplier<Mono<T>> request) {
+        AtomicInteger attempt = new AtomicInteger();
+        return Mono.defer(() -> {
+            if (attempt.getAndIncrement() > 0) metrics.retry(upstreamOf(url), endpointOf(url));
+            return request.get();
+        });
     }
 
-    private Mono<List<JsonNode>> fetchSecConceptSafe(String cik, String taxonomy, String tag) {
-        String url = String.format("https://data.sec.gov/api/xbrl/companyconcept/CIK%s/%s/%s.json", cik, taxonomy, tag);
-        return getWithRetry(url)
-                .map(json -> {
+    private <T> Mono<T> cacheHit(String url, Mono<T> cached) {
+        return cached.doOnSubscribe(s -> metrics.cache(upstreamOf(url), "fresh"));
+    }
+
+    private <T> Mono<T> cacheStale(String url, Mono<T> cached) {
+        return cached.doOnSubscribe(s -> metrics.cache(upstreamOf(url), "stale"));
+    }
+
+    /** 재시도까지 포함한 네트워크 요청 한 건 = 브레이커 결과 한 건 */
+    private <T> Mono<T> guarded(String url, Mono<T> request) {
+        return breakers.get(upstreamOf(url)).guard(request, StockMetricsFetcher::isUpstreamFailure);
+    }
+
+    /**
+     * 소스 건강 문제로 볼 오류: 5xx, 429/403(차단·요청 과다), 연결/타임아웃, 오류 페이지.
+     * 그 밖의 4xx 와 본문 파싱 오류는 요청/데이터 문제라 세지 않는다
+     */
+    static boolean isUpstreamFailure(Throwable e) {
+        if (e instanceof WebClientResponseException w) {
+            int s = w.getStatusCode().value();
+            return s >= 500 || s == 429 || s == 403;
+        }
+        return !(e instanceof JsonProcessingException);
+    }
+
+    /** 계측(액추에이터 fetcher 엔드포인트용) */
+    FetcherMetrics metrics() {
+        return metrics;
+    }
+
+    /** 업스트림별 서킷 브레이커(모니터링용) */
+    Map<String, CircuitBreaker> circuitBreakers() {
+        return Collections.unmodifiableMap(breakers);
+    }
+
+    AdaptiveLimiter concurrencyLimiter() {
+        return concurrency;
+    }
+
+    TagAffinity tagAffinity() {
+        return tagAffinity;
+    }
+
+    /** 현재 SEC 요청 속도/대기열(모니터링용) */
+    public SecRateLimiter secRateLimiter() {
+        return secLimiter;
+    }
+
+    private Mono<byte[]> readCached(HttpDiskCache.Entry entry) {
+        return Mono.fromCallable(() -> diskCache.read(entry))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /** 저장 실패는 응답 자체를 실패시키지 않는다 */
+    private Mono<byte[]> store(String url, int status, String etag, String lastModified, byte[] body) {
+        return Mono.fromCallable(() -> {
                     try {
-                        JsonNode root = mapper.readTree(json);
-                        JsonNode units = root.path("units");
-                        if (units.isMissingNode()) return Collections.<JsonNode>emptyList();
-                        List<JsonNode> facts = new ArrayList<>();
-                        units.fields().forEachRemaining(e -> {
-                            JsonNode arr = e.getValue();
-                            if (arr.isArray()) arr.forEach(facts::add);
-                        });
-                        return facts;
+                        diskCache.store(url, status, etag, lastModified, body);
                     } catch (Exception e) {
-                        System.err.println("concept parse error: " + e.getMessage());
-                        return Collections.<JsonNode>emptyList();
+                        System.err.println("cache store error: " + e.getMessage());
                     }
+                    return body;
                 })
-                .onErrorResume(e -> Mono.just(Collections.<JsonNode>emptyList()));
+                .subscribeOn(Schedulers.boundedElastic());
     }
 
-    /** companyfacts 전체에서 원하는 태그를 첫 성공으로 가져오기 */
-    private Mono<List<JsonNode>> fetchFromCompanyFacts(String cik, String namespace, List<String> tags) {
-        String url = String.format("https://data.sec.gov/api/xbrl/companyfacts/CIK%s.json", cik);
-        return getWithRetry(url)
-                .map(json -> {
-                    try {
-                        JsonNode root = mapper.readTree(json);
-                        JsonNode facts = root.path("facts").path(namespace);
-                        if (facts.isMissingNode()) return Collections.<JsonNode>emptyList();
-                        for (String tag : tags) {
-                            JsonNode tagNode = facts.path(tag);
-                            if (tagNode.isMissingNode()) continue;
-                            JsonNode units = tagNode.path("units");
-                            if (units.isMissingNode()) continue;
-                            List<JsonNode> out = new ArrayList<>();
-                            units.fields().forEachRemaining(e -> {
-                                JsonNode arr = e.getValue();
-                                if (arr.isArray()) arr.forEach(out::add);
-                            });
-                            if (!out.isEmpty()) return out;
+    private Mono<ConceptFacts> fetchSecConceptSafe(String cik, String taxonomy, String tag) {
+        String url = String.format("%s/api/xbrl/companyconcept/CIK%s/%s/%s.json", secDataBase, cik, taxonomy, tag);
+        Mono<ConceptFacts> request = cachedGetStreaming(url, secRetry(), () -> new ConceptFactsParser(taxonomy))
+                .onErrorResume(e -> {
+                    if (e instanceof JsonProcessingException) System.err.println("concept parse error: " + e.getMessage());
+                    return FetchProblems.report(url, e, ConceptFacts.EMPTY);
+                });
+        // 같은 종목의 개념 로더 전부가 한 슬롯 묶음을 나눠 쓴다(종목 계산 밖 단독 호출은 제한 없이)
+        return Mono.defer(() -> {
+            SharedCompanyFacts shared = companyFactsByCik.get(cik);
+            return shared != null ? shared.tagSlots.run(request) : request;
+        });
+    }
+
+    /**
+     * cachedGet 의 스트리밍 버전: 본문을 byte[]로 모으지 않고 청크 단위로 parser 에 먹인다.
+     * 네트워크 응답은 받는 즉시 디스크 캐시에도 흘려 쓴다(tee). 재시도마다 parser 를 새로 만든다.
+     */
+    private <R> Mono<R> cachedGetStreaming(String url, Retry retry, Supplier<StreamingBodyParser<R>> parsers) {
+        return Mono.fromCallable(() -> Optional.ofNullable(diskCache.lookup(url)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(cached -> {
+                    HttpDiskCache.Entry entry = cached.orElse(null);
+                    if (entry != null && diskCache.isFresh(entry)) return cacheHit(url, parseCached(url, entry, parsers.get()));
+
+                    Mono<R> network = guarded(url,
+                            throttled(url, attempts(url, () -> conditionalStream(url, entry, parsers.get()))).retryWhen(retry));
+                    return entry == null ? network : network.onErrorResume(e -> cacheStale(url, parseCached(url, entry, parsers.get())));
+                });
+    }
+
+    private <R> Mono<R> conditionalStream(String url, HttpDiskCache.Entry entry, StreamingBodyParser<R> parser) {
+        String upstream = upstreamOf(url);
+        return metrics.exchange(upstream, endpointOf(url), webClient.get().uri(url)
+                .headers(h -> {
+                    if (entry != null && entry.etag != null) h.setIfNoneMatch(entry.etag);
+                    if (entry != null && entry.lastModified != null) h.set(HttpHeaders.IF_MODIFIED_SINCE, entry.lastModified);
+                })
+                .exchangeToMono(resp -> {
+                    int s = resp.statusCode().value();
+                    observeStatus(url, s);
+                    String etag = resp.headers().asHttpHeaders().getETag();
+                    String lastModified = resp.headers().asHttpHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+                    if (s == 304 && entry != null) {
+                        metrics.cache(upstream, "revalidated");
+                        return resp.releaseBody()
+                                .then(Mono.fromCallable(() -> diskCache.touch(entry, etag, lastModified))
+                                        .subscribeOn(Schedulers.boundedElastic()))
+                                .flatMap(touched -> parseCached(url, touched, parser));
+                    }
+                    if (s == 404 || s >= 200 && s < 300) metrics.cache(upstream, "miss");
+                    if (s == 404) {
+                        return resp.releaseBody()
+                                .then(store(url, 404, null, null, new byte[0]))
+                                .then(Mono.fromCallable(parser::finish));
+                    }
+                    if (s >= 200 && s < 300) {
+                        return teeToCache(url, s, etag, lastModified, resp.bodyToFlux(DataBuffer.class), parser);
+                    }
+                    return resp.createException().flatMap(Mono::error);
+                }));
+    }
+
+    /** 응답 버퍼를 파서와 캐시 writer 에 동시에 먹이고 즉시 해제. 파일 쓰기가 있으므로 boundedElastic 에서 처리 */
+    private <R> Mono<R> teeToCache(String url, int status, String etag, String lastModified,
+                                   Flux<DataBuffer> body, StreamingBodyParser<R> parser) {
+        String upstream = upstreamOf(url), endpoint = endpointOf(url);
+        long[] bytes = new long[1], parseNanos = new long[1];   // 한 구독 안에서 순차 접근
+        return Mono.usingWhen(
+                Mono.fromCallable(diskCache::newBlobWriter).subscribeOn(Schedulers.boundedElastic()),
+                writer -> body
+                        .publishOn(Schedulers.boundedElastic())
+                        .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                        .<Void>handle((buf, sink) -> {
+                            try (DataBuffer.ByteBufferIterator it = buf.readableByteBuffers()) {
+                                while (it.hasNext()) {
+                                    ByteBuffer chunk = it.next();
+                                    bytes[0] += chunk.remaining();
+                                    writer.write(chunk);
+                                    long t0 = System.nanoTime();
+                                    parser.feed(chunk);
+                                    parseNanos[0] += System.nanoTime() - t0;
+                                }
+                            } catch (IOException e) {
+                                sink.error(e);
+                            } finally {
+                                DataBufferUtils.release(buf);
+                            }
+                        })
+                        .then(Mono.fromCallable(() -> {
+                            writer.commit(url, status, etag, lastModified);
+                            metrics.downloaded(upstream, endpoint, bytes[0]);
+                            long t0 = System.nanoTime();
+                            R result = parser.finish();
+                            metrics.parsed(endpoint, parseNanos[0] + System.nanoTime() - t0);
+                            return result;
+                        })),
+                writer -> Mono.fromRunnable(writer::close).subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    private <R> Mono<R> parseCached(String url, HttpDiskCache.Entry entry, StreamingBodyParser<R> parser) {
+        return Mono.fromCallable(() -> {
+                    long parseNanos = 0;
+                    try (InputStream in = diskCache.openBody(entry)) {
+                        byte[] buf = new byte[64 * 1024];
+                        int n;
+                        while ((n = in.read(buf)) > 0) {
+                            long t0 = System.nanoTime();
+                            parser.feed(ByteBuffer.wrap(buf, 0, n));
+                            parseNanos += System.nanoTime() - t0;
                         }
-                        return Collections.<JsonNode>emptyList();
-                    } catch (Exception e) {
-                        System.err.println("companyfacts parse error: " + e.getMessage());
-                        return Collections.<JsonNode>emptyList();
                     }
+                    long t0 = System.nanoTime();
+                    R result = parser.finish();
+                    metrics.parsed(endpointOf(url), parseNanos + System.nanoTime() - t0);
+                    return result;
                 })
-                .onErrorResume(e -> Mono.just(Collections.<JsonNode>emptyList()));
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // ========================= companyfacts 공유 =========================
+
+    /**
+     * 같은 CIK의 여러 종목(예: GOOG/GOOGL)이 동시에 계산될 수 있으므로 참조 카운트로 해제 시점을 정한다.
+     * companyconcept 슬롯도 CIK 단위로 같이 둔다(같은 회사 종목끼리도 tagFanout 을 나눠 씀)
+     */
+    static final class SharedCompanyFacts {
+        final Mono<CompanyFacts> document;
+        final TagSlots tagSlots;
+        int refs;
+        SharedCompanyFacts(Mono<CompanyFacts> document, TagSlots tagSlots) {
+            this.document = document;
+            this.tagSlots = tagSlots;
+        }
+    }
+
+    /**
+     * companyfacts 문서 1회 다운로드 + 스트리밍 파싱(필요 태그만 유지).
+     * cache()로 첫 구독만 실제 요청을 보내고 이후 구독자는 결과를 공유
+     */
+    private Mono<CompanyFacts> loadCompanyFacts(String cik) {
+        String url = String.format("%s/api/xbrl/companyfacts/CIK%s.json", secDataBase, cik);
+        return cachedGetStreaming(url, secRetry(), () -> new CompanyFactsParser(COMPANY_FACTS_TAGS))
+                .onErrorResume(e -> {
+                    System.err.println("companyfacts fetch/parse error: " + e.getMessage());
+                    return Mono.just(CompanyFacts.failed(url + ": " + e.getMessage()));
+                })
+                .cache();
+    }
+
+    private void retainCompanyFacts(String cik) {
+        companyFactsByCik.compute(cik, (k, shared) -> {
+            if (shared == null) shared = new SharedCompanyFacts(loadCompanyFacts(k), new TagSlots(tagFanout));
+            shared.refs++;
+            return shared;
+        });
+    }
+
+    private void releaseCompanyFacts(String cik) {
+        companyFactsByCik.computeIfPresent(cik, (k, shared) -> --shared.refs <= 0 ? null : shared);
+    }
+
+    /** 로더 조립 시점이 아니라 구독 시점에 공유 문서를 찾도록 defer */
+    private Mono<CompanyFacts> companyFactsDocument(String cik) {
+        return Mono.defer(() -> {
+            SharedCompanyFacts shared = companyFactsByCik.get(cik);
+            // computeMetricsSeries 밖에서 단독 호출된 경우에는 공유 없이 1회성으로 로딩
+            Mono<CompanyFacts> doc = shared != null ? shared.document : loadCompanyFacts(cik);
+            // 공유 문서의 실패는 구독한 종목마다 각자의 컨텍스트에 기록
+            return doc.flatMap(d -> d.failure() == null ? Mono.just(d)
+                    : FetchProblems.report("companyfacts", new IOException(d.failure()), d));
+        });
+    }
+
+    /** companyfacts 전체에서 원하는 태그를 첫 성공으로 가져오기(팩트가 나온 태그와 함께) */
+    private Mono<Map.Entry<TagAffinity.Tag, ConceptFacts>> fetchFromCompanyFacts(String cik, List<TagAffinity.Tag> tags) {
+        return companyFactsDocument(cik)
+                .flatMap(doc -> {
+                    for (TagAffinity.Tag tag : tags) {
+                        ConceptFacts facts = doc.facts(tag.namespace(), tag.name());
+                        if (!facts.isEmpty()) return Mono.just(Map.entry(tag, facts));
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    /** companyfacts 전체에서 원하는 태그들(태그별, 빈 태그 포함) */
+    private Flux<Map.Entry<TagAffinity.Tag, ConceptFacts>> fetchFromCompanyFactsUnion(String cik, List<TagAffinity.Tag> tags) {
+        return companyFactsDocument(cik)
+                .flatMapIterable(doc -> {
+                    List<Map.Entry<TagAffinity.Tag, ConceptFacts>> parts = new ArrayList<>();
+                    for (TagAffinity.Tag tag : tags) parts.add(Map.entry(tag, doc.facts(tag.namespace(), tag.name())));
+                    return parts;
+                });
+    }
+
+    // ========================= frames (전 종목 횡단면) =========================
+
+    /**
+     * frames 용 태그(우선순위 순). 최근 filer 대부분이 쓰는 태그만 골라 요청 수를 수십 건으로 유지하고,
+     * 여기서 빠지는 filer 는 종목별 폴백(전체 태그 목록)으로 채운다
+     */
+    static final List<String> FRAMES_REVENUE_TAGS = List.of(
+            "Revenues",
+            "RevenueFromContractWithCustomerExcludingAssessedTax",
+            "RevenueFromContractWithCustomerIncludingAssessedTax"
+    );
+    static final List<String> FRAMES_OPERATING_INCOME_TAGS = List.of("OperatingIncomeLoss");
+    static final List<String> FRAMES_EPS_TAGS = List.of("EarningsPerShareDiluted", "EarningsPerShareBasic");
+
+    /**
+     * 전 종목 매출/영업이익/EPS 분기 시리즈를 frames 로 구성.
+     * 요청 수 = 태그 수 × (분기 수 + 완결 연도 수), 종목 수와 무관.
+     * 세 개념 중 하나라도 frames 에 없는 CIK 만 종목별(companyconcept → companyfacts) 호출로 채운다
+     *
+     * @param ciks     10자리 0 채움 CIK
+     * @param quarters today 기준 마감된 최근 분기 수
+     */
+    Mono<Map<String, FramesUniverse.Series>> loadUniverseFromFrames(Collection<String> ciks, LocalDate today, int quarters) {
+        List<FramesUniverse.Period> periods = FramesUniverse.Period.lastCompletedQuarters(today, quarters);
+        Mono<Map<Integer, DaySeries>> revenue = frameConcept(FRAMES_REVENUE_TAGS, "USD", periods);
+        Mono<Map<Integer, DaySeries>> opInc = frameConcept(FRAMES_OPERATING_INCOME_TAGS, "USD", periods);
+        Mono<Map<Integer, DaySeries>> eps = frameConcept(FRAMES_EPS_TAGS, "USD-per-shares", periods);
+
+        return Mono.zip(revenue, opInc, eps).flatMap(t -> {
+            Map<String, FramesUniverse.Series> out = new HashMap<>();
+            List<String> missing = new ArrayList<>();
+            for (String cik : ciks) {
+                int id = Integer.parseInt(cik);
+                DaySeries rev = t.getT1().get(id), op = t.getT2().get(id), e = t.getT3().get(id);
+                if (rev == null || op == null || e == null) { missing.add(cik); continue; }
+                out.put(cik, new FramesUniverse.Series(rev, op, e, true));
+            }
+            System.out.println("frames: " + out.size() + " filers, per-company fallback: " + missing.size());
+            return Flux.fromIterable(missing)
+                    .flatMap(cik -> concurrency.run(perCompanySeries(cik)).map(series -> Map.entry(cik, series)),
+                            AdaptiveLimiter.MAX_LIMIT)
+                    .doOnNext(e -> out.put(e.getKey(), e.getValue()))
+                    .then(Mono.fromSupplier(() -> out));
+        });
+    }
+
+    /** frames 사전 필터가 받는 최근 분기 수(연간 frame 으로 Q4 를 보정할 완결 연도가 들어가도록 8) */
+    static final int FRAMES_SCREEN_QUARTERS = 8;
+
+    /**
+     * 전 종목 스크린 앞단: frames 로 만든 매출/영업이익 시리즈에 screen 의 단계 조건을 먼저 적용해
+     * 통과한 종목만 남긴다(종목별 단계 평가는 남은 종목만). frames 에 없는 filer 는 종목별 폴백 시리즈로 판단.
+     * frames 는 달력 분기 기준이라 회계 분기가 어긋난 filer 는 종목별 시리즈와 다를 수 있다 → 근사 필터, 최종 판정은 종목별 데이터
+     */
+    Mono<List<Map.Entry<String, String>>> framesPreScreen(List<Map.Entry<String, String>> tickers, Screen screen, LocalDate today) {
+        int fromDay = windowStart(today);
+        Set<String> ciks = new LinkedHashSet<>();
+        for (Map.Entry<String, String> e : tickers) ciks.add(e.getValue());
+        return loadUniverseFromFrames(ciks, today, FRAMES_SCREEN_QUARTERS)
+                .publishOn(COMPUTE)
+                .map(universe -> {
+                    List<Map.Entry<String, String>> survivors = new ArrayList<>();
+                    for (Map.Entry<String, String> e : tickers) {
+                        FramesUniverse.Series s = universe.get(e.getValue());
+                        if (s != null && screen.revenue.test(s.revenue, fromDay) && screen.operatingIncome.test(s.operatingIncome, fromDay)) {
+                            survivors.add(e);
+                        }
+                    }
+                    System.out.println("frames pre-screen: " + survivors.size() + "/" + tickers.size() + " tickers");
+                    return survivors;
+                });
+    }
+
+    /** 한 개념: 태그 × (분기 + 연간) frame 을 병렬로 받되 우선순위 순서대로 누적 */
+    private Mono<Map<Integer, DaySeries>> frameConcept(List<String> tags, String unit, List<FramesUniverse.Period> quarters) {
+        List<FramesUniverse.Period> periods = new ArrayList<>(quarters);
+        periods.addAll(FramesUniverse.Period.annualsFor(quarters));
+        List<Map.Entry<String, FramesUniverse.Period>> requests = new ArrayList<>();
+        for (String tag : tags) for (FramesUniverse.Period p : periods) requests.add(Map.entry(tag, p));
+
+        return Flux.fromIterable(requests)
+                .flatMapSequential(r -> fetchFrame("us-gaap", r.getKey(), unit, r.getValue())
+                        .map(facts -> Map.entry(r.getValue(), facts)), 4)
+                .publishOn(COMPUTE)
+                .collect(() -> new FramesUniverse.ConceptBuilder(quarters), (b, e) -> b.add(e.getKey(), e.getValue()))
+                .map(FramesUniverse.ConceptBuilder::build);
+    }
+
+    private Mono<FrameFacts> fetchFrame(String taxonomy, String tag, String unit, FramesUniverse.Period period) {
+        String url = String.format("%s/api/xbrl/frames/%s/%s/%s/%s.json", secDataBase, taxonomy, tag, unit, period.ccp());
+        return cachedGetStreaming(url, secRetry(), FramesParser::new)
+                .onErrorResume(e -> {
+                    System.err.println("frame fetch/parse error: " + url + " " + e.getMessage());
+                    return Mono.just(FrameFacts.EMPTY);
+                });
+    }
+
+    /** frames 에 없는 filer: 기존 종목별 로더로 같은 세 개념을 분기화 */
+    private Mono<FramesUniverse.Series> perCompanySeries(String cik) {
+        return Mono.defer(() -> {
+            retainCompanyFacts(cik);
+            return Mono.zip(fetchRevenueFacts(cik), fetchOperatingIncomeFacts(cik), fetchEpsFacts(cik));
+        })
+                .doFinally(signal -> releaseCompanyFacts(cik))
+                .publishOn(COMPUTE)
+                .map(t -> new FramesUniverse.Series(
+                        Quarterizer.quarterize(t.getT1()),
+                        Quarterizer.quarterize(t.getT2()),
+                        Quarterizer.quarterize(t.getT3()),
+                        false));
     }
 
     // ========================= 가격 소스 (Stooq → Yahoo 폴백) =========================
@@ -184,425 +760,561 @@ public class StockMetricsFetcher {
         return t.replace('/', '-').replace('.', '-'); // BRK.B → BRK-B
     }
 
-    private Mono<String> getCsvWithRetry(String url) {
-        return webClient.get().uri(url)
-                .header(HttpHeaders.ACCEPT, "text/csv,*/*;q=0.1")
-                .retrieve()
-                .bodyToMono(String.class)
-                .retryWhen(Retry.backoff(2, Duration.ofMillis(600)).jitter(0.5))
-                .delayElement(Duration.ofMillis(150));
+    private Mono<byte[]> getCsvWithRetry(String url) {
+        return cachedGet(url, "text/csv,*/*;q=0.1",
+                Retry.backoff(2, Duration.ofMillis(600)).jitter(0.5), PriceDecoders::isHtml);
     }
 
-    private Mono<NavigableMap<LocalDate, Double>> fetchStooqSeries(String ticker, String interval) {
+    private Mono<PriceSeries> fetchStooqSeries(String ticker, String interval) {
         String sym = normalizeTickerForStooq(ticker);
         String url = String.format("https://stooq.com/q/d/l/?s=%s.us&i=%s", sym, interval); // i=d|w|m
-        return getCsvWithRetry(url).map(csv -> {
-            NavigableMap<LocalDate, Double> map = new TreeMap<>();
-            try {
-                if (csv.isBlank() || csv.startsWith("<")) return map; // HTML/오류
-                String[] lines = csv.split("\r?\n");
-                for (int i = 1; i < lines.length; i++) {
-                    if (lines[i].isBlank()) continue;
-                    String[] f = lines[i].split(",");
-                    if (f.length < 5) continue;
-                    LocalDate d = LocalDate.parse(f[0]);         // Date
-                    double close = Double.parseDouble(f[4]);     // Close
-                    map.put(d, close);
-                }
-            } catch (Exception e) {
-                System.err.println("stooq parse error(" + interval + "): " + e.getMessage());
-            }
-            return map;
-        }).onErrorResume(e -> {
-            System.err.println("stooq fetch error(" + interval + "): " + e.getMessage());
-            return Mono.just(new TreeMap<>());
+        return getCsvWithRetry(url).publishOn(COMPUTE).map(body -> metrics.parse("csv", () -> PriceDecoders.stooqCsv(body))).onErrorResume(e -> {
+            if (!(e instanceof CircuitBreaker.OpenException)) System.err.println("stooq fetch error(" + interval + "): " + e.getMessage());
+            return Mono.just(PriceSeries.EMPTY);
         });
     }
 
-    private Mono<NavigableMap<LocalDate, Double>> fetchStooqSeriesWithFallback(String ticker) {
-        return fetchStooqSeries(ticker, "d")
-                .flatMap(m -> m.isEmpty() ? fetchStooqSeries(ticker, "w") : Mono.just(m))
-                .flatMap(m -> m.isEmpty() ? fetchStooqSeries(ticker, "m") : Mono.just(m))
-                .doOnNext(m -> System.out.println(ticker + " stooq size=" + m.size()));
-    }
-
-    private Mono<NavigableMap<LocalDate, Double>> fetchYahooDailySeries(String ticker) {
-        long now = Instant.now().getEpochSecond();
+    private Mono<PriceSeries> fetchYahooDailySeries(String ticker) {
+        // 같은 날 재실행 시 URL(=캐시 키)이 같도록 종료 시각을 다음날 0시(UTC)로 고정
+        long now = LocalDate.now(ZoneOffset.UTC).plusDays(1).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
         long start = now - 10L * 365 * 24 * 3600; // 10년
         String symbol = normalizeTickerForYahoo(ticker);
         String url = String.format(
                 "https://query1.finance.yahoo.com/v8/finance/chart/%s?period1=%d&period2=%d&interval=1d",
                 symbol, start, now);
 
-        return webClient.get().uri(url)
-                .header(HttpHeaders.ACCEPT, "application/json")
-                .retrieve()
-                .bodyToMono(String.class)
-                .map(json -> {
-                    NavigableMap<LocalDate, Double> map = new TreeMap<>();
-                    try {
-                        JsonNode root = mapper.readTree(json).path("chart").path("result");
-                        if (!root.isArray() || root.isEmpty()) return map;
-                        JsonNode res = root.get(0);
-                        JsonNode ts = res.path("timestamp");
-                        JsonNode quotes = res.path("indicators").path("quote");
-                        if (!quotes.isArray() || quotes.isEmpty()) return map;
-                        JsonNode closes = quotes.get(0).path("close");
-                        if (!ts.isArray() || !closes.isArray()) return map;
-                        for (int i = 0; i < ts.size() && i < closes.size(); i++) {
-                            JsonNode t = ts.get(i);
-                            JsonNode c = closes.get(i);
-                            if (t.isNumber() && c.isNumber()) {
-                                long epoch = t.asLong();
-                                double close = c.asDouble(Double.NaN);
-                                if (!Double.isNaN(close)) {
-                                    LocalDate d = Instant.ofEpochSecond(epoch).atZone(ZoneId.of("America/New_York")).toLocalDate();
-                                    map.put(d, close);
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        System.err.println("yahoo parse error: " + e.getMessage());
-                    }
-                    return map;
-                })
-                .onErrorResume(e -> {
-                    System.err.println("yahoo fetch error: " + e.getMessage());
-                    return Mono.just(new TreeMap<>());
+        // 오류는 삼키지 않는다: 마지막 소스의 실패는 헤지 결과로 올라가 FetchProblems 에 기록됨
+        return cachedGet(url, "application/json", Retry.max(0))
+                .publishOn(COMPUTE)
+                .map(body -> metrics.parse("chart", () -> PriceDecoders.yahooChart(body)))
+                .doOnError(e -> {
+                    if (!(e instanceof CircuitBreaker.OpenException)) System.err.println("yahoo fetch error: " + e.getMessage());
                 })
                 .doOnNext(m -> System.out.println(ticker + " yahoo size=" + m.size()));
     }
 
-    private Mono<NavigableMap<LocalDate, Double>> fetchPriceSeriesUnified(String ticker) {
-        return fetchStooqSeriesWithFallback(ticker)
-                .flatMap(m -> m.isEmpty() ? fetchYahooDailySeries(ticker) : Mono.just(m))
+    /** 우선순위 순서(일봉이 가장 정확) */
+    static final List<String> PRICE_SOURCES = List.of("stooq-d", "stooq-w", "stooq-m", "yahoo");
+
+    private Mono<PriceSeries> fetchPriceSeriesUnified(String ticker) {
+        // 건강한 업스트림 먼저(같은 점수면 원래 우선순위). 열린 소스는 맨 뒤에서 즉시 실패하므로 비용 없음
+        List<HedgedRequest.Source<PriceSeries>> sources = CircuitBreaker.byHealth(List.of(
+                priceSource("stooq-d", () -> fetchStooqSeries(ticker, "d")),
+                priceSource("stooq-w", () -> fetchStooqSeries(ticker, "w")),
+                priceSource("stooq-m", () -> fetchStooqSeries(ticker, "m")),
+                priceSource("yahoo", () -> fetchYahooDailySeries(ticker))),
+                source -> breakers.get(source.name().startsWith("stooq") ? "stooq" : "yahoo"));
+        return HedgedRequest.first(sources, px -> !px.isEmpty())
+                .onErrorResume(e -> FetchProblems.report("price " + ticker, e, PriceSeries.EMPTY))   // 모든 소스 실패
+                .defaultIfEmpty(PriceSeries.EMPTY)
                 .doOnNext(m -> System.out.println(ticker + " px size=" + m.size()));
     }
 
-    // ========================= 분기화 유틸 =========================
+    private HedgedRequest.Source<PriceSeries> priceSource(String name, Supplier<Mono<PriceSeries>> fetch) {
+        return new HedgedRequest.Source<>(name, priceLatency.get(name), fetch);
+    }
 
-    static final class QKey implements Comparable<QKey> {
-        final int fy; // fiscal year
-        final String q; // Q1..Q4
-        QKey(int fy, String q) { this.fy = fy; this.q = q; }
-        @Override public int compareTo(QKey o) { int c = Integer.compare(this.fy, o.fy); return (c!=0)?c:this.q.compareTo(o.q);}
-        @Override public boolean equals(Object o){ if(!(o instanceof QKey)) return false; QKey k=(QKey)o; return fy==k.fy && Objects.equals(q,k.q);}
-        @Override public int hashCode(){ return Objects.hash(fy, q);}
-        @Override public String toString(){ return fy + "-" + q; }
+    /** 가격 소스별 지연 분포(읽기 전용으로 쓸 것) */
+    Map<String, LatencyHistogram> priceSourceLatencies() {
+        return Collections.unmodifiableMap(priceLatency);
     }
 
-    static final class Item {
-        final LocalDate end; final double val; final boolean ytd; final String form;
-        Item(LocalDate e, double v, boolean isYTD, String f){
-            this.end = e; this.val = v; this.ytd = isYTD; this.form = f;
+    // ========================= 시점 조회 =========================
+
+    /** 분기말 가격: 당일 또는 직전 거래일, 10일 넘게 비어 있으면(거래정지/상장폐지) 없음 */
+    static final int PRICE_LOOKBACK_DAYS = 10;
+
+    /** 분기 값의 end 날짜 허용 오차: 행 날짜와 ±10일 안의 가장 가까운 end */
+    static final int END_MATCH_DAYS = 10;
+
+    // ========================= 시리즈 계산 =========================
+
+    public Mono<List<QuarterMetrics>> computeMetricsSeries(String ticker, String cik) {
+        if (archive != null) {
+            return Mono.zip(archive.read(cik, COMPANY_FACTS_TAGS).map(SecFacts::fromCompanyFacts), fetchPriceSeriesUnified(ticker))
+                    .publishOn(COMPUTE)
+                    .map(t -> computeQuarters(t.getT1(), t.getT2(), LocalDate.now()));
         }
+        Mono<ConceptFacts> revenueMono   = fetchRevenueFacts(cik);
+        Mono<ConceptFacts> opIncMono     = fetchOperatingIncomeFacts(cik);
+        Mono<ConceptFacts> epsMono       = fetchEpsFacts(cik);
+        Mono<ConceptFacts> netMono       = fetchNetIncomeFacts(cik);
+        Mono<ConceptFacts> equityMono    = fetchEquityFacts(cik);
+        Mono<ConceptFacts> outSharesMono = fetchOutstandingSharesFacts(cik);
+        Mono<ConceptFacts> waDilutedMono = fetchWADilutedSharesFacts(cik);
+        Mono<PriceSeries> priceSeriesMono = fetchPriceSeriesUnified(ticker);
+
+        return Mono.defer(() -> {
+            retainCompanyFacts(cik);
+            return Mono.zip(revenueMono, opIncMono, epsMono, netMono, equityMono, outSharesMono, waDilutedMono, priceSeriesMono);
+        })
+                .doFinally(signal -> releaseCompanyFacts(cik))
+                .publishOn(COMPUTE)
+                .map(tuple -> computeQuarters(
+                        new SecFacts(tuple.getT1(), tuple.getT2(), tuple.getT3(), tuple.getT4(),
+                                tuple.getT5(), tuple.getT6(), tuple.getT7()),
+                        tuple.getT8(), LocalDate.now()));
     }
 
-    private static Item diffWithQuarterFallback(Item yCurr, Item yPrev, Item qCurr, Item... priorQuarters) {
-        if (qCurr != null) return qCurr;
-        if (yCurr != null && yPrev != null) {
-            return new Item(yCurr.end, yCurr.val - yPrev.val, false, yCurr.form);
-        }
-        if (yCurr != null && priorQuarters != null && priorQuarters.length > 0) {
-            double sum = 0; boolean has = false;
-            for (Item qi : priorQuarters) {
-                if (qi != null) { sum += qi.val; has = true; }
-            }
-            if (has) return new Item(yCurr.end, yCurr.val - sum, false, yCurr.form);
-        }
-        return null;
-    }
-
-    private static boolean isYTDLike(String fp, String frame, String start, String end) {
-        if (frame != null && frame.toUpperCase(Locale.ROOT).contains("YTD")) return true;
-        if (fp != null && fp.startsWith("Q") && start != null && !start.isBlank() && end != null && !end.isBlank()) {
-            try {
-                LocalDate s = LocalDate.parse(start);
-                LocalDate e = LocalDate.parse(end);
-                long days = ChronoUnit.DAYS.between(s, e);
-                // 분기(≈90일)보다 충분히 길면 YTD로 본다 (여유 있게 115일+)
-                return days > 115;
-            } catch (Exception ignore) {}
+    /**
+     * 벌크 모드 전 종목 계산: 필요한 CIK 엔트리를 코어 수만큼 병렬로 풀고, 가격만 네트워크로 받는다.
+     * 같은 CIK 의 여러 종목(GOOG/GOOGL)은 한 번 푼 팩트를 공유. 결과 순서는 보장하지 않음
+     */
+    public Flux<Map.Entry<String, List<QuarterMetrics>>> computeFromArchive(List<Map.Entry<String, String>> tickers) {
+        if (archive == null) return Flux.error(new IllegalStateException("companyfacts archive not configured"));
+        Map<String, List<String>> tickersByCik = new LinkedHashMap<>();
+        for (Map.Entry<String, String> e : tickers) {
+            tickersByCik.computeIfAbsent(e.getValue(), k -> new ArrayList<>()).add(e.getKey());
         }
-        return false;
-    }
-
-
-    /** duration 계정(YTD 포함)을 분기 값으로 변환 */
-    private Map<QKey, Map.Entry<LocalDate, Double>> quarterizeDurationFacts(List<JsonNode> facts) {
-        Map<Integer, Map<String, Item>> nonYTD = new HashMap<>();
-        Map<Integer, Map<String, Item>> YTD = new HashMap<>();
-        Map<Integer, Item> FYTotal = new HashMap<>();
-
-        for (JsonNode n : facts) {
-            int fy = n.path("fy").asInt(0);
-            String fp = n.path("fp").asText("");
-            String frame = n.path("frame").asText("");
-            String start = n.path("start").asText("");
-            String end = n.path("end").asText("");
-            String form = n.path("form").asText("");
-            double v = n.path("val").asDouble(Double.NaN);
-            if (fy == 0 || end.isEmpty() || Double.isNaN(v)) continue;
-            if (!isAllowedForm(form)) continue;
-            LocalDate d = LocalDate.parse(end);
-
-            boolean isYTD = isYTDLike(fp, frame, start, end);
-
-            String q;
-            if (fp.startsWith("Q")) {
-                q = fp; // Q1..Q3 (가끔 Q4도 존재)
-            } else if ("FY".equals(fp)) {
-                q = "Q4"; // FY는 Q4로 환산
-            } else {
-                continue;
-            }
+        return archive.readAll(tickersByCik.keySet(), COMPANY_FACTS_TAGS)
+                .flatMapIterable(e -> {
+                    SecFacts facts = SecFacts.fromCompanyFacts(e.getValue());
+                    List<Map.Entry<String, SecFacts>> out = new ArrayList<>();
+                    for (String ticker : tickersByCik.get(e.getKey())) out.add(Map.entry(ticker, facts));
+                    return out;
+                })
+                .flatMap(e -> concurrency.run(fetchPriceSeriesUnified(e.getKey()))
+                        .publishOn(COMPUTE)
+                        .map(px -> Map.entry(e.getKey(), computeQuarters(e.getValue(), px, LocalDate.now()))),
+                        AdaptiveLimiter.MAX_LIMIT);
+    }
 
-            Item item = new Item(d, v, isYTD, form);
+    /**
+     * 스크린 단계 순서로 로딩하며 탈락하면 즉시 멈춘다(나머지 개념/가격 요청 없음).
+     * 매출 분기 시리즈 → screen.revenue, 영업이익 → screen.operatingIncome, 통과 시에만 EPS/재무상태/가격을 받아
+     * 최종 행을 만들고 screen.rows 로 확인. 통과하지 못하면 empty
+     */
+    public Mono<List<QuarterMetrics>> computeMetricsStaged(String ticker, String cik, Screen screen) {
+        LocalDate today = LocalDate.now();
+        int fromDay = windowStart(today);
+        return Mono.defer(() -> {
+            retainCompanyFacts(cik);
+            return fetchRevenueFacts(cik)
+                    .publishOn(COMPUTE)
+                    .map(rev -> Map.entry(rev, Quarterizer.quarterize(rev)))
+                    .filter(rev -> screen.revenue.test(rev.getValue(), fromDay))
+                    .flatMap(rev -> fetchOperatingIncomeFacts(cik)
+                            .publishOn(COMPUTE)
+                            .map(op -> Map.entry(op, Quarterizer.quarterize(op)))
+                            .filter(op -> screen.operatingIncome.test(op.getValue(), fromDay))
+                            .flatMap(op -> Mono.zip(fetchEpsFacts(cik), fetchNetIncomeFacts(cik), fetchEquityFacts(cik),
+                                            fetchOutstandingSharesFacts(cik), fetchWADilutedSharesFacts(cik),
+                                            fetchPriceSeriesUnified(ticker))
+                                    .publishOn(COMPUTE)
+                                    .map(t -> alignQuarters(rev.getValue(), op.getValue(),
+                                            new SecFacts(rev.getKey(), op.getKey(), t.getT1(), t.getT2(),
+                                                    t.getT3(), t.getT4(), t.getT5()),
+                                            t.getT6(), today))));
+        })
+                .doFinally(signal -> releaseCompanyFacts(cik))
+                .filter(screen::accepts);
+    }
 
-            if ("FY".equals(fp) && !isYTD) {
-                Item prev = FYTotal.get(fy);
-                if (prev == null || d.isAfter(prev.end)) FYTotal.put(fy, item);
-                continue;
-            }
+    /**
+     * 전 종목 스크린을 종목 단위로 흘려 보낸다(collectList 없음). 통과한 종목만 완료되는 즉시 방출되고
+     * 탈락한 종목의 시리즈는 바로 버려지므로 메모리는 동시 처리 중인 종목 수에만 비례한다
+     */
+    public Flux<ScreenMatch> screenStream(List<Map.Entry<String, String>> tickers, Screen screen) {
+        return evaluate(tickers, screen)
+                .filter(o -> o.status() == TickerOutcome.Status.MATCH)
+                .map(TickerOutcome::toMatch);
+    }
+
+    /**
+     * 종목마다 MATCH / REJECT / FAIL 중 하나를 방출(저널 기록용).
+     * 로더가 오류를 빈 값으로 삼킨 종목은 결과와 무관하게 FAIL 로 본다(데이터 없음과 구분)
+     */
+    Flux<TickerOutcome> evaluate(List<Map.Entry<String, String>> tickers, Screen screen) {
+        return metrics.run(tickers.size(), evaluateAll(tickers, screen))
+                .doOnNext(o -> metrics.tickerFinished(o.status()));
+    }
 
-            Map<String, Item> target = isYTD ? YTD.computeIfAbsent(fy, k -> new HashMap<>())
-                    : nonYTD.computeIfAbsent(fy, k -> new HashMap<>());
-            Item prev = target.get(q);
-            if (prev == null || d.isAfter(prev.end)) target.put(q, item);
+    private Flux<TickerOutcome> evaluateAll(List<Map.Entry<String, String>> tickers, Screen screen) {
+        if (archive != null) {
+            Map<String, String> cikByTicker = new HashMap<>();
+            for (Map.Entry<String, String> e : tickers) cikByTicker.put(e.getKey(), e.getValue());
+            return computeFromArchive(tickers)
+                    .map(kv -> {
+                        String cik = cikByTicker.get(kv.getKey());
+                        return screen.accepts(kv.getValue())
+                                ? TickerOutcome.match(kv.getKey(), cik, kv.getValue())
+                                : TickerOutcome.reject(kv.getKey(), cik);
+                    });
         }
+        // 동시 종목 수는 AdaptiveLimiter 가 정한다(flatMap 은 상한까지 열어 두고 슬롯 대기)
+        return Flux.fromIterable(tickers)
+                .flatMap(e -> concurrency.run(metrics.ticker(evaluateOne(e.getKey(), e.getValue(), screen))),
+                        AdaptiveLimiter.MAX_LIMIT);
+    }
 
-        Map<QKey, Map.Entry<LocalDate, Double>> out = new HashMap<>();
-        for (Integer fy : unionKeys(nonYTD.keySet(), YTD.keySet())) {
-            Item q1 = get(nonYTD, fy, "Q1"); Item y1 = get(YTD, fy, "Q1");
-            Item q2 = get(nonYTD, fy, "Q2"); Item y2 = get(YTD, fy, "Q2");
-            Item q3 = get(nonYTD, fy, "Q3"); Item y3 = get(YTD, fy, "Q3");
-            Item q4 = get(nonYTD, fy, "Q4"); Item fyTot = FYTotal.get(fy);
+    private Mono<TickerOutcome> evaluateOne(String ticker, String cik, Screen screen) {
+        return Mono.defer(() -> {
+            FetchProblems problems = new FetchProblems();
+            return computeMetricsStaged(ticker, cik, screen)
+                    .map(series -> TickerOutcome.match(ticker, cik, series))
+                    .defaultIfEmpty(TickerOutcome.reject(ticker, cik))
+                    .map(o -> problems.any() ? TickerOutcome.fail(ticker, cik, problems.first()) : o)
+                    .onErrorResume(e -> Mono.just(TickerOutcome.fail(ticker, cik, String.valueOf(e))))
+                    .contextWrite(ctx -> ctx.put(FetchProblems.CONTEXT_KEY, problems));
+        });
+    }
 
-            Item q1Out = prefer(q1, y1);
-            Item q2Out = diffWithQuarterFallback(y2, y1, q2, q1Out);
-            Item q3Out = diffWithQuarterFallback(y3, y2, q3, q1Out, q2Out);
+    /** 종목 단위 flatMap 을 열어 두는 폭(실제 동시 수는 적응형 제한이 정함) */
+    public static final int MAX_CONCURRENT_TICKERS = AdaptiveLimiter.MAX_LIMIT;
 
-            putIfPresent(out, new QKey(fy, "Q1"), q1Out);
-            putIfPresent(out, new QKey(fy, "Q2"), q2Out);
-            putIfPresent(out, new QKey(fy, "Q3"), q3Out);
+    /** lookup 을 종목 단위 적응형 동시성 슬롯 안에서(API 조회: 캐시/DB 적중은 이 밖에서 끝난다) */
+    public Mono<TickerOutcome> limitedLookup(String ticker, String cik) {
+        return concurrency.run(lookup(ticker, cik));
+    }
+
+    /**
+     * 단건 조회(API): 12분기 전체 시리즈. 로더가 오류를 빈 값으로 삼켰으면 FAIL(부분 결과를 정상으로 캐시하지 않게).
+     * 정상이면 스크린 판정과 무관하게 MATCH 로 돌려준다
+     */
+    Mono<TickerOutcome> lookup(String ticker, String cik) {
+        return Mono.defer(() -> {
+            FetchProblems problems = new FetchProblems();
+            return computeMetricsSeries(ticker, cik)
+                    .map(series -> problems.any()
+                            ? TickerOutcome.fail(ticker, cik, problems.first())
+                            : TickerOutcome.match(ticker, cik, series))
+                    .onErrorResume(e -> Mono.just(TickerOutcome.fail(ticker, cik, String.valueOf(e))))
+                    .contextWrite(ctx -> ctx.put(FetchProblems.CONTEXT_KEY, problems));
+        });
+    }
 
-            Item q4Derived = null;
-            if (fyTot != null && y3 != null) q4Derived = new Item(fyTot.end, fyTot.val - y3.val, false, fyTot.form);
-            putIfPresent(out, new QKey(fy, "Q4"), (q4 != null) ? q4 : q4Derived);
+    /**
+     * 저널 기반 이어서 실행: 저널의 통과 종목을 먼저 다시 내보낸 뒤 남은 종목만 계산하며 결과를 저널에 덧붙인다.
+     * retryFailed 면 저널에서 FAIL 로 끝난 종목만 계산(새 종목은 건드리지 않음)
+     */
+    Flux<ScreenMatch> resumeScreen(List<Map.Entry<String, String>> tickers, Screen screen, RunJournal journal, boolean retryFailed) {
+        List<Map.Entry<String, String>> todo = new ArrayList<>();
+        for (Map.Entry<String, String> e : tickers) {
+            String t = e.getKey();
+            if (retryFailed ? journal.isFailed(t) : !journal.isDone(t)) todo.add(e);
         }
-        return out;
+        List<ScreenMatch> replay = journal.matches();
+        System.out.println("journal: " + journal.outcomes().size() + " recorded, " + replay.size() + " matches replayed, "
+                + todo.size() + " to evaluate");
+        return Flux.concat(
+                Flux.fromIterable(replay),
+                evaluate(todo, screen)
+                        .publishOn(Schedulers.boundedElastic())   // 저널 쓰기/fsync
+                        .doOnNext(journal::append)
+                        .filter(o -> o.status() == TickerOutcome.Status.MATCH)
+                        .map(TickerOutcome::toMatch));
+    }
+
+    /** 매치를 한 건씩 sink 로 내보내고(파일 쓰기 가능 → boundedElastic) 끝나면 닫는다. 결과는 매치 수 */
+    static Mono<Long> runScreen(Flux<ScreenMatch> matches, ScreenSink sink) {
+        return matches
+                .publishOn(Schedulers.boundedElastic())
+                .<ScreenMatch>handle((m, out) -> {
+                    try {
+                        sink.emit(m);
+                        out.next(m);
+                    } catch (IOException e) {
+                        out.error(e);
+                    }
+                })
+                .count()
+                .doFinally(signal -> {
+                    try {
+                        sink.close();
+                    } catch (IOException e) {
+                        System.err.println("screen sink close error: " + e.getMessage());
+                    }
+                });
     }
 
-    private static <T> Set<T> unionKeys(Set<T> a, Set<T> b) { Set<T> s = new HashSet<>(a); s.addAll(b); return s; }
-    private static Item get(Map<Integer, Map<String, Item>> m, Integer fy, String q) { Map<String, Item> inner = m.get(fy); return inner==null?null:inner.get(q); }
-    private static void putIfPresent(Map<QKey, Map.Entry<LocalDate, Double>> out, QKey key, Item item) { if (item != null) out.put(key, Map.entry(item.end, item.val)); }
-    private static Item prefer(Item quarter, Item ytd) { return quarter!=null ? quarter : ytd; }
-
-    /** instant(시점) 계정 → end 날짜별 NavigableMap */
-    private NavigableMap<LocalDate, Double> toInstantNavSeries(List<JsonNode> facts) {
-        NavigableMap<LocalDate, Double> m = new TreeMap<>();
-        for (JsonNode n : facts) {
-            String end = n.path("end").asText("");
-            double v = n.path("val").asDouble(Double.NaN);
-            String form = n.path("form").asText("");
-            if (end.isEmpty() || Double.isNaN(v)) continue;
-            if (!isAllowedForm(form)) continue;
-            LocalDate d = LocalDate.parse(end);
-            m.put(d, v);
+    /** 종목 하나의 SEC 개념별 팩트(로더 폴백이 끝난 결과) */
+    static final class SecFacts {
+        final ConceptFacts revenue, operatingIncome, eps, netIncome, equity, shares, waDiluted;
+
+        SecFacts(ConceptFacts revenue, ConceptFacts operatingIncome, ConceptFacts eps, ConceptFacts netIncome,
+                 ConceptFacts equity, ConceptFacts shares, ConceptFacts waDiluted) {
+            this.revenue = revenue; this.operatingIncome = operatingIncome; this.eps = eps; this.netIncome = netIncome;
+            this.equity = equity; this.shares = shares; this.waDiluted = waDiluted;
+        }
+
+        /** companyfacts 문서 하나로 로더들과 같은 태그 우선순위를 적용(벌크 모드용) */
+        static SecFacts fromCompanyFacts(CompanyFacts doc) {
+            List<ConceptFacts> revenueParts = new ArrayList<>();
+            for (String tag : REVENUE_GAAP) revenueParts.add(doc.facts("us-gaap", tag));
+            for (String tag : REVENUE_IFRS) revenueParts.add(doc.facts("ifrs-full", tag));
+            ConceptFacts shares = firstNonEmpty(doc, "us-gaap", OUTSTANDING_SHARES_TAGS);
+            if (shares.isEmpty()) shares = doc.facts("dei", "EntityCommonStockSharesOutstanding");
+            return new SecFacts(
+                    ConceptFacts.concat(revenueParts),
+                    firstNonEmpty(doc, "us-gaap", OPERATING_INCOME_TAGS),
+                    firstNonEmpty(doc, "us-gaap", EPS_TAGS),
+                    firstNonEmpty(doc, "us-gaap", NET_INCOME_TAGS),
+                    firstNonEmpty(doc, "us-gaap", EQUITY_TAGS),
+                    shares,
+                    firstNonEmpty(doc, "us-gaap", WA_DILUTED_TAGS));
+        }
+
+        private static ConceptFacts firstNonEmpty(CompanyFacts doc, String namespace, List<String> tags) {
+            for (String tag : tags) {
+                ConceptFacts facts = doc.facts(namespace, tag);
+                if (!facts.isEmpty()) return facts;
+            }
+            return ConceptFacts.EMPTY;
         }
-        return m;
     }
 
-    private double findPriceOnOrBefore(NavigableMap<LocalDate, Double> series, LocalDate date) {
-        Map.Entry<LocalDate, Double> e = series.floorEntry(date);
-        if (e != null) return e.getValue();
-        LocalDate d = date.minusDays(1);
-        for (int i = 0; i < 10; i++) { e = series.floorEntry(d); if (e != null) return e.getValue(); d = d.minusDays(1);}
-        return Double.NaN;
+    /** 팩트 + 가격 → 최근 12분기 지표 (네트워크/리액터 무관한 순수 계산) */
+    static List<QuarterMetrics> computeQuarters(SecFacts facts, PriceSeries pxS, LocalDate today) {
+        return alignQuarters(Quarterizer.quarterize(facts.revenue), Quarterizer.quarterize(facts.operatingIncome),
+                facts, pxS, today);
     }
 
-    // ========================= 시리즈 계산 =========================
+    /** 지표 계산 대상 구간 시작일: 최근 3년(+7일 여유) */
+    static int windowStart(LocalDate today) {
+        return (int) today.minusYears(3).minusDays(7).toEpochDay();
+    }
 
-    public Mono<List<QuarterMetrics>> computeMetricsSeries(String ticker, String cik) {
-        Mono<List<JsonNode>> revenueMono  = fetchRevenueFacts(cik);
-        Mono<List<JsonNode>> opIncMono    = fetchOperatingIncomeFacts(cik);
-        Mono<List<JsonNode>> epsMono      = fetchEpsFacts(cik);
-        Mono<List<JsonNode>> netMono      = fetchNetIncomeFacts(cik);
-        Mono<List<JsonNode>> equityMono   = fetchEquityFacts(cik);
-        Mono<List<JsonNode>> outSharesMono= fetchOutstandingSharesFacts(cik);
-        Mono<List<JsonNode>> waDilutedMono= fetchWADilutedSharesFacts(cik);
-        Mono<NavigableMap<LocalDate, Double>> priceSeriesMono = fetchPriceSeriesUnified(ticker);
-
-        return Mono.zip(revenueMono, opIncMono, epsMono, netMono, equityMono, outSharesMono, waDilutedMono, priceSeriesMono)
-                .map(tuple -> {
-                    Map<QKey, Map.Entry<LocalDate, Double>> revM = quarterizeDurationFacts(tuple.getT1());
-                    Map<QKey, Map.Entry<LocalDate, Double>> opM  = quarterizeDurationFacts(tuple.getT2());
-                    Map<QKey, Map.Entry<LocalDate, Double>> epsM = quarterizeDurationFacts(tuple.getT3());
-                    Map<QKey, Map.Entry<LocalDate, Double>> netM = quarterizeDurationFacts(tuple.getT4());
-
-                    NavigableMap<LocalDate, Double> eqS = toInstantNavSeries(tuple.getT5());
-                    NavigableMap<LocalDate, Double> shS = toInstantNavSeries(tuple.getT6());
-                    Map<QKey, Map.Entry<LocalDate, Double>> waDilutedM = quarterizeDurationFacts(tuple.getT7());
-                    NavigableMap<LocalDate, Double> pxS = tuple.getT8();
-
-                    // ✅ end-날짜 기반 시리즈
-                    NavigableMap<LocalDate, Double> revD = byEndDate(revM);
-                    NavigableMap<LocalDate, Double> opD  = byEndDate(opM);
-                    NavigableMap<LocalDate, Double> epsD = byEndDate(epsM);
-                    NavigableMap<LocalDate, Double> waD  = byEndDate(waDilutedM);
-
-                    // 최근 3년 내 end 날짜 집합(내림차순)
-                    LocalDate cutoff = LocalDate.now().minusYears(3).minusDays(7);
-                    NavigableSet<LocalDate> allEnds = new TreeSet<>(Comparator.reverseOrder());
-                    allEnds.addAll(revD.keySet());
-                    allEnds.addAll(opD.keySet());
-                    allEnds.addAll(epsD.keySet());
-                    allEnds.removeIf(d -> d.isBefore(cutoff));
-
-                    List<QuarterMetrics> out = new ArrayList<>();
-                    int windowDays = 10; // end 날짜 허용 오차
-                    NavigableMap<LocalDate, Double> netD = byEndDate(netM);
-
-                    for (LocalDate end : allEnds) {
-                        double rev = getNear(revD, end, windowDays);
-                        double op  = getNear(opD,  end, windowDays);
-                        double eps = getNear(epsD, end, windowDays);
-
-                        // EPS 보정(NetIncome / WADiluted)
-                        if (Double.isNaN(eps)) {
-                            double net = getNear(netD, end, windowDays);
-                            double wa  = getNear(waD, end, windowDays);
-                            if (!Double.isNaN(net) && !Double.isNaN(wa) && wa != 0.0) eps = net / wa;
-                        }
+    /** 매출/영업이익은 이미 분기화된 시리즈를 받는다(단계 평가에서 재사용) */
+    static List<QuarterMetrics> alignQuarters(DaySeries revD, DaySeries opD, SecFacts facts, PriceSeries pxS, LocalDate today) {
+        // ✅ end-날짜 기반 분기 시리즈
+        DaySeries epsD = Quarterizer.quarterize(facts.eps);
+        DaySeries netD = Quarterizer.quarterize(facts.netIncome);
+        DaySeries waD  = Quarterizer.quarterize(facts.waDiluted);
+
+        DaySeries eqS = Quarterizer.instantSeries(facts.equity);
+        DaySeries shS = Quarterizer.instantSeries(facts.shares);
+
+        // 최근 3년 내 end 날짜 합집합(오름차순) 에 모든 열을 한 번의 선형 병합으로 정렬
+        int[] ends = AsOfJoin.unionDays(windowStart(today), revD, opD, epsD);
+        int windowDays = END_MATCH_DAYS;
+        double[][] cols = AsOfJoin.join(ends,
+                AsOfJoin.nearest(revD, windowDays),
+                AsOfJoin.nearest(opD, windowDays),
+                AsOfJoin.nearest(epsD, windowDays),
+                AsOfJoin.nearest(netD, windowDays),
+                AsOfJoin.nearest(waD, windowDays),
+                AsOfJoin.floor(eqS),                            // instant 계정은 분기말 이전값 floor
+                AsOfJoin.floor(shS),
+                AsOfJoin.floor(pxS, PRICE_LOOKBACK_DAYS));
+        double[] revC = cols[0], opC = cols[1], epsC = cols[2], netC = cols[3], waC = cols[4];
+        double[] eqC = cols[5], shC = cols[6], pxC = cols[7];
+
+        List<QuarterMetrics> out = new ArrayList<>();
+        for (int r = ends.length - 1; r >= 0; r--) {   // 최신 분기부터
+            double rev = revC[r], op = opC[r], eps = epsC[r];
+
+            // EPS 보정(NetIncome / WADiluted)
+            if (Double.isNaN(eps)) {
+                double net = netC[r], wa = waC[r];
+                if (!Double.isNaN(net) && !Double.isNaN(wa) && wa != 0.0) eps = net / wa;
+            }
 
-                        // instant 계정은 분기말 이전값 floor
-                        Map.Entry<LocalDate, Double> eqE = eqS.floorEntry(end);
-                        Map.Entry<LocalDate, Double> shE = shS.floorEntry(end);
-                        double eq = (eqE != null) ? eqE.getValue() : Double.NaN;
-                        double sh = (shE != null) ? shE.getValue() : Double.NaN;
-
-                        double price = findPriceOnOrBefore(pxS, end);
-                        double per = (!Double.isNaN(price) && !Double.isNaN(eps) && eps != 0.0) ? price/eps : Double.NaN;
-                        double pbr = (!Double.isNaN(price) && !Double.isNaN(eq) && !Double.isNaN(sh) && eq != 0.0 && sh != 0.0)
-                                ? price / (eq / sh) : Double.NaN;
-
-                        // 최소 하나 이상 값이 있어야 수록
-                        if (!Double.isNaN(rev) || !Double.isNaN(op) || !Double.isNaN(eps)) {
-                            out.add(new QuarterMetrics(end, rev, op, eps, eq, sh, price, per, pbr));
-                            if (out.size() >= 12) break; // 최근 12분기
-                        }
-                    }
-                    return out;
-                });
+            double eq = eqC[r], sh = shC[r], price = pxC[r];
+            double per = (!Double.isNaN(price) && !Double.isNaN(eps) && eps != 0.0) ? price/eps : Double.NaN;
+            double pbr = (!Double.isNaN(price) && !Double.isNaN(eq) && !Double.isNaN(sh) && eq != 0.0 && sh != 0.0)
+                    ? price / (eq / sh) : Double.NaN;
+
+            // 최소 하나 이상 값이 있어야 수록
+            if (!Double.isNaN(rev) || !Double.isNaN(op) || !Double.isNaN(eps)) {
+                out.add(new QuarterMetrics(LocalDate.ofEpochDay(ends[r]), rev, op, eps, eq, sh, price, per, pbr));
+                if (out.size() >= 12) break; // 최근 12분기
+            }
+        }
+        return out;
     }
 
     // ========================= 개념별 팩트 로딩(Fallback 조합) =========================
 
-    private Mono<List<JsonNode>> fetchRevenueFacts(String cik) {
-        List<String> gaap = Arrays.asList(
-                "SalesRevenueNet",
-                "RevenueFromContractWithCustomerExcludingAssessedTax",
-                "Revenues",
-                "SalesRevenueGoodsNet",
-                "RevenuesNetOfInterestExpense",
-                "RevenueFromContractWithCustomerIncludingAssessedTax",
-                "SalesRevenueServicesNet"
-        );
-
-        List<String> ifrs = Arrays.asList(
-                "Revenue",
-                "RevenueFromContractsWithCustomers"
-        );
+    static final List<String> REVENUE_GAAP = List.of(
+            "SalesRevenueNet",
+            "RevenueFromContractWithCustomerExcludingAssessedTax",
+            "Revenues",
+            "SalesRevenueGoodsNet",
+            "RevenuesNetOfInterestExpense",
+            "RevenueFromContractWithCustomerIncludingAssessedTax",
+            "SalesRevenueServicesNet"
+    );
+    static final List<String> REVENUE_IFRS = List.of(
+            "Revenue",
+            "RevenueFromContractsWithCustomers"
+    );
+    static final List<String> OPERATING_INCOME_TAGS = List.of(
+            "OperatingIncomeLoss",
+            "IncomeLossFromOperations"
+    );
+    static final List<String> EPS_TAGS = List.of(
+            "EarningsPerShareDiluted",
+            "EarningsPerShareBasicAndDiluted",
+            "EarningsPerShareBasic"
+    );
+    static final List<String> NET_INCOME_TAGS = List.of("NetIncomeLoss");
+    static final List<String> EQUITY_TAGS = List.of(
+            "StockholdersEquity",
+            "StockholdersEquityIncludingPortionAttributableToNoncontrollingInterest"
+    );
+    static final List<String> OUTSTANDING_SHARES_TAGS = List.of(
+            "CommonStockSharesOutstanding",
+            "EntityCommonStockSharesOutstanding",
+            "CommonStockSharesIssued"
+    );
+    static final List<String> WA_DILUTED_TAGS = List.of(
+            "WeightedAverageNumberOfDilutedSharesOutstanding",
+            "WeightedAverageNumberOfSharesOutstandingDiluted"
+    );
+
+    /** companyfacts 스트리밍 파싱 시 남길 namespace → tag (모든 로더의 태그 합집합) */
+    static final Map<String, Set<String>> COMPANY_FACTS_TAGS = Map.of(
+            "us-gaap", unionOf(REVENUE_GAAP, OPERATING_INCOME_TAGS, EPS_TAGS, NET_INCOME_TAGS,
+                    EQUITY_TAGS, OUTSTANDING_SHARES_TAGS, WA_DILUTED_TAGS),
+            "ifrs-full", unionOf(REVENUE_IFRS),
+            "dei", Set.of("EntityCommonStockSharesOutstanding")   // 벌크 모드 발행주식수 폴백
+    );
+
+    @SafeVarargs
+    private static Set<String> unionOf(List<String>... lists) {
+        Set<String> s = new HashSet<>();
+        for (List<String> l : lists) s.addAll(l);
+        return Set.copyOf(s);
+    }
 
-        return Flux.concat(
-                        // companyconcept: us-gaap 전 태그
-                        Flux.fromIterable(gaap).concatMap(t -> fetchSecConceptSafe(cik, "us-gaap", t)),
-                        // companyconcept: ifrs-full 전 태그
-                        Flux.fromIterable(ifrs).concatMap(t -> fetchSecConceptSafe(cik, "ifrs-full", t)),
+    /**
+     * 종목 하나가 동시에 보내는 companyconcept 요청의 최대 수(개념 로더 전부 합산, 전역 SEC 속도는 SecRateLimiter 가 따로 지킴).
+     * 개념 로더가 7개라 그보다 하나 크게: 개념마다 첫 후보는 바로 나가고 남는 슬롯으로 다음 후보를 미리 요청
+     */
+    static final int TAG_FANOUT = 8;
+
+    /** 기억한 태그 결과의 마지막 기간말이 이보다 오래되면 태그가 바뀐 것으로 보고 다시 탐색 */
+    static final int AFFINITY_STALE_DAYS = 200;
+
+    private Mono<ConceptFacts> fetchRevenueFacts(String cik) {
+        List<TagAffinity.Tag> gaap = TagAffinity.Tag.of("us-gaap", REVENUE_GAAP), ifrs = TagAffinity.Tag.of("ifrs-full", REVENUE_IFRS);
+        // 전체 탐색: 매출은 회사가 태그를 갈아탄 이력(예: ASC 606 전후)을 모두 잇기 위해 합집합
+        Mono<ConceptFacts> walk = Flux.concat(
+                        // companyconcept: us-gaap + ifrs-full 전 태그(동시에 tagFanout 개, 순서 유지)
+                        Flux.concat(Flux.fromIterable(gaap), Flux.fromIterable(ifrs))
+                                .flatMapSequential(t -> fetchTagged(cik, t), tagFanout),
                         // companyfacts: us-gaap 전 태그 합집합
-                        fetchFromCompanyFactsUnion(cik, "us-gaap", gaap),
+                        fetchFromCompanyFactsUnion(cik, gaap),
                         // companyfacts: ifrs-full 전 태그 합집합
-                        fetchFromCompanyFactsUnion(cik, "ifrs-full", ifrs)
+                        fetchFromCompanyFactsUnion(cik, ifrs)
                 )
+                .filter(e -> !e.getValue().isEmpty())
                 .collectList()
-                .map(lists -> {
-                    List<JsonNode> all = new ArrayList<>();
-                    for (List<JsonNode> l : lists) if (l != null) all.addAll(l);
-                    return all;
+                .map(found -> {
+                    Set<TagAffinity.Tag> tags = new LinkedHashSet<>();
+                    List<ConceptFacts> parts = new ArrayList<>();
+                    for (Map.Entry<TagAffinity.Tag, ConceptFacts> e : found) {
+                        tags.add(e.getKey());
+                        parts.add(e.getValue());
+                    }
+                    tagAffinity.learn(cik, "revenue", List.copyOf(tags));
+                    return ConceptFacts.concat(parts);
+                });
+        return withAffinity(cik, "revenue", walk);
+    }
+
+    private Mono<ConceptFacts> fetchOperatingIncomeFacts(String cik) {
+        return firstNonEmptyTag(cik, "operatingIncome", TagAffinity.Tag.of("us-gaap", OPERATING_INCOME_TAGS));
+    }
+
+    private Mono<ConceptFacts> fetchEpsFacts(String cik) {
+        return firstNonEmptyTag(cik, "eps", TagAffinity.Tag.of("us-gaap", EPS_TAGS));
+    }
+
+    private Mono<ConceptFacts> fetchNetIncomeFacts(String cik) {
+        return firstNonEmptyTag(cik, "netIncome", TagAffinity.Tag.of("us-gaap", NET_INCOME_TAGS));
+    }
+
+    private Mono<ConceptFacts> fetchEquityFacts(String cik) {
+        return firstNonEmptyTag(cik, "equity", TagAffinity.Tag.of("us-gaap", EQUITY_TAGS));
+    }
+
+    private Mono<ConceptFacts> fetchOutstandingSharesFacts(String cik) {
+        List<TagAffinity.Tag> tags = new ArrayList<>(TagAffinity.Tag.of("us-gaap", OUTSTANDING_SHARES_TAGS));
+        tags.add(new TagAffinity.Tag("dei", "EntityCommonStockSharesOutstanding"));
+        return firstNonEmptyTag(cik, "outstandingShares", tags);
+    }
+
+    private Mono<ConceptFacts> fetchWADilutedSharesFacts(String cik) {
+        return firstNonEmptyTag(cik, "waDilutedShares", TagAffinity.Tag.of("us-gaap", WA_DILUTED_TAGS));
+    }
+
+    /** 전체 탐색: companyconcept 를 우선순위대로 → companyfacts 폴백, 처음 나온 태그를 기억 */
+    private Mono<ConceptFacts> firstNonEmptyTag(String cik, String concept, List<TagAffinity.Tag> tags) {
+        Mono<ConceptFacts> walk = Flux.concat(
+                        fetchTagsByPriority(cik, tags),
+                        fetchFromCompanyFacts(cik, tags)
+                )
+                .filter(e -> !e.getValue().isEmpty())
+                .next()
+                .map(e -> {
+                    tagAffinity.learn(cik, concept, List.of(e.getKey()));
+                    return e.getValue();
                 })
-                .defaultIfEmpty(Collections.<JsonNode>emptyList());
+                .defaultIfEmpty(ConceptFacts.EMPTY);
+        return withAffinity(cik, concept, walk);
     }
 
+    /**
+     * 기억한 태그가 있으면 그 태그만 companyconcept 로 요청(개념당 1회).
+     * 결과가 비었거나 마지막 기간말이 AFFINITY_STALE_DAYS 보다 오래됐으면 전체 탐색(walk)으로 다시 배운다
+     */
+    private Mono<ConceptFacts> withAffinity(String cik, String concept, Mono<ConceptFacts> walk) {
+        return Mono.defer(() -> {
+            List<TagAffinity.Tag> known = tagAffinity.tags(cik, concept);
+            if (known.isEmpty()) {
+                metrics.tagAffinity("miss");
+                return walk;
+            }
+            Mono<ConceptFacts> preferred = known.size() == 1 ? fetchSecConceptSafe(cik, known.get(0).namespace(), known.get(0).name())
+                    : Flux.fromIterable(known).flatMapSequential(t -> fetchSecConceptSafe(cik, t.namespace(), t.name()), tagFanout)
+                            .collectList().map(ConceptFacts::concat);
+            return preferred.flatMap(facts -> {
+                boolean stale = facts.isEmpty()
+                        || latestEnd(facts) < LocalDate.now(ZoneOffset.UTC).toEpochDay() - AFFINITY_STALE_DAYS;
+                metrics.tagAffinity(stale ? "stale" : "hit");
+                return stale ? walk : Mono.just(facts);
+            });
+        });
+    }
 
-    private Mono<List<JsonNode>> fetchOperatingIncomeFacts(String cik) {
-        List<String> tags = Arrays.asList(
-                "OperatingIncomeLoss",
-                "IncomeLossFromOperations"
-        );
-        return Flux.concat(
-                Flux.fromIterable(tags).concatMap(t -> fetchSecConceptSafe(cik, "us-gaap", t)),
-                fetchFromCompanyFacts(cik, "us-gaap", tags),
-                Mono.<List<JsonNode>>just(Collections.<JsonNode>emptyList())
-        ).filter(list -> !list.isEmpty()).next().defaultIfEmpty(Collections.<JsonNode>emptyList());
-    }
-
-    private Mono<List<JsonNode>> fetchEpsFacts(String cik) {
-        List<String> tags = Arrays.asList(
-                "EarningsPerShareDiluted",
-                "EarningsPerShareBasicAndDiluted",
-                "EarningsPerShareBasic"
-        );
-        return Flux.concat(
-                Flux.fromIterable(tags).concatMap(t -> fetchSecConceptSafe(cik, "us-gaap", t)),
-                fetchFromCompanyFacts(cik, "us-gaap", tags),
-                Mono.<List<JsonNode>>just(Collections.<JsonNode>emptyList())
-        ).filter(list -> !list.isEmpty()).next().defaultIfEmpty(Collections.<JsonNode>emptyList());
+    private static long latestEnd(ConceptFacts facts) {
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < facts.size; i++) max = Math.max(max, facts.end[i]);
+        return max;
     }
 
-    private Mono<List<JsonNode>> fetchNetIncomeFacts(String cik) {
-        return Flux.concat(
-                fetchSecConceptSafe(cik, "us-gaap", "NetIncomeLoss"),
-                fetchFromCompanyFacts(cik, "us-gaap", Collections.singletonList("NetIncomeLoss")),
-                Mono.<List<JsonNode>>just(Collections.<JsonNode>emptyList())
-        ).filter(list -> !list.isEmpty()).next().defaultIfEmpty(Collections.<JsonNode>emptyList());
+    /**
+     * 후보 태그를 우선순위 순으로 내보내되 요청은 동시에(순차면 태그마다 왕복이 쌓임). 실제 동시 수는 종목의 TagSlots 가 정한다.
+     * 어떤 태그가 팩트를 돌려주면 그보다 낮은 순위의 진행 중/대기 요청은 취소(빈 결과로 끝남).
+     * 구독 쪽이 첫 비지 않은 결과에서 멈추면 나머지도 모두 취소 → 결과는 순차 탐색과 같다
+     */
+    private Flux<Map.Entry<TagAffinity.Tag, ConceptFacts>> fetchTagsByPriority(String cik, List<TagAffinity.Tag> tags) {
+        int fanout = tagFanout;
+        if (fanout <= 1 || tags.size() == 1) return Flux.fromIterable(tags).concatMap(t -> fetchTagged(cik, t));
+        return Flux.defer(() -> {
+            AtomicInteger best = new AtomicInteger(Integer.MAX_VALUE);   // 팩트가 나온 가장 높은 순위
+            Sinks.Many<Integer> found = Sinks.many().replay().all();
+            return Flux.range(0, tags.size()).flatMapSequential(i -> {
+                if (best.get() < i) return Mono.empty();
+                return fetchTagged(cik, tags.get(i))
+                        .takeUntilOther(found.asFlux().filter(w -> w < i))
+                        .doOnNext(e -> {
+                            if (e.getValue().isEmpty()) return;
+                            best.accumulateAndGet(i, Math::min);
+                            found.emitNext(i, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+                        });
+            }, fanout);
+        });
     }
 
-    private Mono<List<JsonNode>> fetchEquityFacts(String cik) {
-        List<String> tags = Arrays.asList(
-                "StockholdersEquity",
-                "StockholdersEquityIncludingPortionAttributableToNoncontrollingInterest"
-        );
-        return Flux.concat(
-                Flux.fromIterable(tags).concatMap(t -> fetchSecConceptSafe(cik, "us-gaap", t)),
-                fetchFromCompanyFacts(cik, "us-gaap", tags),
-                Mono.<List<JsonNode>>just(Collections.<JsonNode>emptyList())
-        ).filter(list -> !list.isEmpty()).next().defaultIfEmpty(Collections.<JsonNode>emptyList());
-    }
-
-    private Mono<List<JsonNode>> fetchOutstandingSharesFacts(String cik) {
-        List<String> tags = Arrays.asList(
-                "CommonStockSharesOutstanding",
-                "EntityCommonStockSharesOutstanding",
-                "CommonStockSharesIssued"
-        );
-        return Flux.concat(
-                Flux.fromIterable(tags).concatMap(t -> fetchSecConceptSafe(cik, "us-gaap", t)),
-                fetchSecConceptSafe(cik, "dei", "EntityCommonStockSharesOutstanding"),
-                fetchFromCompanyFacts(cik, "us-gaap", tags),
-                Mono.<List<JsonNode>>just(Collections.<JsonNode>emptyList())
-        ).filter(list -> !list.isEmpty()).next().defaultIfEmpty(Collections.<JsonNode>emptyList());
-    }
-
-    private Mono<List<JsonNode>> fetchWADilutedSharesFacts(String cik) {
-        List<String> tags = Arrays.asList(
-                "WeightedAverageNumberOfDilutedSharesOutstanding",
-                "WeightedAverageNumberOfSharesOutstandingDiluted"
-        );
-        return Flux.concat(
-                Flux.fromIterable(tags).concatMap(t -> fetchSecConceptSafe(cik, "us-gaap", t)),
-                fetchFromCompanyFacts(cik, "us-gaap", tags),
-                Mono.<List<JsonNode>>just(Collections.<JsonNode>emptyList())
-        ).filter(list -> !list.isEmpty()).next().defaultIfEmpty(Collections.<JsonNode>emptyList());
+    /** 종목당 companyconcept 동시 요청 수. 1 이면 한 태그씩 순차(이후 계산을 시작하는 종목부터 적용) */
+    void tagFanout(int fanout) {
+        this.tagFanout = Math.max(1, fanout);
+    }
+
+    private Mono<Map.Entry<TagAffinity.Tag, ConceptFacts>> fetchTagged(String cik, TagAffinity.Tag tag) {
+        return fetchSecConceptSafe(cik, tag.namespace(), tag.name()).map(facts -> Map.entry(tag, facts));
     }
 
     // ========================= 모델/포맷 & 실행 =========================
@@ -614,68 +1326,95 @@ public class StockMetricsFetcher {
         }
     }
 
-    private static boolean isAllowedForm(String form) {
-        if (form == null || form.isBlank()) return true; // form 누락 레코드 허용
-        return switch (form) {
-            case "10-Q","10-Q/A","10-K","10-K/A",
-                 "20-F","20-F/A","40-F","40-F/A",
-                 "6-K","6-K/A" -> true;
-            default -> false;
-        };
-    }
+    /**
+     * 인자: [companyfacts.zip 경로] [--ndjson=결과파일] [--journal=저널파일] [--retry-failed]
+     *       [--rules=룰파일 [--dataset=데이터셋파일]] [--db=r2dbc URL] [--tag-fanout=N] [--frames]
+     * - zip 경로를 주면 벌크 모드(SEC 팩트는 로컬 아카이브에서)
+     * - 온라인 모드는 스크린 단계 평가로 매출/영업이익에서 탈락한 종목의 나머지 요청을 생략
+     * - 통과 종목은 나오는 즉시 stdout(기본) 또는 NDJSON 파일로 출력
+     * - 저널을 주면 끝난 종목은 건너뛰고(통과 종목은 저널에서 다시 출력), --retry-failed 면 실패 종목만 다시 계산
+     * - 룰 파일을 주면 전 종목 지표를 데이터셋으로 한 번 받아 두고(이미 있으면 재사용) 룰의 모든 스크린을 한 번에 평가
+     * - --frames: 종목별 평가 전에 frames(요청 수십 건)로 매출/영업이익 단계 조건을 먼저 걸러 남은 종목만 평가
+     * - --tag-fanout: 종목당 companyconcept 동시 요청 수(모든 개념 합산, 기본 TAG_FANOUT, 1 이면 한 번에 하나씩 순차)
+     */
+    public static void main(String[] args) throws IOException {
+        String zip = null, ndjson = null, journalPath = null, rulesPath = null, datasetPath = "metrics-dataset.ndjson", db = null;
+        boolean retryFailed = false, frames = false;
+        int tagFanout = TAG_FANOUT;
+        for (String arg : args) {
+            if (arg.startsWith("--ndjson=")) ndjson = arg.substring("--ndjson=".length());
+            else if (arg.startsWith("--journal=")) journalPath = arg.substring("--journal=".length());
+            else if (arg.equals("--retry-failed")) retryFailed = true;
+            else if (arg.equals("--frames")) frames = true;
+            else if (arg.startsWith("--rules=")) rulesPath = arg.substring("--rules=".length());
+            else if (arg.startsWith("--dataset=")) datasetPath = arg.substring("--dataset=".length());
+            else if (arg.startsWith("--tag-fanout=")) tagFanout = Integer.parseInt(arg.substring("--tag-fanout=".length()));
+            else if (arg.startsWith("--db=")) db = arg.substring("--db=".length());   // 예: r2dbc:h2:file:///./stock-metrics
+            else zip = arg;
+        }
+        // 룰 파일 오류는 네트워크를 타기 전에 알린다
+        ScreenRules rules = rulesPath != null ? ScreenRules.load(Path.of(rulesPath)) : null;
+        Path dataset = Path.of(datasetPath);
+        if (rules != null && Files.exists(dataset)) {
+            printRuleResults(rules, MetricsTable.load(dataset));
+            return;
+        }
 
-    private Mono<List<JsonNode>> fetchFromCompanyFactsUnion(String cik, String namespace, List<String> tags) {
-        String url = String.format("https://data.sec.gov/api/xbrl/companyfacts/CIK%s.json", cik);
-        return getWithRetry(url)
-                .map(json -> {
-                    try {
-                        JsonNode root = mapper.readTree(json);
-                        JsonNode facts = root.path("facts").path(namespace);
-                        if (facts.isMissingNode()) return Collections.<JsonNode>emptyList();
-
-                        List<JsonNode> out = new ArrayList<>();
-                        for (String tag : tags) {
-                            JsonNode tagNode = facts.path(tag);
-                            if (tagNode.isMissingNode()) continue;
-                            JsonNode units = tagNode.path("units");
-                            if (units.isMissingNode()) continue;
-                            units.fields().forEachRemaining(e -> {
-                                JsonNode arr = e.getValue();
-                                if (arr.isArray()) arr.forEach(out::add);
-                            });
-                        }
-                        return out;
-                    } catch (Exception e) {
-                        System.err.println("companyfacts(union) parse error: " + e.getMessage());
-                        return Collections.<JsonNode>emptyList();
-                    }
-                })
-                .onErrorResume(e -> Mono.just(Collections.<JsonNode>emptyList()));
-    }
+        CompanyFactsArchive archive = zip != null ? CompanyFactsArchive.open(Path.of(zip)) : null;
+        StockMetricsFetcher fetcher = new StockMetricsFetcher(HttpDiskCache.defaultCache(), archive);
+        fetcher.tagFanout(tagFanout);
+        RunJournal journal = journalPath != null ? RunJournal.open(Path.of(journalPath)) : null;
+        QuarterMetricsStore store = db != null ? openStore(db) : null;
+        Screen screen = rules != null ? Screen.ALL : Screen.RISING_GROWTH_VALUE;
+        // 데이터셋은 다 받은 뒤에만 보이도록 임시 파일에 쓰고 옮긴다(중간에 끊긴 파일을 완전한 것으로 재사용하지 않게)
+        Path partial = dataset.resolveSibling(dataset.getFileName() + ".partial");
+        ScreenSink sink = rules != null ? ScreenSink.ndjson(partial)
+                : ndjson != null ? ScreenSink.ndjson(Path.of(ndjson)) : ScreenSink.stdout();
+
+        System.out.println(rules != null ? "=== fetching dataset ===" : "=== result ===");
+        boolean retry = retryFailed, preScreen = frames;
+        Flux<ScreenMatch> matches = fetcher.fetchTickerList()
+                .flatMap(list -> preScreen ? fetcher.framesPreScreen(list, screen, LocalDate.now()) : Mono.just(list))
+                .flatMapMany(list -> journal == null
+                        ? fetcher.screenStream(list, screen)
+                        : fetcher.resumeScreen(list, screen, journal, retry));
+        if (store != null) matches = matches.doOnNext(store::offer);
+        Long matched;
+        try {
+            matched = runScreen(matches, sink).block();
+            // 저장 실패는 flush 가 예외로 올려 실행을 실패시킨다(저장 없이 성공 종료하지 않게)
+            if (store != null) System.out.println("=== " + store.flush().block() + " quarter rows saved to " + db + " ===");
+        } finally {
+            // 태그 기억은 boundedElastic(데몬)에서 비동기로 쓰이므로 종료 전에 남은 줄을 직접 쓴다
+            fetcher.tagAffinity().flush();
+            if (journal != null) journal.close();
+            if (archive != null) archive.close();
+        }
 
+        if (rules == null) {
+            System.out.println("=== " + matched + " matched ===");
+            return;
+        }
+        Files.move(partial, dataset, StandardCopyOption.REPLACE_EXISTING);
+        System.out.println("=== " + matched + " tickers saved to " + dataset + " ===");
+        printRuleResults(rules, MetricsTable.load(dataset));
+    }
 
+    /** 앱과 같은 schema.sql 로 테이블을 맞춘 뒤 저장소를 연다(CLI 실행 결과도 DB 에 남기기 위함). MODE 지정 불필요 */
+    static QuarterMetricsStore openStore(String url) {
+        ConnectionFactory cf = ConnectionFactories.get(url);
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).populate(cf).block();
+        return new QuarterMetricsStore(new QuarterMetricsRepository(DatabaseClient.create(cf)));
+    }
 
-    public static void main(String[] args) {
-        StockMetricsFetcher fetcher = new StockMetricsFetcher();
-        fetcher.fetchTickerList()
-                .flatMapMany(list -> Flux.fromIterable(list))
-                .flatMap(entry -> fetcher.computeMetricsSeries(entry.getKey(), entry.getValue())
-                        .map(series -> Map.entry(entry.getKey(), series)), 6)
-                .collectList()
-                .doOnNext(all -> {
-
-                    List<Map.Entry<String, List<QuarterMetrics>>> result = all.stream().filter(kv ->
-                                    kv.getValue() != null && kv.getValue().size() >= 3
-                                            && kv.getValue().get(0).revenue > kv.getValue().get(1).revenue
-                                            && kv.getValue().get(1).revenue > kv.getValue().get(2).revenue
-                                            && kv.getValue().get(0).operatingIncome > kv.getValue().get(1).operatingIncome
-                                            && kv.getValue().get(1).operatingIncome > kv.getValue().get(2).operatingIncome
-                                            && kv.getValue().get(0).pbr * kv.getValue().get(0).per <= 22.5)
-                            .toList();
-
-                    System.out.println("=== result ===");
-                    result.forEach(kv -> System.out.println(kv.getKey()));
-                })
-                .block();
+    private static void printRuleResults(ScreenRules rules, MetricsTable table) {
+        long t0 = System.nanoTime();
+        Map<String, BitSet> result = rules.evaluate(table);
+        long micros = (System.nanoTime() - t0) / 1_000;
+        for (Map.Entry<String, BitSet> e : result.entrySet()) {
+            System.out.println("=== " + e.getKey() + ": " + e.getValue().cardinality() + " matched ===");
+            e.getValue().stream().forEach(i -> System.out.println(table.row(i).ticker()));
+        }
+        System.out.println("=== " + result.size() + " screens over " + table.size() + " tickers in " + micros + "us ===");
     }
 }
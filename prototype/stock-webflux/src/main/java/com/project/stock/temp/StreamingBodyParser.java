@@ -0,0 +1,16 @@
+package com.project.stock.temp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 응답 본문을 청크 단위로 받아 바로 해석하는 파서.
+ * 네트워크 DataBuffer든 디스크 캐시 스트림이든 같은 방식으로 먹인다(본문 전체를 메모리에 올리지 않음).
+ */
+interface StreamingBodyParser<R> {
+
+    /** chunk는 호출이 끝나면 재사용/해제될 수 있으므로 보관하지 말 것 */
+    void feed(ByteBuffer chunk) throws IOException;
+
+    R finish() throws IOException;
+}
@@ -0,0 +1,163 @@
+package com.project.stock.temp;
+
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * CIK·개념별로 실제 팩트가 나온 XBRL 태그를 기억(tag affinity)
+ * - 한 회사는 거의 매 분기 같은 태그로 보고하므로, 다음 실행부터는 그 태그만 먼저 요청 → 개념당 SEC 호출 1회
+ * - 기억한 태그 결과가 비었거나 오래됐을 때만 로더가 전체 태그를 다시 훑고 새로 기억(learn)
+ * - 파일: append-only TSV(cik \t concept \t namespace:tag[,namespace:tag...]), 같은 키는 마지막 줄이 유효.
+ *   열 때 키별 마지막 줄만 남기도록 압축. 쓰기는 boundedElastic 에서 모아서(호출 스레드에서 파일 I/O 없음)
+ * 힌트일 뿐이라 파일을 못 읽거나 못 써도 메모리로만 동작한다
+ */
+final class TagAffinity {
+
+    static final String FILE_NAME = "tag-affinity.tsv";
+
+    record Tag(String namespace, String name) {
+        /** "us-gaap:Revenues" 형식. 형식이 아니면 null */
+        static Tag parse(String s) {
+            int i = s.indexOf(':');
+            return i <= 0 || i == s.length() - 1 ? null : new Tag(s.substring(0, i), s.substring(i + 1));
+        }
+
+        static List<Tag> of(String namespace, List<String> names) {
+            List<Tag> out = new ArrayList<>(names.size());
+            for (String name : names) out.add(new Tag(namespace, name));
+            return out;
+        }
+
+        @Override
+        public String toString() {
+            return namespace + ':' + name;
+        }
+    }
+
+    /** null 이면 메모리 전용 */
+    private final Path file;
+    private final Map<String, List<Tag>> learned;
+    private final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private TagAffinity(Path file, Map<String, List<Tag>> learned) {
+        this.file = file;
+        this.learned = learned;
+    }
+
+    static TagAffinity inMemory() {
+        return new TagAffinity(null, new ConcurrentHashMap<>());
+    }
+
+    static TagAffinity open(Path file) {
+        Map<String, List<Tag>> learned = new ConcurrentHashMap<>();
+        int lines = 0;
+        try {
+            if (Files.exists(file)) {
+                try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        if (line.isBlank()) continue;
+                        lines++;
+                        String[] cols = line.split("\t");
+                        List<Tag> tags = cols.length == 3 ? parseTags(cols[2]) : List.of();
+                        if (!tags.isEmpty()) learned.put(key(cols[0], cols[1]), tags);
+                    }
+                }
+            }
+            TagAffinity affinity = new TagAffinity(file, learned);
+            if (lines > learned.size()) affinity.compact();
+            return affinity;
+        } catch (IOException e) {
+            System.err.println("tag affinity unavailable (" + file + "): " + e.getMessage());
+            return new TagAffinity(null, learned);
+        }
+    }
+
+    /** 기억한 태그(우선순위 순). 없으면 빈 목록 */
+    List<Tag> tags(String cik, String concept) {
+        return learned.getOrDefault(key(cik, concept), List.of());
+    }
+
+    /** 팩트가 나온 태그를 기억. 빈 목록(전체 탐색도 실패)은 기존 기억을 지우지 않는다 */
+    void learn(String cik, String concept, List<Tag> tags) {
+        if (tags.isEmpty()) return;
+        List<Tag> copy = List.copyOf(tags);
+        if (copy.equals(learned.put(key(cik, concept), copy)) || file == null) return;
+        pending.add(cik + '\t' + concept + '\t' + formatTags(copy) + '\n');
+        if (draining.compareAndSet(false, true)) Schedulers.boundedElastic().schedule(this::drain);
+    }
+
+    int size() {
+        return learned.size();
+    }
+
+    /** 대기 중인 줄을 지금 파일에 쓴다(블로킹) */
+    synchronized void flush() {
+        if (file == null || pending.isEmpty()) return;
+        StringBuilder out = new StringBuilder();
+        for (String line; (line = pending.poll()) != null; ) out.append(line);
+        try {
+            Files.writeString(file, out, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("tag affinity write error: " + e.getMessage());
+        }
+    }
+
+    private void drain() {
+        try {
+            flush();
+        } finally {
+            draining.set(false);
+            // 쓰는 동안 들어온 줄이 있으면 한 번 더
+            if (!pending.isEmpty() && draining.compareAndSet(false, true)) Schedulers.boundedElastic().schedule(this::drain);
+        }
+    }
+
+    /** 키별 마지막 줄만 남겨 다시 쓴다(임시 파일 + 원자적 교체) */
+    private void compact() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".compact");
+        StringBuilder out = new StringBuilder(learned.size() * 64);
+        for (Map.Entry<String, List<Tag>> e : learned.entrySet()) {
+            out.append(e.getKey()).append('\t').append(formatTags(e.getValue())).append('\n');
+        }
+        Files.writeString(tmp, out, StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String key(String cik, String concept) {
+        return cik + '\t' + concept;
+    }
+
+    private static String formatTags(List<Tag> tags) {
+        StringBuilder s = new StringBuilder();
+        for (Tag t : tags) {
+            if (s.length() > 0) s.append(',');
+            s.append(t);
+        }
+        return s.toString();
+    }
+
+    private static List<Tag> parseTags(String s) {
+        List<Tag> out = new ArrayList<>();
+        for (String part : s.split(",")) {
+            Tag t = Tag.parse(part.trim());
+            if (t != null) out.add(t);
+        }
+        return List.copyOf(out);
+    }
+}
@@ -0,0 +1,77 @@
+package com.project.stock.temp;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+
+/**
+ * 종목(CIK) 하나의 companyconcept 동시 요청 상한(고정 슬롯 수)
+ * - 개념 로더들과 그 후보 태그 동시 요청이 모두 같은 슬롯을 나눠 쓴다 → 개념 수와 무관하게 종목당 permits 개까지
+ * - 대기는 FIFO, 스레드 점유 없음. 기다리다 취소되면 줄에서 빠지고, 실행 중 취소되면 슬롯을 다음 대기자에게 넘긴다
+ */
+final class TagSlots {
+
+    private final int permits;
+
+    // 모두 this 로 보호
+    private int inFlight;
+    private final ArrayDeque<Permit> waiters = new ArrayDeque<>();
+
+    TagSlots(int permits) {
+        this.permits = Math.max(1, permits);
+    }
+
+    private static final class Permit {
+        MonoSink<Void> sink;
+        boolean granted;
+    }
+
+    /** 슬롯을 얻은 뒤 work 를 구독하고, 끝나면(취소 포함) 슬롯 반납 */
+    <T> Mono<T> run(Mono<T> work) {
+        return Mono.defer(() -> {
+            Permit permit = new Permit();
+            return acquire(permit).then(work).doFinally(signal -> release(permit));
+        });
+    }
+
+    private Mono<Void> acquire(Permit permit) {
+        return Mono.create(sink -> {
+            boolean go;
+            synchronized (this) {
+                permit.sink = sink;
+                go = inFlight < permits && waiters.isEmpty();
+                if (go) {
+                    inFlight++;
+                    permit.granted = true;
+                } else {
+                    waiters.add(permit);
+                }
+            }
+            if (go) sink.success();
+        });
+    }
+
+    private void release(Permit permit) {
+        Permit next;
+        synchronized (this) {
+            if (!permit.granted) {
+                waiters.remove(permit);   // 기다리다 취소
+                return;
+            }
+            permit.granted = false;
+            next = waiters.poll();
+            if (next == null) inFlight--;
+            else next.granted = true;   // 슬롯을 그대로 넘김
+        }
+        if (next != null) next.sink.success();
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    synchronized int queued() {
+        return waiters.size();
+    }
+}
@@ -0,0 +1,215 @@
+package com.project.stock.temp;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 티커 → CIK 불변 인덱스 (SEC company_tickers.json)
+ * - 정렬된 티커 배열 + 같은 순서의 int CIK 배열: 이진 탐색 조회, 접두어 조회(자동완성)
+ * - CIK 는 int 로만 들고 있다가 URL 을 만들 때만 10자리로 채움(cikString)
+ * - SEC 파일 순서(대략 시가총액 순)도 rank 배열로 보존 → 전 종목 스크린은 예전처럼 큰 회사부터
+ * - 바이너리 스냅숏(write/read): JSON 을 다시 받거나 파싱하지 않고 시작 시 바로 적재
+ * 같은 티커가 여러 번 나오면 먼저 나온 것(상위 순위)을 쓴다
+ */
+public final class TickerIndex {
+
+    static final TickerIndex EMPTY = new TickerIndex(new String[0], new int[0], new int[0], 0L);
+
+    private static final int MAGIC = 0x54494458;   // "TIDX"
+    private static final int VERSION = 1;
+    private static final JsonFactory JSON = new JsonFactory();
+
+    /** 정렬 순 */
+    private final String[] tickers;
+    private final int[] ciks;
+    /** SEC 파일 순서 → tickers 위치 */
+    private final int[] rank;
+    /** 인덱스를 만든(받은) 시각. 스냅숏 TTL 판단용 */
+    private final long builtAtMillis;
+
+    private TickerIndex(String[] tickers, int[] ciks, int[] rank, long builtAtMillis) {
+        this.tickers = tickers;
+        this.ciks = ciks;
+        this.rank = rank;
+        this.builtAtMillis = builtAtMillis;
+    }
+
+    /** (티커, CIK) 를 SEC 순서대로 받아 만든다 */
+    static TickerIndex build(List<String> tickersInOrder, List<Integer> ciksInOrder, long builtAtMillis) {
+        List<Integer> order = new ArrayList<>(tickersInOrder.size());
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < tickersInOrder.size(); i++) {
+            if (seen.add(tickersInOrder.get(i))) order.add(i);
+        }
+        Integer[] sorted = order.toArray(new Integer[0]);
+        Arrays.sort(sorted, Comparator.comparing(tickersInOrder::get));
+        int n = sorted.length;
+        String[] tickers = new String[n];
+        int[] ciks = new int[n];
+        int[] positionOf = new int[tickersInOrder.size()];
+        for (int p = 0; p < n; p++) {
+            tickers[p] = tickersInOrder.get(sorted[p]);
+            ciks[p] = ciksInOrder.get(sorted[p]);
+            positionOf[sorted[p]] = p;
+        }
+        int[] rank = new int[n];
+        for (int r = 0; r < n; r++) rank[r] = positionOf[order.get(r)];
+        return new TickerIndex(tickers, ciks, rank, builtAtMillis);
+    }
+
+    /**
+     * company_tickers.json 본문: {"0":{"cik_str":320193,"ticker":"AAPL","title":"Apple Inc."}, ...}
+     * 스트리밍으로 cik_str/ticker 만 읽는다(Map 트리를 만들지 않음)
+     */
+    static TickerIndex parse(byte[] json, long builtAtMillis) throws IOException {
+        List<String> tickers = new ArrayList<>(12_000);
+        List<Integer> ciks = new ArrayList<>(12_000);
+        try (JsonParser p = JSON.createParser(json)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) throw new IOException("company_tickers: object expected");
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                if (p.nextToken() != JsonToken.START_OBJECT) {
+                    p.skipChildren();
+                    continue;
+                }
+                String ticker = null;
+                int cik = -1;
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = p.currentName();
+                    JsonToken value = p.nextToken();
+                    if ("cik_str".equals(field) && value.isNumeric()) cik = p.getIntValue();
+                    else if ("cik_str".equals(field) && value == JsonToken.VALUE_STRING) cik = Integer.parseInt(p.getText().trim());
+                    else if ("ticker".equals(field) && value == JsonToken.VALUE_STRING) ticker = p.getText();
+                    else p.skipChildren();
+                }
+                if (ticker != null && !ticker.isBlank() && cik >= 0) {
+                    tickers.add(ticker.toUpperCase(Locale.ROOT));
+                    ciks.add(cik);
+                }
+            }
+        }
+        return build(tickers, ciks, builtAtMillis);
+    }
+
+    int size() {
+        return tickers.length;
+    }
+
+    public boolean isEmpty() {
+        return tickers.length == 0;
+    }
+
+    long builtAtMillis() {
+        return builtAtMillis;
+    }
+
+    /** 대문자 티커의 CIK. 없으면 -1 */
+    int cik(String ticker) {
+        int i = Arrays.binarySearch(tickers, ticker);
+        return i >= 0 ? ciks[i] : -1;
+    }
+
+    /** 10자리 CIK 문자열(SEC URL 용). 없으면 null */
+    public String cikString(String ticker) {
+        int cik = cik(ticker);
+        return cik < 0 ? null : cikString(cik);
+    }
+
+    /** 접두어로 시작하는 티커(사전순) 최대 limit 개 */
+    public List<String> withPrefix(String prefix, int limit) {
+        int from = Arrays.binarySearch(tickers, prefix);
+        if (from < 0) from = -from - 1;
+        List<String> out = new ArrayList<>(Math.min(limit, 16));
+        for (int i = from; i < tickers.length && out.size() < limit && tickers[i].startsWith(prefix); i++) out.add(tickers[i]);
+        return out;
+    }
+
+    /**
+     * SEC 순서의 (티커, 10자리 CIK) 목록 뷰. 항목은 꺼낼 때 만든다(전 종목 스크린 입력용)
+     */
+    List<Map.Entry<String, String>> entries() {
+        return new AbstractList<>() {
+            @Override
+            public Map.Entry<String, String> get(int r) {
+                int i = rank[r];
+                return new AbstractMap.SimpleImmutableEntry<>(tickers[i], cikString(ciks[i]));
+            }
+
+            @Override
+            public int size() {
+                return rank.length;
+            }
+        };
+    }
+
+    /** String.format("%010d") 대신 직접 채움 */
+    static String cikString(int cik) {
+        char[] out = new char[10];
+        for (int i = 9; i >= 0; i--) {
+            out[i] = (char) ('0' + cik % 10);
+            cik /= 10;
+        }
+        return new String(out);
+    }
+
+    // ---------- 스냅숏 ----------
+
+    /** 임시 파일에 쓰고 원자적 교체(읽는 쪽이 반쯤 쓴 파일을 보지 않게) */
+    void write(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(builtAtMillis);
+            out.writeInt(tickers.length);
+            for (int i = 0; i < tickers.length; i++) {
+                out.writeUTF(tickers[i]);
+                out.writeInt(ciks[i]);
+            }
+            for (int r : rank) out.writeInt(r);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** 스냅숏이 없거나 형식이 다르거나 잘려 있으면 null */
+    static TickerIndex read(Path file) throws IOException {
+        if (!Files.exists(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            long builtAt = in.readLong();
+            int n = in.readInt();
+            if (n < 0 || n > Files.size(file)) return null;
+            String[] tickers = new String[n];
+            int[] ciks = new int[n];
+            for (int i = 0; i < n; i++) {
+                tickers[i] = in.readUTF();
+                ciks[i] = in.readInt();
+            }
+            int[] rank = new int[n];
+            for (int r = 0; r < n; r++) rank[r] = in.readInt();
+            return new TickerIndex(tickers, ciks, rank, builtAt);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+}
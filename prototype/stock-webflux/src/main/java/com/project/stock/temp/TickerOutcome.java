@@ -0,0 +1,38 @@
+package com.project.stock.temp;
+
+import com.project.stock.temp.StockMetricsFetcher.QuarterMetrics;
+
+import java.util.List;
+
+/** 스크린 실행에서 종목 하나의 결과. 저널 한 줄에 대응 */
+public record TickerOutcome(String ticker, String cik, Status status, List<QuarterMetrics> quarters, String reason) {
+
+    public enum Status {
+        /** 스크린 통과(quarters 보유) */
+        MATCH,
+        /** 정상 평가했으나 탈락 */
+        REJECT,
+        /** 조회 오류로 판정 불가(reason 보유) — 재시도 대상 */
+        FAIL
+    }
+
+    public static TickerOutcome match(String ticker, String cik, List<QuarterMetrics> quarters) {
+        return new TickerOutcome(ticker, cik, Status.MATCH, quarters, null);
+    }
+
+    static TickerOutcome reject(String ticker, String cik) {
+        return new TickerOutcome(ticker, cik, Status.REJECT, List.of(), null);
+    }
+
+    public static TickerOutcome fail(String ticker, String cik, String reason) {
+        return new TickerOutcome(ticker, cik, Status.FAIL, List.of(), reason);
+    }
+
+    boolean isDone() {
+        return status != Status.FAIL;
+    }
+
+    public ScreenMatch toMatch() {
+        return new ScreenMatch(ticker, cik, quarters);
+    }
+}
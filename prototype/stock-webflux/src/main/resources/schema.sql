@@ -11,3 +11,23 @@ CREATE TABLE IF NOT EXISTS app_user (
 -- 조회 속도/중복 방지용 인덱스/제약 (선택)
 CREATE INDEX IF NOT EXISTS idx_app_user_username ON app_user(username);
 CREATE INDEX IF NOT EXISTS idx_app_user_email ON app_user(email);
+
+-- 종목별 분기 지표(StockMetricsFetcher 계산 결과). NaN(데이터 없음)은 NULL
+CREATE TABLE IF NOT EXISTS quarter_metrics (
+    ticker VARCHAR(16) NOT NULL,
+    period_end DATE NOT NULL,
+    cik VARCHAR(10) NOT NULL,
+    revenue DOUBLE,
+    operating_income DOUBLE,
+    eps DOUBLE,
+    equity DOUBLE,
+    shares DOUBLE,
+    price DOUBLE,
+    per DOUBLE,
+    pbr DOUBLE,
+    updated_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (ticker, period_end)
+    );
+
+-- 횡단면 조회(특정 분기의 전 종목)용
+CREATE INDEX IF NOT EXISTS idx_quarter_metrics_period_end ON quarter_metrics(period_end, ticker);
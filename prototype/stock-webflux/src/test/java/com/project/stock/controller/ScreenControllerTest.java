@@ -0,0 +1,187 @@
+package com.project.stock.controller;
+
+import com.project.stock.domain.QuarterMetricsRow;
+import com.project.stock.domain.dto.ScreenRequest;
+import com.project.stock.repository.QuarterMetricsRepository;
+import com.project.stock.service.JwtService;
+import com.project.stock.service.ScreeningService;
+import com.project.stock.temp.StockMetricsFetcher;
+import com.project.stock.temp.StubServer;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.convention.TestBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * /api/metrics, /api/tickers, /api/screens 를 HTTP 로 검증
+ * - SEC 는 로컬 대역 서버(StubServer). AAA 는 저장된 quarter_metrics 로 응답(가격 소스 없이 MATCH),
+ *   BBB 는 companyfacts 가 500 이라 조회 실패
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+class ScreenControllerTest {
+
+    private static final StubServer SEC = startSec();
+
+    @TestBean(name = "stockMetricsFetcher", methodName = "stubFetcher")
+    StockMetricsFetcher fetcher;
+
+    @Autowired
+    WebTestClient client;
+
+    @Autowired
+    DatabaseClient db;
+
+    @Autowired
+    QuarterMetricsRepository repository;
+
+    @Autowired
+    JwtService jwtService;
+
+    private String token;
+
+    private static StubServer startSec() {
+        try {
+            return StubServer.start()
+                    .route("/files/company_tickers.json", "{\"0\":{\"cik_str\":1,\"ticker\":\"AAA\",\"title\":\"A\"},"
+                            + "\"1\":{\"cik_str\":2,\"ticker\":\"BBB\",\"title\":\"B\"},"
+                            + "\"2\":{\"cik_str\":3,\"ticker\":\"AAB\",\"title\":\"C\"}}")
+                    .fail("/api/xbrl/companyfacts/CIK0000000002.json", 500);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static StockMetricsFetcher stubFetcher() throws IOException {
+        return SEC.fetcher(Files.createTempDirectory("screen-controller"));
+    }
+
+    @AfterAll
+    static void stopSec() {
+        SEC.close();
+    }
+
+    @BeforeEach
+    void seed() {
+        db.sql("DELETE FROM quarter_metrics").then().block();
+        token = jwtService.generate("screen-tester", List.of("ROLE_USER"));
+        LocalDate end = LocalDate.now(ZoneOffset.UTC).minusDays(30);
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        List<QuarterMetricsRow> rows = new ArrayList<>();
+        for (int k = 0; k < 3; k++) {
+            rows.add(new QuarterMetricsRow("AAA", end.minusMonths(3L * k), "0000000001",
+                    100.0 - k, 10.0 - k, 1.0, 50.0, 10.0, 20.0, 20.0, 4.0, now));
+        }
+        repository.upsertAll(rows).block(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void metricsOfStoredTicker() {
+        client.get().uri("/api/metrics/aaa")
+                .headers(h -> h.setBearerAuth(token))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.ticker").isEqualTo("AAA")
+                .jsonPath("$.cik").isEqualTo("0000000001")
+                .jsonPath("$.quarters.length()").isEqualTo(3);
+    }
+
+    @Test
+    void unknownTickerIs404() {
+        client.get().uri("/api/metrics/ZZZ")
+                .headers(h -> h.setBearerAuth(token))
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("unknown ticker: ZZZ");
+    }
+
+    @Test
+    void failedFetchIs502() {
+        client.get().uri("/api/metrics/BBB")
+                .headers(h -> h.setBearerAuth(token))
+                .exchange()
+                .expectStatus().isEqualTo(502)
+                .expectBody()
+                .jsonPath("$.message").value(m -> Assertions.assertThat((String) m).startsWith("BBB: "));
+    }
+
+    @Test
+    void tickersByPrefix() {
+        client.get().uri("/api/tickers?prefix=aa")
+                .headers(h -> h.setBearerAuth(token))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].ticker").isEqualTo("AAA")
+                .jsonPath("$[0].cik").isEqualTo("0000000001")
+                .jsonPath("$[1].ticker").isEqualTo("AAB");
+    }
+
+    @Test
+    void invalidRuleIs400() {
+        client.post().uri("/api/screens")
+                .headers(h -> h.setBearerAuth(token))
+                .bodyValue(new ScreenRequest(List.of("AAA"), "revenue >"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").value(m -> Assertions.assertThat((String) m).startsWith("invalid rule: "));
+    }
+
+    @Test
+    void screenWithoutTickersOrTooManyIs400() {
+        client.post().uri("/api/screens")
+                .headers(h -> h.setBearerAuth(token))
+                .bodyValue(new ScreenRequest(null, "revenue > 0"))
+                .exchange()
+                .expectStatus().isBadRequest();
+        client.post().uri("/api/screens")
+                .headers(h -> h.setBearerAuth(token))
+                .bodyValue(new ScreenRequest(Collections.nCopies(ScreeningService.MAX_SCREEN_TICKERS + 1, "AAA"), null))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void screenStreamsMatchesThenDone() {
+        List<ServerSentEvent<String>> events = client.post().uri("/api/screens")
+                .headers(h -> h.setBearerAuth(token))
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(new ScreenRequest(List.of("aaa", "ZZZ"), "rising(revenue, 3)"))
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+                .getResponseBody()
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        Assertions.assertThat(events).extracting(ServerSentEvent::event).containsExactly("match", "done");
+        Assertions.assertThat(events.get(0).id()).isEqualTo("AAA");
+        Assertions.assertThat(events.get(0).data()).contains("\"ticker\":\"AAA\"");
+    }
+}
@@ -0,0 +1,48 @@
+package com.project.stock.service;
+
+import com.project.stock.temp.StockMetricsFetcher.QuarterMetrics;
+import com.project.stock.temp.TickerOutcome;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+class ScreeningServiceTest {
+
+    private static TickerOutcome lastQuarter(LocalDate end) {
+        return TickerOutcome.match("AAA", "0000000001", List.of(new QuarterMetrics(end, 1, 1, 1, 1, 1, 1, 1, 1)));
+    }
+
+    @Test
+    void ttlFollowsTheNextExpectedFiling() {
+        LocalDate q = LocalDate.of(2025, 3, 31);   // 다음 분기말 2025-06-30
+        // 분기말 직후 제출된 10-Q: 다음 분기말까지 새 실적 없음 → 상한 7일
+        Assertions.assertThat(ScreeningService.filingTtl(lastQuarter(q), LocalDate.of(2025, 5, 10)))
+                .isEqualTo(ScreeningService.MAX_TTL);
+        // 다음 분기말 사흘 전 → 사흘
+        Assertions.assertThat(ScreeningService.filingTtl(lastQuarter(q), LocalDate.of(2025, 6, 27)))
+                .isEqualTo(Duration.ofDays(3));
+        // 다음 분기말이 지나 제출 대기 중 → 짧게
+        Assertions.assertThat(ScreeningService.filingTtl(lastQuarter(q), LocalDate.of(2025, 7, 20)))
+                .isEqualTo(ScreeningService.FILING_DUE_TTL);
+    }
+
+    /** 시리즈는 최신 분기부터: 오래된 분기가 아니라 get(0) 기준 */
+    @Test
+    void ttlUsesLatestQuarterOfNewestFirstSeries() {
+        TickerOutcome o = TickerOutcome.match("AAA", "0000000001", List.of(
+                new QuarterMetrics(LocalDate.of(2025, 3, 31), 1, 1, 1, 1, 1, 1, 1, 1),
+                new QuarterMetrics(LocalDate.of(2024, 12, 31), 1, 1, 1, 1, 1, 1, 1, 1)));
+        Assertions.assertThat(ScreeningService.filingTtl(o, LocalDate.of(2025, 5, 10))).isEqualTo(ScreeningService.MAX_TTL);
+    }
+
+    @Test
+    void failuresAreNotCachedAndEmptySeriesIsShortLived() {
+        LocalDate today = LocalDate.of(2025, 5, 10);
+        Assertions.assertThat(ScreeningService.filingTtl(TickerOutcome.fail("AAA", "1", "503"), today)).isZero();
+        Assertions.assertThat(ScreeningService.filingTtl(TickerOutcome.match("AAA", "1", List.of()), today))
+                .isEqualTo(ScreeningService.FILING_DUE_TTL);
+    }
+}
@@ -0,0 +1,86 @@
+package com.project.stock.temp;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class AdaptiveLimiterTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(1_000 * MS);
+    private final AdaptiveLimiter limiter = new AdaptiveLimiter(clock::get);
+
+    /** 끝나지 않는 작업 n 개로 슬롯을 채운다 */
+    private List<Disposable> occupy(int n) {
+        List<Disposable> held = new ArrayList<>();
+        for (int i = 0; i < n; i++) held.add(limiter.run(Mono.never()).subscribe());
+        return held;
+    }
+
+    @Test
+    void growsWhileLatencyIsStableAndShrinksWhenItClimbs() {
+        occupy(AdaptiveLimiter.INITIAL_LIMIT);
+        for (int i = 0; i < 100; i++) limiter.onSample(200 * MS);
+        int grown = limiter.limit();
+        Assertions.assertThat(grown).isGreaterThan(AdaptiveLimiter.INITIAL_LIMIT);
+
+        for (int i = 0; i < 40; i++) limiter.onSample(900 * MS);   // 대기열이 쌓여 지연이 4배 이상
+        Assertions.assertThat(limiter.limit()).isLessThan(grown / 2);
+        Assertions.assertThat(limiter.limit()).isGreaterThanOrEqualTo(AdaptiveLimiter.MIN_LIMIT);
+    }
+
+    @Test
+    void doesNotGrowWhenSlotsAreMostlyIdle() {
+        occupy(1);
+        for (int i = 0; i < 100; i++) limiter.onSample(200 * MS);
+        Assertions.assertThat(limiter.limit()).isEqualTo(AdaptiveLimiter.INITIAL_LIMIT);
+    }
+
+    @Test
+    void overloadBacksOffOncePerInterval() {
+        limiter.onOverload();
+        limiter.onOverload();   // 같은 폭주의 연속 429
+        Assertions.assertThat(limiter.limit()).isEqualTo((int) (AdaptiveLimiter.INITIAL_LIMIT * AdaptiveLimiter.BACKOFF));
+        clock.addAndGet(AdaptiveLimiter.BACKOFF_INTERVAL.toNanos());
+        for (int i = 0; i < 10; i++) {
+            limiter.onOverload();
+            clock.addAndGet(AdaptiveLimiter.BACKOFF_INTERVAL.toNanos());
+        }
+        Assertions.assertThat(limiter.limit()).isEqualTo(AdaptiveLimiter.MIN_LIMIT);
+    }
+
+    @Test
+    void queuedWorkStartsInOrderAsSlotsFreeAndCancelledWaitersLeave() {
+        List<Disposable> held = occupy(AdaptiveLimiter.INITIAL_LIMIT);
+        AtomicInteger started = new AtomicInteger();
+        Sinks.One<String> done = Sinks.one();
+        Disposable waiting = limiter.run(Mono.fromRunnable(started::incrementAndGet).then(done.asMono())).subscribe();
+        Disposable abandoned = limiter.run(Mono.fromRunnable(started::incrementAndGet)).subscribe();
+        Assertions.assertThat(limiter.queued()).isEqualTo(2);
+        Assertions.assertThat(started).hasValue(0);
+
+        abandoned.dispose();
+        Assertions.assertThat(limiter.queued()).isEqualTo(1);
+
+        held.get(0).dispose();   // 슬롯 하나 반납(취소는 지연 표본이 아님)
+        Assertions.assertThat(started).hasValue(1);
+        Assertions.assertThat(limiter.inFlight()).isEqualTo(AdaptiveLimiter.INITIAL_LIMIT);
+
+        clock.addAndGet(300 * MS);
+        done.tryEmitValue("ok");
+        Assertions.assertThat(limiter.inFlight()).isEqualTo(AdaptiveLimiter.INITIAL_LIMIT - 1);
+        Assertions.assertThat(waiting.isDisposed()).isTrue();
+        held.forEach(Disposable::dispose);
+        Assertions.assertThat(limiter.inFlight()).isZero();
+        Assertions.assertThat(limiter.run(Mono.just(1)).block(Duration.ofSeconds(1))).isEqualTo(1);
+    }
+}
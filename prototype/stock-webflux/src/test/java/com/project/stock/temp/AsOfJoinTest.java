@@ -0,0 +1,76 @@
+package com.project.stock.temp;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class AsOfJoinTest {
+
+    @Test
+    void matchesPerKeyLinearScan() {
+        Random rnd = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            DaySeries a = randomSeries(rnd);
+            DaySeries b = randomSeries(rnd);
+            int[] keys = AsOfJoin.unionDays(rnd.nextInt(400), a, b);
+
+            double[][] cols = AsOfJoin.join(keys, AsOfJoin.nearest(a, 10), AsOfJoin.floor(b), AsOfJoin.floor(a, 5));
+            for (int r = 0; r < keys.length; r++) {
+                Assertions.assertThat(cols[0][r]).isEqualTo((Double) near(a, keys[r], 10));   // Double 로 비교해야 NaN == NaN
+                Assertions.assertThat(cols[1][r]).isEqualTo((Double) floor(b, keys[r], AsOfJoin.UNBOUNDED));
+                Assertions.assertThat(cols[2][r]).isEqualTo((Double) floor(a, keys[r], 5));
+            }
+        }
+    }
+
+    @Test
+    void unionDaysMergesFromCutoffWithoutDuplicates() {
+        DaySeries a = new DaySeries(new int[]{1, 5, 9}, new double[]{1, 2, 3});
+        DaySeries b = new DaySeries(new int[]{5, 7}, new double[]{4, 5});
+
+        Assertions.assertThat(AsOfJoin.unionDays(4, a, b)).containsExactly(5, 7, 9);
+    }
+
+    @Test
+    void nearestTieTakesEarlierDay() {
+        DaySeries s = new DaySeries(new int[]{10, 20}, new double[]{1, 2});
+
+        Assertions.assertThat(AsOfJoin.join(new int[]{15}, AsOfJoin.nearest(s, 5))[0]).containsExactly(1.0);
+    }
+
+    // ---------- 기준 구현: 키마다 전체 시리즈를 훑는다 ----------
+
+    /** key 이하 중 가장 늦은 점, key − day ≤ lookback 일 때만 */
+    private static double floor(DaySeries s, int key, long lookback) {
+        double v = Double.NaN;
+        for (int i = 0; i < s.size(); i++) {
+            if (s.day(i) <= key && key - s.day(i) <= lookback) v = s.value(i);
+        }
+        return v;
+    }
+
+    /** |key − day| ≤ window 중 가장 가까운 점, 동률이면 이전 날짜 */
+    private static double near(DaySeries s, int key, int window) {
+        double v = Double.NaN;
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < s.size(); i++) {
+            long diff = Math.abs((long) key - s.day(i));
+            if (diff <= window && diff < best) { v = s.value(i); best = diff; }
+        }
+        return v;
+    }
+
+    private static DaySeries randomSeries(Random rnd) {
+        int n = rnd.nextInt(30);
+        int[] d = new int[n];
+        double[] v = new double[n];
+        int day = rnd.nextInt(50);
+        for (int i = 0; i < n; i++) {
+            day += 1 + rnd.nextInt(40);
+            d[i] = day;
+            v[i] = rnd.nextInt(1000);
+        }
+        return new DaySeries(d, v);
+    }
+}
@@ -0,0 +1,139 @@
+package com.project.stock.temp;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 디스크 캐시 경유 GET(cachedGet/conditionalGet, 스트리밍 tee)을 로컬 대역 서버의 요청 수로 검증
+ * - company_tickers 는 cachedGet, frames 는 스트리밍 경로. 티커 스냅숏은 매번 지워 HTTP 캐시까지 내려가게 한다
+ * - 캐시 시계를 돌려 TTL 만료를 만든다
+ */
+class CachedGetTest {
+
+    private static final String TICKERS = "/files/company_tickers.json";
+    private static final String JSON = """
+            {"0":{"cik_str":320193,"ticker":"AAPL","title":"Apple Inc."},
+             "1":{"cik_str":789019,"ticker":"MSFT","title":"MICROSOFT CORP"}}""";
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Wed, 01 Jan 2025 00:00:00 GMT";
+
+    @TempDir
+    Path cacheDir;
+
+    private StubServer server;
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private HttpDiskCache cache;
+    private StockMetricsFetcher fetcher;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = StubServer.start();
+        server.route(TICKERS, JSON);
+        cache = new HttpDiskCache(cacheDir, clock::get);
+        fetcher = server.fetcher(cache, registry);
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void freshEntrySkipsTheNetwork() throws IOException {
+        loadTickers();
+        loadTickers();
+        Assertions.assertThat(server.requested()).hasSize(1);
+        Assertions.assertThat(cacheCount("fresh")).isEqualTo(1);
+    }
+
+    @Test
+    void expiredEntryRevalidatesAnd304ReusesTheBlob() throws IOException {
+        server.validators(TICKERS, ETAG, LAST_MODIFIED);
+        loadTickers();
+        HttpDiskCache.Entry first = cache.lookup(server.base() + TICKERS);
+        Assertions.assertThat(first.etag).isEqualTo(ETAG);
+        Assertions.assertThat(server.lastRequestHeaders(TICKERS).getFirst("If-None-Match")).isNull();
+
+        clock.addAndGet(HttpDiskCache.SEC_TICKERS_TTL.toMillis());
+        loadTickers();
+        Assertions.assertThat(server.requested()).hasSize(2);
+        Assertions.assertThat(server.lastRequestHeaders(TICKERS).getFirst("If-None-Match")).isEqualTo(ETAG);
+        Assertions.assertThat(server.lastRequestHeaders(TICKERS).getFirst("If-Modified-Since")).isEqualTo(LAST_MODIFIED);
+        Assertions.assertThat(cacheCount("revalidated")).isEqualTo(1);
+
+        HttpDiskCache.Entry touched = cache.lookup(server.base() + TICKERS);
+        Assertions.assertThat(touched.blob).isEqualTo(first.blob);
+        Assertions.assertThat(touched.validatedAt).isEqualTo(clock.get());
+
+        loadTickers();   // touch 로 다시 TTL 안
+        Assertions.assertThat(server.requested()).hasSize(2);
+    }
+
+    @Test
+    void failedRevalidationFallsBackToTheStaleBody() throws IOException {
+        loadTickers();
+        clock.addAndGet(HttpDiskCache.SEC_TICKERS_TTL.toMillis());
+        server.fail(TICKERS, 503);
+
+        loadTickers();   // 스냅숏이 없으므로 인덱스는 오래된 캐시 본문에서
+        Assertions.assertThat(server.requested()).hasSize(1 + 3);   // 재검증 첫 시도 + 재시도 2
+        Assertions.assertThat(cacheCount("stale")).isEqualTo(1);
+    }
+
+    @Test
+    void identicalBodiesShareOneBlob() throws IOException {
+        StepVerifier.create(fetcher.loadUniverseFromFrames(List.of(), LocalDate.of(2025, 2, 15), 4))
+                .expectNextCount(1).expectComplete().verify(Duration.ofSeconds(60));
+
+        // frames 30건이 전부 같은 빈 frame
+        Assertions.assertThat(server.requested()).hasSize(30);
+        Assertions.assertThat(files("entries")).hasSize(30);
+        Assertions.assertThat(files("blobs")).hasSize(1);
+    }
+
+    @Test
+    void malformedStreamLeavesNoTempFileOrEntry() throws IOException {
+        String path = "/api/xbrl/frames/us-gaap/Revenues/USD/CY2024Q1.json";
+        server.route(path, "{\"taxonomy\":\"us-gaap\",\"data\":[}");
+        StepVerifier.create(fetcher.loadUniverseFromFrames(List.of(), LocalDate.of(2025, 2, 15), 4))
+                .expectNextCount(1).expectComplete().verify(Duration.ofSeconds(60));
+
+        Assertions.assertThat(cache.lookup(server.base() + path)).isNull();
+        Assertions.assertThat(files("entries")).hasSize(29);
+        Assertions.assertThat(files("blobs")).noneMatch(name -> name.endsWith(".tmp"));
+    }
+
+    private void loadTickers() throws IOException {
+        Files.deleteIfExists(cacheDir.resolve(StockMetricsFetcher.TICKER_SNAPSHOT));
+        StepVerifier.create(fetcher.tickerIndex())
+                .assertNext(index -> Assertions.assertThat(index.cikString("MSFT")).isEqualTo("0000789019"))
+                .expectComplete()
+                .verify(Duration.ofSeconds(30));
+    }
+
+    private double cacheCount(String result) {
+        return registry.get("fetcher.cache").tags("upstream", "sec", "result", result).counter().count();
+    }
+
+    private List<String> files(String sub) throws IOException {
+        try (Stream<Path> s = Files.list(cacheDir.resolve(sub))) {
+            return s.map(p -> p.getFileName().toString()).filter(name -> !name.equals(TagAffinity.FILE_NAME)).toList();
+        }
+    }
+}
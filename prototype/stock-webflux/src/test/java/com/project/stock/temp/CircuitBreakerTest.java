@@ -0,0 +1,109 @@
+package com.project.stock.temp;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker("stooq", Duration.ofSeconds(30), now::get);
+
+    private Mono<String> call(Mono<String> body) {
+        return breaker.guard(body, StockMetricsFetcher::isUpstreamFailure);
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            StepVerifier.create(call(Mono.error(new IOException("reset")))).expectError().verify();
+        }
+    }
+
+    @Test
+    void opensOnFailureRateAndRejectsWithoutSubscribing() {
+        StepVerifier.create(call(Mono.just("ok"))).expectNext("ok").verifyComplete();
+        fail(2);
+        Assertions.assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);   // MIN_CALLS 미만
+        fail(2);
+        Assertions.assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);   // 4/5 실패
+
+        AtomicInteger subscribed = new AtomicInteger();
+        StepVerifier.create(call(Mono.fromSupplier(() -> "x").doOnSubscribe(s -> subscribed.incrementAndGet())))
+                .expectError(CircuitBreaker.OpenException.class)
+                .verify();
+        Assertions.assertThat(subscribed).hasValue(0);
+        Assertions.assertThat(breaker.health()).isZero();
+    }
+
+    @Test
+    void halfOpenLetsExactlyOneProbeThroughPerInterval() {
+        fail(CircuitBreaker.MIN_CALLS);
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        Sinks.One<String> probe = Sinks.one();
+        StepVerifier.create(call(probe.asMono()))
+                .then(() -> {
+                    Assertions.assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+                    StepVerifier.create(call(Mono.just("other"))).expectError(CircuitBreaker.OpenException.class).verify();
+                    probe.tryEmitError(new IOException("still down"));
+                })
+                .expectError(IOException.class)
+                .verify();
+        Assertions.assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // 다시 한 주기 뒤 탐침 성공 → CLOSED, 창 초기화
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        StepVerifier.create(call(Mono.just("back"))).expectNext("back").verifyComplete();
+        Assertions.assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        Assertions.assertThat(breaker.failureRate()).isZero();
+    }
+
+    @Test
+    void cancelledProbeAndUnrelatedErrorsDoNotCount() {
+        fail(CircuitBreaker.MIN_CALLS);
+        now.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        StepVerifier.create(call(Mono.never())).expectSubscription().thenCancel().verify();
+        Assertions.assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        // 취소된 탐침은 자리를 돌려준다
+        StepVerifier.create(call(Mono.just("ok"))).expectNext("ok").verifyComplete();
+        Assertions.assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        for (int i = 0; i < 10; i++) {
+            StepVerifier.create(call(Mono.error(new JsonParseException(null, "bad"))))
+                    .expectError().verify();
+        }
+        Assertions.assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        Assertions.assertThat(breaker.failureRate()).isZero();
+    }
+
+    @Test
+    void windowSlidesSoOldFailuresAgeOut() {
+        fail(2);
+        for (int i = 0; i < CircuitBreaker.WINDOW; i++) breaker.onSuccess();
+        Assertions.assertThat(breaker.failureRate()).isZero();
+        Assertions.assertThat(breaker.health()).isEqualTo(1.0);
+    }
+
+    @Test
+    void byHealthMovesDegradedSourcesBehindHealthyOnesStably() {
+        fail(CircuitBreaker.MIN_CALLS);
+        CircuitBreaker yahoo = new CircuitBreaker("yahoo");
+        Map<String, CircuitBreaker> of = Map.of("stooq-d", breaker, "stooq-w", breaker, "yahoo", yahoo);
+
+        Assertions.assertThat(CircuitBreaker.byHealth(List.of("stooq-d", "stooq-w", "yahoo"), of::get))
+                .containsExactly("yahoo", "stooq-d", "stooq-w");
+        Assertions.assertThat(CircuitBreaker.byHealth(List.of("yahoo", "stooq-d"), s -> yahoo))
+                .containsExactly("yahoo", "stooq-d");
+    }
+}
@@ -0,0 +1,103 @@
+package com.project.stock.temp;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * 벌크 companyfacts.zip 리더 + 오프라인 지표 계산
+ * fixture: CIK0000000001(deflate, us-gaap/dei), CIK0000000002(stored, ifrs-full), README.txt(무시)
+ */
+class CompanyFactsArchiveTest {
+
+    private CompanyFactsArchive archive;
+
+    @BeforeEach
+    void open() throws Exception {
+        Path zip = Path.of(getClass().getResource("/companyfacts/companyfacts-fixture.zip").toURI());
+        archive = CompanyFactsArchive.open(zip);
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        archive.close();
+    }
+
+    @Test
+    void indexesOnlyCikEntries() {
+        Assertions.assertThat(archive.ciks()).containsExactlyInAnyOrder("0000000001", "0000000002");
+        Assertions.assertThat(CompanyFactsArchive.cikOf("companyfacts/CIK0000320193.json")).isEqualTo("0000320193");
+        Assertions.assertThat(CompanyFactsArchive.cikOf("README.txt")).isNull();
+    }
+
+    @Test
+    void decodesDeflatedEntryKeepingOnlyWantedTags() {
+        StepVerifier.create(archive.read("0000000001", StockMetricsFetcher.COMPANY_FACTS_TAGS))
+                .assertNext(doc -> {
+                    Assertions.assertThat(doc.facts("us-gaap", "Revenues").size).isEqualTo(4);
+                    Assertions.assertThat(doc.facts("dei", "EntityCommonStockSharesOutstanding").size).isEqualTo(1);
+                    Assertions.assertThat(doc.facts("us-gaap", "Assets").isEmpty()).isTrue();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void decodesStoredEntry() {
+        StepVerifier.create(archive.read("0000000002", StockMetricsFetcher.COMPANY_FACTS_TAGS))
+                .assertNext(doc -> Assertions.assertThat(doc.facts("ifrs-full", "Revenue").val).containsExactly(50.0))
+                .verifyComplete();
+    }
+
+    @Test
+    void missingCikIsEmpty() {
+        StepVerifier.create(archive.read("0000009999", StockMetricsFetcher.COMPANY_FACTS_TAGS))
+                .assertNext(doc -> Assertions.assertThat(doc.isEmpty()).isTrue())
+                .verifyComplete();
+    }
+
+    @Test
+    void readAllDecodesInParallelAndSkipsUnknownCiks() {
+        StepVerifier.create(archive.readAll(List.of("0000000001", "0000000002", "0000009999"),
+                                StockMetricsFetcher.COMPANY_FACTS_TAGS)
+                        .map(Map.Entry::getKey)
+                        .collectList())
+                .assertNext(ciks -> Assertions.assertThat(ciks).containsExactlyInAnyOrder("0000000001", "0000000002"))
+                .verifyComplete();
+    }
+
+    @Test
+    void computesQuarterMetricsFromArchive() throws Exception {
+        CompanyFacts doc = archive.decode("0000000001", StockMetricsFetcher.COMPANY_FACTS_TAGS);
+        PriceSeries px = new PriceSeries.Builder()
+                .add(EpochDays.of(2024, 3, 28), 20.0)
+                .add(EpochDays.of(2024, 6, 28), 30.0)
+                .add(EpochDays.of(2024, 9, 30), 34.0)
+                .add(EpochDays.of(2024, 12, 31), 40.0)
+                .build();
+
+        List<StockMetricsFetcher.QuarterMetrics> q = StockMetricsFetcher.computeQuarters(
+                StockMetricsFetcher.SecFacts.fromCompanyFacts(doc), px, LocalDate.of(2025, 6, 30));
+
+        Assertions.assertThat(q).extracting(m -> m.end).containsExactly(
+                LocalDate.of(2024, 12, 31), LocalDate.of(2024, 9, 30),
+                LocalDate.of(2024, 6, 30), LocalDate.of(2024, 3, 31));
+        // YTD 차분: Q2=250−100, Q3=420−250, Q4=FY−Q3YTD
+        Assertions.assertThat(q).extracting(m -> m.revenue).containsExactly(180.0, 170.0, 150.0, 100.0);
+        Assertions.assertThat(q).extracting(m -> m.operatingIncome).containsExactly(40.0, 30.0, 20.0, 10.0);
+        Assertions.assertThat(q.get(0).eps).isNaN();
+        Assertions.assertThat(q.get(1).per).isCloseTo(20.0, within(1e-9));
+        // us-gaap 발행주식수 태그가 없으면 dei 로 폴백, equity 는 분기말 floor
+        Assertions.assertThat(q.get(0).shares).isEqualTo(100.0);
+        Assertions.assertThat(q.get(0).pbr).isCloseTo(40.0 / 12.0, within(1e-9));
+        Assertions.assertThat(q.get(3).pbr).isCloseTo(2.0, within(1e-9));
+    }
+}
@@ -0,0 +1,80 @@
+package com.project.stock.temp;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * companyconcept 가 전부 404 라 일곱 개념 로더가 동시에 companyfacts 로 폴백할 때:
+ * 문서는 계산 한 번에 한 번만 받고, 계산이 끝나거나 취소되면 공유 항목이 사라진다
+ */
+class CompanyFactsSharingTest {
+
+    private static final String CIK = "0000000001";
+    private static final String FACTS = "/api/xbrl/companyfacts/CIK" + CIK + ".json";
+
+    @TempDir
+    Path cacheDir;
+
+    private StubServer server;
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private StockMetricsFetcher fetcher;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = StubServer.start();
+        fetcher = server.fetcher(cacheDir, registry);
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void oneDownloadForAllFallingBackLoaders() {
+        server.route(FACTS, 300, """
+                {"cik":1,"facts":{"us-gaap":{
+                  "Revenues":{"units":{"USD":[{"start":"2024-01-01","end":"2024-03-31","val":7,"fy":2024,"fp":"Q1","form":"10-Q"}]}},
+                  "OperatingIncomeLoss":{"units":{"USD":[{"start":"2024-01-01","end":"2024-03-31","val":2,"fy":2024,"fp":"Q1","form":"10-Q"}]}}
+                }}}""");
+
+        StepVerifier.create(fetcher.computeMetricsSeries("AAA", CIK))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify(Duration.ofSeconds(60));
+
+        Assertions.assertThat(server.requested()).filteredOn(FACTS::equals).hasSize(1);
+        Assertions.assertThat(server.requested()).filteredOn(p -> p.contains("/companyconcept/")).hasSizeGreaterThan(7);
+        Assertions.assertThat(shared()).isZero();
+    }
+
+    @Test
+    void cancelledComputationReleasesTheDocument() throws InterruptedException {
+        server.route(FACTS, 10_000, "{\"cik\":1,\"facts\":{}}");
+
+        Disposable run = fetcher.computeMetricsSeries("AAA", CIK).subscribe();
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (!server.requested().contains(FACTS) && System.nanoTime() < deadline) Thread.sleep(10);
+        Assertions.assertThat(server.requested()).contains(FACTS);
+        Assertions.assertThat(shared()).isEqualTo(1);
+
+        run.dispose();
+        Assertions.assertThat(shared()).isZero();
+        Assertions.assertThat(server.requested()).filteredOn(FACTS::equals).hasSize(1);
+    }
+
+    private double shared() {
+        return registry.get("fetcher.companyfacts.shared").gauge().value();
+    }
+}
@@ -0,0 +1,120 @@
+package com.project.stock.temp;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.BlockingOperationError;
+import reactor.blockhound.integration.BlockHoundIntegration;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Netty 이벤트 루프/Reactor 논블로킹 스레드에서 블로킹 호출이나 긴 CPU 작업(디코드·분기화)이 돌면 실패
+ * - BlockHound 기본 규칙(파일/소켓 I/O, sleep, lock 대기) + CPU 작업 메서드를 블로킹으로 표시(CpuHeavyWork)
+ * - 위반은 onErrorResume 에 삼켜질 수 있으므로 콜백에서 따로 모아 마지막에 확인
+ * JVM 전체에 에이전트가 걸리므로 gradle blockHoundTest 에서만 실행(@Tag("blockhound"))
+ */
+@Tag("blockhound")
+class EventLoopBlockingTest {
+
+    private static final String CIK = "0000000001";
+    private static final Queue<String> violations = new ConcurrentLinkedQueue<>();
+
+    /** 논블로킹 스레드에서 돌면 안 되는 CPU 작업(COMPUTE 스케줄러로 옮긴 것들) */
+    static final class CpuHeavyWork implements BlockHoundIntegration {
+        @Override
+        public void applyTo(BlockHound.Builder builder) {
+            builder.markAsBlocking(Quarterizer.class, "quarterize",
+                            "(Lcom/project/stock/temp/ConceptFacts;)Lcom/project/stock/temp/DaySeries;")
+                    .markAsBlocking(PriceDecoders.class, "stooqCsv", "([B)Lcom/project/stock/temp/PriceSeries;")
+                    .markAsBlocking(PriceDecoders.class, "yahooChart", "([B)Lcom/project/stock/temp/PriceSeries;")
+                    .markAsBlocking(TickerIndex.class, "parse", "([BJ)Lcom/project/stock/temp/TickerIndex;")
+                    .markAsBlocking(FramesUniverse.ConceptBuilder.class, "build", "()Ljava/util/Map;")
+                    .blockingMethodCallback(method -> {
+                        violations.add(method + " on " + Thread.currentThread().getName());
+                        throw new BlockingOperationError(method);
+                    });
+        }
+    }
+
+    @BeforeAll
+    static void installBlockHound() {
+        BlockHound.install(new CpuHeavyWork());
+    }
+
+    @TempDir
+    Path cacheDir;
+
+    private StubServer server;
+    private StockMetricsFetcher fetcher;
+
+    @BeforeEach
+    void start() throws IOException {
+        violations.clear();
+        server = StubServer.start();
+        fetcher = server.fetcher(cacheDir);
+
+        server.route("/files/company_tickers.json", "{\"0\":{\"cik_str\":1,\"ticker\":\"AAA\",\"title\":\"A\"}}");
+        LocalDate end = LocalDate.now(ZoneOffset.UTC).minusDays(40);
+        server.concept(CIK, "Revenues", "USD", end, 100)
+                .concept(CIK, "OperatingIncomeLoss", "USD", end, 10)
+                .concept(CIK, "EarningsPerShareDiluted", "USD/shares", end, 1.5);
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void detectsCpuWorkOnNonBlockingThreadsButNotOnCompute() {
+        StepVerifier.create(Mono.fromCallable(() -> Quarterizer.quarterize(ConceptFacts.EMPTY))
+                        .subscribeOn(Schedulers.parallel()))
+                .expectError(BlockingOperationError.class)
+                .verify(Duration.ofSeconds(5));
+        violations.clear();
+
+        StepVerifier.create(Mono.fromCallable(() -> Quarterizer.quarterize(ConceptFacts.EMPTY))
+                        .subscribeOn(StockMetricsFetcher.COMPUTE))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        Assertions.assertThat(violations).isEmpty();
+    }
+
+    @Test
+    void tickerIndexAndSeriesKeepEventLoopsFree() {
+        StepVerifier.create(fetcher.tickerIndex())
+                .assertNext(index -> {
+                    Assertions.assertThat(violations).isEmpty();   // 위반이면 파싱 실패가 삼켜져 빈 인덱스
+                    Assertions.assertThat(index.cikString("AAA")).isEqualTo(CIK);
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(30));
+        // 가격 소스는 외부 주소라 실패해도 된다(EMPTY). 분기화/정렬 경로가 검사 대상
+        StepVerifier.create(fetcher.computeMetricsSeries("AAA", CIK))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify(Duration.ofSeconds(60));
+        StepVerifier.create(fetcher.loadUniverseFromFrames(List.of(CIK), LocalDate.now(ZoneOffset.UTC), 4))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify(Duration.ofSeconds(30));
+        Assertions.assertThat(violations).isEmpty();
+    }
+}
@@ -0,0 +1,151 @@
+package com.project.stock.temp;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** companyfacts/companyconcept 스트리밍 파서: 청크 경계, 건너뛰기, 잘린 문서 */
+class FactStreamParserTest {
+
+    private static final Map<String, Set<String>> WANTED = Map.of(
+            "us-gaap", Set.of("Revenues", "EarningsPerShareDiluted", "NetIncomeLoss"));
+
+    /** 안 받는 namespace(dei, ifrs-full)·tag·unit, 건너뛰는 값 안의 중첩 배열/객체와 괄호 든 문자열, 멀티바이트 문자 */
+    private static final byte[] COMPANY_FACTS = """
+            {"cik":320193,"entityName":"회사 \\"{[\\" Ünï","tags":[["a"],{"b":[1,{"c":"}"}]}],
+             "facts":{
+              "dei":{"Revenues":{"units":{"USD":[{"end":"2024-03-31","val":999}]}}},
+              "us-gaap":{
+               "AccountsPayableCurrent":{"label":"x","units":{"USD":[{"end":"2024-03-31","val":1,"nested":{"a":[1,[2,{"b":"]"}]]}}]}},
+               "Revenues":{"label":"Revenues ]}","description":"매출 {\\"a\\":[1]}","units":{
+                "USD":[{"start":"2024-01-01","end":"2024-03-31","val":7,"fy":2024,"fp":"Q1","form":"10-Q","extra":{"k":[1,{"z":[]}]},"frame":"CY2024Q1"},
+                       {"start":"2024-01-01","end":"2024-06-30","val":12.5,"fy":2024,"fp":"Q2","form":"10-Q","accn":"0001","frame":"CY2024Q2YTD"}],
+                "EUR":[{"start":"2024-01-01","end":"2024-03-31","val":6,"fy":2024,"fp":"Q1","form":"10-Q"}],
+                "pure":[[1,2],{"a":{}}]}},
+               "EarningsPerShareDiluted":{"units":{"USD/shares":[{"end":"2024-03-31","segments":[[1],[2,{"x":3}]],"val":-0.3,"fy":2024,"fp":"Q1","form":"10-Q"}]}},
+               "NetIncomeLoss":{"units":{"EUR":[{"end":"2024-03-31","val":4}]}}
+              },
+              "ifrs-full":{"Revenue":{"units":{"EUR":[{"end":"2024-03-31","val":5}]}}}
+             },
+             "trailer":[{"facts":{"us-gaap":{"Revenues":{"units":{"USD":[{"val":8}]}}}}}]}""".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] CONCEPT = """
+            {"cik":1,"taxonomy":"us-gaap","tag":"Revenues","label":"{매출}","units":{
+              "EUR":[{"start":"2024-01-01","end":"2024-03-31","val":6,"fy":2024,"fp":"Q1","form":"10-Q"}],
+              "USD":[{"start":"2024-01-01","end":"2024-03-31","nested":[{"val":1},[2]],"val":7,"fy":2024,"fp":"Q1","form":"10-Q"}]}}"""
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void companyFactsKeepsOnlyWantedNamespaceTagAndUnit() throws IOException {
+        CompanyFacts facts = companyFacts(COMPANY_FACTS);
+
+        Assertions.assertThat(rows(facts.facts("us-gaap", "Revenues"))).containsExactly(
+                "2024-01-01~2024-03-31 7.0 2024 1 0",
+                "2024-01-01~2024-06-30 12.5 2024 2 " + ConceptFacts.FLAG_FRAME_YTD);
+        Assertions.assertThat(rows(facts.facts("us-gaap", "EarningsPerShareDiluted")))
+                .containsExactly("-~2024-03-31 -0.3 2024 1 0");
+        Assertions.assertThat(facts.facts("us-gaap", "NetIncomeLoss").size).isZero();   // EUR 만 있는 태그
+        Assertions.assertThat(facts.facts("us-gaap", "AccountsPayableCurrent")).isSameAs(ConceptFacts.EMPTY);
+        Assertions.assertThat(facts.facts("dei", "Revenues")).isSameAs(ConceptFacts.EMPTY);
+        Assertions.assertThat(facts.facts("ifrs-full", "Revenue")).isSameAs(ConceptFacts.EMPTY);
+    }
+
+    /** ifrs-full 은 보고 통화가 회사마다 달라 unit 을 가리지 않는다 */
+    @Test
+    void ifrsKeepsReportingCurrency() throws IOException {
+        CompanyFacts facts = parse(new CompanyFactsParser(Map.of("ifrs-full", Set.of("Revenue"))), COMPANY_FACTS);
+        Assertions.assertThat(rows(facts.facts("ifrs-full", "Revenue"))).containsExactly("-~2024-03-31 5.0 0 0 0");
+    }
+
+    @Test
+    void companyFactsWithoutWantedTagsIsEmpty() throws IOException {
+        Assertions.assertThat(parse(new CompanyFactsParser(Map.of("us-gaap", Set.of("Assets"))), COMPANY_FACTS))
+                .isSameAs(CompanyFacts.EMPTY);
+        Assertions.assertThat(parse(new CompanyFactsParser(Map.of("srt", Set.of("Revenues"))), COMPANY_FACTS))
+                .isSameAs(CompanyFacts.EMPTY);
+    }
+
+    /** 토큰·문자열·UTF-8 문자 한가운데를 포함해 모든 바이트 경계에서 두 청크로 나눠도 결과가 같다 */
+    @Test
+    void companyFactsIsIndependentOfChunkBoundaries() throws IOException {
+        List<String> whole = describe(companyFacts(COMPANY_FACTS));
+        for (int at = 0; at <= COMPANY_FACTS.length; at++) {
+            CompanyFactsParser parser = new CompanyFactsParser(WANTED);
+            parser.feed(ByteBuffer.wrap(COMPANY_FACTS, 0, at));
+            parser.feed(ByteBuffer.wrap(COMPANY_FACTS, at, COMPANY_FACTS.length - at));
+            Assertions.assertThat(describe(parser.finish())).as("split at %d", at).isEqualTo(whole);
+        }
+
+        CompanyFactsParser bytewise = new CompanyFactsParser(WANTED);
+        for (int i = 0; i < COMPANY_FACTS.length; i++) bytewise.feed(ByteBuffer.wrap(COMPANY_FACTS, i, 1));
+        Assertions.assertThat(describe(bytewise.finish())).isEqualTo(whole);
+    }
+
+    @Test
+    void conceptKeepsOnlyWantedUnitsAtEveryBoundary() throws IOException {
+        Assertions.assertThat(rows(parse(new ConceptFactsParser("us-gaap"), CONCEPT)))
+                .containsExactly("2024-01-01~2024-03-31 7.0 2024 1 0");
+        for (int at = 0; at <= CONCEPT.length; at++) {
+            ConceptFactsParser parser = new ConceptFactsParser("us-gaap");
+            parser.feed(ByteBuffer.wrap(CONCEPT, 0, at));
+            parser.feed(ByteBuffer.wrap(CONCEPT, at, CONCEPT.length - at));
+            Assertions.assertThat(rows(parser.finish())).as("split at %d", at)
+                    .containsExactly("2024-01-01~2024-03-31 7.0 2024 1 0");
+        }
+    }
+
+    /** 스트림 중간에 끊긴 문서는 부분 결과 대신 예외 */
+    @Test
+    void documentTruncatedMidStreamFails() {
+        for (int cut = 1; cut < COMPANY_FACTS.length; cut++) {
+            byte[] prefix = Arrays.copyOf(COMPANY_FACTS, cut);
+            Assertions.assertThatThrownBy(() -> companyFacts(prefix)).as("cut at %d", cut)
+                    .isInstanceOf(IOException.class);
+        }
+        for (int cut = 1; cut < CONCEPT.length; cut++) {
+            byte[] prefix = Arrays.copyOf(CONCEPT, cut);
+            Assertions.assertThatThrownBy(() -> parse(new ConceptFactsParser("us-gaap"), prefix)).as("cut at %d", cut)
+                    .isInstanceOf(IOException.class);
+        }
+    }
+
+    private static CompanyFacts companyFacts(byte[] body) throws IOException {
+        return parse(new CompanyFactsParser(WANTED), body);
+    }
+
+    private static <R> R parse(StreamingBodyParser<R> parser, byte[] body) throws IOException {
+        parser.feed(ByteBuffer.wrap(body));
+        return parser.finish();
+    }
+
+    private static List<String> describe(CompanyFacts facts) {
+        List<String> out = new ArrayList<>();
+        for (String tag : List.of("Revenues", "EarningsPerShareDiluted", "NetIncomeLoss", "AccountsPayableCurrent")) {
+            out.add(tag + "=" + rows(facts.facts("us-gaap", tag)));
+        }
+        out.add("dei=" + rows(facts.facts("dei", "Revenues")));
+        return out;
+    }
+
+    /** "start~end val fy fp flags" (날짜가 없으면 -) */
+    private static List<String> rows(ConceptFacts f) {
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < f.size; i++) {
+            out.add(day(f.start[i]) + "~" + day(f.end[i]) + " " + f.val[i] + " " + f.fy[i] + " " + f.fp[i] + " " + f.flags[i]);
+        }
+        return out;
+    }
+
+    private static String day(int epochDay) {
+        return epochDay == EpochDays.NONE ? "-" : LocalDate.ofEpochDay(epochDay).toString();
+    }
+}
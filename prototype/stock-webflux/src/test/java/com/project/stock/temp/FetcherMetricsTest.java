@@ -0,0 +1,148 @@
+package com.project.stock.temp;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** 로컬 대역 서버로 fetcher.* 미터와 fetcher 엔드포인트 요약 확인 */
+class FetcherMetricsTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private StubServer server;   // frames 는 빈 frame, 그 외(종목별 폴백)는 404
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private StockMetricsFetcher fetcher;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = StubServer.start();
+        fetcher = server.fetcher(cacheDir, registry);
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void countsRequestsBytesStatusesAndCacheHits() {
+        LocalDate today = LocalDate.of(2025, 2, 15);
+        StepVerifier.create(fetcher.loadUniverseFromFrames(List.of("0000000001"), today, 4))
+                .expectNextCount(1).expectComplete().verify(Duration.ofSeconds(60));
+
+        long frames = 6 * 5;   // 태그 6개 × (분기 4 + 연간 1)
+        Assertions.assertThat(registry.get("fetcher.requests").tags("upstream", "sec", "endpoint", "frames", "outcome", "success")
+                .timer().count()).isEqualTo(frames);
+        Assertions.assertThat(registry.get("fetcher.download").tags("endpoint", "frames").summary().totalAmount())
+                .isGreaterThan(0);
+        Assertions.assertThat(registry.get("fetcher.parse").tag("format", "frames").timer().count()).isEqualTo(frames);
+        Assertions.assertThat(registry.get("fetcher.responses").tags("upstream", "sec", "status", "404").counter().count())
+                .isPositive();
+        Assertions.assertThat(registry.get("fetcher.inflight").tag("upstream", "sec").gauge().value()).isZero();
+
+        // 두 번째 실행은 전부 TTL 안의 디스크 캐시
+        StepVerifier.create(fetcher.loadUniverseFromFrames(List.of("0000000001"), today, 4))
+                .expectNextCount(1).expectComplete().verify(Duration.ofSeconds(60));
+        Assertions.assertThat(registry.get("fetcher.requests").tags("endpoint", "frames", "outcome", "success")
+                .timer().count()).isEqualTo(frames);
+        Assertions.assertThat(registry.get("fetcher.cache").tags("upstream", "sec", "result", "fresh").counter().count())
+                .isGreaterThanOrEqualTo(frames);
+
+        Map<String, Object> summary = new FetcherEndpoint(fetcher).summary();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> sec = (Map<String, Object>) ((Map<String, Object>) summary.get("upstreams")).get("sec");
+        Assertions.assertThat((double) sec.get("cacheHitRate")).isBetween(0.4, 0.6);
+        Assertions.assertThat(summary).containsKeys("progress", "throughputLastMinute", "circuits", "priceSourceP95Millis", "secLimiter", "concurrency");
+    }
+
+    /** 대역 서버 주소도 SEC 로 보고 버킷을 거친다. 재시도(503)도 시도마다 슬롯을 받는다 */
+    @Test
+    void secRequestsAndRetriesTakeLimiterSlots() throws InterruptedException {
+        SecRateLimiter limiter = new SecRateLimiter(20);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        StockMetricsFetcher fetcher = server.fetcher(cacheDir.resolve("limited"), registry, limiter);
+
+        server.fail("/files/company_tickers.json", 503);
+        StepVerifier.create(fetcher.tickerIndex()).expectNextCount(1).expectComplete().verify(Duration.ofSeconds(30));
+        Assertions.assertThat(server.requested()).hasSize(3);   // 첫 시도 + 재시도 2
+        Assertions.assertThat(limiter.granted()).isEqualTo(3);
+
+        // frames 30건을 20 req/s 로: 버킷 앞에 줄이 선다
+        double maxQueued = 0;
+        Disposable run = fetcher.loadUniverseFromFrames(List.of("0000000001"), LocalDate.of(2025, 2, 15), 4).subscribe();
+        while (!run.isDisposed()) {
+            maxQueued = Math.max(maxQueued, registry.get("fetcher.sec.queued").gauge().value());
+            Thread.sleep(5);
+        }
+        Assertions.assertThat(maxQueued).isPositive();
+        Assertions.assertThat(limiter.queueDepth()).isZero();
+        Assertions.assertThat(limiter.granted()).isGreaterThanOrEqualTo(server.requested().size());
+        Assertions.assertThat(server.requested()).hasSizeGreaterThan(3 + 30);
+    }
+
+    @Test
+    void progressTracksPlannedAndFinishedTickers() {
+        MeterRegistry registry = new SimpleMeterRegistry();   // 게이지 이름이 fetcher 의 것과 겹치지 않게 따로
+        FetcherMetrics metrics = new FetcherMetrics(registry, StockMetricsFetcher.UPSTREAMS);
+        Flux<TickerOutcome.Status> outcomes = Flux.just(TickerOutcome.Status.MATCH, TickerOutcome.Status.FAIL);
+
+        StepVerifier.create(metrics.run(4, outcomes).doOnNext(metrics::tickerFinished)
+                        .then(Mono.fromSupplier(metrics::summary)))
+                .assertNext(summary -> Assertions.assertThat(summary.get("progress"))
+                        .asInstanceOf(InstanceOfAssertFactories.MAP)
+                        .containsEntry("planned", 4L)
+                        .containsEntry("finished", 2L)
+                        .containsEntry("failed", 1L)
+                        .containsEntry("percent", 50.0))
+                .verifyComplete();
+        Assertions.assertThat(registry.get("fetcher.tickers").tag("outcome", "fail").counter().count()).isEqualTo(1);
+        Assertions.assertThat(registry.get("fetcher.tickers.remaining").gauge().value()).isEqualTo(2);
+    }
+
+    /** next() 는 값을 받자마자 완료 신호 전에 위를 취소한다: 응답을 받은 교환은 success */
+    @Test
+    void exchangeCancelledAfterValueCountsAsSuccess() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        FetcherMetrics metrics = new FetcherMetrics(registry, StockMetricsFetcher.UPSTREAMS);
+
+        StepVerifier.create(Flux.concat(metrics.exchange("sec", "companyconcept", Mono.fromSupplier(() -> 1)),
+                        Mono.just(2)).next())
+                .expectNext(1).verifyComplete();
+        StepVerifier.create(metrics.exchange("sec", "companyconcept", Mono.never()))
+                .thenCancel().verify();
+
+        Assertions.assertThat(registry.get("fetcher.requests").tag("outcome", "success").timer().count()).isEqualTo(1);
+        Assertions.assertThat(registry.get("fetcher.requests").tag("outcome", "cancelled").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rateWindowAveragesTheLastMinuteOnly() {
+        AtomicLong second = new AtomicLong(1_000);
+        FetcherMetrics.RateWindow window = new FetcherMetrics.RateWindow(second::get);
+        for (int s = 0; s < 120; s++) {
+            window.add(s < 60 ? 1 : 3);
+            second.incrementAndGet();
+        }
+        Assertions.assertThat(window.perSecond()).isEqualTo(3.0);
+        second.addAndGet(30);
+        Assertions.assertThat(window.perSecond()).isEqualTo(1.5);
+    }
+}
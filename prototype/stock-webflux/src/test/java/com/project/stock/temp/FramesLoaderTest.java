@@ -0,0 +1,149 @@
+package com.project.stock.temp;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * frames 기반 전 종목 로더를 로컬 대역 서버(StubServer)로 검증
+ * - CIK 1, 2 는 frames 에 있고 CIK 3 은 없음 → CIK 3 만 종목별(companyconcept 404 → companyfacts) 폴백
+ * - --frames 사전 필터: frames 시리즈로 단계 조건을 통과한 종목만 종목별 스크린으로
+ */
+class FramesLoaderTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 2, 15);   // 마감 분기: 2024Q1~Q4
+
+    @TempDir
+    Path cacheDir;
+
+    private StubServer server;
+    private StockMetricsFetcher fetcher;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = StubServer.start();
+        fetcher = server.fetcher(cacheDir);
+
+        // 매출: CIK1 은 Q4 분기 frame 없이 연간만, CIK2 는 Q4 분기 frame 있음
+        frame("Revenues", "USD", "CY2024Q1", row(1, "2024-01-01", "2024-03-31", 100), row(2, "2024-01-01", "2024-03-31", 10));
+        frame("Revenues", "USD", "CY2024Q2", row(1, "2024-04-01", "2024-06-30", 110), row(2, "2024-04-01", "2024-06-30", 11));
+        frame("Revenues", "USD", "CY2024Q3", row(1, "2024-07-01", "2024-09-30", 120), row(2, "2024-07-01", "2024-09-30", 12));
+        frame("Revenues", "USD", "CY2024Q4", row(2, "2024-10-01", "2024-12-31", 13));
+        frame("Revenues", "USD", "CY2024", row(1, "2024-01-01", "2024-12-31", 460));
+        // 우선순위가 낮은 태그 값은 이미 채워진 슬롯을 덮지 않는다
+        frame("RevenueFromContractWithCustomerExcludingAssessedTax", "USD", "CY2024Q1", row(2, "2024-01-01", "2024-03-31", 999));
+        for (String q : List.of("CY2024Q1", "CY2024Q2", "CY2024Q3", "CY2024Q4")) {
+            frame("OperatingIncomeLoss", "USD", q, row(1, null, end(q), 10), row(2, null, end(q), 1));
+            frame("EarningsPerShareDiluted", "USD-per-shares", q, row(1, null, end(q), 1.5), row(2, null, end(q), 0.1));
+        }
+        // CIK3: frames 에 없음 → companyfacts 로 폴백
+        server.route("/api/xbrl/companyfacts/CIK0000000003.json", """
+                {"cik":3,"facts":{"us-gaap":{
+                  "Revenues":{"units":{"USD":[{"start":"2024-01-01","end":"2024-03-31","val":7,"fy":2024,"fp":"Q1","form":"10-Q"}]}},
+                  "OperatingIncomeLoss":{"units":{"USD":[{"start":"2024-01-01","end":"2024-03-31","val":2,"fy":2024,"fp":"Q1","form":"10-Q"}]}},
+                  "EarningsPerShareDiluted":{"units":{"USD/shares":[{"start":"2024-01-01","end":"2024-03-31","val":0.3,"fy":2024,"fp":"Q1","form":"10-Q"}]}}
+                }}}""");
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void buildsUniverseFromFramesAndFallsBackOnlyForMissingFilers() {
+        StepVerifier.create(fetcher.loadUniverseFromFrames(List.of("0000000001", "0000000002", "0000000003"), TODAY, 4))
+                .assertNext(universe -> {
+                    FramesUniverse.Series one = universe.get("0000000001");
+                    Assertions.assertThat(one.fromFrames).isTrue();
+                    Assertions.assertThat(values(one.revenue)).containsExactly(100.0, 110.0, 120.0, 130.0); // Q4 = 460 − 330
+                    Assertions.assertThat(one.revenue.day(3)).isEqualTo((int) LocalDate.of(2024, 12, 31).toEpochDay());
+                    Assertions.assertThat(values(one.eps)).containsExactly(1.5, 1.5, 1.5, 1.5);
+
+                    FramesUniverse.Series two = universe.get("0000000002");
+                    Assertions.assertThat(values(two.revenue)).containsExactly(10.0, 11.0, 12.0, 13.0);
+
+                    FramesUniverse.Series three = universe.get("0000000003");
+                    Assertions.assertThat(three.fromFrames).isFalse();
+                    Assertions.assertThat(values(three.revenue)).containsExactly(7.0);
+                    Assertions.assertThat(values(three.operatingIncome)).containsExactly(2.0);
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(60));
+
+        Assertions.assertThat(server.requested()).filteredOn(p -> p.contains("/frames/"))
+                .hasSize(6 * 5); // 태그 6개 × (분기 4 + 연간 1)
+        Assertions.assertThat(server.requested()).filteredOn(p -> !p.contains("/frames/"))
+                .allMatch(p -> p.contains("CIK0000000003"));
+    }
+
+    @Test
+    void framesPreScreenSendsOnlySurvivorsToPerCompanyScreen() {
+        // CIK1 만 매출·영업이익 모두 증가. CIK2 는 영업이익 정체, CIK3(폴백)은 분기 하나뿐
+        List<String> quarters = List.of("CY2024Q1", "CY2024Q2", "CY2024Q3", "CY2024Q4");
+        for (int i = 0; i < quarters.size(); i++) {
+            String q = quarters.get(i);
+            frame("OperatingIncomeLoss", "USD", q, row(1, null, end(q), 10 + i), row(2, null, end(q), 1));
+        }
+        List<Map.Entry<String, String>> tickers = List.of(
+                Map.entry("ONE", "0000000001"), Map.entry("TWO", "0000000002"), Map.entry("THREE", "0000000003"));
+
+        StepVerifier.create(fetcher.framesPreScreen(tickers, Screen.RISING_GROWTH_VALUE, TODAY)
+                        .doOnNext(survivors -> Assertions.assertThat(survivors).extracting(Map.Entry::getKey).containsExactly("ONE"))
+                        .flatMapMany(survivors -> fetcher.screenStream(survivors, Screen.RISING_GROWTH_VALUE)))
+                .expectComplete()   // ONE 은 종목별 데이터(전부 404)에서 탈락
+                .verify(Duration.ofSeconds(60));
+
+        Assertions.assertThat(server.requested()).filteredOn(p -> p.contains("/frames/"))
+                .hasSize(6 * (StockMetricsFetcher.FRAMES_SCREEN_QUARTERS + 2));   // 2023~2024 분기 + 연간 2
+        Assertions.assertThat(server.perFilerRequests()).anyMatch(p -> p.contains("CIK0000000001"))
+                .noneMatch(p -> p.contains("CIK0000000002"));
+    }
+
+    @Test
+    void lastCompletedQuartersWrapsYear() {
+        Assertions.assertThat(FramesUniverse.Period.lastCompletedQuarters(LocalDate.of(2025, 5, 1), 3))
+                .extracting(FramesUniverse.Period::ccp)
+                .containsExactly("CY2024Q3", "CY2024Q4", "CY2025Q1");
+        Assertions.assertThat(FramesUniverse.Period.annualsFor(FramesUniverse.Period.lastCompletedQuarters(TODAY, 6)))
+                .extracting(FramesUniverse.Period::ccp)
+                .containsExactly("CY2024");
+    }
+
+    private void frame(String tag, String unit, String ccp, String... rows) {
+        server.route("/api/xbrl/frames/us-gaap/" + tag + "/" + unit + "/" + ccp + ".json",
+                "{\"taxonomy\":\"us-gaap\",\"tag\":\"" + tag + "\",\"ccp\":\"" + ccp + "\",\"uom\":\"" + unit
+                        + "\",\"pts\":" + rows.length + ",\"data\":[" + String.join(",", rows) + "]}");
+    }
+
+    private static String row(int cik, String start, String end, double val) {
+        return "{\"accn\":\"0000000000-25-000001\",\"cik\":" + cik + ",\"entityName\":\"Filer " + cik + "\",\"loc\":\"US-NY\","
+                + (start == null ? "" : "\"start\":\"" + start + "\",")
+                + "\"end\":\"" + end + "\",\"val\":" + val + "}";
+    }
+
+    private static String end(String ccp) {
+        return switch (ccp.substring(6)) {
+            case "Q1" -> "2024-03-31";
+            case "Q2" -> "2024-06-30";
+            case "Q3" -> "2024-09-30";
+            default -> "2024-12-31";
+        };
+    }
+
+    private static double[] values(DaySeries s) {
+        double[] v = new double[s.size()];
+        for (int i = 0; i < v.length; i++) v[i] = s.value(i);
+        return v;
+    }
+}
@@ -0,0 +1,108 @@
+package com.project.stock.temp;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class HedgedRequestTest {
+
+    private static HedgedRequest.Source<String> source(String name, LatencyHistogram h, Mono<String> body) {
+        return new HedgedRequest.Source<>(name, h, () -> body);
+    }
+
+    @Test
+    void slowPrimaryIsHedgedAfterDelayAndCancelledWhenBackupWins() {
+        AtomicBoolean primaryCancelled = new AtomicBoolean();
+        LatencyHistogram primaryLatency = new LatencyHistogram();
+        LatencyHistogram backupLatency = new LatencyHistogram();
+
+        StepVerifier.withVirtualTime(() -> HedgedRequest.first(List.of(
+                                source("primary", primaryLatency, Mono.delay(Duration.ofSeconds(10)).map(x -> "slow")
+                                        .doOnCancel(() -> primaryCancelled.set(true))),
+                                source("backup", backupLatency, Mono.delay(Duration.ofMillis(100)).map(x -> "fast"))),
+                        s -> !s.isEmpty()))
+                .expectSubscription()
+                .expectNoEvent(HedgedRequest.DEFAULT_DELAY.plusMillis(99))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext("fast")
+                .verifyComplete();
+
+        Assertions.assertThat(primaryCancelled).isTrue();
+        Assertions.assertThat(backupLatency.count()).isEqualTo(1);
+        Assertions.assertThat(primaryLatency.count()).isZero();   // 취소된 요청은 기록하지 않음
+    }
+
+    @Test
+    void fastPrimaryNeverStartsBackup() {
+        AtomicInteger backupSubscriptions = new AtomicInteger();
+        StepVerifier.withVirtualTime(() -> HedgedRequest.first(List.of(
+                                source("primary", new LatencyHistogram(), Mono.delay(Duration.ofMillis(300)).map(x -> "p")),
+                                source("backup", new LatencyHistogram(),
+                                        Mono.just("b").doOnSubscribe(s -> backupSubscriptions.incrementAndGet()))),
+                        s -> !s.isEmpty()))
+                .thenAwait(Duration.ofMillis(300))
+                .expectNext("p")
+                .verifyComplete();
+        Assertions.assertThat(backupSubscriptions).hasValue(0);
+    }
+
+    @Test
+    void unusableResultStartsNextSourceImmediately() {
+        StepVerifier.withVirtualTime(() -> HedgedRequest.first(List.of(
+                                source("empty", new LatencyHistogram(), Mono.delay(Duration.ofMillis(50)).map(x -> "")),
+                                source("failing", new LatencyHistogram(), Mono.error(new IOException("503"))),
+                                source("last", new LatencyHistogram(), Mono.delay(Duration.ofMillis(50)).map(x -> "ok"))),
+                        s -> !s.isEmpty()))
+                .thenAwait(Duration.ofMillis(100))
+                .expectNext("ok")
+                .verifyComplete();
+    }
+
+    @Test
+    void allEmptyIsEmptyAndLastSourceErrorPropagates() {
+        StepVerifier.create(HedgedRequest.first(List.of(
+                        source("a", new LatencyHistogram(), Mono.just("")),
+                        source("b", new LatencyHistogram(), Mono.empty())), s -> !s.isEmpty()))
+                .verifyComplete();
+
+        StepVerifier.create(HedgedRequest.first(List.of(
+                        source("a", new LatencyHistogram(), Mono.error(new IOException("first"))),
+                        source("b", new LatencyHistogram(), Mono.error(new IOException("last")))), s -> !s.isEmpty()))
+                .expectErrorMessage("last")
+                .verify();
+    }
+
+    @Test
+    void hedgeDelayFollowsObservedP95WithinBounds() {
+        LatencyHistogram h = new LatencyHistogram();
+        Assertions.assertThat(HedgedRequest.hedgeDelay(h)).isEqualTo(HedgedRequest.DEFAULT_DELAY);
+
+        for (int i = 0; i < 95; i++) h.record(Duration.ofMillis(200));
+        for (int i = 0; i < 5; i++) h.record(Duration.ofSeconds(3));
+        Duration d = HedgedRequest.hedgeDelay(h);
+        Assertions.assertThat(d).isBetween(Duration.ofMillis(200), Duration.ofMillis(221));   // 버킷 해상도 10%
+
+        for (int i = 0; i < 1000; i++) h.record(Duration.ofSeconds(30));
+        Assertions.assertThat(HedgedRequest.hedgeDelay(h)).isEqualTo(HedgedRequest.MAX_DELAY);
+
+        LatencyHistogram fast = new LatencyHistogram();
+        for (int i = 0; i < 100; i++) fast.record(Duration.ofMillis(2));
+        Assertions.assertThat(HedgedRequest.hedgeDelay(fast)).isEqualTo(HedgedRequest.MIN_DELAY);
+    }
+
+    @Test
+    void histogramAgesOldSamples() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 0; i < LatencyHistogram.AGING_THRESHOLD - 1; i++) h.record(Duration.ofSeconds(2));
+        for (int i = 0; i < LatencyHistogram.AGING_THRESHOLD * 3; i++) h.record(Duration.ofMillis(100));
+        Assertions.assertThat(h.count()).isLessThan(LatencyHistogram.AGING_THRESHOLD);
+        Assertions.assertThat(h.percentileMillis(0.95)).isLessThanOrEqualTo(111);
+    }
+}
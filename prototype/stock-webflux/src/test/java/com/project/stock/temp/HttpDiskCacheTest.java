@@ -0,0 +1,108 @@
+package com.project.stock.temp;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+class HttpDiskCacheTest {
+
+    private static final String CONCEPT = "https://data.sec.gov/api/xbrl/companyconcept/CIK0000000001/us-gaap/Revenues.json";
+    private static final String PRICE = "https://stooq.com/q/d/l/?s=aapl.us&i=d";
+
+    @TempDir
+    Path dir;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    @Test
+    void entriesStayFreshForTheirEndpointTtl() throws IOException {
+        HttpDiskCache cache = new HttpDiskCache(dir, clock::get);
+        cache.store(CONCEPT, 200, null, null, bytes("{}"));
+        cache.store(PRICE, 200, null, null, bytes("Date,Close"));
+
+        clock.addAndGet(HttpDiskCache.PRICE_TTL.toMillis() - 1);
+        Assertions.assertThat(cache.isFresh(cache.lookup(PRICE))).isTrue();
+        clock.incrementAndGet();
+        Assertions.assertThat(cache.isFresh(cache.lookup(PRICE))).isFalse();
+        Assertions.assertThat(cache.isFresh(cache.lookup(CONCEPT))).isTrue();   // SEC 는 하루
+
+        clock.addAndGet(HttpDiskCache.SEC_XBRL_TTL.toMillis() - HttpDiskCache.PRICE_TTL.toMillis());
+        Assertions.assertThat(cache.isFresh(cache.lookup(CONCEPT))).isFalse();
+    }
+
+    @Test
+    void touchRefreshesValidationTimeAndKeepsBlob() throws IOException {
+        HttpDiskCache cache = new HttpDiskCache(dir, clock::get);
+        HttpDiskCache.Entry stored = cache.store(CONCEPT, 200, "\"v1\"", "Wed, 01 Jan 2025 00:00:00 GMT", bytes("{\"a\":1}"));
+        clock.addAndGet(HttpDiskCache.SEC_XBRL_TTL.toMillis());
+
+        cache.touch(stored, null, "Thu, 02 Jan 2025 00:00:00 GMT");
+        HttpDiskCache.Entry touched = cache.lookup(CONCEPT);
+        Assertions.assertThat(cache.isFresh(touched)).isTrue();
+        Assertions.assertThat(touched.blob).isEqualTo(stored.blob);
+        Assertions.assertThat(touched.etag).isEqualTo("\"v1\"");   // 새 validator 가 없으면 예전 것 유지
+        Assertions.assertThat(touched.lastModified).isEqualTo("Thu, 02 Jan 2025 00:00:00 GMT");
+        Assertions.assertThat(new String(cache.read(touched), StandardCharsets.UTF_8)).isEqualTo("{\"a\":1}");
+    }
+
+    @Test
+    void identicalBodiesShareOneBlob() throws IOException {
+        HttpDiskCache cache = new HttpDiskCache(dir, clock::get);
+        cache.store(CONCEPT, 404, null, null, new byte[0]);
+        cache.store(CONCEPT.replace("Revenues", "Revenue"), 404, null, null, new byte[0]);
+        cache.store(PRICE, 200, null, null, bytes("Date,Close"));
+        try (HttpDiskCache.BlobWriter writer = cache.newBlobWriter()) {   // 스트리밍 저장도 같은 이름
+            writer.write(ByteBuffer.wrap(bytes("Date,")));
+            writer.write(ByteBuffer.wrap(bytes("Close")));
+            writer.commit(PRICE.replace("aapl", "msft"), 200, null, null);
+        }
+        Assertions.assertThat(cache.openWriters()).isZero();
+
+        Assertions.assertThat(cache.lookup(CONCEPT).blob).isEqualTo(cache.lookup(CONCEPT.replace("Revenues", "Revenue")).blob);
+        Assertions.assertThat(cache.lookup(PRICE.replace("aapl", "msft")).blob).isEqualTo(cache.lookup(PRICE).blob);
+        Assertions.assertThat(files("blobs")).hasSize(2).allMatch(name -> name.endsWith(".gz"));
+        Assertions.assertThat(files("entries")).hasSize(4);
+    }
+
+    @Test
+    void abandonedWriterRemovesItsTempFile() throws IOException {
+        HttpDiskCache cache = new HttpDiskCache(dir, clock::get);
+        HttpDiskCache.BlobWriter writer = cache.newBlobWriter();
+        writer.write(ByteBuffer.wrap(bytes("{\"partial\":")));
+        Assertions.assertThat(files("blobs")).singleElement().matches(name -> name.endsWith(".tmp"));
+        Assertions.assertThat(cache.openWriters()).isEqualTo(1);
+
+        writer.close();   // 응답이 중간에 실패하면 commit 없이 닫힌다
+        Assertions.assertThat(files("blobs")).isEmpty();
+        Assertions.assertThat(files("entries")).isEmpty();
+        Assertions.assertThat(cache.lookup(CONCEPT)).isNull();
+        Assertions.assertThat(cache.openWriters()).isZero();
+    }
+
+    @Test
+    void entryWithMissingBlobIsAMiss() throws IOException {
+        HttpDiskCache cache = new HttpDiskCache(dir, clock::get);
+        HttpDiskCache.Entry e = cache.store(CONCEPT, 200, null, null, bytes("{}"));
+        Files.delete(dir.resolve("blobs").resolve(e.blob));
+        Assertions.assertThat(cache.lookup(CONCEPT)).isNull();
+    }
+
+    private List<String> files(String sub) throws IOException {
+        try (Stream<Path> s = Files.list(dir.resolve(sub))) {
+            return s.map(p -> p.getFileName().toString()).toList();
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
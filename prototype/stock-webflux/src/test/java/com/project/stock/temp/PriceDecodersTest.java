@@ -0,0 +1,110 @@
+package com.project.stock.temp;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.within;
+
+class PriceDecodersTest {
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void stooqCsvReadsCloseColumnAndSkipsBrokenRows() {
+        PriceSeries px = PriceDecoders.stooqCsv(bytes("""
+                Date,Open,High,Low,Close,Volume\r
+                2024-01-02,10,11,9,10.5,1000\r
+                2024-01-03,10.5,11,10,-0.25\r
+                2024-13-04,1,1,1,99,1\r
+                2024-01-05,1,1\r
+                2024-01-08,1,1,1,abc,1\r
+                \r
+                2024-01-09,1,1,1,12.0625 ,1
+                """));
+
+        Assertions.assertThat(px.size()).isEqualTo(3);
+        Assertions.assertThat(px.day(0)).isEqualTo(EpochDays.of(2024, 1, 2));
+        Assertions.assertThat(px.value(0)).isEqualTo(10.5);
+        Assertions.assertThat(px.value(1)).isEqualTo(-0.25);
+        Assertions.assertThat(px.day(2)).isEqualTo(EpochDays.of(2024, 1, 9));
+        Assertions.assertThat(px.value(2)).isEqualTo(12.0625);
+    }
+
+    @Test
+    void stooqErrorPagesAndNoDataAreEmpty() {
+        Assertions.assertThat(PriceDecoders.stooqCsv(bytes("  <html><body>Exceeded</body></html>")).isEmpty()).isTrue();
+        Assertions.assertThat(PriceDecoders.stooqCsv(bytes("No data")).isEmpty()).isTrue();
+        Assertions.assertThat(PriceDecoders.stooqCsv(new byte[0]).isEmpty()).isTrue();
+    }
+
+    @Test
+    void decimalsMatchDoubleParse() {
+        Random rnd = new Random(5);
+        for (int i = 0; i < 20_000; i++) {
+            String s = String.format(Locale.ROOT, "%." + rnd.nextInt(7) + "f", rnd.nextDouble() * Math.pow(10, rnd.nextInt(8)));
+            byte[] b = bytes(s);
+            Assertions.assertThat(PriceDecoders.parseDecimal(b, 0, b.length)).as(s).isEqualTo(Double.parseDouble(s));
+        }
+        // Yahoo 처럼 유효숫자 17자리: 반올림 두 번이라 1ulp 안팎
+        for (int i = 0; i < 20_000; i++) {
+            double v = rnd.nextDouble() * 500;
+            byte[] b = bytes(Double.toString(v));
+            Assertions.assertThat(PriceDecoders.parseDecimal(b, 0, b.length)).isCloseTo(v, within(2 * Math.ulp(v)));
+        }
+        byte[] exp = bytes("1.5E-7");
+        Assertions.assertThat(PriceDecoders.parseDecimal(exp, 0, exp.length)).isEqualTo(1.5E-7);
+        byte[] nul = bytes("null");
+        Assertions.assertThat(PriceDecoders.parseDecimal(nul, 0, nul.length)).isNaN();
+    }
+
+    @Test
+    void yahooChartFollowsOnlyTheNeededPathAndDropsNullCloses() {
+        PriceSeries px = PriceDecoders.yahooChart(bytes("""
+                {"chart":{"result":[{"meta":{"symbol":"X","tradingPeriods":[[{"start":1,"end":2}]],"note":"a \\"quoted\\" ]}"},
+                  "timestamp":[1704205800, 1704292200,1704378600 ,1704465000],
+                  "events":{"splits":{"1704292200":{"numerator":2}}},
+                  "indicators":{"quote":[{"open":[1,2,3,4],"close":[187.14999389648438,null,184.25,181.91000366210938],
+                                          "volume":[1,2,3,4]},{"close":[9,9,9,9]}],
+                                "adjclose":[{"adjclose":[5,6,7,8]}]}},
+                  {"timestamp":[1],"indicators":{"quote":[{"close":[1]}]}}],
+                  "error":null}}
+                """));
+
+        Assertions.assertThat(px.size()).isEqualTo(3);
+        Assertions.assertThat(px.day(0)).isEqualTo(EpochDays.of(2024, 1, 2));
+        Assertions.assertThat(px.value(0)).isCloseTo(187.14999389648438, within(1e-12));
+        Assertions.assertThat(px.day(1)).isEqualTo(EpochDays.of(2024, 1, 4));
+        Assertions.assertThat(px.value(2)).isCloseTo(181.91000366210938, within(1e-12));
+    }
+
+    @Test
+    void yahooMalformedOrEmptyResultIsEmpty() {
+        Assertions.assertThat(PriceDecoders.yahooChart(bytes("{\"chart\":{\"result\":null,\"error\":{\"code\":\"Not Found\"}}}")).isEmpty()).isTrue();
+        Assertions.assertThat(PriceDecoders.yahooChart(bytes("{\"chart\":{\"result\":[{\"timestamp\":[1,2")).isEmpty()).isTrue();
+        Assertions.assertThat(PriceDecoders.yahooChart(bytes("<html>")).isEmpty()).isTrue();
+    }
+
+    @Test
+    void newYorkDaysMatchesZoneRulesAcrossDstTransitions() {
+        ZoneId ny = ZoneId.of("America/New_York");
+        PriceDecoders.NewYorkDays days = new PriceDecoders.NewYorkDays();
+        long t = LocalDate.of(2015, 1, 1).atStartOfDay(ny).toEpochSecond();
+        for (int i = 0; i < 10 * 365 * 4; i++, t += 6 * 3600 + 17) {   // 6시간 간격(전환 시각 부근도 지나감)
+            long expected = Instant.ofEpochSecond(t).atZone(ny).toLocalDate().toEpochDay();
+            Assertions.assertThat(days.of(t)).isEqualTo((int) expected);
+        }
+        // 내림차순으로 와도 맞아야 함
+        for (int i = 0; i < 1000; i++, t -= 86_400 * 3 + 1) {
+            Assertions.assertThat(days.of(t)).isEqualTo((int) Instant.ofEpochSecond(t).atZone(ny).toLocalDate().toEpochDay());
+        }
+    }
+}
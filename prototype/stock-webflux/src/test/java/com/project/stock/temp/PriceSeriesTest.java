@@ -0,0 +1,31 @@
+package com.project.stock.temp;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PriceSeriesTest {
+
+    private static final int FRI = EpochDays.of(2024, 3, 29);
+    private static final int MON = EpochDays.of(2024, 4, 1);
+
+    @Test
+    void floorJoinUsesPreviousTradingDayWithinLookback() {
+        PriceSeries px = new PriceSeries.Builder().add(FRI, 10.0).add(MON, 11.0).build();
+        int[] keys = {EpochDays.of(2024, 3, 28), EpochDays.of(2024, 3, 31), MON, EpochDays.of(2024, 4, 20)};
+
+        Assertions.assertThat(AsOfJoin.join(keys, AsOfJoin.floor(px, 10))[0])
+                .containsExactly(Double.NaN,   // 첫 거래일 이전
+                        10.0,                  // 일요일 → 금요일
+                        11.0,
+                        Double.NaN);           // look-back 초과
+    }
+
+    @Test
+    void unsortedInputIsSortedAndLaterDuplicateWins() {
+        PriceSeries px = new PriceSeries.Builder().add(MON, 11.0).add(FRI, 10.0).add(MON, 12.0).build();
+
+        Assertions.assertThat(px.size()).isEqualTo(2);
+        Assertions.assertThat(px.day(0)).isEqualTo(FRI);
+        Assertions.assertThat(px.value(1)).isEqualTo(12.0);
+    }
+}
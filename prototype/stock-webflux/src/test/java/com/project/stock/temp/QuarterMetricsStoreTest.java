@@ -0,0 +1,122 @@
+package com.project.stock.temp;
+
+import com.project.stock.domain.QuarterMetricsRow;
+import com.project.stock.repository.QuarterMetricsRepository;
+import com.project.stock.temp.StockMetricsFetcher.QuarterMetrics;
+import io.r2dbc.spi.ConnectionFactories;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@DataR2dbcTest
+@Import(QuarterMetricsRepository.class)
+@ActiveProfiles("test")
+class QuarterMetricsStoreTest {
+
+    @Autowired
+    DatabaseClient db;
+
+    @Autowired
+    QuarterMetricsRepository repo;
+
+    @BeforeEach
+    void clean() {
+        db.sql("DELETE FROM quarter_metrics").then().block();
+    }
+
+    /** 2022Q1 부터 n 분기, 매출 = base + 분기 번호 */
+    private static List<QuarterMetrics> quarters(int n, double base) {
+        List<QuarterMetrics> out = new ArrayList<>();
+        LocalDate end = LocalDate.of(2022, 3, 31);
+        for (int i = 0; i < n; i++, end = end.plusMonths(3).withDayOfMonth(end.plusMonths(3).lengthOfMonth())) {
+            out.add(new QuarterMetrics(end, base + i, 1, 0.5, 10, 100, 20, Double.NaN, 2));
+        }
+        return out;
+    }
+
+    @Test
+    void writeBehindBatchesUpsertAndRoundTripsNaN() {
+        QuarterMetricsStore store = new QuarterMetricsStore(repo);
+        for (int t = 0; t < 30; t++) store.offer("T" + t, String.format("%010d", t), quarters(12, t * 100));
+        store.offer("T0", "0000000000", quarters(12, 5_000));   // 같은 키 재계산 → 덮어쓰기
+        StepVerifier.create(store.flush()).assertNext(n -> Assertions.assertThat(n).isPositive()).verifyComplete();
+
+        StepVerifier.create(db.sql("SELECT COUNT(*) AS n FROM quarter_metrics").map(r -> r.get("n", Long.class)).one())
+                .expectNext(30L * 12).verifyComplete();
+        StepVerifier.create(new QuarterMetricsStore(repo).latest("T0", 4))
+                .assertNext(s -> {
+                    Assertions.assertThat(s.quarters()).hasSize(4);
+                    // 최신 분기부터(MetricsTable 의 lag 0 = get(0))
+                    Assertions.assertThat(s.quarters().get(0).end).isEqualTo(LocalDate.of(2024, 12, 31));
+                    Assertions.assertThat(s.quarters().get(0).revenue).isEqualTo(5_011);
+                    Assertions.assertThat(s.quarters().get(0).per).isNaN();
+                    Assertions.assertThat(s.quarters().get(3).end).isEqualTo(LocalDate.of(2024, 3, 31));
+                    Assertions.assertThat(s.cik()).isEqualTo("0000000000");
+                })
+                .verifyComplete();
+        StepVerifier.create(new QuarterMetricsStore(repo).latest("NONE", 4)).verifyComplete();
+    }
+
+    @Test
+    void latestPerTickerAndCrossSectionalQuarter() {
+        List<QuarterMetricsRow> rows = new ArrayList<>();
+        for (QuarterMetrics q : quarters(8, 0)) rows.add(row("AAA", q));
+        for (QuarterMetrics q : quarters(3, 50)) rows.add(row("BBB", q));
+        rows.add(row("CCC", new QuarterMetrics(LocalDate.of(2023, 12, 30), 7, 1, 1, 1, 1, 1, 1, 1)));   // 52/53주 회계연도
+        StepVerifier.create(repo.upsertAll(rows)).expectNextCount(1).verifyComplete();
+
+        StepVerifier.create(repo.findLatestPerTicker(2).map(r -> r.ticker() + "@" + r.periodEnd()).collectList())
+                .assertNext(list -> Assertions.assertThat(list).containsExactly(
+                        "AAA@2023-09-30", "AAA@2023-12-31", "BBB@2022-06-30", "BBB@2022-09-30", "CCC@2023-12-30"))
+                .verifyComplete();
+        StepVerifier.create(repo.findByQuarter(2023, 4).map(QuarterMetricsRow::ticker).collectList())
+                .assertNext(list -> Assertions.assertThat(list).containsExactly("AAA", "CCC"))
+                .verifyComplete();
+        StepVerifier.create(repo.findByQuarter(2023, 5)).expectError(IllegalArgumentException.class).verify();
+    }
+
+    /** CLI --db 처럼 MODE=MYSQL 없는 URL: 같은 upsert 문장이 돌고, 재계산은 덮어쓴다 */
+    @Test
+    void upsertWorksWithoutMySqlMode() {
+        QuarterMetricsStore store = StockMetricsFetcher.openStore("r2dbc:h2:mem:///plain-upsert;DB_CLOSE_DELAY=-1");
+        store.offer("AAA", "0000000001", quarters(4, 0));
+        store.offer("AAA", "0000000001", quarters(4, 100));
+        StepVerifier.create(store.flush()).assertNext(n -> Assertions.assertThat(n).isPositive()).verifyComplete();
+        StepVerifier.create(StockMetricsFetcher.openStore("r2dbc:h2:mem:///plain-upsert;DB_CLOSE_DELAY=-1").latest("AAA", 12))
+                .assertNext(s -> {
+                    Assertions.assertThat(s.quarters()).hasSize(4);
+                    Assertions.assertThat(s.quarters().get(3).revenue).isEqualTo(100);
+                })
+                .verifyComplete();
+    }
+
+    /** 쓰기 실패는 로그로만 끝나지 않고 flush 가 오류를 낸다 */
+    @Test
+    void failedBatchFailsFlush() {
+        String url = "r2dbc:h2:mem:///plain-broken;DB_CLOSE_DELAY=-1";
+        QuarterMetricsStore store = StockMetricsFetcher.openStore(url);
+        DatabaseClient.create(ConnectionFactories.get(url)).sql("DROP TABLE quarter_metrics").then().block();
+        store.offer("AAA", "0000000001", quarters(4, 0));
+        StepVerifier.create(store.flush())
+                .expectErrorSatisfies(e -> Assertions.assertThat(e)
+                        .isInstanceOf(IllegalStateException.class)
+                        .hasMessageContaining("4 rows not saved"))
+                .verify();
+    }
+
+    private static QuarterMetricsRow row(String ticker, QuarterMetrics q) {
+        return new QuarterMetricsRow(ticker, q.end, "0000000001", q.revenue, q.operatingIncome, q.eps, q.equity,
+                q.shares, q.price, Double.isNaN(q.per) ? null : q.per, q.pbr, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,116 @@
+package com.project.stock.temp;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * YTD → 분기 변환 규칙(FY2024 = 달력연도)
+ * - Q2/Q3 = YTD − 직전 YTD, 직전 YTD 가 없으면 이미 구한 이전 분기 합으로 보정
+ * - Q4 = FY − Q3 YTD, Q3 YTD 가 없으면 Q4 없음(차분 금지)
+ * - 같은 슬롯에 end 가 같은 팩트가 여럿이면 먼저 나온 것(기준 구현과 같이 더 늦은 end 만 교체)
+ */
+class QuarterizerTest {
+
+    private static final byte FORM_10Q = 1, FORM_10K = 3;
+
+    private final ConceptFacts.Builder facts = new ConceptFacts.Builder();
+
+    @Test
+    void q2AndQ3AreYtdDifferences() {
+        quarter("2024-01-01", "2024-03-31", 90, "Q1");
+        ytd("2024-01-01", "2024-03-31", 100, "Q1");   // frame 의 YTD 표기(기간이 짧아도 YTD)
+        ytd("2024-01-01", "2024-06-30", 250, "Q2");
+        ytd("2024-01-01", "2024-09-30", 420, "Q3");
+
+        DaySeries s = Quarterizer.quarterize(facts.build());
+        Assertions.assertThat(days(s)).containsExactly("2024-03-31", "2024-06-30", "2024-09-30");
+        // Q1 은 분기 팩트 우선, Q2 는 분기 합(90)이 아니라 Q1 YTD(100)와의 차분
+        Assertions.assertThat(values(s)).containsExactly(90.0, 150.0, 170.0);
+    }
+
+    @Test
+    void missingPriorYtdFallsBackToSumOfPriorQuarters() {
+        quarter("2024-01-01", "2024-03-31", 100, "Q1");
+        quarter("2024-04-01", "2024-06-30", 150, "Q2");
+        ytd("2024-01-01", "2024-09-30", 420, "Q3");   // Q2 YTD 없음 → 420 − (100 + 150)
+
+        Assertions.assertThat(values(Quarterizer.quarterize(facts.build()))).containsExactly(100.0, 150.0, 170.0);
+    }
+
+    @Test
+    void q4IsFiscalYearMinusQ3Ytd() {
+        quarter("2024-01-01", "2024-03-31", 100, "Q1");
+        ytd("2024-01-01", "2024-06-30", 250, "Q2");
+        ytd("2024-01-01", "2024-09-30", 420, "Q3");
+        annual("2024-01-01", "2024-12-31", 600);
+
+        DaySeries s = Quarterizer.quarterize(facts.build());
+        Assertions.assertThat(days(s)).containsExactly("2024-03-31", "2024-06-30", "2024-09-30", "2024-12-31");
+        Assertions.assertThat(values(s)).containsExactly(100.0, 150.0, 170.0, 180.0);
+    }
+
+    @Test
+    void noDifferenceWithoutPriorYtd() {
+        ytd("2024-01-01", "2024-06-30", 250, "Q2");       // Q1 도 Q1 YTD 도 없음 → Q2 없음
+        quarter("2024-07-01", "2024-09-30", 170, "Q3");   // Q3 는 분기 팩트뿐(YTD 아님)
+        annual("2024-01-01", "2024-12-31", 600);          // Q3 YTD 가 없으므로 Q4 도 없음
+
+        DaySeries s = Quarterizer.quarterize(facts.build());
+        Assertions.assertThat(days(s)).containsExactly("2024-09-30");
+        Assertions.assertThat(values(s)).containsExactly(170.0);
+    }
+
+    @Test
+    void sameEndInOneSlotKeepsFirstFactAndLaterEndReplaces() {
+        quarter("2024-01-01", "2024-03-31", 100, "Q1");
+        quarter("2024-01-01", "2024-03-31", 999, "Q1");   // 같은 end → 무시
+        ytd("2024-01-01", "2024-06-30", 250, "Q2");
+        ytd("2024-01-01", "2024-06-30", 999, "Q2");       // 같은 end → 무시
+        ytd("2024-01-01", "2024-09-30", 400, "Q3");
+        ytd("2024-01-02", "2024-10-01", 420, "Q3");       // 더 늦은 end → 교체
+        annual("2024-01-01", "2024-12-31", 600);
+        annual("2024-01-01", "2024-12-31", 999);          // 같은 end → 무시
+
+        DaySeries s = Quarterizer.quarterize(facts.build());
+        Assertions.assertThat(days(s)).containsExactly("2024-03-31", "2024-06-30", "2024-10-01", "2024-12-31");
+        Assertions.assertThat(values(s)).containsExactly(100.0, 150.0, 170.0, 180.0);
+    }
+
+    // ---------- 팩트 ----------
+
+    private void quarter(String start, String end, double val, String fp) {
+        add(start, end, val, fp, FORM_10Q, (byte) 0);
+    }
+
+    private void ytd(String start, String end, double val, String fp) {
+        add(start, end, val, fp, FORM_10Q, ConceptFacts.FLAG_FRAME_YTD);
+    }
+
+    private void annual(String start, String end, double val) {
+        add(start, end, val, "FY", FORM_10K, (byte) 0);
+    }
+
+    /** 달력 회계연도: fy = 기간 시작 연도 */
+    private void add(String start, String end, double val, String fp, byte form, byte flags) {
+        LocalDate e = LocalDate.parse(end);
+        short fy = (short) LocalDate.parse(start).getYear();
+        facts.add((int) LocalDate.parse(start).toEpochDay(), (int) e.toEpochDay(), val, fy,
+                ConceptFacts.fpCode(fp.toCharArray(), 0, 2), form, flags);
+    }
+
+    private static List<String> days(DaySeries s) {
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < s.size(); i++) out.add(LocalDate.ofEpochDay(s.day(i)).toString());
+        return out;
+    }
+
+    private static List<Double> values(DaySeries s) {
+        List<Double> out = new ArrayList<>();
+        for (int i = 0; i < s.size(); i++) out.add(s.value(i));
+        return out;
+    }
+}
@@ -0,0 +1,86 @@
+package com.project.stock.temp;
+
+import com.project.stock.temp.StockMetricsFetcher.QuarterMetrics;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+class RunJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private static TickerOutcome match(String ticker) {
+        return TickerOutcome.match(ticker, "0000000001", List.of(
+                new QuarterMetrics(LocalDate.of(2024, 12, 31), 10, 2, 0.5, 100, 10, 5, Double.NaN, 0.5)));
+    }
+
+    @Test
+    void reopenRestoresOutcomesAndReplaysMatches() throws Exception {
+        Path file = dir.resolve("run.journal");
+        try (RunJournal journal = RunJournal.open(file)) {
+            journal.append(match("AAA"));
+            journal.append(TickerOutcome.reject("BBB", "0000000002"));
+            journal.append(TickerOutcome.fail("CCC", "0000000003", "timeout"));
+        }
+
+        try (RunJournal journal = RunJournal.open(file)) {
+            Assertions.assertThat(journal.isDone("AAA")).isTrue();
+            Assertions.assertThat(journal.isDone("BBB")).isTrue();
+            Assertions.assertThat(journal.isDone("CCC")).isFalse();
+            Assertions.assertThat(journal.isFailed("CCC")).isTrue();
+            Assertions.assertThat(journal.isDone("DDD")).isFalse();
+            Assertions.assertThat(journal.isFailed("DDD")).isFalse();
+
+            List<ScreenMatch> matches = journal.matches();
+            Assertions.assertThat(matches).extracting(ScreenMatch::ticker).containsExactly("AAA");
+            Assertions.assertThat(matches.get(0).quarters().get(0).per).isNaN();
+            Assertions.assertThat(matches.get(0).quarters().get(0).revenue).isEqualTo(10.0);
+        }
+    }
+
+    @Test
+    void laterOutcomeWinsAndOpenCompactsToOneLinePerTicker() throws Exception {
+        Path file = dir.resolve("run.journal");
+        try (RunJournal journal = RunJournal.open(file)) {
+            journal.append(TickerOutcome.fail("AAA", "0000000001", "503"));
+            journal.append(TickerOutcome.reject("BBB", "0000000002"));
+            journal.append(match("AAA"));   // --retry-failed 재실행
+        }
+        Assertions.assertThat(Files.readAllLines(file)).hasSize(3);
+
+        try (RunJournal journal = RunJournal.open(file)) {
+            Assertions.assertThat(journal.isFailed("AAA")).isFalse();
+            Assertions.assertThat(journal.matches()).extracting(ScreenMatch::ticker).containsExactly("AAA");
+        }
+        List<String> lines = Files.readAllLines(file);
+        Assertions.assertThat(lines).hasSize(2);
+        Assertions.assertThat(lines.get(0)).contains("\"ticker\":\"BBB\"");
+        Assertions.assertThat(lines.get(1)).contains("\"status\":\"MATCH\"");
+    }
+
+    @Test
+    void truncatedTailIsDroppedAndNextAppendStartsOnFreshLine() throws Exception {
+        Path file = dir.resolve("run.journal");
+        try (RunJournal journal = RunJournal.open(file)) {
+            journal.append(TickerOutcome.reject("AAA", "0000000001"));
+        }
+        // 크래시로 마지막 줄이 중간에 끊긴 상황
+        Files.writeString(file, "{\"ticker\":\"BBB\",\"cik\":\"00", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (RunJournal journal = RunJournal.open(file)) {
+            Assertions.assertThat(journal.outcomes()).extracting(TickerOutcome::ticker).containsExactly("AAA");
+            journal.append(TickerOutcome.reject("CCC", "0000000003"));
+        }
+        try (RunJournal journal = RunJournal.open(file)) {
+            Assertions.assertThat(journal.outcomes()).extracting(TickerOutcome::ticker).containsExactly("AAA", "CCC");
+        }
+    }
+}
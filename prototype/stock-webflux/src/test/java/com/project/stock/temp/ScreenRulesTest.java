@@ -0,0 +1,120 @@
+package com.project.stock.temp;
+
+import com.project.stock.temp.StockMetricsFetcher.QuarterMetrics;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class ScreenRulesTest {
+
+    @TempDir
+    Path dir;
+
+    /** 최근 분기부터: {revenue, operatingIncome, per, pbr} */
+    private static ScreenMatch ticker(String name, double[]... quarters) {
+        List<QuarterMetrics> q = new ArrayList<>();
+        LocalDate end = LocalDate.of(2024, 12, 31);
+        for (double[] r : quarters) {
+            q.add(new QuarterMetrics(end, r[0], r[1], Double.NaN, Double.NaN, Double.NaN, Double.NaN, r[2], r[3]));
+            end = end.minusMonths(3);
+        }
+        return new ScreenMatch(name, "0000000001", q);
+    }
+
+    private static List<String> tickers(MetricsTable table, BitSet bits) {
+        List<String> out = new ArrayList<>();
+        bits.stream().forEach(i -> out.add(table.row(i).ticker()));
+        return out;
+    }
+
+    @Test
+    void evaluatesLagsAggregatesAndLogic() {
+        MetricsTable table = MetricsTable.of(List.of(
+                ticker("UP", new double[]{30, 6, 10, 1}, new double[]{20, 4, 10, 1}, new double[]{10, 2, 10, 1}),
+                ticker("FLAT", new double[]{10, 2, 30, 2}, new double[]{10, 2, 30, 2}, new double[]{10, 2, 30, 2}),
+                ticker("SHORT", new double[]{30, 6, 10, 1}, new double[]{20, 4, 10, 1})));
+
+        Map<String, BitSet> r = ScreenRules.parse("""
+                # comment
+                rising:   rising(revenue, 3)          # 분기가 모자라면 거짓
+                cheap:    per[0] * pbr <= 22.5
+                margin:   avg(operatingIncome, 2) / avg(revenue, 2) >= 0.2 and not (revenue < 0)
+                grown:    growth(revenue, 1) > 0.4 or -per > -20
+                pricey:   !(per * pbr <= 22.5)
+                """).evaluate(table);
+
+        Assertions.assertThat(tickers(table, r.get("rising"))).containsExactly("UP");
+        Assertions.assertThat(tickers(table, r.get("cheap"))).containsExactly("UP", "SHORT");
+        Assertions.assertThat(tickers(table, r.get("margin"))).containsExactly("UP", "FLAT", "SHORT");
+        Assertions.assertThat(tickers(table, r.get("grown"))).containsExactly("UP", "SHORT");
+        Assertions.assertThat(tickers(table, r.get("pricey"))).containsExactly("FLAT");
+    }
+
+    @Test
+    void screensShareSubexpressionsWithinOnePass() {
+        MetricsTable table = MetricsTable.of(List.of(ticker("A", new double[]{2, 1, 1, 1}, new double[]{1, 1, 1, 1})));
+        ScreenRules rules = ScreenRules.parse("""
+                a: rising(revenue, 2)
+                b: revenue[0] > revenue[1] and per < 5
+                """);
+        ScreenRules.Evaluator ev = new ScreenRules.Evaluator(table);
+        for (ScreenRules.Rule rule : rules.rules()) ev.get(rule.root());
+        // revenue[0], revenue[1], (revenue[0] > revenue[1]), per[0], 5.0, (per[0] < 5.0), and
+        Assertions.assertThat(ev.computed()).isEqualTo(7);
+    }
+
+    @Test
+    void reportsErrorsWithLineAndColumn() {
+        Assertions.assertThatThrownBy(() -> ScreenRules.parse("ok: per < 1\nbad: per <"))
+                .hasMessageStartingWith("line 2 (bad): ");
+        Assertions.assertThatThrownBy(() -> ScreenRules.parse("x: price * 2"))
+                .hasMessageContaining("must be a condition");
+        Assertions.assertThatThrownBy(() -> ScreenRules.parse("x: roe > 1"))
+                .hasMessageContaining("unknown field 'roe' at column");
+        Assertions.assertThatThrownBy(() -> ScreenRules.parse("x: per > 1 + (pbr < 1)"))
+                .hasMessageContaining("needs numbers");
+        Assertions.assertThatThrownBy(() -> ScreenRules.parse("x: per > 1\nx: pbr < 1"))
+                .hasMessageContaining("duplicate screen 'x'");
+    }
+
+    /** 예시 룰 파일의 기본 스크린은 하드코딩된 Screen.RISING_GROWTH_VALUE 와 같은 종목을 고른다 */
+    @Test
+    void bundledDefaultRuleMatchesHardcodedScreen() throws Exception {
+        Path rulesFile = Path.of(getClass().getResource("/screens/default.rules").toURI());
+        ScreenRules rules = ScreenRules.load(rulesFile);
+
+        Random rnd = new Random(11);
+        List<ScreenMatch> rows = new ArrayList<>();
+        for (int t = 0; t < 500; t++) {
+            double[][] q = new double[1 + rnd.nextInt(5)][];
+            for (int i = 0; i < q.length; i++) {
+                q[i] = new double[]{10 - i + rnd.nextInt(3), 5 - i + rnd.nextInt(3),
+                        rnd.nextInt(10) == 0 ? Double.NaN : rnd.nextInt(30), rnd.nextDouble() * 2};
+            }
+            rows.add(ticker("T" + t, q));
+        }
+        // 데이터셋 파일을 거쳐도 같은 결과(NaN → null → NaN)
+        Path dataset = dir.resolve("dataset.ndjson");
+        StockMetricsFetcher.runScreen(reactor.core.publisher.Flux.fromIterable(rows), ScreenSink.ndjson(dataset)).block();
+        MetricsTable table = MetricsTable.load(dataset);
+
+        BitSet bits = rules.evaluate(table).get("rising_growth_value");
+        int expected = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            boolean accepts = Screen.RISING_GROWTH_VALUE.accepts(rows.get(i).quarters());
+            if (accepts) expected++;
+            Assertions.assertThat(bits.get(i)).as(rows.get(i).ticker()).isEqualTo(accepts);
+        }
+        Assertions.assertThat(expected).isPositive();
+        Assertions.assertThat(Files.readAllLines(dataset)).hasSize(rows.size());
+    }
+}
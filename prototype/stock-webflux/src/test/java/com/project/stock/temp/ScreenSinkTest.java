@@ -0,0 +1,53 @@
+package com.project.stock.temp;
+
+import com.project.stock.temp.StockMetricsFetcher.QuarterMetrics;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+class ScreenSinkTest {
+
+    @TempDir
+    Path dir;
+
+    private static ScreenMatch match(String ticker, double per) {
+        return new ScreenMatch(ticker, "0000000001", List.of(
+                new QuarterMetrics(LocalDate.of(2024, 12, 31), 10, 2, 0.5, 100, 10, 5, per, 0.5)));
+    }
+
+    @Test
+    void ndjsonWritesOneLinePerMatchWithNanAsNull() throws Exception {
+        Path file = dir.resolve("matches.ndjson");
+
+        StepVerifier.create(StockMetricsFetcher.runScreen(Flux.just(match("AAA", 10), match("BBB", Double.NaN)),
+                        ScreenSink.ndjson(file)))
+                .expectNext(2L)
+                .verifyComplete();
+
+        List<String> lines = Files.readAllLines(file);
+        Assertions.assertThat(lines).hasSize(2);
+        Assertions.assertThat(lines.get(0)).startsWith("{\"ticker\":\"AAA\",\"cik\":\"0000000001\",\"quarters\":[{\"end\":\"2024-12-31\"");
+        Assertions.assertThat(lines.get(1)).contains("\"per\":null");
+    }
+
+    @Test
+    void sseSinkRelaysMatchesThenDone() {
+        SseScreenSink sink = new SseScreenSink();
+        StockMetricsFetcher.runScreen(Flux.just(match("AAA", 10)), sink).block();
+
+        StepVerifier.create(sink.events())
+                .assertNext(e -> {
+                    Assertions.assertThat(e.event()).isEqualTo("match");
+                    Assertions.assertThat(e.data()).contains("\"ticker\":\"AAA\"");
+                })
+                .assertNext(e -> Assertions.assertThat(e.event()).isEqualTo("done"))
+                .verifyComplete();
+    }
+}
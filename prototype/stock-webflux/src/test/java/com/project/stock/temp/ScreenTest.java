@@ -0,0 +1,97 @@
+package com.project.stock.temp;
+
+import com.project.stock.temp.StockMetricsFetcher.QuarterMetrics;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+class ScreenTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 30);
+
+    @Test
+    void risingQuartersChecksLastPointsInsideWindow() {
+        int from = StockMetricsFetcher.windowStart(TODAY);
+        DaySeries rising = new DaySeries(new int[]{from + 10, from + 100, from + 190}, new double[]{1, 2, 3});
+        DaySeries flat = new DaySeries(new int[]{from + 10, from + 100, from + 190}, new double[]{1, 2, 2});
+        DaySeries tooOld = new DaySeries(new int[]{from - StockMetricsFetcher.END_MATCH_DAYS - 1, from + 100, from + 190}, new double[]{1, 2, 3});
+
+        Assertions.assertThat(Screen.risingQuarters(3).test(rising, from)).isTrue();
+        Assertions.assertThat(Screen.risingQuarters(3).test(flat, from)).isFalse();
+        Assertions.assertThat(Screen.risingQuarters(3).test(tooOld, from)).isFalse();
+    }
+
+    /**
+     * 창 시작 직전 분기: 최종 행은 창 안의 end 에 ±END_MATCH_DAYS 로 nearest 매칭되므로
+     * 창 시작보다 1~10일 이른 분기는 행에 들어가고(단계도 통과), 그보다 이르면 어느 행에도 닿지 않는다
+     */
+    @Test
+    void risingQuartersFollowsNearestMatchAtWindowStart() {
+        int from = StockMetricsFetcher.windowStart(TODAY);
+        StockMetricsFetcher.SecFacts none = new StockMetricsFetcher.SecFacts(ConceptFacts.EMPTY, ConceptFacts.EMPTY,
+                ConceptFacts.EMPTY, ConceptFacts.EMPTY, ConceptFacts.EMPTY, ConceptFacts.EMPTY, ConceptFacts.EMPTY);
+        DaySeries op = new DaySeries(new int[]{from, from + 91, from + 182}, new double[]{1, 2, 3});
+
+        for (int early = 1; early <= StockMetricsFetcher.END_MATCH_DAYS + 2; early++) {
+            DaySeries rev = new DaySeries(new int[]{from - early, from + 91, from + 182}, new double[]{1, 2, 3});
+            List<QuarterMetrics> q = StockMetricsFetcher.alignQuarters(rev, op, none, PriceSeries.EMPTY, TODAY);
+            boolean rowsRising = q.size() >= 3
+                    && q.get(0).revenue > q.get(1).revenue && q.get(1).revenue > q.get(2).revenue;
+
+            Assertions.assertThat(rowsRising).as("rows, %d days early", early)
+                    .isEqualTo(early <= StockMetricsFetcher.END_MATCH_DAYS);
+            Assertions.assertThat(Screen.risingQuarters(3).test(rev, from)).as("stage, %d days early", early)
+                    .isEqualTo(rowsRising);
+        }
+    }
+
+    /** 단계 조건은 최종 행 조건의 필요조건: 최종 행이 3분기 연속 증가면 단계도 통과해야 한다 */
+    @Test
+    void stageCheckNeverRejectsTickerThatRowsWouldAccept() {
+        Random rnd = new Random(7);
+        int from = StockMetricsFetcher.windowStart(TODAY);
+        StockMetricsFetcher.SecFacts none = new StockMetricsFetcher.SecFacts(ConceptFacts.EMPTY, ConceptFacts.EMPTY,
+                ConceptFacts.EMPTY, ConceptFacts.EMPTY, ConceptFacts.EMPTY, ConceptFacts.EMPTY, ConceptFacts.EMPTY);
+        int accepted = 0;
+        for (int round = 0; round < 2000; round++) {
+            int[] ends = quarterEnds(rnd, from, 2 + rnd.nextInt(6));
+            DaySeries rev = randomValues(rnd, ends);
+            DaySeries op = randomValues(rnd, rnd.nextInt(5) == 0 ? quarterEnds(rnd, from, ends.length) : ends);
+            List<QuarterMetrics> q = StockMetricsFetcher.alignQuarters(rev, op, none, PriceSeries.EMPTY, TODAY);
+
+            boolean rowsRising = q.size() >= 3
+                    && q.get(0).revenue > q.get(1).revenue && q.get(1).revenue > q.get(2).revenue
+                    && q.get(0).operatingIncome > q.get(1).operatingIncome && q.get(1).operatingIncome > q.get(2).operatingIncome;
+            if (!rowsRising) continue;
+            accepted++;
+            Assertions.assertThat(Screen.RISING_GROWTH_VALUE.revenue.test(rev, from)).isTrue();
+            Assertions.assertThat(Screen.RISING_GROWTH_VALUE.operatingIncome.test(op, from)).isTrue();
+        }
+        Assertions.assertThat(accepted).isPositive();
+    }
+
+    /** 분기말 근처(몇 일 흔들림) 날짜 */
+    private static int[] quarterEnds(Random rnd, int from, int n) {
+        int[] d = new int[n];
+        int day = from + 900 - n * 91;
+        for (int i = 0; i < n; i++) {
+            d[i] = day + rnd.nextInt(15);
+            day += 91;
+        }
+        return d;
+    }
+
+    /** 대체로 증가하는 값 */
+    private static DaySeries randomValues(Random rnd, int[] days) {
+        double[] v = new double[days.length];
+        double value = 10;
+        for (int i = 0; i < v.length; i++) {
+            value += rnd.nextInt(4) - 1;
+            v[i] = value;
+        }
+        return new DaySeries(days, v);
+    }
+}
@@ -0,0 +1,79 @@
+package com.project.stock.temp;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SEC 토큰 버킷을 가짜 시계로 검증(10 req/s → 슬롯 간격 100ms)
+ */
+class SecRateLimiterTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000 * MS);
+    private final SecRateLimiter limiter = new SecRateLimiter(10, clock::get);
+
+    @Test
+    void reservesSlotsAtSteadyRate() {
+        Assertions.assertThat(limiter.reserve()).isZero();
+        Assertions.assertThat(limiter.reserve()).isEqualTo(100 * MS);
+        Assertions.assertThat(limiter.reserve()).isEqualTo(200 * MS);
+
+        clock.addAndGet(1_000 * MS);   // 버킷이 비면 바로
+        Assertions.assertThat(limiter.reserve()).isZero();
+        Assertions.assertThat(limiter.reserve()).isEqualTo(100 * MS);
+    }
+
+    @Test
+    void throttleHalvesRateAtMostOncePerSecondAndPauses() {
+        limiter.onThrottled();
+        limiter.onThrottled();   // 같은 폭주의 연속 429 → 한 번만
+        Assertions.assertThat(limiter.currentRate()).isEqualTo(5.0);
+        Assertions.assertThat(limiter.reserve()).isEqualTo(SecRateLimiter.THROTTLE_PAUSE.toNanos());
+
+        clock.addAndGet(1_000 * MS);
+        limiter.onThrottled();
+        Assertions.assertThat(limiter.currentRate()).isEqualTo(2.5);
+
+        for (int i = 0; i < 10; i++) {   // 하한
+            clock.addAndGet(1_000 * MS);
+            limiter.onThrottled();
+        }
+        Assertions.assertThat(limiter.currentRate()).isEqualTo(SecRateLimiter.MIN_RATE);
+    }
+
+    @Test
+    void successRecoversByStepUpToMax() {
+        limiter.onThrottled();
+        limiter.onSuccess();
+        limiter.onSuccess();
+        limiter.onSuccess();
+        Assertions.assertThat(limiter.currentRate()).isCloseTo(5.3, Offset.offset(1e-9));
+
+        for (int i = 0; i < 100; i++) limiter.onSuccess();
+        Assertions.assertThat(limiter.currentRate()).isEqualTo(10.0);
+    }
+
+    @Test
+    void cancelledWaiterGivesSlotBack() {
+        limiter.reserve();
+        limiter.reserve();
+        Disposable waiter = limiter.acquire().subscribe();   // 200ms 슬롯 대기
+        Assertions.assertThat(limiter.queueDepth()).isEqualTo(1);
+
+        waiter.dispose();
+        Assertions.assertThat(limiter.queueDepth()).isZero();
+        Assertions.assertThat(limiter.reserve()).isEqualTo(200 * MS);   // 반납된 슬롯을 다음 예약이 씀
+
+        // 429 정지 구간 안으로는 당기지 않는다
+        limiter.onThrottled();
+        Disposable paused = limiter.acquire().subscribe();
+        paused.dispose();
+        Assertions.assertThat(limiter.reserve()).isEqualTo(SecRateLimiter.THROTTLE_PAUSE.toNanos());
+    }
+}
@@ -0,0 +1,106 @@
+package com.project.stock.temp;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class SingleFlightCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private SingleFlightCache<String, String> cache(Duration ttl) {
+        return new SingleFlightCache<>(v -> v.startsWith("fail") ? Duration.ZERO : ttl, 100, now::get);
+    }
+
+    @Test
+    void concurrentRequestsShareOneComputation() {
+        SingleFlightCache<String, String> cache = cache(Duration.ofMinutes(1));
+        Sinks.One<String> result = Sinks.one();
+
+        Mono<String> a = cache.get("AAPL", () -> { loads.incrementAndGet(); return result.asMono(); });
+        Mono<String> b = cache.get("AAPL", () -> { loads.incrementAndGet(); return Mono.just("other"); });
+        StepVerifier.create(Mono.zip(a, b))
+                .then(() -> result.tryEmitValue("series"))
+                .assertNext(t -> Assertions.assertThat(t.getT1()).isEqualTo("series").isEqualTo(t.getT2()))
+                .verifyComplete();
+        Assertions.assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void valueIsReusedUntilTtlThenRecomputed() {
+        SingleFlightCache<String, String> cache = cache(Duration.ofMinutes(1));
+        StepVerifier.create(cache.get("MSFT", () -> Mono.fromSupplier(() -> "v" + loads.incrementAndGet())))
+                .expectNext("v1").verifyComplete();
+        now.addAndGet(59_000);
+        StepVerifier.create(cache.get("MSFT", () -> Mono.fromSupplier(() -> "v" + loads.incrementAndGet())))
+                .expectNext("v1").verifyComplete();
+        now.addAndGet(1_000);
+        StepVerifier.create(cache.get("MSFT", () -> Mono.fromSupplier(() -> "v" + loads.incrementAndGet())))
+                .expectNext("v2").verifyComplete();
+    }
+
+    @Test
+    void errorsAndZeroTtlResultsAreNotKept() {
+        SingleFlightCache<String, String> cache = cache(Duration.ofMinutes(1));
+        StepVerifier.create(cache.get("X", () -> Mono.error(new IOException("503")))).expectError().verify();
+        StepVerifier.create(cache.get("X", () -> Mono.just("fail: partial"))).expectNext("fail: partial").verifyComplete();
+        StepVerifier.create(cache.get("X", () -> Mono.just("ok"))).expectNext("ok").verifyComplete();
+        Assertions.assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void cancelledCallerStillPopulatesTheCache() {
+        SingleFlightCache<String, String> cache = cache(Duration.ofMinutes(1));
+        Sinks.One<String> result = Sinks.one();
+        StepVerifier.create(cache.get("NVDA", () -> { loads.incrementAndGet(); return result.asMono(); }))
+                .expectSubscription()
+                .thenCancel()
+                .verify();
+        result.tryEmitValue("late");
+        StepVerifier.create(cache.get("NVDA", () -> { loads.incrementAndGet(); return Mono.just("again"); }))
+                .expectNext("late").verifyComplete();
+        Assertions.assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void attachedCallersCancelTheComputationWhenTheyAllLeave() {
+        SingleFlightCache<String, String> cache = cache(Duration.ofMinutes(1));
+        AtomicInteger cancelled = new AtomicInteger();
+        Mono<String> never = Mono.<String>never().doOnCancel(cancelled::incrementAndGet);
+
+        Disposable a = cache.get("AMD", () -> { loads.incrementAndGet(); return never; }, false).subscribe();
+        Disposable b = cache.get("AMD", () -> { loads.incrementAndGet(); return never; }, false).subscribe();
+        a.dispose();
+        Assertions.assertThat(cancelled).hasValue(0);   // 아직 기다리는 구독자가 있음
+        b.dispose();
+        Assertions.assertThat(cancelled).hasValue(1);
+        Assertions.assertThat(cache.size()).isZero();
+
+        StepVerifier.create(cache.get("AMD", () -> { loads.incrementAndGet(); return Mono.just("fresh"); }, false))
+                .expectNext("fresh").verifyComplete();
+        Assertions.assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void detachedCallerKeepsASharedComputationAlive() {
+        SingleFlightCache<String, String> cache = cache(Duration.ofMinutes(1));
+        Sinks.One<String> result = Sinks.one();
+        Disposable screen = cache.get("INTC", () -> { loads.incrementAndGet(); return result.asMono(); }, false).subscribe();
+        Disposable api = cache.get("INTC", () -> { loads.incrementAndGet(); return Mono.just("other"); }).subscribe();
+        screen.dispose();
+        api.dispose();
+
+        result.tryEmitValue("kept");
+        StepVerifier.create(cache.get("INTC", () -> Mono.just("again"), false)).expectNext("kept").verifyComplete();
+        Assertions.assertThat(loads).hasValue(1);
+    }
+}
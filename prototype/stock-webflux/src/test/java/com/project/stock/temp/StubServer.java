@@ -0,0 +1,210 @@
+package com.project.stock.temp;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 로컬 SEC 대역 서버(JDK HttpServer). fetcher 를 data.sec.gov 대신 여기로 향하게 한다
+ * - 경로 → JSON 본문, 등록하지 않은 경로는 404. 경로별 응답 지연(404 포함)·오류 상태 선택
+ * - 경로별 validator(ETag/Last-Modified): 응답에 붙이고, 요청의 If-None-Match/If-Modified-Since 가 맞으면 본문 없이 304
+ * - frames 경로는 등록하지 않으면 빈 frame → frames 에 없는 filer 는 종목별 폴백으로 간다
+ * - 받은 요청 경로를 순서대로 기록, 요청별 처리 구간으로 동시 처리 수의 최댓값 계산
+ * fetcher 는 이 서버 전용 SEC 버킷(1000 req/s)을 쓴다 — SEC 경로는 실제와 같이 버킷을 거치되 테스트끼리 공용 버킷을 나눠 쓰지 않게
+ * 컨트롤러 테스트(다른 패키지)도 쓰므로 기본 기능(시작/경로 등록/오류 상태/fetcher)은 public
+ * 요청마다 스레드를 쓰므로(기본 HttpServer 는 단일 스레드) 지연 응답끼리 겹칠 수 있다
+ */
+public final class StubServer implements AutoCloseable {
+
+    static final String EMPTY_FRAME = "{\"taxonomy\":\"us-gaap\",\"pts\":0,\"data\":[]}";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, String> routes = new ConcurrentHashMap<>();
+    private final Map<String, Long> delays = new ConcurrentHashMap<>();
+    private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> validators = new ConcurrentHashMap<>();   // 경로 → [etag, lastModified]
+    private final Map<String, Headers> lastHeaders = new ConcurrentHashMap<>();
+    private final Queue<String> requested = new ConcurrentLinkedQueue<>();
+    private final Queue<Exchange> exchanges = new ConcurrentLinkedQueue<>();
+    private volatile long defaultDelayMillis;
+    private final SecRateLimiter secLimiter = new SecRateLimiter(1_000);
+
+    private StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public static StubServer start() throws IOException {
+        return new StubServer();
+    }
+
+    String base() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /** body 가 null 이면 404 */
+    public StubServer route(String path, String body) {
+        if (body == null) routes.remove(path);
+        else routes.put(path, body);
+        return this;
+    }
+
+    StubServer route(String path, long delayMillis, String body) {
+        delays.put(path, delayMillis);
+        return route(path, body);
+    }
+
+    /** 지연을 따로 등록하지 않은 경로(404 포함)의 응답 지연 */
+    StubServer delayAll(long delayMillis) {
+        this.defaultDelayMillis = delayMillis;
+        return this;
+    }
+
+    /** 본문 없이 status(5xx 등)로 응답 */
+    public StubServer fail(String path, int status) {
+        failures.put(path, status);
+        return this;
+    }
+
+    /** 둘 중 하나는 null 가능 */
+    StubServer validators(String path, String etag, String lastModified) {
+        validators.put(path, Arrays.asList(etag, lastModified));
+        return this;
+    }
+
+    /** 그 경로로 마지막에 받은 요청의 헤더(받은 적 없으면 null) */
+    Headers lastRequestHeaders(String path) {
+        return lastHeaders.get(path);
+    }
+
+    /** companyconcept: 분기(Q1) 팩트 하나짜리 응답 등록 */
+    StubServer concept(String cik, String tag, String unit, LocalDate end, double val) {
+        return route("/api/xbrl/companyconcept/CIK" + cik + "/us-gaap/" + tag + ".json", conceptJson(tag, unit, end, val));
+    }
+
+    static String conceptJson(String tag, String unit, LocalDate end, double val) {
+        return "{\"cik\":1,\"taxonomy\":\"us-gaap\",\"tag\":\"" + tag + "\",\"units\":{\"" + unit + "\":[{\"start\":\""
+                + end.minusDays(90) + "\",\"end\":\"" + end + "\",\"val\":" + val
+                + ",\"fy\":" + end.getYear() + ",\"fp\":\"Q1\",\"form\":\"10-Q\"}]}}";
+    }
+
+    Queue<String> requested() {
+        return requested;
+    }
+
+    private record Exchange(String path, long startNanos, long endNanos) {}
+
+    /** 경로에 fragment 가 들어간 요청이 동시에 처리 중이던 최대 수 */
+    int peakInFlight(String fragment) {
+        List<long[]> events = new ArrayList<>();   // {시각, +1/-1}
+        for (Exchange e : exchanges) {
+            if (!e.path().contains(fragment)) continue;
+            events.add(new long[]{e.startNanos(), 1});
+            events.add(new long[]{e.endNanos(), -1});
+        }
+        // 같은 시각이면 끝난 것부터
+        events.sort(Comparator.<long[]>comparingLong(ev -> ev[0]).thenComparingLong(ev -> ev[1]));
+        int now = 0, peak = 0;
+        for (long[] ev : events) peak = Math.max(peak, now += (int) ev[1]);
+        return peak;
+    }
+
+    /** frames 를 뺀 요청(종목별 호출) */
+    List<String> perFilerRequests() {
+        return requested.stream().filter(p -> !p.contains("/frames/")).toList();
+    }
+
+    public StockMetricsFetcher fetcher(Path cacheDir) {
+        return fetcher(cacheDir, new SimpleMeterRegistry());
+    }
+
+    StockMetricsFetcher fetcher(Path cacheDir, MeterRegistry registry) {
+        return fetcher(cacheDir, registry, secLimiter);
+    }
+
+    StockMetricsFetcher fetcher(Path cacheDir, MeterRegistry registry, SecRateLimiter limiter) {
+        return fetcher(new HttpDiskCache(cacheDir), registry, limiter);
+    }
+
+    StockMetricsFetcher fetcher(HttpDiskCache cache, MeterRegistry registry) {
+        return fetcher(cache, registry, secLimiter);
+    }
+
+    private StockMetricsFetcher fetcher(HttpDiskCache cache, MeterRegistry registry, SecRateLimiter limiter) {
+        return new StockMetricsFetcher(cache, null, base(), registry, limiter);
+    }
+
+    private void handle(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        long start = System.nanoTime();
+        requested.add(path);
+        lastHeaders.put(path, exchange.getRequestHeaders());
+        respond(exchange, path, start);
+    }
+
+    private void respond(HttpExchange exchange, String path, long start) {
+        String body = routes.get(path);
+        if (body == null && path.contains("/frames/")) body = EMPTY_FRAME;
+        long delay = delays.getOrDefault(path, defaultDelayMillis);
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Integer failure = failures.get(path);
+        if (failure != null) body = null;
+        int status = failure != null ? failure : body == null ? 404 : 200;
+        List<String> validator = validators.get(path);
+        if (status == 200 && validator != null) {
+            String etag = validator.get(0), lastModified = validator.get(1);
+            if (etag != null) exchange.getResponseHeaders().set("ETag", etag);
+            if (lastModified != null) exchange.getResponseHeaders().set("Last-Modified", lastModified);
+            Headers request = exchange.getRequestHeaders();
+            if (etag != null && etag.equals(request.getFirst("If-None-Match"))
+                    || lastModified != null && lastModified.equals(request.getFirst("If-Modified-Since"))) {
+                status = 304;
+                body = null;
+            }
+        }
+        byte[] bytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        // 응답을 보내기 전에 끝으로 기록: 클라이언트가 응답을 받고 보내는 다음 요청과 겹쳐 세지 않게
+        exchanges.add(new Exchange(path, start, System.nanoTime()));
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(status, body == null ? -1 : bytes.length);
+            out.write(bytes);
+        } catch (IOException ignored) {
+            // 클라이언트가 취소하고 끊은 연결
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,108 @@
+package com.project.stock.temp;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * 태그 기억(TagAffinity): 파일 왕복/압축, 그리고 두 번째 실행에서 개념당 companyconcept 1회만 요청하는지
+ * - frames 는 비어 있어 CIK 1 은 종목별 폴백. 매출은 Revenues, 영업이익은 OperatingIncomeLoss, EPS 는 EarningsPerShareBasic 에만 팩트
+ */
+class TagAffinityTest {
+
+    @TempDir
+    Path dir;
+
+    private StubServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = StubServer.start();
+        LocalDate end = LocalDate.now(ZoneOffset.UTC).minusDays(40);
+        server.concept("0000000001", "Revenues", "USD", end, 100)
+                .concept("0000000001", "OperatingIncomeLoss", "USD", end, 10)
+                .concept("0000000001", "EarningsPerShareBasic", "USD/shares", end, 1.5);
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void secondRunAsksOnlyTheLearnedTagPerConcept() throws IOException {
+        StockMetricsFetcher first = server.fetcher(dir.resolve("a"));
+        load(first);
+        Assertions.assertThat(server.perFilerRequests()).hasSizeGreaterThan(10);   // 매출 9개 태그 + companyfacts + EPS 3개 ...
+        first.tagAffinity().flush();
+        Assertions.assertThat(first.tagAffinity().tags("0000000001", "revenue"))
+                .containsExactly(new TagAffinity.Tag("us-gaap", "Revenues"));
+        Assertions.assertThat(first.tagAffinity().tags("0000000001", "eps"))
+                .containsExactly(new TagAffinity.Tag("us-gaap", "EarningsPerShareBasic"));
+
+        // 디스크 캐시는 비우고 기억 파일만 가져간다 → 네트워크 요청 수로 확인
+        Files.createDirectories(dir.resolve("b"));
+        Files.copy(dir.resolve("a").resolve(TagAffinity.FILE_NAME), dir.resolve("b").resolve(TagAffinity.FILE_NAME));
+        server.requested().clear();
+        MeterRegistry registry = new SimpleMeterRegistry();
+        StockMetricsFetcher second = server.fetcher(dir.resolve("b"), registry);
+        load(second);
+        Assertions.assertThat(server.perFilerRequests()).containsExactlyInAnyOrder(
+                "/api/xbrl/companyconcept/CIK0000000001/us-gaap/Revenues.json",
+                "/api/xbrl/companyconcept/CIK0000000001/us-gaap/OperatingIncomeLoss.json",
+                "/api/xbrl/companyconcept/CIK0000000001/us-gaap/EarningsPerShareBasic.json");
+        Assertions.assertThat(registry.get("fetcher.tag.affinity").tag("result", "hit").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void emptyLearnedTagFallsBackToFullWalkAndRelearns() {
+        StockMetricsFetcher fetcher = server.fetcher(dir.resolve("a"));
+        fetcher.tagAffinity().learn("0000000001", "operatingIncome", List.of(new TagAffinity.Tag("us-gaap", "IncomeLossFromOperations")));
+        load(fetcher);
+        Assertions.assertThat(fetcher.tagAffinity().tags("0000000001", "operatingIncome"))
+                .containsExactly(new TagAffinity.Tag("us-gaap", "OperatingIncomeLoss"));
+        Assertions.assertThat(server.requested()).contains("/api/xbrl/companyconcept/CIK0000000001/us-gaap/IncomeLossFromOperations.json");
+    }
+
+    @Test
+    void reopensWithLastLinePerKeyAndCompacts() throws IOException {
+        Path file = dir.resolve(TagAffinity.FILE_NAME);
+        TagAffinity affinity = TagAffinity.open(file);
+        affinity.learn("0000000001", "eps", List.of(new TagAffinity.Tag("us-gaap", "EarningsPerShareBasic")));
+        affinity.learn("0000000001", "eps", List.of(new TagAffinity.Tag("us-gaap", "EarningsPerShareDiluted")));
+        affinity.learn("0000000001", "eps", List.of());   // 전체 탐색 실패는 기억을 지우지 않음
+        affinity.learn("0000000002", "revenue", List.of(new TagAffinity.Tag("us-gaap", "SalesRevenueNet"),
+                new TagAffinity.Tag("us-gaap", "Revenues")));
+        affinity.flush();
+        Files.writeString(file, "garbage line\n", StandardOpenOption.APPEND);
+
+        TagAffinity reopened = TagAffinity.open(file);
+        Assertions.assertThat(reopened.tags("0000000001", "eps")).containsExactly(new TagAffinity.Tag("us-gaap", "EarningsPerShareDiluted"));
+        Assertions.assertThat(reopened.tags("0000000002", "revenue")).extracting(TagAffinity.Tag::name)
+                .containsExactly("SalesRevenueNet", "Revenues");
+        Assertions.assertThat(reopened.tags("0000000003", "revenue")).isEmpty();
+        Assertions.assertThat(Files.readAllLines(file)).hasSize(2);
+    }
+
+    private void load(StockMetricsFetcher fetcher) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        StepVerifier.create(fetcher.loadUniverseFromFrames(List.of("0000000001"), today, 4))
+                .assertNext(universe -> Assertions.assertThat(universe.get("0000000001").fromFrames).isFalse())
+                .expectComplete()
+                .verify(Duration.ofSeconds(60));
+    }
+}
@@ -0,0 +1,122 @@
+package com.project.stock.temp;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * 후보 태그 동시 요청(fetchTagsByPriority)을 지연을 주는 로컬 대역 서버로 검증
+ * - EPS 후보 3개의 응답 시각을 바꿔 가며: 결과는 항상 순위가 가장 높은 비지 않은 태그, 낮은 순위 요청은 취소
+ * - 동시 요청 상한은 개념별이 아니라 종목 단위
+ */
+class TagFanoutTest {
+
+    private static final String CIK = "0000000001";
+
+    @TempDir
+    Path cacheDir;
+
+    private StubServer server;
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private HttpDiskCache cache;
+    private StockMetricsFetcher fetcher;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = StubServer.start();
+        cache = new HttpDiskCache(cacheDir);
+        fetcher = server.fetcher(cache, registry);
+    }
+
+    /** 취소된 요청의 임시 blob 정리는 비동기: 끝나기 전에 @TempDir 를 지우면 삭제가 실패한다 */
+    @AfterEach
+    void stop() throws InterruptedException {
+        server.close();
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (cache.openWriters() > 0 && System.nanoTime() < deadline) Thread.sleep(10);
+    }
+
+    @Test
+    void fasterLowerPriorityWinsOnlyAfterHigherOnesComeBackEmpty() {
+        eps("EarningsPerShareDiluted", 300, null);
+        eps("EarningsPerShareBasicAndDiluted", 50, 1.0);
+        eps("EarningsPerShareBasic", 5_000, 2.0);   // 순위 2 가 팩트를 주는 순간 취소돼야 함
+
+        long t0 = System.nanoTime();
+        load();
+        Assertions.assertThat(Duration.ofNanos(System.nanoTime() - t0)).isLessThan(Duration.ofSeconds(4));
+        Assertions.assertThat(fetcher.tagAffinity().tags(CIK, "eps"))
+                .containsExactly(new TagAffinity.Tag("us-gaap", "EarningsPerShareBasicAndDiluted"));
+        Assertions.assertThat(cancelledConceptRequests()).isPositive();
+    }
+
+    @Test
+    void higherPriorityWinsEvenWhenSlower() {
+        eps("EarningsPerShareDiluted", 600, 3.0);
+        eps("EarningsPerShareBasicAndDiluted", 20, 1.0);
+        eps("EarningsPerShareBasic", 20, 2.0);
+
+        load();
+        Assertions.assertThat(fetcher.tagAffinity().tags(CIK, "eps"))
+                .containsExactly(new TagAffinity.Tag("us-gaap", "EarningsPerShareDiluted"));
+    }
+
+    @Test
+    void fanoutOfOneKeepsSequentialOrder() {
+        fetcher.tagFanout(1);
+        eps("EarningsPerShareDiluted", 0, null);
+        eps("EarningsPerShareBasicAndDiluted", 0, 1.0);
+        eps("EarningsPerShareBasic", 0, 2.0);
+
+        load();
+        Assertions.assertThat(fetcher.tagAffinity().tags(CIK, "eps"))
+                .containsExactly(new TagAffinity.Tag("us-gaap", "EarningsPerShareBasicAndDiluted"));
+        Assertions.assertThat(registry.find("fetcher.requests").tag("endpoint", "companyconcept").timers().stream()
+                .mapToLong(Timer::count).sum()).isGreaterThan(0);
+        Assertions.assertThat(cancelledConceptRequests()).isZero();
+    }
+
+    /** 개념 로더 셋(매출은 후보 태그 전부)이 동시에 돌아도 한 종목의 companyconcept 요청은 tagFanout 개까지 */
+    @Test
+    void fanoutLimitsAllConceptsOfOneTicker() {
+        fetcher.tagFanout(2);
+        server.delayAll(80);   // 모든 후보가 (지연 후) 404 → 취소 없이 전부 요청
+
+        load();
+        long concepts = server.requested().stream().filter(p -> p.contains("/companyconcept/")).count();
+        Assertions.assertThat(concepts).isGreaterThan(6);
+        Assertions.assertThat(server.peakInFlight("/companyconcept/")).isEqualTo(2);
+    }
+
+    private void load() {
+        StepVerifier.create(fetcher.loadUniverseFromFrames(List.of(CIK), LocalDate.now(ZoneOffset.UTC), 4))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify(Duration.ofSeconds(30));
+    }
+
+    private long cancelledConceptRequests() {
+        return registry.find("fetcher.requests").tags("endpoint", "companyconcept", "outcome", "cancelled")
+                .timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    /** val 이 null 이면 (지연 후) 404 */
+    private void eps(String tag, long delayMillis, Double val) {
+        LocalDate end = LocalDate.now(ZoneOffset.UTC).minusDays(40);
+        server.route("/api/xbrl/companyconcept/CIK" + CIK + "/us-gaap/" + tag + ".json", delayMillis,
+                val == null ? null : StubServer.conceptJson(tag, "USD/shares", end, val));
+    }
+}
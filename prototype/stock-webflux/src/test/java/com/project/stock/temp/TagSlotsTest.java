@@ -0,0 +1,56 @@
+package com.project.stock.temp;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class TagSlotsTest {
+
+    private final TagSlots slots = new TagSlots(2);
+
+    @Test
+    void waitersStartInOrderAsSlotsFreeAndCancelledWaitersLeave() {
+        Sinks.One<String> first = Sinks.one();
+        Disposable held = slots.run(first.asMono()).subscribe();
+        Disposable holding = slots.run(Mono.never()).subscribe();
+        List<String> started = new ArrayList<>();
+        Disposable abandoned = slots.run(Mono.fromRunnable(() -> started.add("abandoned"))).subscribe();
+        slots.run(Mono.fromRunnable(() -> started.add("next"))).subscribe();
+        Assertions.assertThat(slots.queued()).isEqualTo(2);
+
+        abandoned.dispose();
+        Assertions.assertThat(slots.queued()).isEqualTo(1);
+
+        first.tryEmitValue("done");   // 끝난 슬롯은 줄의 다음 작업에게
+        Assertions.assertThat(started).containsExactly("next");
+        Assertions.assertThat(slots.inFlight()).isEqualTo(1);
+
+        holding.dispose();   // 실행 중 취소도 반납
+        Assertions.assertThat(slots.inFlight()).isZero();
+        Assertions.assertThat(held.isDisposed()).isTrue();
+    }
+
+    @Test
+    void neverRunsMoreThanPermits() {
+        List<Sinks.Empty<Void>> running = new ArrayList<>();
+        for (int i = 0; i < 5; i++) slots.run(Mono.defer(() -> {
+            Sinks.Empty<Void> work = Sinks.empty();
+            running.add(work);
+            return work.asMono();
+        })).subscribe();
+        Assertions.assertThat(running).hasSize(2);
+        Assertions.assertThat(slots.queued()).isEqualTo(3);
+
+        while (!running.isEmpty()) {
+            running.remove(0).tryEmitEmpty();
+            Assertions.assertThat(slots.inFlight()).isLessThanOrEqualTo(2);
+        }
+        Assertions.assertThat(slots.inFlight()).isZero();
+        Assertions.assertThat(slots.queued()).isZero();
+    }
+}
@@ -0,0 +1,82 @@
+package com.project.stock.temp;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.FileSystemUtils;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+class TickerIndexTest {
+
+    private static final String JSON = """
+            {"0":{"cik_str":320193,"ticker":"AAPL","title":"Apple Inc."},
+             "1":{"cik_str":789019,"ticker":"MSFT","title":"MICROSOFT CORP"},
+             "2":{"cik_str":1652044,"ticker":"GOOGL","title":"Alphabet Inc."},
+             "3":{"cik_str":1652044,"ticker":"GOOG","title":"Alphabet Inc."},
+             "4":{"cik_str":1,"ticker":"aapl","title":"duplicate, lower rank"},
+             "5":{"cik_str":1750,"ticker":"AIR","title":"AAR CORP"}}""";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void binarySearchPrefixAndSecOrder() throws IOException {
+        TickerIndex index = TickerIndex.parse(JSON.getBytes(StandardCharsets.UTF_8), 0L);
+
+        Assertions.assertThat(index.size()).isEqualTo(5);
+        Assertions.assertThat(index.cik("AAPL")).isEqualTo(320193);   // 먼저 나온(상위) 항목
+        Assertions.assertThat(index.cikString("GOOG")).isEqualTo("0001652044");
+        Assertions.assertThat(index.cik("NOPE")).isEqualTo(-1);
+        Assertions.assertThat(index.withPrefix("GO", 10)).containsExactly("GOOG", "GOOGL");
+        Assertions.assertThat(index.withPrefix("A", 1)).containsExactly("AAPL");
+        Assertions.assertThat(index.withPrefix("Z", 10)).isEmpty();
+        Assertions.assertThat(index.entries()).extracting(Map.Entry::getKey)
+                .containsExactly("AAPL", "MSFT", "GOOGL", "GOOG", "AIR");
+        Assertions.assertThat(TickerIndex.cikString(0)).isEqualTo("0000000000");
+    }
+
+    @Test
+    void snapshotRoundTrips() throws IOException {
+        TickerIndex index = TickerIndex.parse(JSON.getBytes(StandardCharsets.UTF_8), 1234L);
+        Path file = dir.resolve("tickers.idx");
+        index.write(file);
+
+        TickerIndex read = TickerIndex.read(file);
+        Assertions.assertThat(read.builtAtMillis()).isEqualTo(1234L);
+        Assertions.assertThat(read.entries()).containsExactlyElementsOf(index.entries());
+        Assertions.assertThat(read.withPrefix("A", 10)).containsExactly("AAPL", "AIR");
+
+        Files.write(file, new byte[]{1, 2, 3});
+        Assertions.assertThat(TickerIndex.read(file)).isNull();
+        Assertions.assertThat(TickerIndex.read(dir.resolve("missing.idx"))).isNull();
+    }
+
+    @Test
+    void fetcherLoadsFreshSnapshotWithoutDownloading() throws IOException {
+        try (StubServer server = StubServer.start()) {
+            server.route("/files/company_tickers.json", JSON);
+            StepVerifier.create(server.fetcher(dir).tickerIndex())
+                    .assertNext(index -> Assertions.assertThat(index.cikString("MSFT")).isEqualTo("0000789019"))
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(30));
+            Assertions.assertThat(server.requested()).hasSize(1);
+            Assertions.assertThat(dir.resolve(StockMetricsFetcher.TICKER_SNAPSHOT)).exists();
+
+            // HTTP 캐시를 지워도 스냅숏이 TTL 안이면 JSON 을 다시 받지 않는다
+            FileSystemUtils.deleteRecursively(dir.resolve("entries"));
+            StepVerifier.create(server.fetcher(dir).fetchTickerList())
+                    .assertNext(list -> Assertions.assertThat(list).hasSize(5).first()
+                            .isEqualTo(Map.entry("AAPL", "0000320193")))
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(30));
+            Assertions.assertThat(server.requested()).hasSize(1);
+        }
+    }
+}